@@ -58,6 +58,11 @@ public interface DatabaseEventListener extends EventListener {
      */
     int STATE_STATEMENT_PROGRESS = 7;
 
+    /**
+     * This state is used while the CSVREAD function reads a file.
+     */
+    int STATE_READ_CSV = 8;
+
     /**
      * This method is called just after creating the object.
      * This is done when opening the database if the listener is specified
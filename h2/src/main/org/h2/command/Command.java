@@ -11,6 +11,7 @@
 import java.util.ArrayList;
 import java.util.Set;
 import org.h2.api.ErrorCode;
+import org.h2.command.dml.DataChangeStatement;
 import org.h2.engine.Constants;
 import org.h2.engine.Database;
 import org.h2.engine.DbObject;
@@ -37,7 +38,7 @@ public abstract class Command implements CommandInterface {
     /**
      * The session.
      */
-    protected final SessionLocal session;
+    protected SessionLocal session;
 
     /**
      * The last start time.
@@ -260,6 +261,11 @@ public BatchResult executeBatchUpdate(ArrayList<Value[]> batchParameters, Object
         try {
             session.waitIfExclusiveModeEnabled();
             int size = batchParameters.size();
+            DataChangeStatement statement;
+            if (size > 1 && (generatedKeysRequest == null || Boolean.FALSE.equals(generatedKeysRequest))
+                    && (statement = getBatchStatement()) != null) {
+                return executeBatchUpdate(batchParameters, statement);
+            }
             long[] updateCounts = new long[size];
             MergedResult generatedKeys = generatedKeysRequest != null ? new MergedResult() : null;
             ArrayList<SQLException> exceptions = new ArrayList<>();
@@ -291,6 +297,113 @@ public BatchResult executeBatchUpdate(ArrayList<Value[]> batchParameters, Object
         }
     }
 
+    /**
+     * Executes a batch of an INSERT, UPDATE, or DELETE command without
+     * generated keys. Parameter sets are bound and executed one after another
+     * with the same thread-local session, and the transaction is committed
+     * only once in auto-commit mode. INSERT commands may execute all rows
+     * within a single statement and in the order of their primary key. Each
+     * row is still rolled back separately on failure, so update counts and
+     * exceptions are the same as with separate executions.
+     *
+     * @param batchParameters the parameter sets
+     * @param statement the data change statement
+     * @return the result of the batch
+     */
+    private BatchResult executeBatchUpdate(ArrayList<Value[]> batchParameters, DataChangeStatement statement) {
+        Database database = getDatabase();
+        int size = batchParameters.size();
+        long[] updateCounts = new long[size];
+        SQLException[] exceptions = new SQLException[size];
+        boolean oneStatement = statement.isBatchedInOneStatement();
+        int[] order = oneStatement ? statement.getBatchOrder(batchParameters) : null;
+        ArrayList<? extends ParameterInterface> parameters = getParameters();
+        boolean callStop = true, inStatement = false;
+        Session oldSession = session.setThreadLocalSession();
+        try {
+            for (int n = 0; n < size; n++) {
+                int i = order != null ? order[n] : n;
+                Value[] set = batchParameters.get(i);
+                for (int j = 0, l = set.length; j < l; j++) {
+                    parameters.get(j).setValue(set[j], true);
+                }
+                if (!inStatement) {
+                    session.startStatementWithinTransaction(this);
+                    inStatement = true;
+                }
+                SessionLocal.Savepoint rollback = session.setSavepointWithinStatement();
+                long start = 0;
+                try {
+                    while (true) {
+                        database.checkPowerOff();
+                        try {
+                            updateCounts[i] = update(null).getUpdateCount();
+                            break;
+                        } catch (DbException e) {
+                            // cannot retry some commands
+                            if (!isRetryable() || e.getSQLException() instanceof SQLNonTransientException) {
+                                throw e;
+                            }
+                            start = filterConcurrentUpdate(e, start);
+                        }
+                    }
+                } catch (OutOfMemoryError e) {
+                    callStop = false;
+                    database.shutdownImmediately();
+                    throw DbException.convert(e);
+                } catch (Throwable t) {
+                    DbException e = DbException.convert(t).addSQL(sql);
+                    SQLException s = e.getSQLException();
+                    database.exceptionThrown(s, sql);
+                    if (s.getErrorCode() == ErrorCode.OUT_OF_MEMORY) {
+                        callStop = false;
+                        database.shutdownImmediately();
+                        throw e;
+                    }
+                    database.checkPowerOff();
+                    if (s.getErrorCode() == ErrorCode.DEADLOCK_1) {
+                        session.endStatement();
+                        inStatement = false;
+                        session.rollback();
+                    } else {
+                        session.rollbackTo(rollback);
+                    }
+                    updateCounts[i] = Statement.EXECUTE_FAILED;
+                    exceptions[i] = s;
+                }
+                if (!oneStatement && inStatement) {
+                    session.endStatement();
+                    inStatement = false;
+                }
+            }
+        } finally {
+            session.resetThreadLocalSession(oldSession);
+            if (inStatement) {
+                session.endStatement();
+            }
+            if (callStop) {
+                stop(true);
+            }
+        }
+        ArrayList<SQLException> list = new ArrayList<>();
+        for (SQLException e : exceptions) {
+            if (e != null) {
+                list.add(e);
+            }
+        }
+        return new BatchResult(updateCounts, null, list);
+    }
+
+    /**
+     * Returns the INSERT, UPDATE, or DELETE statement whose batches may be
+     * executed without separate executions of this command.
+     *
+     * @return the statement, or {@code null}
+     */
+    DataChangeStatement getBatchStatement() {
+        return null;
+    }
+
     private ResultWithGeneratedKeys executeUpdate(Object generatedKeysRequest, boolean commitIfAutoCommit) {
         long start = 0;
         boolean callStop = true;
@@ -399,6 +512,25 @@ public boolean isCacheable() {
         return false;
     }
 
+    /**
+     * Whether this command may be moved to another session of the same user
+     * with the same settings, see {@link #setSession(SessionLocal)}.
+     *
+     * @return true if the command may be moved to another session
+     */
+    public boolean isShareable() {
+        return false;
+    }
+
+    /**
+     * Move this command to another session. The command must not be in use.
+     *
+     * @param currentSession the new session
+     */
+    public void setSession(SessionLocal currentSession) {
+        this.session = currentSession;
+    }
+
     /**
      * Whether the command is already closed (in which case it can be re-used).
      *
@@ -12,6 +12,11 @@
 import org.h2.api.DatabaseEventListener;
 import org.h2.api.ErrorCode;
 import org.h2.command.dml.DataChangeStatement;
+import org.h2.command.dml.Delete;
+import org.h2.command.dml.Insert;
+import org.h2.command.dml.Merge;
+import org.h2.command.dml.Update;
+import org.h2.command.query.Query;
 import org.h2.engine.Database;
 import org.h2.engine.DbObject;
 import org.h2.engine.DbSettings;
@@ -29,6 +34,7 @@
 import org.h2.table.Column;
 import org.h2.table.DataChangeDeltaTable.ResultOption;
 import org.h2.table.Table;
+import org.h2.table.TableType;
 import org.h2.util.StringUtils;
 import org.h2.util.Utils;
 import org.h2.value.Value;
@@ -244,6 +250,37 @@ public boolean isCacheable() {
         return prepared.isCacheable();
     }
 
+    @Override
+    public boolean isShareable() {
+        Prepared p = prepared;
+        if (!(p instanceof Query || p instanceof Insert || p instanceof Update || p instanceof Delete
+                || p instanceof Merge) || !p.isCacheable() || p.needRecompile()) {
+            return false;
+        }
+        // nested queries are prepared for the session of the parser and
+        // aren't moved to other sessions
+        if (p.isWithSubqueries()) {
+            return false;
+        }
+        // views, derived tables, table functions, and local temporary tables
+        // have plans or data bound to the session
+        for (DbObject object : getDependencies()) {
+            if (object instanceof Table) {
+                Table table = (Table) object;
+                if (table.getTableType() != TableType.TABLE || table.isTemporary() && !table.isGlobalTemporary()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void setSession(SessionLocal currentSession) {
+        super.setSession(currentSession);
+        prepared.setSession(currentSession);
+    }
+
     @Override
     public int getCommandType() {
         return prepared.getType();
@@ -265,4 +302,17 @@ protected boolean isRetryable() {
         return prepared.isRetryable();
     }
 
+    @Override
+    DataChangeStatement getBatchStatement() {
+        recompileIfRequired();
+        switch (prepared.getType()) {
+        case CommandInterface.INSERT:
+        case CommandInterface.UPDATE:
+        case CommandInterface.DELETE:
+            return (DataChangeStatement) prepared;
+        default:
+            return null;
+        }
+    }
+
 }
@@ -395,9 +395,9 @@ public void close() {
         }
         session.lock();
         try {
-            session.traceOperation("COMMAND_CLOSE", id);
             for (Transfer transfer : transferList) {
                 try {
+                    session.traceOperation("COMMAND_CLOSE", id);
                     transfer.writeInt(SessionRemote.COMMAND_CLOSE).writeInt(id);
                 } catch (IOException e) {
                     trace.error(e, "close");
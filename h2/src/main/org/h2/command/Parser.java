@@ -370,6 +370,7 @@
 import org.h2.schema.UserDefinedFunction;
 import org.h2.table.CTE;
 import org.h2.table.Column;
+import org.h2.table.ColumnStatistics;
 import org.h2.table.DataChangeDeltaTable;
 import org.h2.table.DataChangeDeltaTable.ResultOption;
 import org.h2.table.DualTable;
@@ -431,6 +432,12 @@ public final class Parser extends ParserBase {
     private String schemaName;
     private boolean rightsChecked;
     private boolean recompileAlways;
+
+    /**
+     * Whether the statement contains nested query expressions or derived
+     * tables.
+     */
+    private boolean withSubqueries;
     private int orderInFrom;
     private boolean parseDomainConstraint;
     private QueryScope queryScope;
@@ -579,10 +586,12 @@ private Prepared parse(boolean withExpectedList) {
         currentPrepared = null;
         createView = null;
         recompileAlways = false;
+        withSubqueries = false;
         usedParameters.clear();
         read();
         Prepared p = parsePrepared();
         p.setPrepareAlways(recompileAlways);
+        p.setWithSubqueries(withSubqueries);
         p.setParameterList(parameters);
         return p;
     }
@@ -786,6 +795,7 @@ private Prepared parseBackup() {
         BackupCommand command = new BackupCommand(session);
         read(TO);
         command.setFileName(readExpression());
+        command.setIncremental(readIf("INCREMENTAL"));
         return command;
     }
 
@@ -1661,6 +1671,7 @@ private Merge parseReplace(int start) {
     private RefreshMaterializedView parseRefresh(int start) {
         read("MATERIALIZED");
         read("VIEW");
+        boolean concurrently = readIf("CONCURRENTLY");
         Table table = readTableOrView(/*resolveMaterializedView*/false);
         if (!(table instanceof MaterializedView)) {
             throw DbException.get(ErrorCode.VIEW_NOT_FOUND_1, table.getName());
@@ -1668,6 +1679,7 @@ private RefreshMaterializedView parseRefresh(int start) {
         RefreshMaterializedView command = new RefreshMaterializedView(session, getSchema());
         currentPrepared = command;
         command.setView((MaterializedView) table);
+        command.setConcurrently(concurrently);
         setSQL(command, start);
         return command;
     }
@@ -1801,6 +1813,7 @@ private TableFilter readCorrelation(TableFilter tableFilter) {
     }
 
     private TableFilter readDerivedTableWithCorrelation() {
+        withSubqueries = true;
         BitSet outerUsedParameters = openParametersScope();
         Query query = parseQueryExpression();
         ArrayList<Parameter> queryParameters = closeParametersScope(outerUsedParameters);
@@ -2477,6 +2490,16 @@ private Explain parseExplain() {
         return command;
     }
 
+    /**
+     * Parses a query used as an expression or in a predicate.
+     *
+     * @return the query
+     */
+    private Query parseSubquery() {
+        withSubqueries = true;
+        return parseQuery();
+    }
+
     private Query parseQuery() {
         BitSet outerUsedParameters = openParametersScope();
         Query query = parseQueryExpression();
@@ -3038,7 +3061,7 @@ private Expression readCondition() {
         case EXISTS: {
             read();
             read(OPEN_PAREN);
-            Query query = parseQuery();
+            Query query = parseSubquery();
             // can not reduce expression because it might be a union except
             // query with distinct
             read(CLOSE_PAREN);
@@ -3048,7 +3071,7 @@ private Expression readCondition() {
             read();
             NullsDistinct nullsDistinct = readNullsDistinct(NullsDistinct.DISTINCT);
             read(OPEN_PAREN);
-            Query query = parseQuery();
+            Query query = parseSubquery();
             read(CLOSE_PAREN);
             return new UniquePredicate(query, nullsDistinct);
         }
@@ -3200,7 +3223,7 @@ private Expression readInPredicate(Expression left, boolean not, boolean whenOpe
         }
         ArrayList<Expression> v;
         if (isQuery()) {
-            Query query = parseQuery();
+            Query query = parseSubquery();
             if (!readIfMore()) {
                 return new ConditionInQuery(left, not, whenOperand, query, false, Comparison.EQUAL);
             }
@@ -3249,7 +3272,7 @@ private Expression readComparison(Expression left, int compareType, boolean when
         int start = tokenIndex;
         if (readIf(ALL, OPEN_PAREN)) {
             if (isQuery()) {
-                left = new ConditionInQuery(left, false, whenOperand, parseQuery(), true, compareType);
+                left = new ConditionInQuery(left, false, whenOperand, parseSubquery(), true, compareType);
             } else {
                 left = new ConditionInArray(left, whenOperand, readExpression(), true, compareType);
             }
@@ -3266,7 +3289,7 @@ private Expression readComparison(Expression left, int compareType, boolean when
 
     private Expression readAnyComparison(Expression left, int compareType, boolean whenOperand, int start) {
         if (isQuery()) {
-            left = new ConditionInQuery(left, false, whenOperand, parseQuery(), false, compareType);
+            left = new ConditionInQuery(left, false, whenOperand, parseSubquery(), false, compareType);
         } else {
             left = new ConditionInArray(left, whenOperand, readExpression(), false, compareType);
         }
@@ -4901,7 +4924,7 @@ private Expression readTermWithoutIdentifier() {
         case TABLE:
         case SELECT:
         case WITH:
-            r = new Subquery(parseQuery());
+            r = new Subquery(parseSubquery());
             break;
         case MINUS_SIGN:
             read();
@@ -4933,7 +4956,7 @@ private Expression readTermWithoutIdentifier() {
             if (readIf(CLOSE_PAREN)) {
                 r = ValueExpression.get(ValueRow.EMPTY);
             } else if (isQuery()) {
-                r = new Subquery(parseQuery());
+                r = new Subquery(parseSubquery());
                 read(CLOSE_PAREN);
             } else {
                 r = readExpression();
@@ -4970,7 +4993,7 @@ private Expression readTermWithoutIdentifier() {
                 }
             } else {
                 read(OPEN_PAREN);
-                Query q = parseQuery();
+                Query q = parseSubquery();
                 read(CLOSE_PAREN);
                 r = new ArrayConstructorByQuery(q);
             }
@@ -5039,7 +5062,7 @@ private Expression readTermWithoutIdentifier() {
                     break;
                 }
             }
-            r = new Subquery(parseQuery());
+            r = new Subquery(parseSubquery());
             break;
         case CASE:
             read();
@@ -5681,6 +5704,9 @@ private Column parseColumnForTable(String columnName, boolean defaultNullable) {
         if (readIf("SELECTIVITY")) {
             column.setSelectivity(readNonNegativeInt());
         }
+        if (readIf("STATISTICS")) {
+            column.setStatistics(readColumnStatistics(column));
+        }
         if (mode.mySqlTableOptions) {
             if (readIfCompat("CHARACTER")) {
                 readIf(SET);
@@ -6366,6 +6392,46 @@ private TypeInfo parseRowType() {
         return TypeInfo.getTypeInfo(Value.ROW, -1L, -1, new ExtTypeInfoRow(fields));
     }
 
+    private ColumnStatistics readColumnStatistics(Column column) {
+        read(OPEN_PAREN);
+        long sampleRows = readLong();
+        read(COMMA);
+        long nullRows = readLong();
+        read(COMMA);
+        long distinctCount = readLong();
+        read(COMMA);
+        Value[] commonValues = readStatisticsValues(column);
+        read(COMMA);
+        Value[] counts = readStatisticsValues(null);
+        read(COMMA);
+        Value[] histogram = readStatisticsValues(column);
+        read(CLOSE_PAREN);
+        int length = counts.length;
+        if (length != commonValues.length) {
+            throw getSyntaxError();
+        }
+        long[] commonCounts = new long[length];
+        for (int i = 0; i < length; i++) {
+            commonCounts[i] = counts[i].getLong();
+        }
+        return new ColumnStatistics(sampleRows, nullRows, distinctCount, commonValues, commonCounts, histogram);
+    }
+
+    private Value[] readStatisticsValues(Column column) {
+        Value v = readExpression().optimize(session).getValue(session);
+        if (v.getValueType() != Value.ARRAY) {
+            throw getSyntaxError();
+        }
+        Value[] list = ((ValueArray) v).getList();
+        int length = list.length;
+        Value[] values = new Value[length];
+        for (int i = 0; i < length; i++) {
+            Value value = list[i];
+            values[i] = column != null ? column.convert(session, value) : value;
+        }
+        return values;
+    }
+
     private long readPrecision(int valueType) {
         long p = readPositiveLong();
         if (currentTokenType != IDENTIFIER || token.isQuoted()) {
@@ -61,6 +61,12 @@ public abstract class Prepared {
      */
     protected boolean prepareAlways;
 
+    /**
+     * Whether the statement contains nested query expressions or derived
+     * tables.
+     */
+    private boolean withSubqueries;
+
     private long modificationMetaId;
     private Command command;
     /**
@@ -397,6 +403,28 @@ public void setPrepareAlways(boolean prepareAlways) {
         this.prepareAlways = prepareAlways;
     }
 
+    /**
+     * Set whether the statement contains nested query expressions, such as
+     * scalar subqueries or IN, EXISTS, and quantified comparison predicates
+     * with queries, or derived tables.
+     *
+     * @param withSubqueries the new value
+     */
+    public void setWithSubqueries(boolean withSubqueries) {
+        this.withSubqueries = withSubqueries;
+    }
+
+    /**
+     * Whether the statement contains nested query expressions or derived
+     * tables. Such queries are bound to the session that prepared the
+     * statement.
+     *
+     * @return whether the statement contains nested queries
+     */
+    public boolean isWithSubqueries() {
+        return withSubqueries;
+    }
+
     /**
      * Set the current row number.
      *
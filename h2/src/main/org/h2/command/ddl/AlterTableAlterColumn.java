@@ -258,6 +258,7 @@ public long update() {
             }
             int value = newSelectivity.optimize(session).getValue(session).getInt();
             oldColumn.setSelectivity(value);
+            oldColumn.setStatistics(null);
             db.updateMeta(session, table);
             break;
         }
@@ -5,7 +5,9 @@
  */
 package org.h2.command.ddl;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.h2.command.CommandInterface;
 import org.h2.engine.Constants;
@@ -16,10 +18,13 @@
 import org.h2.result.Row;
 import org.h2.schema.Schema;
 import org.h2.table.Column;
+import org.h2.table.ColumnStatistics;
 import org.h2.table.Table;
 import org.h2.table.TableType;
 import org.h2.value.DataType;
+import org.h2.value.TypeInfo;
 import org.h2.value.Value;
+import org.h2.value.ValueNull;
 
 /**
  * This class represents the statements
@@ -126,6 +131,49 @@ private void rehash() {
 
     }
 
+    private static final class StatisticsData {
+
+        /**
+         * The maximum number of values to keep if all rows are analyzed.
+         */
+        private static final int MAX_VALUES = 100_000;
+
+        private final ArrayList<Value> values = new ArrayList<>();
+
+        private long nullCount;
+
+        private long nonNullCount;
+
+        StatisticsData() {
+        }
+
+        void add(Value v) {
+            if (v == ValueNull.INSTANCE) {
+                nullCount++;
+            } else if (values.size() < MAX_VALUES) {
+                nonNullCount++;
+                values.add(v);
+            } else {
+                // reservoir sampling
+                long index = ThreadLocalRandom.current().nextLong(++nonNullCount);
+                if (index < MAX_VALUES) {
+                    values.set((int) index, v);
+                }
+            }
+        }
+
+        ColumnStatistics getStatistics(SessionLocal session, long rowNumber, long totalRows) {
+            long nulls = nullCount;
+            if (nonNullCount > values.size()) {
+                // scale the number of NULL values to the kept sample
+                nulls = nulls * values.size() / nonNullCount;
+            }
+            long sampleRows = values.size() + nulls;
+            return ColumnStatistics.calculate(session, values, sampleRows, nulls, Math.max(totalRows, rowNumber));
+        }
+
+    }
+
     /**
      * The sample size.
      */
@@ -190,11 +238,16 @@ public static void analyzeTable(SessionLocal session, Table table, int sample, b
         Cursor cursor = table.getScanIndex(session).find(session, null, null, false);
         if (cursor.next()) {
             SelectivityData[] array = new SelectivityData[columnCount];
+            StatisticsData[] statistics = new StatisticsData[columnCount];
             for (int i = 0; i < columnCount; i++) {
                 Column col = columns[i];
-                if (!DataType.isLargeObject(col.getType().getValueType())) {
+                TypeInfo type = col.getType();
+                if (!DataType.isLargeObject(type.getValueType())) {
                     array[i] = new SelectivityData();
                 }
+                if (ColumnStatistics.isSupported(type)) {
+                    statistics[i] = new StatisticsData();
+                }
             }
             long rowNumber = 0;
             do {
@@ -202,20 +255,29 @@ public static void analyzeTable(SessionLocal session, Table table, int sample, b
                 for (int i = 0; i < columnCount; i++) {
                     SelectivityData selectivity = array[i];
                     if (selectivity != null) {
-                        selectivity.add(row.getValue(i));
+                        Value v = row.getValue(i);
+                        selectivity.add(v);
+                        StatisticsData data = statistics[i];
+                        if (data != null) {
+                            data.add(v);
+                        }
                     }
                 }
                 rowNumber++;
             } while ((sample <= 0 || rowNumber < sample) && cursor.next());
+            long totalRows = table.getRowCountApproximation(session);
             for (int i = 0; i < columnCount; i++) {
                 SelectivityData selectivity = array[i];
                 if (selectivity != null) {
                     columns[i].setSelectivity(selectivity.getSelectivity(rowNumber));
                 }
+                StatisticsData data = statistics[i];
+                columns[i].setStatistics(data != null ? data.getStatistics(session, rowNumber, totalRows) : null);
             }
         } else {
             for (int i = 0; i < columnCount; i++) {
                 columns[i].setSelectivity(0);
+                columns[i].setStatistics(null);
             }
         }
         session.getDatabase().updateMeta(session, table);
@@ -93,6 +93,7 @@ long update(Schema schema) {
         for (Table table : select.getTables()) {
             table.addDependentMaterializedView(view);
         }
+        view.setRegistrationModificationMetaId(db.getNextModificationMetaId());
         if (old == null) {
             db.addSchemaObject(session, view);
             db.unlockMeta(session);
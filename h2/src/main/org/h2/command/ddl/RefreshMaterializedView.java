@@ -5,10 +5,29 @@
  */
 package org.h2.command.ddl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeSet;
+
 import org.h2.command.CommandInterface;
+import org.h2.command.query.Query;
+import org.h2.engine.IsolationLevel;
 import org.h2.engine.SessionLocal;
+import org.h2.expression.Parameter;
+import org.h2.expression.condition.Comparison;
+import org.h2.index.Cursor;
+import org.h2.result.LocalResult;
+import org.h2.result.ResultInterface;
+import org.h2.result.Row;
+import org.h2.result.SearchRow;
+import org.h2.result.SortOrder;
 import org.h2.schema.Schema;
+import org.h2.table.Column;
 import org.h2.table.MaterializedView;
+import org.h2.table.Table;
+import org.h2.value.Value;
+import org.h2.value.ValueNull;
+import org.h2.value.ValueRow;
 
 /**
  * This class represents the statement REFRESH MATERIALIZED VIEW
@@ -17,6 +36,8 @@ public class RefreshMaterializedView extends SchemaOwnerCommand {
 
     private MaterializedView view;
 
+    private boolean concurrently;
+
     public RefreshMaterializedView(SessionLocal session, Schema schema) {
         super(session, schema);
     }
@@ -25,21 +46,180 @@ public void setView(MaterializedView view) {
         this.view = view;
     }
 
+    /**
+     * Sets whether the view should be refreshed without removal of all rows,
+     * so concurrent readers see the old content until the refresh is
+     * committed.
+     *
+     * @param concurrently whether CONCURRENTLY was specified
+     */
+    public void setConcurrently(boolean concurrently) {
+        this.concurrently = concurrently;
+    }
+
     @Override
     long update(Schema schema) {
-        // Re-use logic from the existing code for TRUNCATE and CREATE TABLE
-
-        TruncateTable truncate = new TruncateTable(session);
-        truncate.setTable(view.getUnderlyingTable());
-        truncate.update();
+        TreeSet<ValueRow> groups = view.takeChangedGroups();
+        IsolationLevel isolationLevel = session.getIsolationLevel();
+        // Other isolation levels may not see changes committed after the
+        // start of the transaction
+        boolean readCommitted = isolationLevel == IsolationLevel.READ_COMMITTED
+                || isolationLevel == IsolationLevel.READ_UNCOMMITTED;
+        try {
+            if (!readCommitted || groups == null || !refreshGroups(groups)) {
+                if (concurrently) {
+                    refreshConcurrently();
+                } else {
+                    // Re-use logic from the existing code for TRUNCATE and
+                    // CREATE TABLE
+                    TruncateTable truncate = new TruncateTable(session);
+                    truncate.setTable(view.getUnderlyingTable());
+                    truncate.update();
 
-        CreateTable createTable = new CreateTable(session, schema);
-        createTable.setQuery(view.getSelect());
-        createTable.insertAsData(view.getUnderlyingTable());
+                    CreateTable createTable = new CreateTable(session, schema);
+                    createTable.setQuery(view.getSelect());
+                    createTable.insertAsData(view.getUnderlyingTable());
+                }
+            }
+        } catch (Throwable e) {
+            view.addChangedGroups(null);
+            throw e;
+        }
+        if (!readCommitted) {
+            view.addChangedGroups(null);
+        }
         view.setModified();
         return 0;
     }
 
+    /**
+     * Recomputes only the specified groups of the view.
+     *
+     * @param groups the changed groups
+     * @return {@code false} if the full refresh is cheaper, {@code true} if
+     *         the groups were refreshed
+     */
+    private boolean refreshGroups(TreeSet<ValueRow> groups) {
+        if (groups.isEmpty()) {
+            return true;
+        }
+        int[] groupColumnIndexes = view.getGroupColumnIndexes();
+        int groupCount = groupColumnIndexes.length;
+        Query query = session.prepareQueryExpression(view.getQuerySQL(), null);
+        Parameter[] parameters = new Parameter[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            Parameter parameter = new Parameter(i);
+            query.addGlobalCondition(parameter, groupColumnIndexes[i], Comparison.EQUAL_NULL_SAFE);
+            parameters[i] = parameter;
+        }
+        query.preparePlan();
+        if (groupCount > 0 && groups.size() * query.getCost() > view.getSelect().getCost()) {
+            return false;
+        }
+        Table table = view.getUnderlyingTable();
+        table.lock(session, Table.WRITE_LOCK);
+        try {
+            session.startStatementWithinTransaction(null);
+            ArrayList<Row> removed = new ArrayList<>();
+            Cursor cursor = table.getScanIndex(session).find(session, null, null, false);
+            while (cursor.next()) {
+                Row row = cursor.get();
+                if (groups.contains(view.getGroupOfStoredRow(row))) {
+                    removed.add(row);
+                }
+            }
+            for (Row row : removed) {
+                table.removeRow(session, row);
+            }
+            for (ValueRow group : groups) {
+                Value[] values = group.getList();
+                for (int i = 0; i < groupCount; i++) {
+                    parameters[i].setValue(values[i]);
+                }
+                ResultInterface result = query.query(0);
+                while (result.next()) {
+                    addRow(table, result.currentRow());
+                }
+                result.close();
+            }
+        } finally {
+            session.endStatement();
+        }
+        return true;
+    }
+
+    /**
+     * Recomputes the whole view and applies only the differences to the
+     * underlying table.
+     */
+    private void refreshConcurrently() {
+        Table table = view.getUnderlyingTable();
+        table.lock(session, Table.WRITE_LOCK);
+        int degree = table.getColumns().length;
+        int[] indexes = new int[degree];
+        for (int i = 0; i < degree; i++) {
+            indexes[i] = i;
+        }
+        SortOrder sort = new SortOrder(session, indexes);
+        LocalResult oldRows = LocalResult.forTable(session, table);
+        LocalResult newRows = LocalResult.forTable(session, table);
+        try {
+            session.startStatementWithinTransaction(null);
+            oldRows.setSortOrder(sort);
+            Cursor cursor = table.getScanIndex(session).find(session, null, null, false);
+            while (cursor.next()) {
+                oldRows.addRowForTable(cursor.get());
+            }
+            oldRows.done();
+            newRows.setSortOrder(sort);
+            Column[] columns = table.getColumns();
+            ResultInterface result = view.getSelect().query(0);
+            while (result.next()) {
+                Value[] row = result.currentRow();
+                Value[] values = new Value[degree + 1];
+                for (int i = 0; i < degree; i++) {
+                    values[i] = columns[i].convert(session, row[i]);
+                }
+                values[degree] = ValueNull.INSTANCE;
+                newRows.addRow(values);
+            }
+            result.close();
+            newRows.done();
+            Value[] o = oldRows.next() ? oldRows.currentRow() : null;
+            Value[] n = newRows.next() ? newRows.currentRow() : null;
+            while (o != null || n != null) {
+                int cmp = o == null ? 1 : n == null ? -1 : sort.compare(o, n);
+                if (cmp == 0 && Arrays.equals(o, 0, degree, n, 0, degree)) {
+                    o = oldRows.next() ? oldRows.currentRow() : null;
+                    n = newRows.next() ? newRows.currentRow() : null;
+                    continue;
+                }
+                if (cmp <= 0) {
+                    table.removeRow(session, oldRows.currentRowForTable());
+                    o = oldRows.next() ? oldRows.currentRow() : null;
+                }
+                if (cmp >= 0) {
+                    addRow(table, n);
+                    n = newRows.next() ? newRows.currentRow() : null;
+                }
+            }
+        } finally {
+            session.endStatement();
+            oldRows.close();
+            newRows.close();
+        }
+    }
+
+    private void addRow(Table table, Value[] row) {
+        Column[] columns = table.getColumns();
+        int degree = columns.length;
+        Value[] values = new Value[degree];
+        for (int i = 0; i < degree; i++) {
+            values[i] = columns[i].convert(session, row[i]);
+        }
+        table.addRow(session, table.createRow(values, SearchRow.MEMORY_CALCULATE));
+    }
+
     @Override
     public int getType() {
         return CommandInterface.REFRESH_MATERIALIZED_VIEW;
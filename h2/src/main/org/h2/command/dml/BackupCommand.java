@@ -17,6 +17,8 @@
 import org.h2.engine.SessionLocal;
 import org.h2.expression.Expression;
 import org.h2.message.DbException;
+import org.h2.mvstore.FileStore;
+import org.h2.mvstore.MVStore;
 import org.h2.mvstore.db.Store;
 import org.h2.result.ResultInterface;
 import org.h2.store.FileLister;
@@ -30,6 +32,8 @@ public class BackupCommand extends Prepared {
 
     private Expression fileNameExpr;
 
+    private boolean incremental;
+
     public BackupCommand(SessionLocal session) {
         super(session);
     }
@@ -38,6 +42,10 @@ public void setFileName(Expression fileName) {
         this.fileNameExpr = fileName;
     }
 
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
     @Override
     public long update() {
         String name = fileNameExpr.getValue(session).getString();
@@ -54,6 +62,9 @@ private void backupTo(String fileName) {
         try {
             Store store = db.getStore();
             store.flush();
+            MVStore mvStore = store.getMvStore();
+            FileStore<?> fileStore = mvStore.getFileStore();
+            String positions = null;
             String name = db.getName();
             name = FileUtils.getName(name);
             try (OutputStream zip = FileUtils.newOutputStream(fileName, false)) {
@@ -68,12 +79,21 @@ private void backupTo(String fileName) {
                     ArrayList<String> fileList = FileLister.getDatabaseFiles(dir, name, true);
                     for (String n : fileList) {
                         if (n.endsWith(Constants.SUFFIX_MV_FILE)) {
-                            store.getMvStore().getFileStore().backup(out);
+                            if (incremental) {
+                                positions = fileStore.backupIncremental(out, mvStore.getBackupChunks());
+                            } else {
+                                positions = fileStore.getChunkPositions();
+                                fileStore.backup(out);
+                            }
                         }
                     }
                 }
                 out.close();
             }
+            // only remember the backed up chunks when the backup is complete
+            if (positions != null && !mvStore.isReadOnly()) {
+                mvStore.setBackupChunks(positions);
+            }
         } catch (IOException e) {
             throw DbException.convertIOException(e, fileName);
         }
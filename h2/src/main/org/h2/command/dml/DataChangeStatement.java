@@ -5,6 +5,8 @@
  */
 package org.h2.command.dml;
 
+import java.util.ArrayList;
+
 import org.h2.command.Prepared;
 import org.h2.engine.SessionLocal;
 import org.h2.expression.Expression;
@@ -14,6 +16,7 @@
 import org.h2.table.DataChangeDeltaTable.ResultOption;
 import org.h2.table.Table;
 import org.h2.table.TableFilter;
+import org.h2.value.Value;
 
 /**
  * Data change statement.
@@ -77,6 +80,28 @@ public final long update() {
         return update(null, null);
     }
 
+    /**
+     * Returns whether all rows of a batch may be changed within a single
+     * statement. Statements that search for rows need a new statement for each
+     * parameter set to see changes of previous ones.
+     *
+     * @return whether the batch may be executed within a single statement
+     */
+    public boolean isBatchedInOneStatement() {
+        return false;
+    }
+
+    /**
+     * Returns the order in which parameter sets of a batch should be executed.
+     *
+     * @param batchParameters the parameter sets
+     * @return indexes of parameter sets in the order of execution, or
+     *         {@code null} to execute them in the original order
+     */
+    public int[] getBatchOrder(ArrayList<Value[]> batchParameters) {
+        return null;
+    }
+
     /**
      * Execute the statement with specified delta change collector and collection mode.
      *
@@ -5,6 +5,8 @@
  */
 package org.h2.command.dml;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map.Entry;
@@ -14,22 +16,36 @@
 import org.h2.command.Command;
 import org.h2.command.CommandInterface;
 import org.h2.command.query.Query;
+import org.h2.constraint.Constraint;
+import org.h2.constraint.ConstraintCheck;
+import org.h2.constraint.ConstraintDomain;
+import org.h2.constraint.ConstraintReferential;
 import org.h2.engine.DbObject;
 import org.h2.engine.Right;
 import org.h2.engine.SessionLocal;
+import org.h2.expression.ArrayConstructorByQuery;
 import org.h2.expression.Expression;
 import org.h2.expression.ExpressionColumn;
 import org.h2.expression.ExpressionVisitor;
 import org.h2.expression.Parameter;
+import org.h2.expression.Subquery;
 import org.h2.expression.ValueExpression;
 import org.h2.expression.condition.Comparison;
 import org.h2.expression.condition.ConditionAndOr;
+import org.h2.expression.condition.ConditionInQuery;
+import org.h2.expression.condition.ExistsPredicate;
+import org.h2.expression.condition.UniquePredicate;
+import org.h2.expression.function.JavaFunction;
 import org.h2.index.Index;
+import org.h2.index.IndexType;
 import org.h2.message.DbException;
 import org.h2.mvstore.db.MVPrimaryIndex;
 import org.h2.result.ResultInterface;
 import org.h2.result.ResultTarget;
 import org.h2.result.Row;
+import org.h2.result.SearchRow;
+import org.h2.schema.Domain;
+import org.h2.schema.TriggerObject;
 import org.h2.table.Column;
 import org.h2.table.DataChangeDeltaTable;
 import org.h2.table.DataChangeDeltaTable.ResultOption;
@@ -80,6 +96,14 @@ public void setCommand(Command command) {
         }
     }
 
+    @Override
+    public void setSession(SessionLocal currentSession) {
+        super.setSession(currentSession);
+        if (query != null) {
+            query.setSession(currentSession);
+        }
+    }
+
     @Override
     public Table getTable() {
         return table;
@@ -332,6 +356,181 @@ public boolean isCacheable() {
         return duplicateKeyAssignmentMap == null;
     }
 
+    @Override
+    public boolean isBatchedInOneStatement() {
+        return query == null && valuesExpressionList.size() == 1 && duplicateKeyAssignmentMap == null && !ignore
+                && isIndependentOfPreviousRows();
+    }
+
+    /**
+     * Checks whether inserted values can't depend on rows inserted before them
+     * by the same batch. Triggers, subqueries, and user-defined functions in
+     * values, defaults, and check constraints may read the target table and
+     * see all rows of the batch if they are inserted by one statement.
+     *
+     * @return whether rows of a batch may be inserted by one statement
+     */
+    private boolean isIndependentOfPreviousRows() {
+        ArrayList<TriggerObject> triggers = table.getTriggers();
+        if (triggers != null && !triggers.isEmpty()) {
+            return false;
+        }
+        for (Expression e : valuesExpressionList.get(0)) {
+            if (mayReadTables(e)) {
+                return false;
+            }
+        }
+        for (Column column : table.getColumns()) {
+            if (mayReadTables(column.getEffectiveDefaultExpression())) {
+                return false;
+            }
+            for (Domain domain = column.getDomain(); domain != null; domain = domain.getDomain()) {
+                ArrayList<ConstraintDomain> constraints = domain.getConstraints();
+                if (constraints != null) {
+                    for (ConstraintDomain constraint : constraints) {
+                        if (mayReadTables(constraint.getExpression())) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        for (Constraint constraint : table.getConstraints()) {
+            if (constraint instanceof ConstraintCheck
+                    && mayReadTables(((ConstraintCheck) constraint).getExpression())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean mayReadTables(Expression e) {
+        if (e == null) {
+            return false;
+        }
+        if (e instanceof Subquery || e instanceof ArrayConstructorByQuery || e instanceof ConditionInQuery
+                || e instanceof ExistsPredicate || e instanceof UniquePredicate || e instanceof JavaFunction) {
+            return true;
+        }
+        for (int i = 0, l = e.getSubexpressionCount(); i < l; i++) {
+            if (mayReadTables(e.getSubexpression(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Orders rows by the primary key if it is used as the key of rows in the
+     * primary index and the result of insertion does not depend on the order
+     * of rows.
+     */
+    @Override
+    public int[] getBatchOrder(ArrayList<Value[]> batchParameters) {
+        int mainIndexColumn = table.getMainIndexColumn();
+        if (mainIndexColumn == SearchRow.ROWID_INDEX || !isOrderIndependent()) {
+            return null;
+        }
+        Expression[] expr = valuesExpressionList.get(0);
+        int parameterIndex = -1;
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].getColumnId() == mainIndexColumn) {
+                if (expr[i] instanceof Parameter) {
+                    parameterIndex = ((Parameter) expr[i]).getIndex();
+                }
+                break;
+            }
+        }
+        if (parameterIndex < 0) {
+            return null;
+        }
+        Column column = table.getColumn(mainIndexColumn);
+        int size = batchParameters.size();
+        Value[] keys = new Value[size];
+        boolean sorted = true;
+        try {
+            for (int i = 0; i < size; i++) {
+                Value[] set = batchParameters.get(i);
+                if (parameterIndex >= set.length) {
+                    return null;
+                }
+                Value key = column.convert(session, set[parameterIndex]);
+                if (sorted && i > 0 && table.compareValues(session, keys[i - 1], key) > 0) {
+                    sorted = false;
+                }
+                keys[i] = key;
+            }
+        } catch (DbException e) {
+            // the invalid value will be reported by insertion
+            return null;
+        }
+        if (sorted) {
+            return null;
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        // stable sort, duplicate keys fail in the original order
+        Arrays.sort(order, (a, b) -> table.compareValues(session, keys[a], keys[b]));
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether inserted rows don't depend on the order of insertion.
+     * Triggers, references to the same table, identity columns, and
+     * non-deterministic expressions may depend on it. Unique indexes other
+     * than the primary key and ON DUPLICATE KEY UPDATE may decide which of
+     * the conflicting rows is inserted or updated, so they depend on it too.
+     *
+     * @return whether the order of insertion can be changed
+     */
+    private boolean isOrderIndependent() {
+        if (duplicateKeyAssignmentMap != null) {
+            return false;
+        }
+        ArrayList<TriggerObject> triggers = table.getTriggers();
+        if (triggers != null && !triggers.isEmpty()) {
+            return false;
+        }
+        for (Index index : table.getIndexes()) {
+            IndexType indexType = index.getIndexType();
+            if (indexType.isUnique() && !indexType.isPrimaryKey()) {
+                return false;
+            }
+        }
+        for (Constraint constraint : table.getConstraints()) {
+            if (constraint instanceof ConstraintReferential
+                    && ((ConstraintReferential) constraint).getRefTable() == table) {
+                return false;
+            }
+        }
+        Expression[] expr = valuesExpressionList.get(0);
+        HashMap<Column, Expression> values = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            if (expr[i] != ValueExpression.DEFAULT) {
+                values.put(columns[i], expr[i]);
+            }
+        }
+        for (Column column : table.getColumns()) {
+            Expression e = values.get(column);
+            if (e == null) {
+                if (column.isIdentity()) {
+                    return false;
+                }
+                e = column.getEffectiveDefaultExpression();
+            }
+            if (e != null && !e.isEverything(ExpressionVisitor.DETERMINISTIC_VISITOR)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @param de duplicate key exception
      * @param currentRow current row values (optional)
@@ -63,6 +63,17 @@ public void setCommand(Command command) {
         }
     }
 
+    @Override
+    public void setSession(SessionLocal currentSession) {
+        super.setSession(currentSession);
+        if (query != null) {
+            query.setSession(currentSession);
+        }
+        if (update != null) {
+            update.setSession(currentSession);
+        }
+    }
+
     @Override
     public Table getTable() {
         return table;
@@ -21,6 +21,7 @@
 import org.h2.engine.Database;
 import org.h2.engine.DbObject;
 import org.h2.engine.IsolationLevel;
+import org.h2.engine.ResultCache;
 import org.h2.engine.SessionLocal;
 import org.h2.expression.Alias;
 import org.h2.expression.Expression;
@@ -39,6 +40,7 @@
 import org.h2.table.DerivedTable;
 import org.h2.table.Table;
 import org.h2.table.TableFilter;
+import org.h2.table.TableType;
 import org.h2.util.StringUtils;
 import org.h2.util.Utils;
 import org.h2.value.ExtTypeInfoRow;
@@ -154,6 +156,13 @@ static final class OffsetFetch {
     private boolean cacheableChecked;
     private boolean neverLazy;
 
+    /**
+     * The plan of this query for the database-wide result cache, or
+     * {@code null} if results of this query may not be shared.
+     */
+    private String sharedResultPlanSQL;
+    private boolean sharedResultChecked;
+
     boolean checkInit;
 
     boolean isPrepared;
@@ -545,7 +554,24 @@ public final ResultInterface query(long limit, ResultTarget target) {
         }
         closeLastResult();
 
-        ResultInterface r = queryWithoutCacheLazyCheck(limit, target);
+        ResultCache resultCache = getDatabase().getResultCache();
+        ResultCache.Key cacheKey = null;
+        ResultInterface r = null;
+        if (resultCache != null && target == null && isStable
+                && session.getIsolationLevel() == IsolationLevel.READ_COMMITTED) {
+            String planSQL = getSharedResultPlanSQL();
+            if (planSQL != null) {
+                cacheKey = new ResultCache.Key(session, planSQL, params, limit, inPredicateSortTypes);
+                r = resultCache.get(cacheKey, maxDataModificationId, session);
+            }
+        }
+        if (r == null) {
+            long modificationMetaId = getDatabase().getModificationMetaId();
+            r = queryWithoutCacheLazyCheck(limit, target);
+            if (cacheKey != null && maxDataModificationId <= now && r instanceof LocalResult) {
+                resultCache.put(cacheKey, (LocalResult) r, now, modificationMetaId, session);
+            }
+        }
 
         if (isStable && maxDataModificationId <= now) {
             lastParameters = params;
@@ -560,6 +586,37 @@ public final ResultInterface query(long limit, ResultTarget target) {
         return r;
     }
 
+    /**
+     * Returns the plan of this query for the database-wide result cache. Local
+     * temporary tables have data of the session, and system tables may return
+     * different rows to different users, so queries that use them are not
+     * shared.
+     *
+     * @return the plan, or {@code null} if results may not be shared
+     */
+    private String getSharedResultPlanSQL() {
+        if (!sharedResultChecked) {
+            HashSet<DbObject> dependencies = new HashSet<>();
+            collectDependencies(dependencies);
+            String planSQL = getPlanSQL(DEFAULT_SQL_FLAGS);
+            for (DbObject dependency : dependencies) {
+                if (dependency instanceof Table) {
+                    Table table = (Table) dependency;
+                    TableType tableType = table.getTableType();
+                    if (tableType != null && tableType != TableType.TABLE && tableType != TableType.VIEW
+                            && tableType != TableType.MATERIALIZED_VIEW
+                            || table.isTemporary() && !table.isGlobalTemporary()) {
+                        planSQL = null;
+                        break;
+                    }
+                }
+            }
+            sharedResultPlanSQL = planSQL;
+            sharedResultChecked = true;
+        }
+        return sharedResultPlanSQL;
+    }
+
     private void closeLastResult() {
         if (lastResult != null) {
             lastResult.close();
@@ -1043,6 +1100,29 @@ OffsetFetch getOffsetFetch(long maxRows) {
         return new OffsetFetch(offset, fetch, fetchPercent);
     }
 
+    /**
+     * Passes OFFSET and FETCH to a sorted result before rows are added to it,
+     * so the result can discard rows that will not be returned.
+     *
+     * @param result
+     *            the result
+     * @param offset
+     *            OFFSET value, or 0 if rows before OFFSET are not added
+     * @param fetch
+     *            FETCH value
+     * @param fetchPercent
+     *            whether FETCH value is a PERCENT value
+     */
+    void setTopRowsLimits(LocalResult result, long offset, long fetch, boolean fetchPercent) {
+        if (fetch > 0 && !fetchPercent) {
+            result.setOffset(offset);
+            result.setLimit(fetch);
+            if (withTies) {
+                result.setWithTies(sort);
+            }
+        }
+    }
+
     /**
      * Applies limits, if any, to a result and makes it ready for value
      * retrieval.
@@ -1186,6 +1266,18 @@ public void invalidateCachedResult(Table reason) {
         }
     }
 
+    @Override
+    public void setSession(SessionLocal currentSession) {
+        if (currentSession != session) {
+            super.setSession(currentSession);
+            // the cached result was produced by another session
+            resetLastResult();
+            if (sort != null) {
+                sort = sort.forSession(currentSession);
+            }
+        }
+    }
+
     private void resetLastResult() {
         lastParameters = null;
         lastResult = null;
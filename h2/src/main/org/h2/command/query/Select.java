@@ -17,32 +17,54 @@
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.h2.api.ErrorCode;
 import org.h2.api.Trigger;
+import org.h2.command.Prepared;
 import org.h2.engine.Constants;
 import org.h2.engine.Database;
 import org.h2.engine.Mode.ExpressionNames;
 import org.h2.engine.SessionLocal;
 import org.h2.expression.Alias;
+import org.h2.expression.BinaryOperation;
+import org.h2.expression.CompiledExpression;
 import org.h2.expression.Expression;
 import org.h2.expression.ExpressionColumn;
 import org.h2.expression.ExpressionList;
 import org.h2.expression.ExpressionVisitor;
 import org.h2.expression.Parameter;
+import org.h2.expression.SearchedCase;
+import org.h2.expression.SimpleCase;
+import org.h2.expression.TypedValueExpression;
+import org.h2.expression.UnaryOperation;
+import org.h2.expression.ValueExpression;
 import org.h2.expression.Wildcard;
+import org.h2.expression.aggregate.Aggregate;
 import org.h2.expression.analysis.DataAnalysisOperation;
 import org.h2.expression.analysis.Window;
+import org.h2.expression.condition.BetweenPredicate;
 import org.h2.expression.condition.Comparison;
 import org.h2.expression.condition.ConditionAndOr;
+import org.h2.expression.condition.ConditionAndOrN;
+import org.h2.expression.condition.ConditionInConstantSet;
+import org.h2.expression.condition.ConditionInList;
 import org.h2.expression.condition.ConditionLocalAndGlobal;
+import org.h2.expression.condition.ConditionNot;
+import org.h2.expression.condition.NullPredicate;
 import org.h2.expression.function.CoalesceFunction;
 import org.h2.index.Cursor;
 import org.h2.index.Index;
+import org.h2.index.IndexCondition;
 import org.h2.index.IndexSort;
 import org.h2.index.IndexType;
+import org.h2.index.LinkedIndex;
 import org.h2.index.QueryExpressionIndex;
 import org.h2.message.DbException;
+import org.h2.mvstore.db.MVPrimaryIndex;
 import org.h2.mode.DefaultNullOrdering;
 import org.h2.result.LazyResult;
 import org.h2.result.LocalResult;
@@ -56,11 +78,16 @@
 import org.h2.table.IndexColumn;
 import org.h2.table.Table;
 import org.h2.table.TableFilter;
+import org.h2.table.TableLink;
 import org.h2.table.TableType;
 import org.h2.util.StringUtils;
 import org.h2.util.Utils;
+import org.h2.value.CompareMode;
 import org.h2.value.DataType;
+import org.h2.value.TypeInfo;
 import org.h2.value.Value;
+import org.h2.value.ValueBigint;
+import org.h2.value.ValueNull;
 import org.h2.value.ValueRow;
 
 /**
@@ -78,6 +105,11 @@
  */
 public class Select extends Query {
 
+    /**
+     * The minimum number of rows in a table for a parallel scan.
+     */
+    private static final long PARALLEL_SCAN_MIN_ROWS = 10_000;
+
     private enum QuickOffset { NO, YES, PARTIAL }
 
     /**
@@ -150,16 +182,56 @@ private enum QuickOffset { NO, YES, PARTIAL }
      */
     boolean isGroupQuery;
     private boolean isGroupSortedQuery;
+
+    /**
+     * Whether groups of this query can be collected with hash-based lookup.
+     */
+    private boolean isHashGroupQuery;
+
+    /**
+     * Whether aggregates of this query can be calculated by parallel scans of
+     * key ranges of the table.
+     */
+    private boolean isParallelScanQuery;
+
+    /**
+     * Copies of this query for worker threads of parallel scans, or
+     * {@code null}.
+     */
+    private Select[] parallelScanCopies;
     private boolean isWindowQuery;
     private ForUpdate forUpdate;
     private double cost;
     private boolean isQuickAggregateQuery, isDistinctQuery;
+
+    /**
+     * Whether all expressions of this query over a linked table can be
+     * computed by the remote database.
+     */
+    private boolean isLinkedAggregateQuery;
     private int indexSortedColumns;
 
     private boolean isGroupWindowStage2;
 
     private HashMap<String, Window> windows;
 
+    /**
+     * The number of executions of this query, until its expressions are
+     * compiled.
+     */
+    private int executionCount;
+
+    /**
+     * The compiled WHERE condition, or {@code null}.
+     */
+    private CompiledExpression compiledCondition;
+
+    /**
+     * The compiled expressions of the select list of a flat query, or
+     * {@code null}. Expressions that aren't compiled are {@code null}.
+     */
+    private CompiledExpression[] compiledExpressions;
+
     public Select(SessionLocal session, Select parentSelect) {
         super(session);
         this.parentSelect = parentSelect;
@@ -305,6 +377,7 @@ public void addCondition(Expression cond) {
         } else {
             condition = new ConditionAndOr(ConditionAndOr.AND, cond, condition);
         }
+        resetCompiledExpressions();
     }
 
     public Expression getCondition() {
@@ -358,6 +431,277 @@ private boolean isHavingNullOrFalse(Value[] row) {
         return havingIndex >= 0 && !row[havingIndex].isTrue();
     }
 
+    /**
+     * Checks whether groups can be collected with hash-based partitioning.
+     * Values of all group expressions must have consistent {@code equals()}
+     * and {@code hashCode()} methods.
+     *
+     * @return whether groups can be collected with hash-based partitioning
+     */
+    private boolean isHashGroupQuery() {
+        if (!isGroupQuery || isGroupSortedQuery || isWindowQuery || isQuickAggregateQuery || groupIndex == null
+                || groupIndex.length == 0 || forUpdate != null) {
+            return false;
+        }
+        boolean defaultCollation = CompareMode.OFF.equals(getDatabase().getCompareMode().getName());
+        for (int index : groupIndex) {
+            switch (expressions.get(index).getType().getValueType()) {
+            case Value.VARCHAR:
+                if (!defaultCollation) {
+                    return false;
+                }
+                //$FALL-THROUGH$
+            case Value.BOOLEAN:
+            case Value.TINYINT:
+            case Value.SMALLINT:
+            case Value.INTEGER:
+            case Value.BIGINT:
+            case Value.VARBINARY:
+            case Value.DATE:
+            case Value.UUID:
+                break;
+            default:
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether aggregates can be calculated by parallel scans of key
+     * ranges of the table. Each worker evaluates its own copy of this query,
+     * so only simple deterministic expressions that reference only the
+     * scanned table are allowed.
+     *
+     * @return whether aggregates can be calculated by parallel scans
+     */
+    private boolean isParallelScanQuery() {
+        if (getDatabase().getSettings().parallelScanThreads <= 1 || !isGroupQuery || groupIndex != null
+                || isWindowQuery || isQuickAggregateQuery || forUpdate != null || filters.size() != 1
+                || topTableFilter.getJoin() != null || topTableFilter.getNestedJoin() != null
+                || !(topTableFilter.getIndex() instanceof MVPrimaryIndex)) {
+            return false;
+        }
+        // index conditions on the row key restrict the range of the scan
+        int mainIndexColumn = topTableFilter.getTable().getMainIndexColumn();
+        for (IndexCondition c : topTableFilter.getIndexConditions()) {
+            if (!c.isCompoundColumns()) {
+                int columnId = c.getColumn().getColumnId();
+                if (columnId == mainIndexColumn || columnId == SearchRow.ROWID_INDEX) {
+                    return false;
+                }
+            }
+        }
+        if (condition != null && !isParallelScanExpression(condition)) {
+            return false;
+        }
+        for (Expression e : expressions) {
+            if (!isParallelScanExpression(e)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isParallelScanExpression(Expression e) {
+        if (e instanceof ExpressionColumn) {
+            return ((ExpressionColumn) e).getTableFilter() == topTableFilter;
+        } else if (e instanceof Aggregate) {
+            if (!((Aggregate) e).isMergeable()) {
+                return false;
+            }
+        } else if (!(e instanceof ValueExpression || e instanceof Parameter || e instanceof Alias
+                || e instanceof Comparison || e instanceof ConditionAndOr || e instanceof ConditionAndOrN
+                || e instanceof ConditionNot || e instanceof ConditionInList
+                || e instanceof ConditionInConstantSet || e instanceof BetweenPredicate
+                || e instanceof NullPredicate || e instanceof BinaryOperation || e instanceof UnaryOperation
+                || e instanceof SearchedCase || e instanceof SimpleCase)) {
+            return false;
+        }
+        for (int i = 0, l = e.getSubexpressionCount(); i < l; i++) {
+            if (!isParallelScanExpression(e.getSubexpression(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculates aggregates of this query with parallel scans of key ranges
+     * of the table. Ranges are split at keys of internal pages of the current
+     * version of the primary index. Every worker thread evaluates its own copy
+     * of this query with its own session and partial states of aggregates are
+     * merged into the group data of this query.
+     *
+     * @return {@code false} if the table is too small for a parallel scan
+     */
+    private boolean gatherGroupParallel() {
+        MVPrimaryIndex index = (MVPrimaryIndex) topTableFilter.getIndex();
+        if (index.getRowCountMax() < PARALLEL_SCAN_MIN_ROWS) {
+            return false;
+        }
+        int threads = getDatabase().getSettings().parallelScanThreads;
+        List<Long> keys = index.getMVMap().getSplitKeys(threads * 4);
+        int ranges = keys.size() + 1;
+        if (ranges < 2) {
+            return false;
+        }
+        int workers = Math.min(threads, ranges);
+        Select[] copies = getParallelScanCopies(workers);
+        if (copies == null) {
+            return false;
+        }
+        ArrayList<Parameter> parameters = new ArrayList<>();
+        for (Expression e : expressions) {
+            collectParallelScanExpressions(e, Parameter.class, parameters);
+        }
+        if (condition != null) {
+            collectParallelScanExpressions(condition, Parameter.class, parameters);
+        }
+        for (int i = 0; i < workers; i++) {
+            Select copy = copies[i];
+            // a session only for evaluation of expressions, rows are read
+            // from the snapshot of this session
+            SessionLocal workerSession = new SessionLocal(getDatabase(), session.getUser(), session.getId());
+            workerSession.setTimeZone(session.currentTimeZone());
+            copy.setSession(workerSession);
+            ArrayList<Parameter> copyParameters = copy.getParameters();
+            for (Parameter parameter : parameters) {
+                copyParameters.get(parameter.getIndex()).setValue(parameter.getParamValue());
+            }
+            copy.setGroupData(SelectGroups.getInstance(workerSession, copy.expressions, true, null));
+            // aggregates of the copy remember the last row of the previous
+            // execution
+            copy.updateAgg(copy.expressions.size(), DataAnalysisOperation.STAGE_RESET);
+            copy.groupData.reset();
+        }
+        // the snapshot is opened by this thread, workers only create cursors
+        // over its key ranges
+        MVPrimaryIndex.RangeScan scan = index.openRangeScan(session);
+        AtomicInteger nextRange = new AtomicInteger();
+        ForkJoinPool pool = getDatabase().getParallelScanPool();
+        ArrayList<ForkJoinTask<Boolean>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            Select copy = copies[i];
+            tasks.add(pool.submit(() -> copy.gatherRanges(session, scan, keys, nextRange)));
+        }
+        boolean[] found = new boolean[workers];
+        Throwable failure = null;
+        for (int i = 0; i < workers; i++) {
+            try {
+                found[i] = tasks.get(i).get();
+            } catch (ExecutionException e) {
+                // stop other workers after their current ranges
+                nextRange.set(ranges);
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                nextRange.set(ranges);
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw DbException.convert(failure);
+        }
+        ArrayList<Aggregate> aggregates = new ArrayList<>();
+        for (Expression e : expressions) {
+            collectParallelScanExpressions(e, Aggregate.class, aggregates);
+        }
+        boolean hasGroup = false;
+        for (int i = 0; i < workers; i++) {
+            if (!found[i]) {
+                continue;
+            }
+            if (!hasGroup) {
+                groupData.nextSource();
+                hasGroup = true;
+            }
+            Select copy = copies[i];
+            ArrayList<Aggregate> copyAggregates = new ArrayList<>();
+            for (Expression e : copy.expressions) {
+                collectParallelScanExpressions(e, Aggregate.class, copyAggregates);
+            }
+            for (int j = 0, l = aggregates.size(); j < l; j++) {
+                aggregates.get(j).mergeAggregate(session, groupData, copyAggregates.get(j), copy.groupData);
+            }
+        }
+        groupData.done();
+        return true;
+    }
+
+    /**
+     * Returns copies of this query for worker threads of parallel scans. The
+     * copies are prepared once and reused by next executions of this query.
+     *
+     * @param workers the number of workers
+     * @return the copies, or {@code null} if this query can't be copied
+     */
+    private Select[] getParallelScanCopies(int workers) {
+        Select[] copies = parallelScanCopies;
+        int length = copies != null ? copies.length : 0;
+        if (length < workers) {
+            copies = copies != null ? Arrays.copyOf(copies, workers) : new Select[workers];
+            String sql = getPlanSQL(DEFAULT_SQL_FLAGS);
+            for (int i = length; i < workers; i++) {
+                Prepared p = session.prepare(sql, true, true, null);
+                if (!(p instanceof Select) || !((Select) p).isParallelScanQuery) {
+                    return null;
+                }
+                copies[i] = (Select) p;
+            }
+            parallelScanCopies = copies;
+        }
+        return copies;
+    }
+
+    /**
+     * Evaluates rows of key ranges in a copy of the query, invoked by a worker
+     * thread of a parallel scan.
+     *
+     * @param parent the session of the original query
+     * @param scan the snapshot of the primary index
+     * @param keys the split keys of ranges
+     * @param nextRange the index of the next range to process
+     * @return whether some rows were aggregated
+     */
+    private boolean gatherRanges(SessionLocal parent, MVPrimaryIndex.RangeScan scan, List<Long> keys,
+            AtomicInteger nextRange) {
+        int columnCount = expressions.size();
+        int ranges = keys.size() + 1;
+        boolean found = false;
+        for (int r; (r = nextRange.getAndIncrement()) < ranges;) {
+            Cursor cursor = scan.find(r > 0 ? keys.get(r - 1) : null, r < ranges - 1 ? keys.get(r) - 1 : null);
+            for (int n = 0; cursor.next();) {
+                if ((++n & 0x3ff) == 0) {
+                    long cancel = parent.getCancel();
+                    if (cancel != 0L && System.nanoTime() - cancel >= 0L) {
+                        throw DbException.get(ErrorCode.STATEMENT_WAS_CANCELED);
+                    }
+                }
+                topTableFilter.set(cursor.get());
+                if (isConditionMet()) {
+                    groupData.nextSource();
+                    updateAgg(columnCount, DataAnalysisOperation.STAGE_GROUP);
+                    found = true;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static <T> void collectParallelScanExpressions(Expression e, Class<T> c, ArrayList<T> list) {
+        if (c.isInstance(e)) {
+            list.add(c.cast(e));
+            return;
+        }
+        for (int i = 0, l = e.getSubexpressionCount(); i < l; i++) {
+            collectParallelScanExpressions(e.getSubexpression(i), c, list);
+        }
+    }
+
     private Index getGroupSortedIndex() {
         if (groupIndex == null || groupByExpression == null) {
             return null;
@@ -435,9 +779,47 @@ boolean isConditionMetForUpdate() {
     }
 
     boolean isConditionMet() {
+        if (compiledCondition != null) {
+            return compiledCondition.isTrue(session);
+        }
         return condition == null || condition.getBooleanValue(session);
     }
 
+    private void resetCompiledExpressions() {
+        executionCount = 0;
+        compiledCondition = null;
+        compiledExpressions = null;
+    }
+
+    /**
+     * Compiles the WHERE condition and the expressions of the select list of a
+     * flat query, when this query was executed often enough.
+     */
+    private void compileExpressions() {
+        int threshold = getDatabase().getSettings().expressionCompileThreshold;
+        if (threshold <= 0 || executionCount > threshold || ++executionCount < threshold) {
+            return;
+        }
+        // executionCount becomes greater than threshold, so this is done only once
+        executionCount++;
+        if (condition != null) {
+            compiledCondition = CompiledExpression.compileCondition(session, condition);
+        }
+        if (!isGroupQuery && !isWindowQuery) {
+            int columnCount = expressions.size();
+            CompiledExpression[] compiled = new CompiledExpression[columnCount];
+            boolean hasCompiled = false;
+            for (int i = 0; i < columnCount; i++) {
+                if ((compiled[i] = CompiledExpression.compile(session, expressions.get(i))) != null) {
+                    hasCompiled = true;
+                }
+            }
+            if (hasCompiled) {
+                compiledExpressions = compiled;
+            }
+        }
+    }
+
     private void queryWindow(int columnCount, LocalResult result, long offset, boolean quickOffset) {
         initGroupData(columnCount);
         try {
@@ -472,9 +854,17 @@ private void queryGroupWindow(int columnCount, LocalResult result, long offset,
     }
 
     private void queryGroup(int columnCount, LocalResult result, long offset, boolean quickOffset) {
+        if (groupData == null && isHashGroupQuery) {
+            // without own sort order groups that fit into memory are returned
+            // in order of their keys, as with the usual grouping
+            setGroupData(SelectGroups.getHashedInstance(session, expressions, groupIndex,
+                    new GroupSource(columnCount), sort == null));
+        }
         initGroupData(columnCount);
         try {
-            gatherGroup(columnCount, DataAnalysisOperation.STAGE_GROUP);
+            if (!isParallelScanQuery || !gatherGroupParallel()) {
+                gatherGroup(columnCount, DataAnalysisOperation.STAGE_GROUP);
+            }
             processGroupResult(columnCount, result, offset, quickOffset, true);
         } finally {
             groupData.reset();
@@ -507,8 +897,9 @@ private void gatherGroup(int columnCount, int stage) {
             setCurrentRowNumber(rowNumber + 1);
             if (forUpdate != null ? isConditionMetForUpdate() : isConditionMet()) {
                 rowNumber++;
-                groupData.nextSource();
-                updateAgg(columnCount, stage);
+                if (groupData.nextSource()) {
+                    updateAgg(columnCount, stage);
+                }
             }
         }
         groupData.done();
@@ -791,6 +1182,26 @@ private static void skipOffset(LazyResultSelect lazyResult, long offset, boolean
         }
     }
 
+    /**
+     * Computes all expressions with a single query to the remote database.
+     *
+     * @param result the result
+     * @param skipResult whether the row should be skipped
+     * @return {@code false} if the condition cannot be evaluated by the remote
+     *         database with the current values of parameters
+     */
+    private boolean queryLinkedAggregate(ResultTarget result, boolean skipResult) {
+        Value[] row = ((LinkedIndex) topTableFilter.getTable().getScanIndex(session)).findAggregates(session,
+                topTableFilter, condition, expressionArray);
+        if (row == null) {
+            return false;
+        }
+        if (!skipResult) {
+            result.addRow(row);
+        }
+        return true;
+    }
+
     private void queryQuick(int columnCount, ResultTarget result, boolean skipResult) {
         Value[] row = new Value[columnCount];
         for (int i = 0; i < columnCount; i++) {
@@ -805,6 +1216,7 @@ private void queryQuick(int columnCount, ResultTarget result, boolean skipResult
     @Override
     protected ResultInterface queryWithoutCache(long maxRows, ResultTarget target) {
         disableLazyForJoinSubqueries(topTableFilter);
+        compileExpressions();
         OffsetFetch offsetFetch = getOffsetFetch(maxRows);
         long offset = offsetFetch.offset;
         long fetch = offsetFetch.fetch;
@@ -844,53 +1256,72 @@ protected ResultInterface queryWithoutCache(long maxRows, ResultTarget target) {
         if (!lazy && (fetch >= 0 || offset > 0)) {
             result = createLocalResult(result);
         }
-        topTableFilter.startQuery(session);
-        topTableFilter.reset();
-        topTableFilter.lock(session);
-        ResultTarget to = result != null ? result : target;
-        lazy &= to == null;
+        if (result != null && sort != null) {
+            setTopRowsLimits(result, quickOffset == QuickOffset.YES ? 0 : offset, fetch, fetchPercent);
+        }
         LazyResult lazyResult = null;
-        if (fetch != 0) {
-            // Cannot apply limit now if percent is specified
-            long limit = fetchPercent ? -1 : fetch;
-            if (isQuickAggregateQuery) {
-                queryQuick(columnCount, to, quickOffset == QuickOffset.YES && offset > 0);
-            } else if (isWindowQuery) {
-                if (isGroupQuery) {
-                    queryGroupWindow(columnCount, result, offset, quickOffset == QuickOffset.YES);
+        boolean lazyReturned = false;
+        try {
+            topTableFilter.startQuery(session);
+            topTableFilter.setRowLimit(fetch >= 0L && !fetchPercent && !withTies && filters.size() == 1
+                    && sort == null && !isGroupQuery && !isWindowQuery && !isAnyDistinct() && forUpdate == null
+                    && offset <= Long.MAX_VALUE - fetch ? offset + fetch : -1L);
+            topTableFilter.reset();
+            topTableFilter.lock(session);
+            ResultTarget to = result != null ? result : target;
+            lazy &= to == null;
+            if (fetch != 0) {
+                // Cannot apply limit now if percent is specified
+                long limit = fetchPercent ? -1 : fetch;
+                if (isQuickAggregateQuery) {
+                    queryQuick(columnCount, to, quickOffset == QuickOffset.YES && offset > 0);
+                } else if (isLinkedAggregateQuery
+                        && queryLinkedAggregate(to, quickOffset == QuickOffset.YES && offset > 0)) {
+                    // all expressions were computed by the remote database
+                } else if (isWindowQuery) {
+                    if (isGroupQuery) {
+                        queryGroupWindow(columnCount, result, offset, quickOffset == QuickOffset.YES);
+                    } else {
+                        queryWindow(columnCount, result, offset, quickOffset == QuickOffset.YES);
+                    }
+                } else if (isGroupQuery) {
+                    if (isGroupSortedQuery) {
+                        lazyResult = queryGroupSorted(columnCount, to, offset, quickOffset == QuickOffset.YES);
+                    } else {
+                        queryGroup(columnCount, result, offset, quickOffset == QuickOffset.YES);
+                    }
+                } else if (isDistinctQuery) {
+                    queryDistinct(to, offset, limit, withTies, quickOffset == QuickOffset.YES);
                 } else {
-                    queryWindow(columnCount, result, offset, quickOffset == QuickOffset.YES);
+                    lazyResult = queryFlat(columnCount, to, offset, limit, withTies, quickOffset);
                 }
-            } else if (isGroupQuery) {
-                if (isGroupSortedQuery) {
-                    lazyResult = queryGroupSorted(columnCount, to, offset, quickOffset == QuickOffset.YES);
-                } else {
-                    queryGroup(columnCount, result, offset, quickOffset == QuickOffset.YES);
+                if (quickOffset == QuickOffset.YES) {
+                    offset = 0;
                 }
-            } else if (isDistinctQuery) {
-                queryDistinct(to, offset, limit, withTies, quickOffset == QuickOffset.YES);
-            } else {
-                lazyResult = queryFlat(columnCount, to, offset, limit, withTies, quickOffset);
             }
-            if (quickOffset == QuickOffset.YES) {
-                offset = 0;
+            assert lazy == (lazyResult != null) : lazy;
+            if (lazyResult != null) {
+                if (fetch > 0) {
+                    lazyResult.setLimit(fetch);
+                }
+                ResultInterface r = inPredicateSortTypes != null ? convertToInPredicateValueList(lazyResult) : lazyResult;
+                // the lazy result releases resources of the table filters on close
+                lazyReturned = true;
+                return r;
             }
-        }
-        assert lazy == (lazyResult != null) : lazy;
-        if (lazyResult != null) {
-            if (fetch > 0) {
-                lazyResult.setLimit(fetch);
+            if (result != null) {
+                return finishResult(result, offset, fetch, fetchPercent, target);
             }
-            if (inPredicateSortTypes != null) {
-                return convertToInPredicateValueList(lazyResult);
-            } else {
-                return lazyResult;
+            return null;
+        } finally {
+            if (!lazyReturned) {
+                if (lazyResult != null) {
+                    lazyResult.close();
+                } else {
+                    topTableFilter.endQuery();
+                }
             }
         }
-        if (result != null) {
-            return finishResult(result, offset, fetch, fetchPercent, target);
-        }
-        return null;
     }
 
     private void disableLazyForJoinSubqueries(final TableFilter top) {
@@ -1219,6 +1650,16 @@ public void prepareExpressions() {
             isQuickAggregateQuery = isEverything(ExpressionVisitor.getOptimizableVisitor(filters.get(0).getTable()));
         }
         expressionArray = expressions.toArray(new Expression[0]);
+        isLinkedAggregateQuery = false;
+        if (isGroupQuery && groupIndex == null && havingIndex < 0 && qualifyIndex < 0 && !isQuickAggregateQuery
+                && !isWindowQuery && filters.size() == 1) {
+            TableFilter filter = filters.get(0);
+            Table table = filter.getTable();
+            if (table instanceof TableLink) {
+                isLinkedAggregateQuery = ((LinkedIndex) table.getScanIndex(session)).canFindAggregates(filter,
+                        condition, expressionArray);
+            }
+        }
     }
 
     @Override
@@ -1303,6 +1744,8 @@ public void preparePlan() {
                 }
             }
         }
+        isHashGroupQuery = isHashGroupQuery();
+        isParallelScanQuery = isParallelScanQuery();
         isPrepared = true;
     }
 
@@ -1480,6 +1923,8 @@ public StringBuilder getPlanSQL(StringBuilder builder, int sqlFlags) {
         if ((sqlFlags & ADD_PLAN_INFORMATION) != 0) {
             if (isQuickAggregateQuery) {
                 builder.append("\n/* direct lookup */");
+            } else if (isLinkedAggregateQuery) {
+                builder.append("\n/* remote lookup */");
             }
             if (isDistinctQuery) {
                 builder.append("\n/* distinct */");
@@ -1614,6 +2059,16 @@ public boolean isGroupQuery() {
         return isGroupQuery;
     }
 
+    /**
+     * Returns the indexes of GROUP BY expressions in the list of expressions.
+     *
+     * @return the indexes of GROUP BY expressions, or {@code null} if there
+     *         are no such expressions
+     */
+    public int[] getGroupIndex() {
+        return groupIndex;
+    }
+
     /**
      * Checks if this query contains window functions.
      *
@@ -1663,6 +2118,7 @@ public void addGlobalCondition(Parameter param, int columnId, int comparisonType
         } else {
             condition = addGlobalCondition(condition, comp);
         }
+        resetCompiledExpressions();
     }
 
     private static Expression addGlobalCondition(Expression condition, Expression additional) {
@@ -1763,6 +2219,15 @@ public boolean isCacheable() {
         return forUpdate == null;
     }
 
+    @Override
+    public void setSession(SessionLocal currentSession) {
+        if (currentSession != session && groupData != null) {
+            // groups evaluate expressions and store rows with their session
+            setGroupData(null);
+        }
+        super.setSession(currentSession);
+    }
+
     @Override
     public boolean allowGlobalConditions() {
         return offsetExpr == null && fetchExpr == null && distinctExpressions == null;
@@ -1846,6 +2311,87 @@ public void reset() {
             setCurrentRowNumber(0);
             rowNumber = 0;
         }
+
+        @Override
+        public void close() {
+            if (!isClosed()) {
+                super.close();
+                topTableFilter.endQuery();
+            }
+        }
+    }
+
+    /**
+     * Saves and restores source rows of a group query for groups which are
+     * processed later.
+     */
+    private final class GroupSource implements SelectGroups.Source {
+
+        private final int columnCount;
+
+        private final ArrayList<TableFilter> tableFilters = new ArrayList<>();
+
+        private final Expression[] savedRowColumns;
+
+        GroupSource(int columnCount) {
+            this.columnCount = columnCount;
+            topTableFilter.visit(tableFilters::add);
+            Database db = getDatabase();
+            ArrayList<Expression> list = new ArrayList<>();
+            // the row number
+            list.add(TypedValueExpression.get(ValueNull.INSTANCE, TypeInfo.TYPE_BIGINT));
+            for (TableFilter f : tableFilters) {
+                // the row key
+                list.add(TypedValueExpression.get(ValueNull.INSTANCE, TypeInfo.TYPE_BIGINT));
+                for (Column column : f.getTable().getColumns()) {
+                    list.add(new ExpressionColumn(db, column));
+                }
+            }
+            savedRowColumns = list.toArray(new Expression[0]);
+        }
+
+        @Override
+        public Expression[] getSavedRowColumns() {
+            return savedRowColumns;
+        }
+
+        @Override
+        public void saveRow(Value[] row, int offset) {
+            row[offset++] = ValueBigint.get(getCurrentRowNumber());
+            for (TableFilter f : tableFilters) {
+                int count = f.getTable().getColumns().length;
+                Row r = f.get();
+                if (r == null) {
+                    row[offset++] = ValueNull.INSTANCE;
+                    for (int i = 0; i < count; i++) {
+                        row[offset++] = ValueNull.INSTANCE;
+                    }
+                } else {
+                    row[offset++] = ValueBigint.get(r.getKey());
+                    for (int i = 0; i < count; i++) {
+                        row[offset++] = r.getValue(i);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void restoreRowAndUpdate(Value[] row, int offset) {
+            setCurrentRowNumber(row[offset++].getLong());
+            for (TableFilter f : tableFilters) {
+                int count = f.getTable().getColumns().length;
+                Value key = row[offset++];
+                if (key == ValueNull.INSTANCE) {
+                    f.set(null);
+                } else {
+                    f.set(Row.get(Arrays.copyOfRange(row, offset, offset + count), SearchRow.MEMORY_CALCULATE,
+                            key.getLong()));
+                }
+                offset += count;
+            }
+            updateAgg(columnCount, DataAnalysisOperation.STAGE_GROUP);
+        }
+
     }
 
     /**
@@ -1868,9 +2414,11 @@ protected Value[] fetchNextRow() {
                 if (forUpdate ? isConditionMetForUpdate() : isConditionMet()) {
                     ++rowNumber;
                     Value[] row = new Value[columnCount];
+                    CompiledExpression[] compiled = compiledExpressions;
                     for (int i = 0; i < columnCount; i++) {
-                        Expression expr = expressions.get(i);
-                        row[i] = expr.getValue(getSession());
+                        CompiledExpression c;
+                        row[i] = compiled != null && (c = compiled[i]) != null ? c.getValue(getSession())
+                                : expressions.get(i).getValue(getSession());
                     }
                     return row;
                 }
@@ -5,6 +5,7 @@
  */
 package org.h2.command.query;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -13,11 +14,14 @@
 import java.util.Map.Entry;
 import java.util.TreeMap;
 
+import org.h2.engine.Database;
 import org.h2.engine.SessionLocal;
 import org.h2.expression.Expression;
 import org.h2.expression.analysis.DataAnalysisOperation;
 import org.h2.expression.analysis.PartitionData;
+import org.h2.result.LocalResult;
 import org.h2.value.Value;
+import org.h2.value.ValueNull;
 import org.h2.value.ValueRow;
 
 /**
@@ -28,7 +32,8 @@
  * </p>
  * <ul>
  * <li>{@link #reset()}.</li>
- * <li>For each source row {@link #nextSource()} should be invoked.</li>
+ * <li>For each source row {@link #nextSource()} should be invoked, aggregates
+ * should be updated only if it returns {@code true}.</li>
  * <li>{@link #done()}.</li>
  * <li>{@link #next()} is invoked inside a loop until it returns null.</li>
  * </ul>
@@ -78,7 +83,7 @@ public void reset() {
         }
 
         @Override
-        public void nextSource() {
+        public boolean nextSource() {
             if (groupIndex == null) {
                 currentGroupsKey = ValueRow.EMPTY;
             } else {
@@ -98,6 +103,7 @@ public void nextSource() {
             }
             currentGroupByExprData = values;
             currentGroupRowId++;
+            return true;
         }
 
         @Override
@@ -144,6 +150,296 @@ public void resetLazy() {
         }
     }
 
+    /**
+     * Source of rows for grouped data that can save the current source row and
+     * restore it later.
+     */
+    interface Source {
+
+        /**
+         * Returns the expressions describing the columns of saved rows.
+         *
+         * @return the column expressions
+         */
+        Expression[] getSavedRowColumns();
+
+        /**
+         * Saves the current source row.
+         *
+         * @param row
+         *            the target array
+         * @param offset
+         *            the offset of the first value in the target array
+         */
+        void saveRow(Value[] row, int offset);
+
+        /**
+         * Restores the previously saved source row and updates aggregates with
+         * it.
+         *
+         * @param row
+         *            the saved row
+         * @param offset
+         *            the offset of the first value
+         */
+        void restoreRowAndUpdate(Value[] row, int offset);
+
+    }
+
+    /**
+     * Grouped data with hash-based partitioning of groups. The order of groups
+     * is not defined, unless all groups fit into memory and ordered lookup was
+     * requested.
+     *
+     * <p>
+     * When the number of groups reaches the maximum number of rows held in
+     * memory, source rows of new groups are saved to hash partitions instead.
+     * These partitions are stored in local results and may be stored on disk.
+     * Partitions are processed one by one after all groups held in memory were
+     * returned. Partitions with too many groups are split further.
+     * </p>
+     */
+    private static final class Hashed extends SelectGroups {
+
+        /**
+         * The number of partitions used to split source rows of groups that
+         * don't fit into memory.
+         */
+        private static final int PARTITIONS = 16;
+
+        private final int[] groupIndex;
+
+        private final int[] groupTypes;
+
+        private final Source source;
+
+        /**
+         * Whether groups held in memory are ordered by their keys.
+         */
+        private final boolean ordered;
+
+        /**
+         * The maximum number of groups held in memory, determined on each
+         * reset because the setting may be changed between executions.
+         */
+        private int maxGroups;
+
+        private Map<ValueRow, Object[]> groupByData;
+
+        private ValueRow currentGroupsKey;
+
+        private Iterator<Entry<ValueRow, Object[]>> cursor;
+
+        /**
+         * Partitions filled during the current pass, or null.
+         */
+        private LocalResult[] partitions;
+
+        /**
+         * Filled partitions which should be processed later.
+         */
+        private final ArrayDeque<LocalResult> pending = new ArrayDeque<>();
+
+        /**
+         * The number of the current pass, used to choose different hash bits
+         * for partitions on each pass.
+         */
+        private int pass;
+
+        /**
+         * Identity of the last source row processed by aggregates.
+         */
+        private int sourceRowId;
+
+        Hashed(SessionLocal session, ArrayList<Expression> expressions, int[] groupIndex, Source source,
+                boolean ordered) {
+            super(session, expressions);
+            this.groupIndex = groupIndex;
+            int length = groupIndex.length;
+            int[] groupTypes = new int[length];
+            for (int i = 0; i < length; i++) {
+                groupTypes[i] = expressions.get(groupIndex[i]).getType().getValueType();
+            }
+            this.groupTypes = groupTypes;
+            this.source = source;
+            this.ordered = ordered;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            Database db = session.getDatabase();
+            maxGroups = db.isPersistent() && !db.isReadOnly() ? Math.max(db.getMaxMemoryRows(), PARTITIONS)
+                    : Integer.MAX_VALUE;
+            groupByData = newGroupMap();
+            currentGroupsKey = null;
+            cursor = null;
+            closePartitions();
+            pass = 0;
+            sourceRowId = 0;
+        }
+
+        @Override
+        public boolean nextSource() {
+            int length = groupIndex.length;
+            Value[] keyValues = new Value[length];
+            for (int i = 0; i < length; i++) {
+                Value v = expressions.get(groupIndex[i]).getValue(session);
+                int type = groupTypes[i];
+                if (v.getValueType() != type && v != ValueNull.INSTANCE) {
+                    // equal values of different data types have different hash codes
+                    v = v.convertTo(type);
+                }
+                keyValues[i] = v;
+            }
+            return addToGroup(ValueRow.get(keyValues), null);
+        }
+
+        private Map<ValueRow, Object[]> newGroupMap() {
+            return ordered ? new TreeMap<>(session) : new HashMap<>();
+        }
+
+        /**
+         * Makes the group with the specified key current, or saves the source
+         * row to a partition if there are too many groups in memory.
+         *
+         * @param key
+         *            the key of the group
+         * @param savedRow
+         *            the saved row with the key and the source row, or
+         *            {@code null} for the current source row
+         * @return {@code true} if the group is current and aggregates should be
+         *         updated, {@code false} if the row was saved to a partition
+         */
+        private boolean addToGroup(ValueRow key, Value[] savedRow) {
+            Object[] values = groupByData.get(key);
+            if (values == null) {
+                if (groupByData.size() >= maxGroups) {
+                    saveToPartition(key, savedRow);
+                    return false;
+                }
+                values = createRow();
+                groupByData.put(key, values);
+            }
+            currentGroupsKey = key;
+            currentGroupByExprData = values;
+            currentGroupRowId = ++sourceRowId;
+            return true;
+        }
+
+        private void saveToPartition(ValueRow key, Value[] savedRow) {
+            Expression[] columns = source.getSavedRowColumns();
+            int keyLength = groupIndex.length;
+            if (savedRow == null) {
+                savedRow = new Value[keyLength + columns.length];
+                System.arraycopy(key.getList(), 0, savedRow, 0, keyLength);
+                source.saveRow(savedRow, keyLength);
+            }
+            if (partitions == null) {
+                partitions = new LocalResult[PARTITIONS];
+            }
+            int h = (key.hashCode() ^ pass * 0x61c8_8647) * 0x9e37_79b9;
+            int index = h >>> Integer.numberOfLeadingZeros(PARTITIONS - 1);
+            LocalResult partition = partitions[index];
+            if (partition == null) {
+                int columnCount = keyLength + columns.length;
+                Expression[] partitionColumns = new Expression[columnCount];
+                for (int i = 0; i < keyLength; i++) {
+                    partitionColumns[i] = expressions.get(groupIndex[i]);
+                }
+                System.arraycopy(columns, 0, partitionColumns, keyLength, columns.length);
+                partition = new LocalResult(session, partitionColumns, columnCount, columnCount);
+                // all partitions together hold no more rows in memory than groups
+                partition.setMaxMemoryRows(maxGroups / PARTITIONS);
+                partitions[index] = partition;
+            }
+            partition.addRow(savedRow);
+        }
+
+        @Override
+        void updateCurrentGroupExprData() {
+            if (currentGroupsKey != null) {
+                groupByData.put(currentGroupsKey, currentGroupByExprData);
+            }
+        }
+
+        @Override
+        public void done() {
+            super.done();
+            finishPass();
+        }
+
+        private void finishPass() {
+            if (partitions != null) {
+                for (LocalResult partition : partitions) {
+                    if (partition != null) {
+                        partition.done();
+                        pending.add(partition);
+                    }
+                }
+                partitions = null;
+            }
+            currentGroupsKey = null;
+            cursor = groupByData.entrySet().iterator();
+        }
+
+        @Override
+        public ValueRow next() {
+            while (!cursor.hasNext()) {
+                if (!nextPartition()) {
+                    return null;
+                }
+            }
+            Map.Entry<ValueRow, Object[]> entry = cursor.next();
+            currentGroupByExprData = entry.getValue();
+            currentGroupRowId++;
+            return entry.getKey();
+        }
+
+        private boolean nextPartition() {
+            LocalResult partition = pending.poll();
+            if (partition == null) {
+                return false;
+            }
+            try {
+                groupByData = newGroupMap();
+                pass++;
+                int keyLength = groupIndex.length;
+                while (partition.next()) {
+                    Value[] row = partition.currentRow();
+                    if (addToGroup(ValueRow.get(Arrays.copyOf(row, keyLength)), row)) {
+                        source.restoreRowAndUpdate(row, keyLength);
+                    }
+                }
+            } finally {
+                partition.close();
+            }
+            finishPass();
+            currentGroupRowId = 0;
+            return true;
+        }
+
+        private void closePartitions() {
+            if (partitions != null) {
+                for (LocalResult partition : partitions) {
+                    if (partition != null) {
+                        partition.close();
+                    }
+                }
+                partitions = null;
+            }
+            for (LocalResult partition; (partition = pending.poll()) != null;) {
+                partition.close();
+            }
+        }
+
+        @Override
+        public void resetLazy() {
+            super.resetLazy();
+            currentGroupsKey = null;
+        }
+    }
+
     private static final class Plain extends SelectGroups {
 
         private ArrayList<Object[]> rows;
@@ -165,11 +461,12 @@ public void reset() {
         }
 
         @Override
-        public void nextSource() {
+        public boolean nextSource() {
             Object[] values = createRow();
             rows.add(values);
             currentGroupByExprData = values;
             currentGroupRowId++;
+            return true;
         }
 
         @Override
@@ -248,6 +545,31 @@ public static SelectGroups getInstance(SessionLocal session, ArrayList<Expressio
         return isGroupQuery ? new Grouped(session, expressions, groupIndex) : new Plain(session, expressions);
     }
 
+    /**
+     * Creates new instance of grouped data with hash-based lookup of groups.
+     * Groups are returned in undefined order. Groups which don't fit into
+     * memory are processed later with source rows restored by the specified
+     * source.
+     *
+     * @param session
+     *            the session
+     * @param expressions
+     *            the expressions
+     * @param groupIndex
+     *            the indexes of group expressions, values of these expressions
+     *            must have consistent {@code equals()} and {@code hashCode()}
+     * @param source
+     *            the source of rows
+     * @param ordered
+     *            whether groups that fit into memory should be returned in
+     *            order of their keys
+     * @return new instance of the grouped data.
+     */
+    static SelectGroups getHashedInstance(SessionLocal session, ArrayList<Expression> expressions, int[] groupIndex,
+            Source source, boolean ordered) {
+        return new Hashed(session, expressions, groupIndex, source, ordered);
+    }
+
     SelectGroups(SessionLocal session, ArrayList<Expression> expressions) {
         this.session = session;
         this.expressions = expressions;
@@ -382,8 +704,12 @@ public void reset() {
     /**
      * Invoked for each source row to evaluate group key and setup all necessary
      * data for aggregates.
+     *
+     * @return {@code true} if aggregates should be updated with the current
+     *         source row, {@code false} if this row was saved for later
+     *         processing
      */
-    public abstract void nextSource();
+    public abstract boolean nextSource();
 
     /**
      * Invoked after all source rows are evaluated.
@@ -80,6 +80,13 @@ public boolean isUnion() {
         return true;
     }
 
+    @Override
+    public void setSession(SessionLocal currentSession) {
+        super.setSession(currentSession);
+        left.setSession(currentSession);
+        right.setSession(currentSession);
+    }
+
     public UnionType getUnionType() {
         return unionType;
     }
@@ -146,6 +153,7 @@ protected ResultInterface queryWithoutCache(long maxRows, ResultTarget target) {
         LocalResult result = createLocalResult(columnCount);
         if (sort != null) {
             result.setSortOrder(sort);
+            setTopRowsLimits(result, offset, fetch, fetchPercent);
         }
         if (distinct) {
             left.setDistinctIfPossible();
@@ -16,6 +16,8 @@
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -215,6 +217,10 @@ public final class Database implements DataHandler, CastDataProvider {
     private final AtomicReference<QueryStatisticsData> queryStatisticsData = new AtomicReference<>();
     private RowFactory rowFactory = RowFactory.getRowFactory();
     private boolean ignoreCatalogs;
+    private volatile ForkJoinPool parallelScanPool;
+    private final PlanCache planCache;
+
+    private final ResultCache resultCache;
 
     private Authenticator authenticator;
 
@@ -286,6 +292,9 @@ public Database(ConnectionInfo ci, String cipher) {
                 TraceSystem.DEFAULT_TRACE_LEVEL_SYSTEM_OUT);
         this.cacheType = StringUtils.toUpperEnglish(ci.removeProperty("CACHE_TYPE", Constants.CACHE_TYPE_DEFAULT));
         this.ignoreCatalogs = ci.getProperty("IGNORE_CATALOGS", dbSettings.ignoreCatalogs);
+        planCache = dbSettings.sharedQueryCacheSize > 0 && dbSettings.queryCacheSize > 0
+                ? new PlanCache(dbSettings.sharedQueryCacheSize) : null;
+        resultCache = dbSettings.resultCacheSize > 0 ? new ResultCache(this, dbSettings.resultCacheSize * 1024L) : null;
         this.lockMode = ci.getProperty("LOCK_MODE", Constants.DEFAULT_LOCK_MODE);
         String traceFile;
         if (persistent) {
@@ -536,6 +545,10 @@ public void populateInfo(BiConsumer<String, String> consumer) {
         for (Map.Entry<String, String> entry : getSettings().getSortedSettings()) {
             consumer.accept(entry.getKey(), entry.getValue());
         }
+        if (resultCache != null) {
+            resultCache.populateInfo(consumer);
+        }
+        consumer.accept("info.TRACE_DROPPED_RECORDS", Long.toString(traceSystem.getDroppedRecords()));
         getStore().getMvStore().populateInfo(consumer);
     }
 
@@ -1272,6 +1285,7 @@ private void closeImpl(boolean fromShutdownHook) {
                     systemSession = null;
                 }
                 tempFileDeleter.deleteAll();
+                shutdownParallelScanPool();
                 closeOpenFilesAndUnlock();
             } catch (DbException | MVStoreException e) {
                 trace.error(e, "close");
@@ -1294,6 +1308,54 @@ private void closeImpl(boolean fromShutdownHook) {
         }
     }
 
+    /**
+     * Returns the database-wide cache of prepared commands.
+     *
+     * @return the cache, or {@code null} if it is disabled
+     */
+    PlanCache getPlanCache() {
+        return planCache;
+    }
+
+    /**
+     * Returns the database-wide cache of query results.
+     *
+     * @return the result cache, or {@code null} if it is disabled
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Returns the pool of workers for parallel table scans, the pool is
+     * created on demand.
+     *
+     * @return the pool of workers
+     */
+    public ForkJoinPool getParallelScanPool() {
+        ForkJoinPool pool = parallelScanPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = parallelScanPool;
+                if (pool == null) {
+                    parallelScanPool = pool = new ForkJoinPool(dbSettings.parallelScanThreads, p -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                        thread.setName("H2-scan-" + thread.getPoolIndex());
+                        return thread;
+                    }, null, false);
+                }
+            }
+        }
+        return pool;
+    }
+
+    private synchronized void shutdownParallelScanPool() {
+        if (parallelScanPool != null) {
+            parallelScanPool.shutdown();
+            parallelScanPool = null;
+        }
+    }
+
     /**
      * Close all open files and unlock the database.
      */
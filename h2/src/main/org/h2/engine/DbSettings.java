@@ -129,6 +129,26 @@ public class DbSettings extends SettingsBase {
     public final int estimatedFunctionTableRows = get(
             "ESTIMATED_FUNCTION_TABLE_ROWS", 1000);
 
+    /**
+     * Database setting <code>EXPRESSION_COMPILE_THRESHOLD</code> (default: 0).
+     * The number of executions of a query after which its WHERE condition and
+     * the expressions of its select list are compiled into specialized
+     * evaluators. Comparisons and arithmetic operations with INTEGER, BIGINT,
+     * DOUBLE PRECISION, and CHARACTER VARYING values of columns, parameters,
+     * and constants are evaluated with primitive values by compiled
+     * expressions. Other expressions are still interpreted. Expressions are
+     * not compiled if 0.
+     */
+    public final int expressionCompileThreshold = get("EXPRESSION_COMPILE_THRESHOLD", 0);
+
+    /**
+     * Database setting <code>HASH_JOIN</code> (default: true).
+     * Allow the optimizer to join a table using an in-memory hash table built
+     * on equality join conditions if the table has no suitable index for
+     * them.
+     */
+    public final boolean hashJoin = get("HASH_JOIN", true);
+
     /**
      * Database setting <code>LOB_TIMEOUT</code> (default: 300000,
      * which means 5 minutes).
@@ -229,12 +249,36 @@ public class DbSettings extends SettingsBase {
      */
     public final int queryCacheSize = get("QUERY_CACHE_SIZE", 8);
 
+    /**
+     * Database setting <code>SHARED_QUERY_CACHE_SIZE</code> (default: 0).
+     * The size of the database-wide cache of prepared statements, in number of
+     * distinct statements. Statements that are removed from the query cache of
+     * a session are kept there and are reused by other sessions of the same
+     * user with the same settings instead of parsing and optimizing the same
+     * SQL again. Statements that use views, derived tables, table functions,
+     * or local temporary tables are not shared. The shared cache is disabled
+     * if 0 or if <code>QUERY_CACHE_SIZE</code> is 0.
+     */
+    public final int sharedQueryCacheSize = get("SHARED_QUERY_CACHE_SIZE", 0);
+
     /**
      * Database setting <code>RECOMPILE_ALWAYS</code> (default: false).
      * Always recompile prepared statements.
      */
     public final boolean recompileAlways = get("RECOMPILE_ALWAYS", false);
 
+    /**
+     * Database setting <code>RESULT_CACHE_SIZE</code> (default: 0).
+     * The size of the database-wide cache of query results, in KB. Results of
+     * deterministic queries are shared between sessions with the
+     * <code>READ COMMITTED</code> isolation level and are reused while tables
+     * used by the query are not modified. Only queries on tables and views are
+     * cached, results with LOBs and results stored in temporary files are not
+     * cached. The cache is disabled if 0, it is also not used while
+     * <code>OPTIMIZE_REUSE_RESULTS</code> is disabled.
+     */
+    public final int resultCacheSize = get("RESULT_CACHE_SIZE", 0);
+
     /**
      * Database setting <code>REUSE_SPACE</code> (default: true).
      * If disabled, all changes are appended to the database file, and existing
@@ -274,6 +318,36 @@ public class DbSettings extends SettingsBase {
      */
     public final boolean compressData = get("COMPRESS", false);
 
+    /**
+     * Database setting <code>DURABLE_COMMIT</code>
+     * (default: false).
+     * Wait until the changes of each committed transaction are written and
+     * synced to the disk before returning from the commit. Transactions
+     * committed concurrently are written and synced together. This setting
+     * only affects MVStore engine.
+     */
+    public final boolean durableCommit = get("DURABLE_COMMIT", false);
+
+    /**
+     * Database setting <code>SERIALIZATION_THREADS</code>
+     * (default: 1).
+     * The number of threads used to serialize and compress changed pages when
+     * storing. Large commits are split across worker threads if greater
+     * than 1. This setting only affects MVStore engine.
+     */
+    public final int serializationThreads = get("SERIALIZATION_THREADS", 1);
+
+    /**
+     * Database setting <code>PARALLEL_SCAN_THREADS</code>
+     * (default: 1).
+     * The number of threads used to scan a large table in queries with
+     * aggregate functions and without GROUP BY clause. Only COUNT, SUM, MIN,
+     * MAX, and AVG aggregates over simple deterministic expressions are
+     * computed in parallel. This setting only affects MVStore engine. The
+     * CSVREAD function uses the same number of threads to parse large files.
+     */
+    public final int parallelScanThreads = get("PARALLEL_SCAN_THREADS", 1);
+
     /**
      * Database setting <code>IGNORE_CATALOGS</code>
      * (default: false).
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2004-2025 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+
+import org.h2.command.Command;
+import org.h2.util.SmallLRUCache;
+
+/**
+ * The database-wide cache of prepared commands that are not used by any
+ * session. Sessions put commands that drop out of their own query cache here,
+ * and other sessions with the same SQL, user, and settings take them instead
+ * of parsing and optimizing the statement again.
+ */
+final class PlanCache {
+
+    /**
+     * The maximum number of idle commands with the same key.
+     */
+    private static final int MAX_COMMANDS_PER_KEY = 8;
+
+    /**
+     * The key of a cached command: the SQL statement and the session state
+     * that affects parsing and optimization.
+     */
+    static final class Key {
+
+        private final String sql;
+
+        private final User user;
+
+        private final String schemaName;
+
+        private final String[] schemaSearchPath;
+
+        private final String timeZone;
+
+        private final BitSet nonKeywords;
+
+        private final int flags;
+
+        private final int hash;
+
+        Key(SessionLocal session, String sql) {
+            this.sql = sql;
+            user = session.getUser();
+            schemaName = session.getCurrentSchemaName();
+            schemaSearchPath = session.getSchemaSearchPath();
+            timeZone = session.currentTimeZone().getId();
+            nonKeywords = session.getNonKeywords();
+            flags = (session.getAllowLiterals() ? 1 : 0) | (session.isLazyQueryExecution() ? 2 : 0)
+                    | (session.isTruncateLargeLength() ? 4 : 0) | (session.isVariableBinary() ? 8 : 0)
+                    | (session.isOldInformationSchema() ? 16 : 0) | (session.isQuirksMode() ? 32 : 0);
+            hash = sql.hashCode() * 31 + schemaName.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && flags == other.flags && user == other.user && sql.equals(other.sql)
+                    && schemaName.equals(other.schemaName) && timeZone.equals(other.timeZone)
+                    && Arrays.equals(schemaSearchPath, other.schemaSearchPath)
+                    && Objects.equals(nonKeywords, other.nonKeywords);
+        }
+
+    }
+
+    private final SmallLRUCache<Key, ArrayList<Command>> commands;
+
+    private long modificationMetaId = -1L;
+
+    PlanCache(int size) {
+        commands = SmallLRUCache.newInstance(size);
+    }
+
+    /**
+     * Remove an idle command with the specified key from the cache.
+     *
+     * @param key the key
+     * @param modificationMetaId the current metadata modification id of the
+     *            database
+     * @return the command, or {@code null} if there is no such command
+     */
+    synchronized Command take(Key key, long modificationMetaId) {
+        checkModificationMetaId(modificationMetaId);
+        ArrayList<Command> list = commands.get(key);
+        if (list == null) {
+            return null;
+        }
+        Command command = list.remove(list.size() - 1);
+        if (list.isEmpty()) {
+            commands.remove(key);
+        }
+        return command;
+    }
+
+    /**
+     * Add an idle command to the cache.
+     *
+     * @param key the key
+     * @param command the command that is not used by any session
+     * @param modificationMetaId the current metadata modification id of the
+     *            database
+     */
+    synchronized void put(Key key, Command command, long modificationMetaId) {
+        checkModificationMetaId(modificationMetaId);
+        ArrayList<Command> list = commands.get(key);
+        if (list == null) {
+            list = new ArrayList<>(4);
+            commands.put(key, list);
+        } else if (list.size() >= MAX_COMMANDS_PER_KEY) {
+            return;
+        }
+        list.add(command);
+    }
+
+    private void checkModificationMetaId(long modificationMetaId) {
+        if (this.modificationMetaId != modificationMetaId) {
+            commands.clear();
+            this.modificationMetaId = modificationMetaId;
+        }
+    }
+
+}
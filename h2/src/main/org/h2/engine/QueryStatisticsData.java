@@ -7,21 +7,41 @@
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * Maintains query statistics.
+ * Maintains query statistics. Statistics are collected without locks into
+ * striped accumulators; they are merged only when they are read, so the
+ * returned entries may miss updates that are in progress.
  */
 public class QueryStatisticsData {
 
     private static final Comparator<QueryEntry> QUERY_ENTRY_COMPARATOR =
             Comparator.comparingLong(q -> q.lastUpdateTime);
 
-    private final HashMap<String, QueryEntry> map = new HashMap<>();
+    private static final Comparator<Accumulator> ACCUMULATOR_COMPARATOR =
+            Comparator.comparingLong(Accumulator::getLastUpdateTime);
+
+    /**
+     * The number of stripes, a power of two.
+     */
+    static final int STRIPES;
+
+    static {
+        int processors = Math.min(Runtime.getRuntime().availableProcessors(), 64), stripes = 1;
+        while (stripes < processors) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private final ConcurrentHashMap<String, Accumulator> map = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean ageOut = new AtomicBoolean();
 
     private volatile int maxQueryEntries;
 
@@ -29,14 +49,18 @@ public QueryStatisticsData(int maxQueryEntries) {
         this.maxQueryEntries = maxQueryEntries;
     }
 
-    public synchronized void setMaxQueryEntries(int maxQueryEntries) {
+    public void setMaxQueryEntries(int maxQueryEntries) {
         this.maxQueryEntries = maxQueryEntries;
     }
 
-    public synchronized List<QueryEntry> getQueries() {
-        // return a copy of the map so we don't have to
-        // worry about external synchronization
-        ArrayList<QueryEntry> list = new ArrayList<>(map.values());
+    public List<QueryEntry> getQueries() {
+        ArrayList<QueryEntry> list = new ArrayList<>(map.size());
+        for (Accumulator accumulator : map.values()) {
+            QueryEntry entry = accumulator.merge();
+            if (entry != null) {
+                list.add(entry);
+            }
+        }
         // only return the newest 100 entries
         list.sort(QUERY_ENTRY_COMPARATOR);
         return list.subList(0, Math.min(list.size(), maxQueryEntries));
@@ -50,24 +74,63 @@ public synchronized List<QueryEntry> getQueries() {
      *            to execute
      * @param rowCount the query or update row count
      */
-    public synchronized void update(String sqlStatement, long executionTimeNanos, long rowCount) {
-        map.computeIfAbsent(sqlStatement, QueryEntry::new)
-                .update(executionTimeNanos, rowCount);
+    public void update(String sqlStatement, long executionTimeNanos, long rowCount) {
+        Accumulator accumulator = map.get(sqlStatement);
+        if (accumulator == null) {
+            accumulator = map.computeIfAbsent(sqlStatement, Accumulator::new);
+        }
+        accumulator.update(executionTimeNanos, rowCount);
 
         // Age-out the oldest entries if the map gets too big.
         // Test against 1.5 x max-size so we don't do this too often
-        if (map.size() > maxQueryEntries * 1.5f) {
-            // Sort the entries by age
-            ArrayList<QueryEntry> list = new ArrayList<>(map.values());
-            list.sort(QUERY_ENTRY_COMPARATOR);
-            QueryEntry oldestToKeep = list.get(list.size() / 3);
-            // Loop over the map using the set and remove
-            // the oldest 1/3 of the entries.
-            map.entrySet().removeIf(mapEntry ->
-                                        QUERY_ENTRY_COMPARATOR.compare(oldestToKeep, mapEntry.getValue()) > 0);
+        if (map.size() > maxQueryEntries * 1.5f && ageOut.compareAndSet(false, true)) {
+            try {
+                // Sort the entries by age
+                ArrayList<Accumulator> list = new ArrayList<>(map.values());
+                list.sort(ACCUMULATOR_COMPARATOR);
+                long oldestToKeep = list.get(list.size() / 3).getLastUpdateTime();
+                // Remove the oldest 1/3 of the entries
+                map.values().removeIf(a -> a.getLastUpdateTime() < oldestToKeep);
+            } finally {
+                ageOut.set(false);
+            }
         }
     }
 
+    /**
+     * Returns the index of a histogram bucket for the specified value. Values
+     * less than 4 have own buckets, larger values are split into 4 buckets
+     * per power of two, so the relative error is below 25%.
+     *
+     * @param value the non-negative value
+     * @return the index of the bucket
+     */
+    static int getBucket(long value) {
+        if (value < 4L) {
+            return value < 0L ? 0 : (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > Accumulator.MAX_EXPONENT) {
+            return Accumulator.BUCKETS - 1;
+        }
+        return ((exponent - 1) << 2) + (int) (value >>> exponent - 2 & 3);
+    }
+
+    /**
+     * Returns the value in the middle of the specified histogram bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the value in the middle of the bucket
+     */
+    static long getBucketValue(int bucket) {
+        if (bucket < 4) {
+            return bucket;
+        }
+        int shift = (bucket >>> 2) - 1;
+        long low = (long) (4 + (bucket & 3)) << shift;
+        return low + ((1L << shift) >>> 1);
+    }
+
     /**
      * The collected statistics for one query.
      */
@@ -104,6 +167,21 @@ public static final class QueryEntry {
          */
         public long executionTimeCumulativeNanos;
 
+        /**
+         * The approximate median of execution time, in nanoseconds.
+         */
+        public long executionTimeP50Nanos;
+
+        /**
+         * The approximate 95th percentile of execution time, in nanoseconds.
+         */
+        public long executionTimeP95Nanos;
+
+        /**
+         * The approximate 99th percentile of execution time, in nanoseconds.
+         */
+        public long executionTimeP99Nanos;
+
         /**
          * The minimum number of rows.
          */
@@ -129,51 +207,187 @@ public static final class QueryEntry {
          */
         public double rowCountMean;
 
-        // Using Welford's method, see also
-        // https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance
-        // https://www.johndcook.com/blog/standard_deviation/
-
-        private double executionTimeM2Nanos;
-        private double rowCountM2;
+        private long totalCount;
+        private double executionTimeSquares;
+        private double rowCountSquares;
 
         public QueryEntry(String sql) {
             this.sqlStatement = sql;
         }
 
+        public double getExecutionTimeStandardDeviation() {
+            // population standard deviation
+            return standardDeviation(executionTimeSquares, executionTimeMeanNanos);
+        }
+
+        public double getRowCountStandardDeviation() {
+            // population standard deviation
+            return standardDeviation(rowCountSquares, rowCountMean);
+        }
+
+        private double standardDeviation(double squares, double mean) {
+            return Math.sqrt(Math.max(squares / totalCount - mean * mean, 0d));
+        }
+
+    }
+
+    /**
+     * The accumulator of statistics for one query. Each thread updates one of
+     * the stripes with atomic operations, so threads don't wait for each other
+     * and rarely share a cache line. Each stripe has its own histogram of
+     * execution times. Stripes are allocated only for threads that execute the
+     * query, and the histogram is coarse, to keep the memory usage of an entry
+     * low.
+     */
+    private static final class Accumulator {
+
+        private static final int COUNT = 0, LAST_UPDATE_TIME = 1, TIME_MIN = 2, TIME_MAX = 3, TIME_SUM = 4,
+                TIME_SQUARES = 5, ROWS_MIN = 6, ROWS_MAX = 7, ROWS_SUM = 8, ROWS_SQUARES = 9, HISTOGRAM = 10;
+
+        /**
+         * Execution times with larger exponents (more than 2^46 ns, about 19
+         * hours) are counted in the last bucket.
+         */
+        static final int MAX_EXPONENT = 46;
+
+        /**
+         * The number of buckets in the histogram.
+         */
+        static final int BUCKETS = MAX_EXPONENT << 2;
+
+        private static final int STRIPE_SIZE = HISTOGRAM + BUCKETS;
+
+        private final String sqlStatement;
+
+        private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+
+        Accumulator(String sqlStatement) {
+            this.sqlStatement = sqlStatement;
+        }
+
         /**
-         * Update the statistics entry.
+         * Update the statistics.
          *
          * @param timeNanos the execution time in nanos
          * @param rows the number of rows
          */
         void update(long timeNanos, long rows) {
-            count++;
-            executionTimeMinNanos = Math.min(timeNanos, executionTimeMinNanos);
-            executionTimeMaxNanos = Math.max(timeNanos, executionTimeMaxNanos);
-            rowCountMin = Math.min(rows, rowCountMin);
-            rowCountMax = Math.max(rows, rowCountMax);
+            AtomicLongArray stripe = getStripe((int) Thread.currentThread().getId() & STRIPES - 1);
+            stripe.accumulateAndGet(TIME_MIN, timeNanos, Math::min);
+            stripe.accumulateAndGet(TIME_MAX, timeNanos, Math::max);
+            stripe.addAndGet(TIME_SUM, timeNanos);
+            addDouble(stripe, TIME_SQUARES, (double) timeNanos * timeNanos);
+            stripe.accumulateAndGet(ROWS_MIN, rows, Math::min);
+            stripe.accumulateAndGet(ROWS_MAX, rows, Math::max);
+            stripe.addAndGet(ROWS_SUM, rows);
+            addDouble(stripe, ROWS_SQUARES, (double) rows * rows);
+            stripe.incrementAndGet(HISTOGRAM + getBucket(timeNanos));
+            stripe.lazySet(LAST_UPDATE_TIME, System.currentTimeMillis());
+            stripe.incrementAndGet(COUNT);
+        }
 
-            double rowDelta = rows - rowCountMean;
-            rowCountMean += rowDelta / count;
-            rowCountM2 += rowDelta * (rows - rowCountMean);
+        private AtomicLongArray getStripe(int index) {
+            AtomicLongArray stripe = stripes.get(index);
+            if (stripe == null) {
+                stripe = new AtomicLongArray(STRIPE_SIZE);
+                stripe.set(TIME_MIN, Long.MAX_VALUE);
+                stripe.set(TIME_MAX, Long.MIN_VALUE);
+                stripe.set(ROWS_MIN, Long.MAX_VALUE);
+                stripe.set(ROWS_MAX, Long.MIN_VALUE);
+                if (!stripes.compareAndSet(index, null, stripe)) {
+                    stripe = stripes.get(index);
+                }
+            }
+            return stripe;
+        }
 
-            double timeDelta = timeNanos - executionTimeMeanNanos;
-            executionTimeMeanNanos += timeDelta / count;
-            executionTimeM2Nanos += timeDelta * (timeNanos - executionTimeMeanNanos);
+        private static void addDouble(AtomicLongArray stripe, int index, double value) {
+            stripe.accumulateAndGet(index, Double.doubleToRawLongBits(value),
+                    (a, b) -> Double.doubleToRawLongBits(Double.longBitsToDouble(a) + Double.longBitsToDouble(b)));
+        }
 
-            executionTimeCumulativeNanos += timeNanos;
-            rowCountCumulative += rows;
-            lastUpdateTime = System.currentTimeMillis();
+        /**
+         * Returns the last time the statistics were updated.
+         *
+         * @return the last time the statistics were updated, in milliseconds
+         *         since 1970
+         */
+        long getLastUpdateTime() {
+            long time = 0L;
+            for (int i = 0; i < STRIPES; i++) {
+                AtomicLongArray stripe = stripes.get(i);
+                if (stripe != null) {
+                    time = Math.max(time, stripe.get(LAST_UPDATE_TIME));
+                }
+            }
+            return time;
         }
 
-        public double getExecutionTimeStandardDeviation() {
-            // population standard deviation
-            return Math.sqrt(executionTimeM2Nanos / count);
+        /**
+         * Merges the stripes.
+         *
+         * @return the merged statistics, or {@code null} if there is no
+         *         completed update
+         */
+        QueryEntry merge() {
+            QueryEntry entry = new QueryEntry(sqlStatement);
+            long count = 0L;
+            long[] buckets = new long[BUCKETS];
+            long timeMin = Long.MAX_VALUE, timeMax = Long.MIN_VALUE, rowsMin = Long.MAX_VALUE,
+                    rowsMax = Long.MIN_VALUE;
+            for (int i = 0; i < STRIPES; i++) {
+                AtomicLongArray stripe = stripes.get(i);
+                if (stripe == null) {
+                    continue;
+                }
+                long c = stripe.get(COUNT);
+                if (c == 0L) {
+                    continue;
+                }
+                count += c;
+                entry.lastUpdateTime = Math.max(entry.lastUpdateTime, stripe.get(LAST_UPDATE_TIME));
+                timeMin = Math.min(timeMin, stripe.get(TIME_MIN));
+                timeMax = Math.max(timeMax, stripe.get(TIME_MAX));
+                entry.executionTimeCumulativeNanos += stripe.get(TIME_SUM);
+                entry.executionTimeSquares += Double.longBitsToDouble(stripe.get(TIME_SQUARES));
+                rowsMin = Math.min(rowsMin, stripe.get(ROWS_MIN));
+                rowsMax = Math.max(rowsMax, stripe.get(ROWS_MAX));
+                entry.rowCountCumulative += stripe.get(ROWS_SUM);
+                entry.rowCountSquares += Double.longBitsToDouble(stripe.get(ROWS_SQUARES));
+                for (int j = 0; j < BUCKETS; j++) {
+                    buckets[j] += stripe.get(HISTOGRAM + j);
+                }
+            }
+            if (count == 0L) {
+                return null;
+            }
+            entry.count = (int) Math.min(count, Integer.MAX_VALUE);
+            entry.totalCount = count;
+            entry.executionTimeMinNanos = timeMin;
+            entry.executionTimeMaxNanos = timeMax;
+            entry.rowCountMin = rowsMin;
+            entry.rowCountMax = rowsMax;
+            entry.executionTimeMeanNanos = (double) entry.executionTimeCumulativeNanos / count;
+            entry.rowCountMean = (double) entry.rowCountCumulative / count;
+            entry.executionTimeP50Nanos = getPercentile(buckets, 0.50, timeMin, timeMax);
+            entry.executionTimeP95Nanos = getPercentile(buckets, 0.95, timeMin, timeMax);
+            entry.executionTimeP99Nanos = getPercentile(buckets, 0.99, timeMin, timeMax);
+            return entry;
         }
 
-        public double getRowCountStandardDeviation() {
-            // population standard deviation
-            return Math.sqrt(rowCountM2 / count);
+        private static long getPercentile(long[] histogram, double percentile, long min, long max) {
+            long total = 0L;
+            for (long c : histogram) {
+                total += c;
+            }
+            long rank = Math.max((long) Math.ceil(total * percentile), 1L);
+            for (int i = 0; i < BUCKETS; i++) {
+                rank -= histogram[i];
+                if (rank <= 0L) {
+                    return Math.max(min, Math.min(getBucketValue(i), max));
+                }
+            }
+            return max;
         }
 
     }
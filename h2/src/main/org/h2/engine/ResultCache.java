@@ -0,0 +1,228 @@
+/*
+ * Copyright 2004-2025 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.engine;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.BiConsumer;
+
+import org.h2.result.LocalResult;
+import org.h2.value.Value;
+
+/**
+ * The database-wide cache of query results. Sessions that execute the same
+ * deterministic query with the same parameters take a copy of the cached
+ * result instead of executing the query again while tables used by the query
+ * are not modified. The total size of cached results is limited by the
+ * estimated memory of their rows.
+ */
+public final class ResultCache {
+
+    /**
+     * The key of a cached result: the plan of the query, the values of its
+     * parameters, and the session state that affects the result.
+     */
+    public static final class Key {
+
+        private final String planSQL;
+
+        private final Value[] parameters;
+
+        private final long limit;
+
+        private final int[] inPredicateSortTypes;
+
+        private final String timeZone;
+
+        private final int hash;
+
+        /**
+         * Creates a new key.
+         *
+         * @param session the session
+         * @param planSQL the plan of the query
+         * @param parameters the values of parameters
+         * @param limit the maximum number of rows
+         * @param inPredicateSortTypes sort types for the IN predicate
+         */
+        public Key(SessionLocal session, String planSQL, Value[] parameters, long limit,
+                int[] inPredicateSortTypes) {
+            this.planSQL = planSQL;
+            this.parameters = parameters;
+            this.limit = limit;
+            this.inPredicateSortTypes = inPredicateSortTypes;
+            timeZone = session.currentTimeZone().getId();
+            hash = (planSQL.hashCode() * 31 + Arrays.hashCode(parameters)) * 31 + Long.hashCode(limit);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && limit == other.limit && planSQL.equals(other.planSQL)
+                    && Arrays.equals(parameters, other.parameters) && timeZone.equals(other.timeZone)
+                    && Arrays.equals(inPredicateSortTypes, other.inPredicateSortTypes);
+        }
+
+    }
+
+    /**
+     * A cached result.
+     */
+    private static final class Entry {
+
+        final LocalResult result;
+
+        final long evaluated;
+
+        final long memory;
+
+        Entry(LocalResult result, long evaluated, long memory) {
+            this.result = result;
+            this.evaluated = evaluated;
+            this.memory = memory;
+        }
+
+    }
+
+    private final Database database;
+
+    private final long maxMemory;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long memory;
+
+    private long modificationMetaId = -1L;
+
+    private long hits, misses;
+
+    /**
+     * Creates a new result cache.
+     *
+     * @param database the database
+     * @param maxMemory the maximum estimated memory of cached results, in
+     *            bytes
+     */
+    ResultCache(Database database, long maxMemory) {
+        this.database = database;
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Returns a copy of the cached result for the specified session.
+     *
+     * @param key the key
+     * @param maxDataModificationId the current maximum data modification id of
+     *            tables used by the query
+     * @param session the session
+     * @return the copy of the cached result, or {@code null} if there is no
+     *         such result or it is outdated
+     */
+    public synchronized LocalResult get(Key key, long maxDataModificationId, SessionLocal session) {
+        checkModificationMetaId();
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (maxDataModificationId <= entry.evaluated) {
+                LocalResult result = entry.result.createShallowCopy(session);
+                if (result != null) {
+                    hits++;
+                    return result;
+                }
+            }
+            remove(key);
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Adds a result to the cache. Results that use temporary files or contain
+     * LOBs, and results that are too large are not cached.
+     *
+     * @param key the key
+     * @param result the result
+     * @param evaluated the data modification id of the database when the
+     *            result was evaluated
+     * @param modificationMetaId the metadata modification id of the database
+     *            when the result was evaluated
+     * @param session the session
+     */
+    public void put(Key key, LocalResult result, long evaluated, long modificationMetaId, SessionLocal session) {
+        if (result.needToClose()) {
+            return;
+        }
+        LocalResult copy = result.createShallowCopy(session);
+        if (copy == null) {
+            return;
+        }
+        long m = Constants.MEMORY_OBJECT * 2;
+        int columnCount = copy.getVisibleColumnCount();
+        while (copy.next()) {
+            m += Constants.MEMORY_ARRAY + Constants.MEMORY_POINTER * columnCount;
+            for (Value v : copy.currentRow()) {
+                m += v.getMemory();
+            }
+            if (m > maxMemory) {
+                return;
+            }
+        }
+        copy.reset();
+        synchronized (this) {
+            checkModificationMetaId();
+            if (this.modificationMetaId != modificationMetaId) {
+                return;
+            }
+            remove(key);
+            entries.put(key, new Entry(copy, evaluated, m));
+            memory += m;
+            for (Iterator<Entry> i = entries.values().iterator(); memory > maxMemory;) {
+                memory -= i.next().memory;
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Adds hit and miss counters and the size of the cache.
+     *
+     * @param consumer the consumer of names and values
+     */
+    synchronized void populateInfo(BiConsumer<String, String> consumer) {
+        consumer.accept("info.RESULT_CACHE_HITS", Long.toString(hits));
+        consumer.accept("info.RESULT_CACHE_MISSES", Long.toString(misses));
+        consumer.accept("info.RESULT_CACHE_ENTRIES", Integer.toString(entries.size()));
+        consumer.accept("info.RESULT_CACHE_MEMORY", Long.toString(memory));
+    }
+
+    private void remove(Key key) {
+        Entry old = entries.remove(key);
+        if (old != null) {
+            memory -= old.memory;
+        }
+    }
+
+    private void checkModificationMetaId() {
+        long id = database.getModificationMetaId();
+        if (modificationMetaId != id) {
+            entries.clear();
+            memory = 0L;
+            modificationMetaId = id;
+        }
+    }
+
+}
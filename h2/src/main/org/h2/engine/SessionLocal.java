@@ -18,6 +18,7 @@
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import org.h2.api.ErrorCode;
@@ -51,6 +52,7 @@
 import org.h2.store.DataHandler;
 import org.h2.store.InDoubtTransaction;
 import org.h2.store.LobStorageFrontend;
+import org.h2.table.MaterializedView;
 import org.h2.table.Table;
 import org.h2.util.DateTimeUtils;
 import org.h2.util.HasSQL;
@@ -62,6 +64,7 @@
 import org.h2.value.Value;
 import org.h2.value.ValueLob;
 import org.h2.value.ValueNull;
+import org.h2.value.ValueRow;
 import org.h2.value.ValueTimestampTimeZone;
 import org.h2.value.ValueVarchar;
 import org.h2.value.VersionedValue;
@@ -204,6 +207,18 @@ static Session getThreadLocalSession() {
      */
     private HashSet<Table> tablesToAnalyze;
 
+    /**
+     * Groups of materialized views changed in the current transaction. A
+     * {@code null} value means that a full refresh of the view is required.
+     */
+    private HashMap<MaterializedView, TreeSet<ValueRow>> materializedViewChanges;
+
+    /**
+     * The metadata modification id of the database when the current
+     * transaction was started.
+     */
+    private long transactionStartModificationMetaId;
+
     /**
      * Temporary LOBs from result sets. Those are kept for some time. The
      * problem is that transactions are committed before the result is returned,
@@ -641,6 +656,16 @@ public Command prepareLocal(String sql) {
                     return command;
                 }
             }
+            PlanCache planCache = database.getPlanCache();
+            if (planCache != null) {
+                command = planCache.take(new PlanCache.Key(this, sql), modificationMetaID);
+                if (command != null) {
+                    command.setSession(this);
+                    command.reuse();
+                    addToQueryCache(sql, command);
+                    return command;
+                }
+            }
         }
         Parser parser = new Parser(this);
         try {
@@ -651,12 +676,30 @@ public Command prepareLocal(String sql) {
         }
         if (queryCache != null) {
             if (command.isCacheable()) {
-                queryCache.put(sql, command);
+                addToQueryCache(sql, command);
             }
         }
         return command;
     }
 
+    private void addToQueryCache(String sql, Command command) {
+        PlanCache planCache = database.getPlanCache();
+        if (planCache != null && queryCache.size() >= queryCacheSize && !queryCache.containsKey(sql)) {
+            // the least recently used command may be reused by other sessions
+            Iterator<Map.Entry<String, Command>> i = queryCache.entrySet().iterator();
+            Map.Entry<String, Command> eldest = i.next();
+            i.remove();
+            releaseCommand(planCache, eldest.getKey(), eldest.getValue());
+        }
+        queryCache.put(sql, command);
+    }
+
+    private void releaseCommand(PlanCache planCache, String sql, Command command) {
+        if (command.canReuse() && command.isShareable()) {
+            planCache.put(new PlanCache.Key(this, sql), command, database.getModificationMetaId());
+        }
+    }
+
     /**
      * Arranges for the specified database object id to be released
      * at the end of the current transaction.
@@ -690,6 +733,7 @@ public void commit(boolean ddl) {
                 markUsedTablesAsUpdated();
                 transaction.commit();
                 markUsedTablesAsUpdated();
+                commitMaterializedViewChanges();
                 removeTemporaryLobs(true);
                 endTransaction();
             } finally {
@@ -707,6 +751,52 @@ public void commit(boolean ddl) {
         }
     }
 
+    /**
+     * Records a changed group of a materialized view in the current
+     * transaction. Changes are passed to the view when the transaction is
+     * committed.
+     *
+     * @param view the materialized view
+     * @param group the changed group, or {@code null} if a full refresh of the
+     *            view is required
+     */
+    public void registerMaterializedViewChange(MaterializedView view, ValueRow group) {
+        if (materializedViewChanges == null) {
+            materializedViewChanges = new HashMap<>();
+        }
+        TreeSet<ValueRow> groups = materializedViewChanges.get(view);
+        if (groups == null) {
+            if (materializedViewChanges.containsKey(view)) {
+                return;
+            }
+            if (group != null) {
+                materializedViewChanges.put(view, groups = view.newGroupSet());
+            }
+        }
+        if (group == null || groups.add(group) && groups.size() > getDatabase().getMaxMemoryRows()) {
+            materializedViewChanges.put(view, null);
+        }
+    }
+
+    private void commitMaterializedViewChanges() {
+        for (Table table : updates) {
+            for (MaterializedView view : table.getDependentMaterializedViews()) {
+                if (view.isIncremental()
+                        && view.getRegistrationModificationMetaId() >= transactionStartModificationMetaId) {
+                    // changes before registration of the view were not recorded
+                    registerMaterializedViewChange(view, null);
+                }
+            }
+        }
+        HashMap<MaterializedView, TreeSet<ValueRow>> changes = materializedViewChanges;
+        if (changes != null) {
+            materializedViewChanges = null;
+            for (Map.Entry<MaterializedView, TreeSet<ValueRow>> entry : changes.entrySet()) {
+                entry.getKey().addChangedGroups(entry.getValue());
+            }
+        }
+    }
+
     public void invalidateCachedResults(Table table) {
         if (queryCache != null) {
             for (Command command : queryCache.values()) {
@@ -817,6 +907,7 @@ public void rollback() {
         if (hasTransaction()) {
             rollbackTo(null);
         }
+        materializedViewChanges = null;
         idsToRelease = null;
         cleanTempTables(false);
         if (autoCommitAtTransactionEnd) {
@@ -878,6 +969,19 @@ public Savepoint setSavepoint() {
         return sp;
     }
 
+    /**
+     * Create a savepoint to allow rolling back to this state within the
+     * current statement. Changes made by the statement before this savepoint
+     * are not rolled back.
+     *
+     * @return the savepoint
+     */
+    public Savepoint setSavepointWithinStatement() {
+        Savepoint sp = new Savepoint();
+        sp.transactionSavepoint = getTransaction().setSavepoint();
+        return sp;
+    }
+
     public int getId() {
         return id;
     }
@@ -904,6 +1008,12 @@ public void close() {
         if (state.getAndSet(State.CLOSED) != State.CLOSED) {
             try {
                 if (queryCache != null) {
+                    PlanCache planCache = database.getPlanCache();
+                    if (planCache != null && modificationMetaID == database.getModificationMetaId()) {
+                        for (Map.Entry<String, Command> entry : queryCache.entrySet()) {
+                            releaseCommand(planCache, entry.getKey(), entry.getValue());
+                        }
+                    }
                     queryCache.clear();
                 }
                 database.throwLastBackgroundException();
@@ -1636,6 +1746,7 @@ public Transaction getTransaction() {
                 getDatabase().shutdownImmediately();
                 throw DbException.get(ErrorCode.DATABASE_IS_CLOSED, backgroundException);
             }
+            transactionStartModificationMetaId = getDatabase().getModificationMetaId();
             transaction = store.getTransactionStore().begin(this, this.lockTimeout, id, isolationLevel);
             startStatement = -1;
         }
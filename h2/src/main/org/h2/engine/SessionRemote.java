@@ -25,6 +25,7 @@
 import org.h2.message.Trace;
 import org.h2.message.TraceSystem;
 import org.h2.result.ResultInterface;
+import org.h2.result.ResultRemote;
 import org.h2.store.DataHandler;
 import org.h2.store.FileStore;
 import org.h2.store.LobStorageFrontend;
@@ -100,6 +101,11 @@ public final class SessionRemote extends Session implements DataHandler {
     private boolean cluster;
     private TempFileDeleter tempFileDeleter;
 
+    /**
+     * The result with a request for rows whose response was not read yet.
+     */
+    private ResultRemote pendingFetch;
+
     private JavaObjectSerializer javaObjectSerializer;
 
     private final CompareMode compareMode = CompareMode.getInstance(null, 0);
@@ -639,6 +645,54 @@ public void done(Transfer transfer) throws IOException {
         }
     }
 
+    /**
+     * Reads the response to a request for rows that was sent in advance, if
+     * any. Responses are sent by the server in order of requests, so it must be
+     * read before any later request is written.
+     *
+     * @throws IOException if there is a communication problem between client
+     *             and server
+     */
+    public void readPendingFetch() throws IOException {
+        ResultRemote result = pendingFetch;
+        if (result != null) {
+            pendingFetch = null;
+            result.readFetchedRows();
+        }
+    }
+
+    /**
+     * Returns whether requests for rows may be sent before the rows are
+     * needed. Responses to such requests are lost on reconnect, so they are
+     * not sent if the session reconnects automatically.
+     *
+     * @return whether rows may be requested in advance
+     */
+    public boolean isPrefetchAllowed() {
+        return !autoReconnect;
+    }
+
+    /**
+     * Registers a result with a request for rows whose response was not read
+     * yet.
+     *
+     * @param result the result
+     */
+    public void setPendingFetch(ResultRemote result) {
+        pendingFetch = result;
+    }
+
+    /**
+     * Unregisters a result with a request for rows, if it is registered.
+     *
+     * @param result the result
+     */
+    public void removePendingFetch(ResultRemote result) {
+        if (pendingFetch == result) {
+            pendingFetch = null;
+        }
+    }
+
     /**
      * Reads an exception.
      *
@@ -689,12 +743,18 @@ public boolean isClosed() {
     }
 
     /**
-     * Write the operation to the trace system if debug trace is enabled.
+     * Called before an operation is written to the server. Reads the response
+     * to a request for rows sent in advance, if any, because the server
+     * doesn't read the next request until that response is written, and
+     * writes the operation to the trace system if debug trace is enabled.
      *
      * @param operation the operation performed
      * @param id the id of the operation
+     * @throws IOException if there is a communication problem between client
+     *             and server
      */
-    public void traceOperation(String operation, int id) {
+    public void traceOperation(String operation, int id) throws IOException {
+        readPendingFetch();
         if (trace.isDebugEnabled()) {
             trace.debug("{0} {1}", operation, id);
         }
@@ -307,6 +307,15 @@ public class SysProperties {
     public static final int SERVER_RESULT_SET_FETCH_SIZE =
             Utils.getProperty("h2.serverResultSetFetchSize", 100);
 
+    /**
+     * System property <code>h2.serverResultSetPrefetch</code>
+     * (default: true).
+     * Whether the client requests the next rows of a large result in the
+     * server mode while the application processes the current ones.
+     */
+    public static final boolean SERVER_RESULT_SET_PREFETCH =
+            Utils.getProperty("h2.serverResultSetPrefetch", true);
+
     /**
      * System property <code>h2.socketConnectRetry</code> (default: 16).
      * The number of times to retry opening a socket. Windows sometimes fails
@@ -0,0 +1,723 @@
+/*
+ * Copyright 2004-2025 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.expression;
+
+import java.util.ArrayList;
+
+import org.h2.engine.SessionLocal;
+import org.h2.expression.condition.Comparison;
+import org.h2.expression.condition.ConditionAndOr;
+import org.h2.expression.condition.ConditionAndOrN;
+import org.h2.expression.condition.ConditionNot;
+import org.h2.value.CompareMode;
+import org.h2.value.Value;
+import org.h2.value.ValueBigint;
+import org.h2.value.ValueBoolean;
+import org.h2.value.ValueDouble;
+import org.h2.value.ValueInteger;
+import org.h2.value.ValueNull;
+
+/**
+ * An optimized expression tree of a frequently executed query compiled into
+ * specialized evaluators. AND, OR, and NOT conditions, comparisons of INTEGER,
+ * BIGINT, DOUBLE PRECISION, and CHARACTER VARYING values, and arithmetic
+ * operations with INTEGER, BIGINT, and DOUBLE PRECISION results are evaluated
+ * with primitive values, without intermediate {@link Value} objects. Column
+ * references, parameters, and constants are the only allowed operands of the
+ * typed evaluators. Other expressions are evaluated by the interpreter, as
+ * are values of unexpected data types and operations that raise an error.
+ */
+public abstract class CompiledExpression {
+
+    private static final int FALSE = 0, TRUE = 1, UNKNOWN = -1;
+
+    /**
+     * Compile a condition.
+     *
+     * @param session the session
+     * @param condition the optimized condition
+     * @return the compiled condition, or {@code null} if there is nothing to
+     *         compile
+     */
+    public static CompiledExpression compileCondition(SessionLocal session, Expression condition) {
+        CompiledCondition c = condition(session, condition);
+        return c instanceof InterpretedCondition ? null : c;
+    }
+
+    /**
+     * Compile an expression of a select list.
+     *
+     * @param session the session
+     * @param expression the optimized expression
+     * @return the compiled expression, or {@code null} if there is nothing to
+     *         compile
+     */
+    public static CompiledExpression compile(SessionLocal session, Expression expression) {
+        Expression e = expression.getNonAliasExpression();
+        if (e instanceof BinaryOperation) {
+            switch (e.getType().getValueType()) {
+            case Value.INTEGER:
+            case Value.BIGINT: {
+                ArrayList<Leaf> leaves = new ArrayList<>();
+                LongNode node = longNode(e, Value.BIGINT, leaves);
+                if (node != null) {
+                    return new LongExpression(e, leaves.toArray(new Leaf[0]), node);
+                }
+                break;
+            }
+            case Value.DOUBLE: {
+                ArrayList<Leaf> leaves = new ArrayList<>();
+                DoubleNode node = doubleNode(e, Value.TINYINT, leaves);
+                if (node != null) {
+                    return new DoubleExpression(e, leaves.toArray(new Leaf[0]), node);
+                }
+                break;
+            }
+            }
+        } else if (isCondition(e)) {
+            return compileCondition(session, e);
+        }
+        return null;
+    }
+
+    /**
+     * Evaluate the expression.
+     *
+     * @param session the session
+     * @return the value
+     */
+    public abstract Value getValue(SessionLocal session);
+
+    /**
+     * Evaluate the expression as a condition.
+     *
+     * @param session the session
+     * @return whether the result is TRUE
+     */
+    public boolean isTrue(SessionLocal session) {
+        return getValue(session).isTrue();
+    }
+
+    private static boolean isCondition(Expression e) {
+        return e instanceof Comparison || e instanceof ConditionAndOr || e instanceof ConditionAndOrN
+                || e instanceof ConditionNot;
+    }
+
+    private static CompiledCondition condition(SessionLocal session, Expression e) {
+        if (e instanceof ConditionAndOr) {
+            CompiledCondition[] conditions = { condition(session, e.getSubexpression(0)),
+                    condition(session, e.getSubexpression(1)) };
+            return andOr(e, ((ConditionAndOr) e).getAndOrType(), conditions);
+        } else if (e instanceof ConditionAndOrN) {
+            int count = e.getSubexpressionCount();
+            CompiledCondition[] conditions = new CompiledCondition[count];
+            for (int i = 0; i < count; i++) {
+                conditions[i] = condition(session, e.getSubexpression(i));
+            }
+            return andOr(e, ((ConditionAndOrN) e).getAndOrType(), conditions);
+        } else if (e instanceof ConditionNot) {
+            CompiledCondition c = condition(session, e.getSubexpression(0));
+            if (!(c instanceof InterpretedCondition)) {
+                return new NotCondition(c);
+            }
+        } else if (e instanceof Comparison) {
+            CompiledCondition c = comparison(session, (Comparison) e);
+            if (c != null) {
+                return c;
+            }
+        }
+        return new InterpretedCondition(e);
+    }
+
+    private static CompiledCondition andOr(Expression e, int andOrType, CompiledCondition[] conditions) {
+        for (CompiledCondition c : conditions) {
+            if (!(c instanceof InterpretedCondition)) {
+                return andOrType == ConditionAndOr.AND ? new AndCondition(conditions) : new OrCondition(conditions);
+            }
+        }
+        return new InterpretedCondition(e);
+    }
+
+    private static CompiledCondition comparison(SessionLocal session, Comparison comparison) {
+        int compareType = comparison.getCompareType();
+        if (compareType > Comparison.BIGGER_EQUAL) {
+            return null;
+        }
+        Expression left = comparison.getSubexpression(0), right = comparison.getSubexpression(1);
+        int l = getComparedType(left), r = getComparedType(right);
+        if (l == Value.UNKNOWN) {
+            l = r;
+        } else if (r == Value.UNKNOWN) {
+            r = l;
+        }
+        ArrayList<Leaf> leaves = new ArrayList<>();
+        if (isIntegerType(l) && isIntegerType(r)) {
+            LongNode a = longNode(left, Value.BIGINT, leaves), b = longNode(right, Value.BIGINT, leaves);
+            if (a != null && b != null) {
+                return new LongComparison(comparison, leaves.toArray(new Leaf[0]), compareType, a, b);
+            }
+        } else if (l == Value.DOUBLE && r == Value.DOUBLE) {
+            DoubleNode a = doubleNode(left, Value.REAL, leaves), b = doubleNode(right, Value.REAL, leaves);
+            if (a != null && b != null) {
+                return new DoubleComparison(comparison, leaves.toArray(new Leaf[0]), compareType, a, b);
+            }
+        } else if (l == Value.VARCHAR && r == Value.VARCHAR && session.getDatabase().getCompareMode()
+                .getClass() == CompareMode.class) {
+            Leaf a = leaf(left, Value.VARCHAR, Value.VARCHAR), b = leaf(right, Value.VARCHAR, Value.VARCHAR);
+            if (a != null && b != null) {
+                return new StringComparison(comparison, compareType, a, b);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the data type of a compared operand.
+     *
+     * @param e the operand
+     * @return the data type, or {@link Value#UNKNOWN} for parameters
+     */
+    private static int getComparedType(Expression e) {
+        return e instanceof Parameter ? Value.UNKNOWN : e.getType().getValueType();
+    }
+
+    private static boolean isIntegerType(int type) {
+        return type >= Value.TINYINT && type <= Value.BIGINT;
+    }
+
+    private static LongNode longNode(Expression e, int maxType, ArrayList<Leaf> leaves) {
+        if (e instanceof BinaryOperation) {
+            int type = e.getType().getValueType();
+            if ((type != Value.INTEGER && type != Value.BIGINT) || type > maxType) {
+                return null;
+            }
+            BinaryOperation op = (BinaryOperation) e;
+            LongNode a = longNode(op.getSubexpression(0), type, leaves);
+            LongNode b = longNode(op.getSubexpression(1), type, leaves);
+            if (a == null || b == null) {
+                return null;
+            }
+            return new LongOperation(op.getOperationType(), type == Value.INTEGER, a, b);
+        }
+        Leaf leaf = leaf(e, Value.TINYINT, maxType);
+        if (leaf == null) {
+            return null;
+        } else if (leaf.constant != null) {
+            long value = leaf.constant.getLong();
+            return s -> value;
+        }
+        leaves.add(leaf);
+        Expression source = leaf.expression;
+        return s -> source.getValue(s).getLong();
+    }
+
+    private static DoubleNode doubleNode(Expression e, int minType, ArrayList<Leaf> leaves) {
+        if (e instanceof BinaryOperation && e.getType().getValueType() == Value.DOUBLE) {
+            BinaryOperation op = (BinaryOperation) e;
+            // operands are converted to DOUBLE PRECISION by the operation
+            DoubleNode a = doubleNode(op.getSubexpression(0), Value.TINYINT, leaves);
+            DoubleNode b = doubleNode(op.getSubexpression(1), Value.TINYINT, leaves);
+            if (a == null || b == null) {
+                return null;
+            }
+            return new DoubleOperation(op.getOperationType(), a, b);
+        }
+        Leaf leaf = leaf(e, minType, Value.DOUBLE);
+        if (leaf == null) {
+            return null;
+        } else if (leaf.constant != null) {
+            double value = leaf.constant.getDouble();
+            return s -> value;
+        }
+        leaves.add(leaf);
+        Expression source = leaf.expression;
+        return s -> source.getValue(s).getDouble();
+    }
+
+    private static Leaf leaf(Expression e, int minType, int maxType) {
+        Leaf leaf = new Leaf(e, minType, maxType, e instanceof ValueExpression ? e.getValue(null) : null);
+        if (leaf.constant != null) {
+            return leaf.isAcceptable(leaf.constant.getValueType()) ? leaf : null;
+        } else if (e instanceof Parameter) {
+            return leaf;
+        } else if (e instanceof ExpressionColumn) {
+            return leaf.isAcceptable(e.getType().getValueType()) ? leaf : null;
+        }
+        return null;
+    }
+
+    /**
+     * Check the values of leaves before a typed evaluation.
+     *
+     * @param session the session
+     * @param leaves the leaves
+     * @return {@link #TRUE} if all values have the expected data types,
+     *         {@link #UNKNOWN} if some value is NULL, {@link #FALSE} if the
+     *         expression needs to be interpreted
+     */
+    static int checkLeaves(SessionLocal session, Leaf[] leaves) {
+        for (Leaf leaf : leaves) {
+            Value v = leaf.expression.getValue(session);
+            if (v == ValueNull.INSTANCE) {
+                return UNKNOWN;
+            } else if (!leaf.isAcceptable(v.getValueType())) {
+                return FALSE;
+            }
+        }
+        return TRUE;
+    }
+
+    static boolean compare(int compareType, int cmp) {
+        switch (compareType) {
+        case Comparison.EQUAL:
+            return cmp == 0;
+        case Comparison.NOT_EQUAL:
+            return cmp != 0;
+        case Comparison.SMALLER:
+            return cmp < 0;
+        case Comparison.BIGGER:
+            return cmp > 0;
+        case Comparison.SMALLER_EQUAL:
+            return cmp <= 0;
+        default:
+            return cmp >= 0;
+        }
+    }
+
+    /**
+     * An operand of a typed evaluator.
+     */
+    static final class Leaf {
+
+        /**
+         * The column, parameter, or constant.
+         */
+        final Expression expression;
+
+        private final int minType, maxType;
+
+        /**
+         * The value of a constant, or {@code null}.
+         */
+        final Value constant;
+
+        Leaf(Expression expression, int minType, int maxType, Value constant) {
+            this.expression = expression;
+            this.minType = minType;
+            this.maxType = maxType;
+            this.constant = constant;
+        }
+
+        boolean isAcceptable(int type) {
+            return type >= minType && type <= maxType && type != Value.NUMERIC;
+        }
+
+    }
+
+    /**
+     * An evaluator of an integer expression.
+     */
+    @FunctionalInterface
+    interface LongNode {
+
+        /**
+         * Evaluate the expression. All leaves must have non-NULL values of the
+         * expected data types.
+         *
+         * @param session the session
+         * @return the value
+         * @throws ArithmeticException on overflow or division by zero
+         */
+        long get(SessionLocal session);
+
+    }
+
+    /**
+     * An evaluator of a DOUBLE PRECISION expression.
+     */
+    @FunctionalInterface
+    interface DoubleNode {
+
+        /**
+         * Evaluate the expression. All leaves must have non-NULL values of the
+         * expected data types.
+         *
+         * @param session the session
+         * @return the value
+         * @throws ArithmeticException on division by zero
+         */
+        double get(SessionLocal session);
+
+    }
+
+    private static final class LongOperation implements LongNode {
+
+        private final BinaryOperation.OpType opType;
+
+        private final boolean integer;
+
+        private final LongNode left, right;
+
+        LongOperation(BinaryOperation.OpType opType, boolean integer, LongNode left, LongNode right) {
+            this.opType = opType;
+            this.integer = integer;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public long get(SessionLocal session) {
+            long a = left.get(session), b = right.get(session), r;
+            switch (opType) {
+            case PLUS:
+                r = Math.addExact(a, b);
+                break;
+            case MINUS:
+                r = Math.subtractExact(a, b);
+                break;
+            case MULTIPLY:
+                r = Math.multiplyExact(a, b);
+                break;
+            default:
+                if (b == -1L && a == Long.MIN_VALUE) {
+                    throw new ArithmeticException();
+                }
+                r = a / b;
+            }
+            if (integer && r != (int) r) {
+                throw new ArithmeticException();
+            }
+            return r;
+        }
+
+    }
+
+    private static final class DoubleOperation implements DoubleNode {
+
+        private final BinaryOperation.OpType opType;
+
+        private final DoubleNode left, right;
+
+        DoubleOperation(BinaryOperation.OpType opType, DoubleNode left, DoubleNode right) {
+            this.opType = opType;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double get(SessionLocal session) {
+            double a = left.get(session), b = right.get(session), r;
+            switch (opType) {
+            case PLUS:
+                r = a + b;
+                break;
+            case MINUS:
+                r = a - b;
+                break;
+            case MULTIPLY:
+                r = a * b;
+                break;
+            default:
+                if (b == 0d) {
+                    throw new ArithmeticException();
+                }
+                r = a / b;
+            }
+            // ValueDouble.get() converts -0.0 to 0.0, comparison of results
+            // must not distinguish them too
+            return r == 0d ? 0d : r;
+        }
+
+    }
+
+    private static final class LongExpression extends CompiledExpression {
+
+        private final Expression expression;
+
+        private final Leaf[] leaves;
+
+        private final LongNode node;
+
+        private final boolean integer;
+
+        LongExpression(Expression expression, Leaf[] leaves, LongNode node) {
+            this.expression = expression;
+            this.leaves = leaves;
+            this.node = node;
+            integer = expression.getType().getValueType() == Value.INTEGER;
+        }
+
+        @Override
+        public Value getValue(SessionLocal session) {
+            switch (checkLeaves(session, leaves)) {
+            case UNKNOWN:
+                return ValueNull.INSTANCE;
+            case TRUE:
+                try {
+                    long r = node.get(session);
+                    return integer ? ValueInteger.get((int) r) : ValueBigint.get(r);
+                } catch (ArithmeticException e) {
+                    // let the interpreter raise the error
+                }
+            }
+            return expression.getValue(session);
+        }
+
+    }
+
+    private static final class DoubleExpression extends CompiledExpression {
+
+        private final Expression expression;
+
+        private final Leaf[] leaves;
+
+        private final DoubleNode node;
+
+        DoubleExpression(Expression expression, Leaf[] leaves, DoubleNode node) {
+            this.expression = expression;
+            this.leaves = leaves;
+            this.node = node;
+        }
+
+        @Override
+        public Value getValue(SessionLocal session) {
+            switch (checkLeaves(session, leaves)) {
+            case UNKNOWN:
+                return ValueNull.INSTANCE;
+            case TRUE:
+                try {
+                    return ValueDouble.get(node.get(session));
+                } catch (ArithmeticException e) {
+                    // let the interpreter raise the error
+                }
+            }
+            return expression.getValue(session);
+        }
+
+    }
+
+    /**
+     * A compiled condition with three-valued logic.
+     */
+    abstract static class CompiledCondition extends CompiledExpression {
+
+        /**
+         * Evaluate the condition.
+         *
+         * @param session the session
+         * @return {@link #TRUE}, {@link #FALSE}, or {@link #UNKNOWN}
+         */
+        abstract int test(SessionLocal session);
+
+        @Override
+        public final Value getValue(SessionLocal session) {
+            int r = test(session);
+            return r == UNKNOWN ? ValueNull.INSTANCE : ValueBoolean.get(r == TRUE);
+        }
+
+        @Override
+        public final boolean isTrue(SessionLocal session) {
+            return test(session) == TRUE;
+        }
+
+    }
+
+    private static final class InterpretedCondition extends CompiledCondition {
+
+        private final Expression expression;
+
+        InterpretedCondition(Expression expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        int test(SessionLocal session) {
+            return interpret(session, expression);
+        }
+
+    }
+
+    static int interpret(SessionLocal session, Expression expression) {
+        Value v = expression.getValue(session);
+        return v == ValueNull.INSTANCE ? UNKNOWN : v.getBoolean() ? TRUE : FALSE;
+    }
+
+    private static final class AndCondition extends CompiledCondition {
+
+        private final CompiledCondition[] conditions;
+
+        AndCondition(CompiledCondition[] conditions) {
+            this.conditions = conditions;
+        }
+
+        @Override
+        int test(SessionLocal session) {
+            int result = TRUE;
+            for (CompiledCondition c : conditions) {
+                int r = c.test(session);
+                if (r == FALSE) {
+                    return FALSE;
+                } else if (r == UNKNOWN) {
+                    result = UNKNOWN;
+                }
+            }
+            return result;
+        }
+
+    }
+
+    private static final class OrCondition extends CompiledCondition {
+
+        private final CompiledCondition[] conditions;
+
+        OrCondition(CompiledCondition[] conditions) {
+            this.conditions = conditions;
+        }
+
+        @Override
+        int test(SessionLocal session) {
+            int result = FALSE;
+            for (CompiledCondition c : conditions) {
+                int r = c.test(session);
+                if (r == TRUE) {
+                    return TRUE;
+                } else if (r == UNKNOWN) {
+                    result = UNKNOWN;
+                }
+            }
+            return result;
+        }
+
+    }
+
+    private static final class NotCondition extends CompiledCondition {
+
+        private final CompiledCondition condition;
+
+        NotCondition(CompiledCondition condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        int test(SessionLocal session) {
+            int r = condition.test(session);
+            return r == UNKNOWN ? UNKNOWN : r ^ 1;
+        }
+
+    }
+
+    private static final class LongComparison extends CompiledCondition {
+
+        private final Comparison comparison;
+
+        private final Leaf[] leaves;
+
+        private final int compareType;
+
+        private final LongNode left, right;
+
+        LongComparison(Comparison comparison, Leaf[] leaves, int compareType, LongNode left, LongNode right) {
+            this.comparison = comparison;
+            this.leaves = leaves;
+            this.compareType = compareType;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int test(SessionLocal session) {
+            switch (checkLeaves(session, leaves)) {
+            case UNKNOWN:
+                return UNKNOWN;
+            case TRUE:
+                try {
+                    return compare(compareType, Long.compare(left.get(session), right.get(session))) ? TRUE : FALSE;
+                } catch (ArithmeticException e) {
+                    // let the interpreter raise the error
+                }
+            }
+            return interpret(session, comparison);
+        }
+
+    }
+
+    private static final class DoubleComparison extends CompiledCondition {
+
+        private final Comparison comparison;
+
+        private final Leaf[] leaves;
+
+        private final int compareType;
+
+        private final DoubleNode left, right;
+
+        DoubleComparison(Comparison comparison, Leaf[] leaves, int compareType, DoubleNode left,
+                DoubleNode right) {
+            this.comparison = comparison;
+            this.leaves = leaves;
+            this.compareType = compareType;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int test(SessionLocal session) {
+            switch (checkLeaves(session, leaves)) {
+            case UNKNOWN:
+                return UNKNOWN;
+            case TRUE:
+                try {
+                    return compare(compareType, Double.compare(left.get(session), right.get(session))) ? TRUE
+                            : FALSE;
+                } catch (ArithmeticException e) {
+                    // let the interpreter raise the error
+                }
+            }
+            return interpret(session, comparison);
+        }
+
+    }
+
+    private static final class StringComparison extends CompiledCondition {
+
+        private final Comparison comparison;
+
+        private final int compareType;
+
+        private final Leaf left, right;
+
+        StringComparison(Comparison comparison, int compareType, Leaf left, Leaf right) {
+            this.comparison = comparison;
+            this.compareType = compareType;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int test(SessionLocal session) {
+            Value a = left.expression.getValue(session);
+            if (a == ValueNull.INSTANCE) {
+                return UNKNOWN;
+            }
+            Value b = right.expression.getValue(session);
+            if (b == ValueNull.INSTANCE) {
+                return UNKNOWN;
+            }
+            if (a.getValueType() != Value.VARCHAR || b.getValueType() != Value.VARCHAR) {
+                return interpret(session, comparison);
+            }
+            String x = a.getString(), y = b.getString();
+            if (compareType == Comparison.EQUAL) {
+                return x.equals(y) ? TRUE : FALSE;
+            } else if (compareType == Comparison.NOT_EQUAL) {
+                return x.equals(y) ? FALSE : TRUE;
+            }
+            return compare(compareType, x.compareTo(y)) ? TRUE : FALSE;
+        }
+
+    }
+
+}
@@ -20,6 +20,7 @@
 import org.h2.api.ErrorCode;
 import org.h2.command.query.QueryOrderBy;
 import org.h2.command.query.Select;
+import org.h2.command.query.SelectGroups;
 import org.h2.engine.Constants;
 import org.h2.engine.Database;
 import org.h2.engine.SessionLocal;
@@ -566,6 +567,10 @@ private Value getValueQuick(SessionLocal session) {
 
     @Override
     public Value getAggregatedValue(SessionLocal session, Object aggregateData) {
+        if (orderBySort != null) {
+            // the command may have been prepared by another session
+            orderBySort = orderBySort.forSession(session);
+        }
         AggregateData data = (AggregateData) aggregateData;
         if (data == null) {
             data = (AggregateData) createAggregateData();
@@ -1400,4 +1405,44 @@ public boolean isDistinct() {
         return distinct;
     }
 
+    /**
+     * Returns whether partial states of this aggregate calculated for disjoint
+     * sets of rows can be merged together.
+     *
+     * @return whether partial states can be merged
+     */
+    public boolean isMergeable() {
+        if (distinct || over != null || filterCondition != null) {
+            return false;
+        }
+        switch (aggregateType) {
+        case COUNT_ALL:
+        case COUNT:
+        case SUM:
+        case MIN:
+        case MAX:
+        case AVG:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Merges the partial state of the same aggregate from another copy of the
+     * query into the current group.
+     *
+     * @param session the session
+     * @param groupData the group data of this aggregate
+     * @param source the same aggregate from another copy of the query
+     * @param sourceGroupData the group data of the source aggregate
+     */
+    public void mergeAggregate(SessionLocal session, SelectGroups groupData, Aggregate source,
+            SelectGroups sourceGroupData) {
+        Object data = source.getGroupData(sourceGroupData, true);
+        if (data != null) {
+            ((AggregateData) getGroupData(groupData, false)).merge(session, (AggregateData) data);
+        }
+    }
+
 }
@@ -6,6 +6,7 @@
 package org.h2.expression.aggregate;
 
 import org.h2.engine.SessionLocal;
+import org.h2.message.DbException;
 import org.h2.value.Value;
 
 /**
@@ -29,4 +30,15 @@ abstract class AggregateData {
      */
     abstract Value getValue(SessionLocal session);
 
+    /**
+     * Merge the state of another aggregate of the same type into this one.
+     * Only aggregates with data for disjoint sets of rows may be merged.
+     *
+     * @param session the session
+     * @param other the aggregate data to merge
+     */
+    void merge(SessionLocal session, AggregateData other) {
+        throw DbException.getUnsupportedException("merge " + getClass().getSimpleName());
+    }
+
 }
@@ -35,4 +35,9 @@ Value getValue(SessionLocal session) {
         return ValueBigint.get(count);
     }
 
+    @Override
+    void merge(SessionLocal session, AggregateData other) {
+        count += ((AggregateDataCount) other).count;
+    }
+
 }
@@ -491,6 +491,10 @@ private Value getOrderedResult(SessionLocal session, SelectGroups groupData, Par
         HashMap<Integer, Value> result = partition.getOrderedResult();
         if (result == null) {
             result = new HashMap<>();
+            if (overOrderBySort != null) {
+                // the command may have been prepared by another session
+                overOrderBySort = overOrderBySort.forSession(session);
+            }
             @SuppressWarnings("unchecked")
             ArrayList<Value[]> orderedData = (ArrayList<Value[]>) data;
             int rowIdColumn = getNumExpressions();
@@ -652,6 +652,15 @@ private static ConditionInList getConditionIn(Expression left, Expression value1
         return new ConditionInList(left, false, false, right);
     }
 
+    /**
+     * Get the comparison type.
+     *
+     * @return the comparison type, such as {@link #EQUAL}
+     */
+    public int getCompareType() {
+        return compareType;
+    }
+
     @Override
     public int getSubexpressionCount() {
         return 2;
@@ -49,7 +49,12 @@ public ConditionAndOr(int andOrType, Expression left, Expression right) {
         this.right = right;
     }
 
-    int getAndOrType() {
+    /**
+     * Get the type of this condition.
+     *
+     * @return {@link ConditionAndOr#AND} or {@link ConditionAndOr#OR}
+     */
+    public int getAndOrType() {
         return this.andOrType;
     }
 
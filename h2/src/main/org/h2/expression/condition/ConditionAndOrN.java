@@ -52,7 +52,12 @@ public ConditionAndOrN(int andOrType, List<Expression> expressions) {
         this.expressions = expressions;
     }
 
-    int getAndOrType() {
+    /**
+     * Get the type of this condition.
+     *
+     * @return {@link ConditionAndOr#AND} or {@link ConditionAndOr#OR}
+     */
+    public int getAndOrType() {
         return andOrType;
     }
 
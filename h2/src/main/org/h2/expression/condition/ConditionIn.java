@@ -68,6 +68,15 @@ public final boolean isWhenConditionOperand() {
         return whenOperand;
     }
 
+    /**
+     * Returns whether this predicate is negated.
+     *
+     * @return whether this predicate is negated
+     */
+    public final boolean isNot() {
+        return not;
+    }
+
     @Override
     public final void createIndexConditions(SessionLocal session, TableFilter filter) {
         if (not || whenOperand || !session.getDatabase().getSettings().optimizeInList) {
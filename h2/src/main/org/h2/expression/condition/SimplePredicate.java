@@ -95,4 +95,13 @@ public final boolean isWhenConditionOperand() {
         return whenOperand;
     }
 
+    /**
+     * Returns whether this predicate is negated.
+     *
+     * @return whether this predicate is negated
+     */
+    public final boolean isNot() {
+        return not;
+    }
+
 }
@@ -6,6 +6,7 @@
 package org.h2.expression.function.table;
 
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 
 import org.h2.api.ErrorCode;
@@ -30,9 +31,35 @@ public CSVReadFunction() {
     @Override
     public ResultInterface getValue(SessionLocal session) {
         session.getUser().checkAdmin();
+        Csv csv = new Csv();
+        try {
+            return JavaMethod.resultSetToResult(session, read(session, csv), Integer.MAX_VALUE);
+        } catch (SQLException e) {
+            throw DbException.convert(e);
+        }
+    }
+
+    @Override
+    public ResultInterface getLazyValue(SessionLocal session) {
+        session.getUser().checkAdmin();
+        Csv csv = new Csv();
+        try {
+            ResultSetMetaData meta = read(session, csv).getMetaData();
+            int columnCount = meta.getColumnCount();
+            String[] columnNames = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                columnNames[i] = meta.getColumnLabel(i + 1);
+            }
+            return new CSVReadResult(session, csv, getValue(session, 0), columnNames);
+        } catch (SQLException e) {
+            csv.close();
+            throw DbException.convert(e);
+        }
+    }
+
+    private ResultSet read(SessionLocal session, Csv csv) throws SQLException {
         String fileName = getValue(session, 0);
         String columnList = getValue(session, 1);
-        Csv csv = new Csv();
         String options = getValue(session, 2);
         String charset = null;
         if (options != null && options.indexOf('=') >= 0) {
@@ -48,12 +75,7 @@ public ResultInterface getValue(SessionLocal session) {
         }
         char fieldSeparator = csv.getFieldSeparatorRead();
         String[] columns = StringUtils.arraySplit(columnList, fieldSeparator, true);
-        try {
-            // TODO create result directly
-            return JavaMethod.resultSetToResult(session, csv.read(fileName, columns, charset), Integer.MAX_VALUE);
-        } catch (SQLException e) {
-            throw DbException.convert(e);
-        }
+        return csv.read(fileName, columns, charset);
     }
 
     private String getValue(SessionLocal session, int index) {
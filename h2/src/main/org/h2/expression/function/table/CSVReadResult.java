@@ -0,0 +1,248 @@
+/*
+ * Copyright 2004-2025 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.expression.function.table;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+
+import org.h2.api.DatabaseEventListener;
+import org.h2.engine.Database;
+import org.h2.engine.SessionLocal;
+import org.h2.expression.Expression;
+import org.h2.expression.ExpressionColumn;
+import org.h2.message.DbException;
+import org.h2.result.LazyResult;
+import org.h2.store.fs.FileUtils;
+import org.h2.table.Column;
+import org.h2.tools.Csv;
+import org.h2.value.TypeInfo;
+import org.h2.value.Value;
+import org.h2.value.ValueNull;
+import org.h2.value.ValueVarchar;
+
+/**
+ * A result of the CSVREAD function that reads the file on demand. The file is
+ * read in chunks of complete records. If parallel scans are enabled, chunks
+ * are parsed by worker threads of the parallel scan pool, rows are returned in
+ * the order of the file.
+ */
+final class CSVReadResult extends LazyResult {
+
+    /**
+     * The minimal number of characters in a chunk.
+     */
+    private static final int CHUNK_SIZE = 1 << 18;
+
+    private final SessionLocal session;
+
+    private final Database database;
+
+    private final Csv csv;
+
+    private final String fileName;
+
+    private final long fileSize;
+
+    private final int columnCount;
+
+    private final int threads;
+
+    private final ArrayDeque<ForkJoinTask<Value[][]>> tasks = new ArrayDeque<>();
+
+    /**
+     * The characters of incomplete records that were read after the end of the
+     * last chunk.
+     */
+    private char[] buffer = new char[CHUNK_SIZE];
+
+    private int bufferLength;
+
+    /**
+     * The characters of the last chunk.
+     */
+    private char[] chunk;
+
+    private boolean endOfInput;
+
+    private long charsRead;
+
+    private Value[][] rows;
+
+    private int rowIndex;
+
+    /**
+     * Creates a new result.
+     *
+     * @param session the session
+     * @param csv the CSV reader, the header must be already read
+     * @param fileName the file name
+     * @param columnNames the column names
+     */
+    CSVReadResult(SessionLocal session, Csv csv, String fileName, String[] columnNames) {
+        super(session, getExpressions(session, columnNames));
+        this.session = session;
+        database = session.getDatabase();
+        this.csv = csv;
+        this.fileName = fileName;
+        fileSize = FileUtils.size(fileName);
+        columnCount = columnNames.length;
+        threads = database.getSettings().parallelScanThreads;
+    }
+
+    private static Expression[] getExpressions(SessionLocal session, String[] columnNames) {
+        Database database = session.getDatabase();
+        TypeInfo type = TypeInfo.getTypeInfo(Value.VARCHAR, Integer.MAX_VALUE, 0, null);
+        int columnCount = columnNames.length;
+        Expression[] expressions = new Expression[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            expressions[i] = new ExpressionColumn(database, new Column(columnNames[i], type));
+        }
+        return expressions;
+    }
+
+    @Override
+    public int getVisibleColumnCount() {
+        return columnCount;
+    }
+
+    @Override
+    protected Value[] fetchNextRow() {
+        while (rows == null || rowIndex >= rows.length) {
+            rows = nextRows();
+            rowIndex = 0;
+            if (rows == null) {
+                closeInput();
+                return null;
+            }
+        }
+        return rows[rowIndex++];
+    }
+
+    private Value[][] nextRows() {
+        try {
+            if (threads <= 1) {
+                int length = readChunk();
+                return length < 0 ? null : parse(chunk, length);
+            }
+            while (tasks.size() < threads) {
+                int length = readChunk();
+                if (length < 0) {
+                    break;
+                }
+                char[] chars = chunk;
+                tasks.add(database.getParallelScanPool().submit(() -> parse(chars, length)));
+            }
+            ForkJoinTask<Value[][]> task = tasks.poll();
+            return task != null ? task.get() : null;
+        } catch (IOException e) {
+            throw DbException.convertIOException(e, fileName);
+        } catch (ExecutionException e) {
+            throw DbException.convert(e.getCause());
+        } catch (InterruptedException e) {
+            throw DbException.convert(e);
+        }
+    }
+
+    /**
+     * Reads the next chunk of complete records into {@link #chunk}. The
+     * remaining characters are moved into a new buffer.
+     *
+     * @return the length of the chunk, or -1 if there are no more records
+     * @throws IOException on failure
+     */
+    private int readChunk() throws IOException {
+        if (endOfInput) {
+            return -1;
+        }
+        char[] chars = buffer;
+        int length = bufferLength;
+        while (true) {
+            if (length == chars.length) {
+                // the chunk has no complete records
+                chars = Arrays.copyOf(chars, chars.length * 2);
+            }
+            int n = csv.readChars(chars, length, chars.length - length);
+            if (n < 0) {
+                endOfInput = true;
+                chunk = chars;
+                buffer = null;
+                bufferLength = 0;
+                return length > 0 ? length : -1;
+            }
+            length += n;
+            charsRead += n;
+            database.setProgress(DatabaseEventListener.STATE_READ_CSV, fileName, charsRead, fileSize);
+            if (length == chars.length) {
+                int end = 0;
+                for (int e; (e = csv.findRecordEnd(chars, end, length)) >= 0;) {
+                    end = e;
+                }
+                if (end > 0) {
+                    int remaining = length - end;
+                    buffer = new char[Math.max(CHUNK_SIZE, remaining * 2)];
+                    System.arraycopy(chars, end, buffer, 0, remaining);
+                    bufferLength = remaining;
+                    chunk = chars;
+                    return end;
+                }
+            }
+        }
+    }
+
+    private Value[][] parse(char[] chars, int length) {
+        ArrayList<String[]> list;
+        try {
+            list = csv.readRows(chars, 0, length);
+        } catch (SQLException e) {
+            throw DbException.convert(e);
+        }
+        int count = list.size();
+        Value[][] result = new Value[count][];
+        for (int i = 0; i < count; i++) {
+            String[] row = list.get(i);
+            int columnCount = row.length;
+            Value[] values = new Value[columnCount];
+            for (int j = 0; j < columnCount; j++) {
+                String s = row[j];
+                values[j] = s == null ? ValueNull.INSTANCE : ValueVarchar.get(s, session);
+            }
+            result[i] = values;
+        }
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        if (charsRead > 0L || endOfInput) {
+            throw DbException.getUnsupportedException("reset");
+        }
+        super.reset();
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        closeInput();
+    }
+
+    private void closeInput() {
+        for (ForkJoinTask<Value[][]> task : tasks) {
+            task.cancel(false);
+        }
+        tasks.clear();
+        rows = null;
+        chunk = null;
+        buffer = null;
+        endOfInput = true;
+        csv.close();
+    }
+
+}
@@ -53,6 +53,18 @@ public void doneWithParameters() throws DbException {
      */
     public abstract ResultInterface getValue(SessionLocal session);
 
+    /**
+     * Get a result that may compute its rows on demand. The result can be
+     * iterated only once.
+     *
+     * @param session
+     *            the session
+     * @return the result
+     */
+    public ResultInterface getLazyValue(SessionLocal session) {
+        return getValue(session);
+    }
+
     /**
      * Get an empty result with the column names set.
      *
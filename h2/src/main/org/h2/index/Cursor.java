@@ -50,4 +50,11 @@ public interface Cursor {
      */
     boolean previous();
 
+    /**
+     * Releases resources of this cursor. The cursor may not be used after this
+     * method was called.
+     */
+    default void close() {
+    }
+
 }
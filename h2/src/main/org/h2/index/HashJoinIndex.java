@@ -0,0 +1,421 @@
+/*
+ * Copyright 2004-2025 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.h2.command.query.AllColumnsForPlan;
+import org.h2.engine.Database;
+import org.h2.engine.SessionLocal;
+import org.h2.expression.Expression;
+import org.h2.expression.ExpressionColumn;
+import org.h2.expression.TypedValueExpression;
+import org.h2.message.DbException;
+import org.h2.mvstore.db.MVTempRowMap;
+import org.h2.result.Row;
+import org.h2.result.SearchRow;
+import org.h2.result.SortOrder;
+import org.h2.table.Column;
+import org.h2.table.IndexColumn;
+import org.h2.table.Table;
+import org.h2.table.TableFilter;
+import org.h2.value.CompareMode;
+import org.h2.value.TypeInfo;
+import org.h2.value.Value;
+import org.h2.value.ValueBigint;
+import org.h2.value.ValueNull;
+import org.h2.value.ValueRow;
+
+/**
+ * An index used for hash joins. It isn't a part of the table, it is created by
+ * the optimizer for equality join conditions when the table has no suitable
+ * index for them.
+ *
+ * <p>
+ * Rows of the table are read into a hash table on the first lookup of a query.
+ * If there are more rows than the maximum number of rows held in memory, rows
+ * are moved into a temporary file ordered by their keys, and each lookup reads
+ * only the rows with its key from this file.
+ * </p>
+ */
+public final class HashJoinIndex extends Index {
+
+    /**
+     * Rows of the table mapped by their keys, each value is a row or a list
+     * of rows with the same key. Null if rows are stored in a temporary file.
+     */
+    private HashMap<Value, Object> rows;
+
+    /**
+     * Rows of the table stored in a temporary file, or null.
+     */
+    private MVTempRowMap spilledRows;
+
+    /**
+     * Creates a new hash join index.
+     *
+     * @param table the table
+     * @param columns the columns of equality join conditions, they must be
+     *            suitable for this index
+     * @see #isSuitable(Table, Column, TypeInfo)
+     */
+    public HashJoinIndex(Table table, IndexColumn[] columns) {
+        super(table, 0, table.getName() + "_HASH_JOIN", columns, 0, IndexType.createNonUnique(false, true, false));
+    }
+
+    /**
+     * Checks whether values of the specified column compared with values of
+     * the specified data type can be used in a hash join index.
+     *
+     * @param table the table
+     * @param column the column
+     * @param type the data type of compared values
+     * @return whether the hash join index can be used
+     */
+    public static boolean isSuitable(Table table, Column column, TypeInfo type) {
+        int columnFamily = getTypeFamily(column.getType().getValueType());
+        if (columnFamily < 0 || columnFamily != getTypeFamily(type.getValueType())) {
+            return false;
+        }
+        return columnFamily != Value.VARCHAR
+                || CompareMode.OFF.equals(table.getDatabase().getCompareMode().getName());
+    }
+
+    /**
+     * Returns the family of data types with the same hash codes of equal
+     * values.
+     *
+     * @param valueType the data type
+     * @return the family, or -1 if values of this data type can't be hashed
+     */
+    private static int getTypeFamily(int valueType) {
+        switch (valueType) {
+        case Value.TINYINT:
+        case Value.SMALLINT:
+        case Value.INTEGER:
+        case Value.BIGINT:
+            return Value.BIGINT;
+        case Value.BOOLEAN:
+        case Value.VARCHAR:
+        case Value.VARBINARY:
+        case Value.DATE:
+        case Value.UUID:
+            return valueType;
+        default:
+            return -1;
+        }
+    }
+
+    /**
+     * Releases the hash table and the temporary file. The next lookup will read
+     * rows of the table again.
+     */
+    public void release() {
+        rows = null;
+        if (spilledRows != null) {
+            spilledRows.close();
+            spilledRows = null;
+        }
+    }
+
+    @Override
+    public String getPlanSQL() {
+        return table.getSQL(new StringBuilder(), TRACE_SQL_FLAGS).append(".hashJoin").toString();
+    }
+
+    @Override
+    public Cursor find(SessionLocal session, SearchRow first, SearchRow last, boolean reverse) {
+        if (rows == null && spilledRows == null) {
+            build(session);
+        }
+        if (first == null || last == null) {
+            return findAll(first != null ? first : last);
+        }
+        int length = columnIds.length;
+        Value[] keyValues = new Value[length];
+        for (int i = 0; i < length; i++) {
+            int id = columnIds[i];
+            Value v = first.getValue(id);
+            if (v == null || last.getValue(id) == null) {
+                // only some columns are specified, IN(...) condition
+                return findAll(first);
+            }
+            v = normalize(v);
+            if (v == ValueNull.INSTANCE || !v.equals(normalize(last.getValue(id)))) {
+                return SingleRowCursor.EMPTY;
+            }
+            keyValues[i] = v;
+        }
+        Object found = getRows(length == 1 ? keyValues[0] : ValueRow.get(keyValues));
+        if (found == null) {
+            return SingleRowCursor.EMPTY;
+        } else if (found instanceof Row) {
+            return new SingleRowCursor((Row) found);
+        }
+        @SuppressWarnings("unchecked")
+        ArrayList<Row> list = (ArrayList<Row>) found;
+        return new MetaCursor(list);
+    }
+
+    private Object getRows(Value key) {
+        if (rows != null) {
+            return rows.get(key);
+        }
+        ArrayList<Value[]> list = spilledRows.get(getKeyValues(key));
+        int size = list.size();
+        if (size == 0) {
+            return null;
+        } else if (size == 1) {
+            return getSpilledRow(list.get(0));
+        }
+        ArrayList<Row> result = new ArrayList<>(size);
+        for (Value[] values : list) {
+            result.add(getSpilledRow(values));
+        }
+        return result;
+    }
+
+    private static Row getSpilledRow(Value[] values) {
+        return Row.get(Arrays.copyOfRange(values, 1, values.length), SearchRow.MEMORY_CALCULATE, values[0].getLong());
+    }
+
+    private Value[] getKeyValues(Value key) {
+        return columnIds.length == 1 ? new Value[] { key } : ((ValueRow) key).getList();
+    }
+
+    /**
+     * Returns all rows with the specified values of some key columns. This
+     * method is used only in rare cases when only some values are specified.
+     *
+     * @param first the row with values of some columns, or null
+     * @return the cursor
+     */
+    private Cursor findAll(SearchRow first) {
+        ArrayList<Row> list = new ArrayList<>();
+        if (rows != null) {
+            addRows(list, rows, first);
+        } else {
+            spilledRows.forEach(values -> addRowIfMatches(list, getSpilledRow(values), first));
+        }
+        return new MetaCursor(list);
+    }
+
+    private void addRows(ArrayList<Row> list, HashMap<Value, Object> map, SearchRow first) {
+        for (Object o : map.values()) {
+            if (o instanceof Row) {
+                addRowIfMatches(list, (Row) o, first);
+            } else {
+                @SuppressWarnings("unchecked")
+                ArrayList<Row> l = (ArrayList<Row>) o;
+                for (Row row : l) {
+                    addRowIfMatches(list, row, first);
+                }
+            }
+        }
+    }
+
+    private void addRowIfMatches(ArrayList<Row> list, Row row, SearchRow first) {
+        if (first != null) {
+            for (int id : columnIds) {
+                Value v = first.getValue(id);
+                if (v != null && !normalize(v).equals(normalize(row.getValue(id)))) {
+                    return;
+                }
+            }
+        }
+        list.add(row);
+    }
+
+    private void build(SessionLocal session) {
+        Database db = session.getDatabase();
+        int maxMemoryRows = db.isPersistent() && !db.isReadOnly() ? db.getMaxMemoryRows() : Integer.MAX_VALUE;
+        HashMap<Value, Object> map = new HashMap<>();
+        Cursor cursor = table.getScanIndex(session).find(session, null, null, false);
+        long count = 0;
+        while (cursor.next()) {
+            if ((++count & 4095) == 0) {
+                session.checkCanceled();
+            }
+            Row row = cursor.get();
+            Value key = getKey(row);
+            if (key == null) {
+                // NULL never matches
+                continue;
+            }
+            if (spilledRows != null) {
+                addSpilledRow(key, row);
+            } else {
+                addRow(map, key, row);
+                if (count > maxMemoryRows) {
+                    createSpilledRows(db);
+                    for (Object o : map.values()) {
+                        if (o instanceof Row) {
+                            Row r = (Row) o;
+                            addSpilledRow(getKey(r), r);
+                        } else {
+                            @SuppressWarnings("unchecked")
+                            ArrayList<Row> list = (ArrayList<Row>) o;
+                            for (Row r : list) {
+                                addSpilledRow(getKey(r), r);
+                            }
+                        }
+                    }
+                    map = null;
+                }
+            }
+        }
+        if (spilledRows == null) {
+            rows = map;
+        }
+    }
+
+    private void createSpilledRows(Database db) {
+        int length = columnIds.length;
+        TypeInfo[] keyTypes = new TypeInfo[length];
+        for (int i = 0; i < length; i++) {
+            TypeInfo type = table.getColumn(columnIds[i]).getType();
+            keyTypes[i] = getTypeFamily(type.getValueType()) == Value.BIGINT ? TypeInfo.TYPE_BIGINT : type;
+        }
+        Column[] tableColumns = table.getColumns();
+        int columnCount = tableColumns.length;
+        TypeInfo[] rowTypes = new TypeInfo[columnCount + 1];
+        rowTypes[0] = TypeInfo.TYPE_BIGINT;
+        for (int i = 0; i < columnCount; i++) {
+            rowTypes[i + 1] = tableColumns[i].getType();
+        }
+        spilledRows = new MVTempRowMap(db, keyTypes, rowTypes);
+    }
+
+    private void addSpilledRow(Value key, Row row) {
+        int columnCount = table.getColumns().length;
+        Value[] values = new Value[columnCount + 1];
+        values[0] = ValueBigint.get(row.getKey());
+        for (int i = 0; i < columnCount; i++) {
+            values[i + 1] = row.getValue(i);
+        }
+        spilledRows.add(getKeyValues(key), values);
+    }
+
+    private static void addRow(HashMap<Value, Object> map, Value key, Row row) {
+        Object old = map.putIfAbsent(key, row);
+        if (old != null) {
+            ArrayList<Row> list;
+            if (old instanceof Row) {
+                list = new ArrayList<>(4);
+                list.add((Row) old);
+                map.put(key, list);
+            } else {
+                @SuppressWarnings("unchecked")
+                ArrayList<Row> l = (ArrayList<Row>) old;
+                list = l;
+            }
+            list.add(row);
+        }
+    }
+
+    /**
+     * Returns the hash key of the specified row.
+     *
+     * @param row the row
+     * @return the key, or null if some key column contains NULL
+     */
+    private Value getKey(Row row) {
+        int length = columnIds.length;
+        if (length == 1) {
+            Value v = normalize(row.getValue(columnIds[0]));
+            return v == ValueNull.INSTANCE ? null : v;
+        }
+        Value[] keyValues = new Value[length];
+        for (int i = 0; i < length; i++) {
+            Value v = normalize(row.getValue(columnIds[i]));
+            if (v == ValueNull.INSTANCE) {
+                return null;
+            }
+            keyValues[i] = v;
+        }
+        return ValueRow.get(keyValues);
+    }
+
+    /**
+     * Converts the value to the representation with the same hash code for
+     * all equal values of the same family of data types.
+     *
+     * @param v the value
+     * @return the normalized value
+     */
+    private static Value normalize(Value v) {
+        switch (v.getValueType()) {
+        case Value.TINYINT:
+        case Value.SMALLINT:
+        case Value.INTEGER:
+            return ValueBigint.get(v.getLong());
+        default:
+            return v;
+        }
+    }
+
+    @Override
+    public double getCost(SessionLocal session, int[] masks, TableFilter[] filters, int filter,
+            SortOrder sortOrder, AllColumnsForPlan allColumnsSet, boolean isSelectCommand) {
+        for (int id : columnIds) {
+            if (masks == null || (masks[id] & IndexCondition.EQUALITY) != IndexCondition.EQUALITY) {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+        // a lookup in the hash table is cheap, but the table needs to be read
+        // for each query, so this index is twice as expensive as a b-tree index
+        return 20 * getCostRangeIndex(masks, table.getRowCountApproximation(session), filters, filter, null, false,
+                allColumnsSet, isSelectCommand);
+    }
+
+    @Override
+    public void close(SessionLocal session) {
+        release();
+    }
+
+    @Override
+    public void add(SessionLocal session, Row row) {
+        throw DbException.getUnsupportedException("HASH JOIN");
+    }
+
+    @Override
+    public void remove(SessionLocal session, Row row) {
+        throw DbException.getUnsupportedException("HASH JOIN");
+    }
+
+    @Override
+    public void remove(SessionLocal session) {
+        throw DbException.getUnsupportedException("HASH JOIN");
+    }
+
+    @Override
+    public void truncate(SessionLocal session) {
+        throw DbException.getUnsupportedException("HASH JOIN");
+    }
+
+    @Override
+    public boolean needRebuild() {
+        return false;
+    }
+
+    @Override
+    public void checkRename() {
+        throw DbException.getUnsupportedException("HASH JOIN");
+    }
+
+    @Override
+    public long getRowCount(SessionLocal session) {
+        return table.getRowCount(session);
+    }
+
+    @Override
+    public long getRowCountApproximation(SessionLocal session) {
+        return table.getRowCountApproximation(session);
+    }
+
+}
@@ -16,6 +16,8 @@
 import org.h2.engine.DbObject;
 import org.h2.engine.NullsDistinct;
 import org.h2.engine.SessionLocal;
+import org.h2.expression.Expression;
+import org.h2.expression.condition.Comparison;
 import org.h2.message.DbException;
 import org.h2.message.Trace;
 import org.h2.mode.DefaultNullOrdering;
@@ -25,6 +27,7 @@
 import org.h2.result.SortOrder;
 import org.h2.schema.SchemaObject;
 import org.h2.table.Column;
+import org.h2.table.ColumnStatistics;
 import org.h2.table.IndexColumn;
 import org.h2.table.Table;
 import org.h2.table.TableFilter;
@@ -584,6 +587,114 @@ protected StringBuilder getDuplicatePrimaryKeyMessage(int mainIndexColumn) {
         return builder;
     }
 
+    /**
+     * Estimates the fraction of rows that satisfy the equality conditions on
+     * the specified column using its statistics.
+     *
+     * @param tableFilter the table filter, or {@code null}
+     * @param column the column
+     * @return the estimated fraction of rows, or {@code NaN} if it is unknown
+     */
+    private static double getEqualityFraction(TableFilter tableFilter, Column column) {
+        ColumnStatistics statistics = column.getStatistics();
+        if (tableFilter == null || statistics == null) {
+            return Double.NaN;
+        }
+        SessionLocal session = tableFilter.getSession();
+        double result = Double.NaN;
+        for (IndexCondition condition : tableFilter.getIndexConditions()) {
+            if (condition.isCompoundColumns() || condition.getColumn() != column) {
+                continue;
+            }
+            double f;
+            int compareType = condition.getCompareType();
+            switch (compareType) {
+            case Comparison.EQUAL:
+            case Comparison.EQUAL_NULL_SAFE:
+                f = statistics.getEqualityFraction(session, getConstantValue(session, column,
+                        condition.getExpression()), compareType == Comparison.EQUAL_NULL_SAFE);
+                break;
+            case Comparison.IN_LIST:
+                f = 0d;
+                for (Expression e : condition.getExpressionList()) {
+                    f += statistics.getEqualityFraction(session, getConstantValue(session, column, e), false);
+                }
+                f = Math.min(f, 1d);
+                break;
+            default:
+                continue;
+            }
+            if (Double.isNaN(result) || f < result) {
+                result = f;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Estimates the fraction of rows that satisfy the range conditions on the
+     * specified column using its statistics.
+     *
+     * @param tableFilter the table filter, or {@code null}
+     * @param column the column
+     * @return the estimated fraction of rows, or {@code NaN} if it is unknown
+     */
+    private static double getRangeFraction(TableFilter tableFilter, Column column) {
+        ColumnStatistics statistics = column.getStatistics();
+        if (tableFilter == null || statistics == null) {
+            return Double.NaN;
+        }
+        SessionLocal session = tableFilter.getSession();
+        Value from = null, to = null;
+        for (IndexCondition condition : tableFilter.getIndexConditions()) {
+            if (condition.isCompoundColumns() || condition.getColumn() != column) {
+                continue;
+            }
+            switch (condition.getCompareType()) {
+            case Comparison.BIGGER:
+            case Comparison.BIGGER_EQUAL: {
+                Value v = getConstantValue(session, column, condition.getExpression());
+                if (v != null && v != ValueNull.INSTANCE && (from == null || session.compare(v, from) > 0)) {
+                    from = v;
+                }
+                break;
+            }
+            case Comparison.SMALLER:
+            case Comparison.SMALLER_EQUAL: {
+                Value v = getConstantValue(session, column, condition.getExpression());
+                if (v != null && v != ValueNull.INSTANCE && (to == null || session.compare(v, to) < 0)) {
+                    to = v;
+                }
+                break;
+            }
+            default:
+            }
+        }
+        if (from == null && to == null) {
+            return Double.NaN;
+        }
+        return statistics.getRangeFraction(session, from, to);
+    }
+
+    /**
+     * Returns the cost of a range lookup. A range condition on an additional
+     * index column never makes the lookup more expensive.
+     */
+    private static long getRangeRowsCost(long rowsCost, double fraction) {
+        return 1 + Math.max((long) ((rowsCost - 2) * fraction), 0);
+    }
+
+    private static Value getConstantValue(SessionLocal session, Column column, Expression expression) {
+        if (!expression.isConstant()) {
+            return null;
+        }
+        try {
+            return column.convert(session, expression.getValue(session));
+        } catch (DbException e) {
+            return null;
+        }
+    }
+
     /**
      * Calculate the cost for the given mask as if this index was a typical
      * b-tree range index. This is the estimated cost required to search one
@@ -605,6 +716,9 @@ protected final long getCostRangeIndex(int[] masks, long rowCount, TableFilter[]
         rowCount += Constants.COST_ROW_OFFSET;
         int totalSelectivity = 0;
         long rowsCost = rowCount;
+        TableFilter currentFilter = filters != null ? filters[filter] : null;
+        double fraction = 1d;
+        boolean useStatistics = false;
         if (masks != null) {
             int i = 0, len = columns.length;
             boolean tryAdditional = false;
@@ -617,23 +731,37 @@ protected final long getCostRangeIndex(int[] masks, long rowCount, TableFilter[]
                         rowsCost = 3;
                         break;
                     }
+                    int selectivity = column.getSelectivity();
                     totalSelectivity = 100 - ((100 - totalSelectivity) *
-                            (100 - column.getSelectivity()) / 100);
+                            (100 - selectivity) / 100);
                     long distinctRows = rowCount * totalSelectivity / 100;
                     if (distinctRows <= 0) {
                         distinctRows = 1;
                     }
                     rowsCost = 2 + Math.max(rowCount / distinctRows, 1);
+                    double f = getEqualityFraction(currentFilter, column);
+                    if (Double.isNaN(f)) {
+                        f = Math.min(100d / Math.max(rowCount * selectivity, 1), 1d);
+                    } else {
+                        useStatistics = true;
+                    }
+                    fraction *= f;
+                    if (useStatistics) {
+                        rowsCost = 2 + Math.max((long) (rowCount * fraction), 1);
+                    }
                 } else if ((mask & IndexCondition.RANGE) == IndexCondition.RANGE) {
-                    rowsCost = 2 + rowsCost / 4;
+                    double f = getRangeFraction(currentFilter, column);
+                    rowsCost = Double.isNaN(f) ? 2 + rowsCost / 4 : getRangeRowsCost(rowsCost, f);
                     tryAdditional = true;
                     break;
                 } else if ((mask & IndexCondition.START) == IndexCondition.START) {
-                    rowsCost = 2 + rowsCost / 3;
+                    double f = getRangeFraction(currentFilter, column);
+                    rowsCost = Double.isNaN(f) ? 2 + rowsCost / 3 : getRangeRowsCost(rowsCost, f);
                     tryAdditional = true;
                     break;
                 } else if ((mask & IndexCondition.END) == IndexCondition.END) {
-                    rowsCost = rowsCost / 3;
+                    double f = getRangeFraction(currentFilter, column);
+                    rowsCost = Double.isNaN(f) ? rowsCost / 3 : getRangeRowsCost(rowsCost, f);
                     tryAdditional = true;
                     break;
                 } else if ((mask & IndexCondition.SPATIAL_INTERSECTS) == IndexCondition.SPATIAL_INTERSECTS) {
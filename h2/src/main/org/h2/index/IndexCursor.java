@@ -17,6 +17,7 @@
 import org.h2.table.Column;
 import org.h2.table.IndexColumn;
 import org.h2.table.Table;
+import org.h2.table.TableFilter;
 import org.h2.value.Value;
 import org.h2.value.ValueGeometry;
 import org.h2.value.ValueNull;
@@ -32,6 +33,7 @@
  */
 public class IndexCursor implements Cursor {
 
+    private final TableFilter filter;
     private SessionLocal session;
     private Index index;
     private boolean reverse;
@@ -51,6 +53,16 @@ public class IndexCursor implements Cursor {
     private ResultInterface inResult;
 
     public IndexCursor() {
+        this(null);
+    }
+
+    /**
+     * Creates a new cursor for the specified table filter.
+     *
+     * @param filter the table filter, or {@code null}
+     */
+    public IndexCursor(TableFilter filter) {
+        this.filter = filter;
     }
 
     public void setIndex(Index index, boolean reverse) {
@@ -188,6 +200,7 @@ private int[] buildSortTypes(Column[] columns) {
      * @param indexConditions the index conditions
      */
     public void find(SessionLocal s, ArrayList<IndexCondition> indexConditions) {
+        close();
         prepare(s, indexConditions);
         if (inColumn != null) {
             return;
@@ -203,6 +216,8 @@ public void find(SessionLocal s, ArrayList<IndexCondition> indexConditions) {
             }
             if (intersects != null && index instanceof SpatialIndex) {
                 cursor = ((SpatialIndex) index).findByGeometry(session, first, last, reverse, intersects);
+            } else if (filter != null && index instanceof LinkedIndex) {
+                cursor = ((LinkedIndex) index).find(session, filter, first, last);
             } else if (index != null) {
                 cursor = index.find(session, first, last, reverse);
             }
@@ -361,7 +376,7 @@ public boolean next() {
             if (cursor.next()) {
                 return true;
             }
-            cursor = null;
+            close();
         }
     }
 
@@ -391,6 +406,7 @@ private void nextCursor() {
     }
 
     private void find(Value v) {
+        close();
         if (inColumn instanceof Column[]) {
             Column[] columns = (Column[]) inColumn;
             ValueRow converted = Column.convert(session, columns, ((ValueRow) v));
@@ -405,7 +421,11 @@ private void find(Value v) {
             int id = column.getColumnId();
             start.setValue(id, v);
         }
-        cursor = index.find(session, start, start, reverse);
+        if (filter != null && index instanceof LinkedIndex) {
+            cursor = ((LinkedIndex) index).find(session, filter, start, start);
+        } else {
+            cursor = index.find(session, start, start, reverse);
+        }
     }
 
     @Override
@@ -413,4 +433,12 @@ public boolean previous() {
         throw DbException.getInternalError(toString());
     }
 
+    @Override
+    public void close() {
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
+    }
+
 }
@@ -13,6 +13,7 @@
 import org.h2.result.Row;
 import org.h2.result.SearchRow;
 import org.h2.table.TableLink;
+import org.h2.value.ValueNull;
 import org.h2.value.ValueToObjectConverter2;
 
 /**
@@ -25,15 +26,22 @@ public class LinkedCursor implements Cursor {
     private final String sql;
     private final SessionLocal session;
     private final ResultSet rs;
+
+    /**
+     * The identifiers of selected columns, or {@code null} if all columns are
+     * selected.
+     */
+    private final int[] columnIds;
     private Row current;
 
     LinkedCursor(TableLink tableLink, ResultSet rs, SessionLocal session,
-            String sql, PreparedStatement prep) {
+            String sql, PreparedStatement prep, int[] columnIds) {
         this.session = session;
         this.tableLink = tableLink;
         this.rs = rs;
         this.sql = sql;
         this.prep = prep;
+        this.columnIds = columnIds;
     }
 
     @Override
@@ -60,9 +68,20 @@ public boolean next() {
             throw DbException.convert(e);
         }
         current = tableLink.getTemplateRow();
-        for (int i = 0; i < current.getColumnCount(); i++) {
-            current.setValue(i, ValueToObjectConverter2.readValue(session, rs, i + 1,
-                    tableLink.getColumn(i).getType().getValueType()));
+        if (columnIds == null) {
+            for (int i = 0; i < current.getColumnCount(); i++) {
+                current.setValue(i, ValueToObjectConverter2.readValue(session, rs, i + 1,
+                        tableLink.getColumn(i).getType().getValueType()));
+            }
+        } else {
+            for (int i = 0; i < current.getColumnCount(); i++) {
+                current.setValue(i, ValueNull.INSTANCE);
+            }
+            for (int i = 0; i < columnIds.length; i++) {
+                int columnId = columnIds[i];
+                current.setValue(columnId, ValueToObjectConverter2.readValue(session, rs, i + 1,
+                        tableLink.getColumn(columnId).getType().getValueType()));
+            }
         }
         return true;
     }
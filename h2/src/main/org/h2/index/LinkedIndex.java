@@ -10,8 +10,23 @@
 import java.util.ArrayList;
 
 import org.h2.command.query.AllColumnsForPlan;
+import org.h2.command.query.Select;
 import org.h2.engine.Constants;
+import org.h2.engine.Mode;
+import org.h2.engine.Mode.ModeEnum;
 import org.h2.engine.SessionLocal;
+import org.h2.expression.Expression;
+import org.h2.expression.ExpressionColumn;
+import org.h2.expression.Parameter;
+import org.h2.expression.aggregate.Aggregate;
+import org.h2.expression.aggregate.AggregateType;
+import org.h2.expression.condition.Comparison;
+import org.h2.expression.condition.ConditionAndOr;
+import org.h2.expression.condition.ConditionAndOrN;
+import org.h2.expression.condition.ConditionInConstantSet;
+import org.h2.expression.condition.ConditionInList;
+import org.h2.expression.condition.ConditionNot;
+import org.h2.expression.condition.NullPredicate;
 import org.h2.message.DbException;
 import org.h2.result.Row;
 import org.h2.result.SearchRow;
@@ -21,9 +36,11 @@
 import org.h2.table.TableFilter;
 import org.h2.table.TableLink;
 import org.h2.util.Utils;
+import org.h2.value.DataType;
 import org.h2.value.TypeInfo;
 import org.h2.value.Value;
 import org.h2.value.ValueNull;
+import org.h2.value.ValueToObjectConverter2;
 
 /**
  * A linked index is a index for a linked (remote) table.
@@ -37,6 +54,8 @@ public class LinkedIndex extends Index {
 
     private final int sqlFlags = QUOTE_ONLY_WHEN_REQUIRED;
 
+    private static final int TYPE_NUMERIC = 1, TYPE_DATETIME = 2;
+
     public LinkedIndex(TableLink table, int id, IndexColumn[] columns, int uniqueColumnCount, IndexType indexType) {
         super(table, id, null, columns, uniqueColumnCount, indexType);
         link = table;
@@ -89,48 +108,513 @@ public void add(SessionLocal session, Row row) {
     @Override
     public Cursor find(SessionLocal session, SearchRow first, SearchRow last, boolean reverse) {
         assert !reverse;
+        return find(session, null, first, last);
+    }
+
+    /**
+     * Find rows for the specified table filter. Conditions on columns of the
+     * filter that can be evaluated by the remote database are added to the
+     * remote query, they are still checked locally too. Only columns
+     * referenced by the query are selected. The row limit of the filter is
+     * added to the remote query if the remote database evaluates all
+     * conditions of the query.
+     *
+     * @param session the session
+     * @param filter the table filter, or {@code null}
+     * @param first the first row, or null for no limit
+     * @param last the last row, or null for no limit
+     * @return the cursor to iterate over the results
+     */
+    public Cursor find(SessionLocal session, TableFilter filter, SearchRow first, SearchRow last) {
         ArrayList<Value> params = Utils.newSmallArrayList();
-        StringBuilder builder = new StringBuilder("SELECT * FROM ").append(targetTableName).append(" T");
-        boolean f = false;
-        for (int i = 0; first != null && i < first.getColumnCount(); i++) {
-            Value v = first.getValue(i);
-            if (v != null) {
-                builder.append(f ? " AND " : " WHERE ");
-                f = true;
-                Column col = table.getColumn(i);
-                addColumnName(builder, col);
-                if (v == ValueNull.INSTANCE) {
-                    builder.append(" IS NULL");
-                } else {
-                    builder.append(">=");
-                    addParameter(builder, col);
-                    params.add(v);
+        StringBuilder where = new StringBuilder();
+        addBounds(where, first, ">=", params);
+        addBounds(where, last, "<=", params);
+        int[] columnIds = null;
+        long limit = -1L;
+        if (filter != null) {
+            Select select = filter.getSelect();
+            Expression condition = select != null && !filter.isJoinOuter() && !filter.isJoinOuterIndirect()
+                    ? select.getCondition() : filter.getFilterCondition();
+            boolean allConditions = addConditions(where, condition, filter, params, session);
+            allConditions &= addConditions(where, filter.getJoinCondition(), filter, params, session);
+            if (allConditions) {
+                limit = filter.getRowLimit();
+            }
+            columnIds = getSelectedColumns(filter);
+        }
+        Mode dialect = link.getDialect();
+        ModeEnum mode = limit >= 0L && dialect != null ? dialect.getEnum() : null;
+        StringBuilder builder = new StringBuilder("SELECT ");
+        if (mode == ModeEnum.MSSQLServer) {
+            builder.append("TOP ").append(limit).append(' ');
+        }
+        if (columnIds == null) {
+            builder.append('*');
+        } else {
+            for (int i = 0; i < columnIds.length; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                addColumnName(builder, table.getColumn(columnIds[i]));
+            }
+        }
+        builder.append(" FROM ").append(targetTableName).append(" T");
+        if (where.length() > 0) {
+            builder.append(" WHERE ").append(where);
+        }
+        if (mode != null) {
+            switch (mode) {
+            case MariaDB:
+            case MySQL:
+                builder.append(" LIMIT ").append(limit);
+                break;
+            case MSSQLServer:
+                break;
+            case Oracle:
+                // FETCH FIRST is not supported by old versions
+                break;
+            default:
+                builder.append(" FETCH FIRST ").append(limit).append(" ROWS ONLY");
+            }
+        }
+        String sql = builder.toString();
+        try {
+            PreparedStatement prep = link.execute(sql, params, false, session);
+            ResultSet rs = prep.getResultSet();
+            return new LinkedCursor(link, rs, session, sql, prep, columnIds);
+        } catch (Exception e) {
+            throw TableLink.wrapException(sql, e);
+        }
+    }
+
+    /**
+     * Checks whether the specified expressions of a query without GROUP BY
+     * clause can be computed by the remote database. COUNT, MIN, MAX, and SUM
+     * aggregates on columns of the table filter without DISTINCT and FILTER
+     * clauses and constants are supported.
+     *
+     * @param filter the table filter
+     * @param condition the condition of the query, or {@code null}
+     * @param expressions the expressions of the query
+     * @return whether the expressions can be computed by the remote database
+     */
+    public boolean canFindAggregates(TableFilter filter, Expression condition, Expression[] expressions) {
+        StringBuilder builder = new StringBuilder();
+        return addAggregates(builder, filter, expressions)
+                && (condition == null || addCondition(builder, condition, filter, null, null));
+    }
+
+    /**
+     * Computes the specified expressions of a query without GROUP BY clause
+     * with a single remote query. The expressions must be checked with
+     * {@link #canFindAggregates(TableFilter, Expression, Expression[])}
+     * first.
+     *
+     * @param session the session
+     * @param filter the table filter
+     * @param condition the condition of the query, or {@code null}
+     * @param expressions the expressions of the query
+     * @return the values of the expressions, or {@code null} if the condition
+     *         cannot be evaluated by the remote database with the current
+     *         values of parameters
+     */
+    public Value[] findAggregates(SessionLocal session, TableFilter filter, Expression condition,
+            Expression[] expressions) {
+        StringBuilder builder = new StringBuilder("SELECT ");
+        addAggregates(builder, filter, expressions);
+        builder.append(" FROM ").append(targetTableName).append(" T");
+        ArrayList<Value> params = Utils.newSmallArrayList();
+        if (condition != null && !addCondition(builder.append(" WHERE "), condition, filter, params, session)) {
+            return null;
+        }
+        String sql = builder.toString();
+        try {
+            PreparedStatement prep = link.execute(sql, params, false, session);
+            int length = expressions.length;
+            Value[] row = new Value[length];
+            try (ResultSet rs = prep.getResultSet()) {
+                rs.next();
+                for (int i = 0, j = 0; i < length; i++) {
+                    Expression e = expressions[i];
+                    if (e.getNonAliasExpression() instanceof Aggregate) {
+                        TypeInfo type = e.getType();
+                        row[i] = ValueToObjectConverter2.readValue(session, rs, ++j, type.getValueType())
+                                .convertTo(type, session);
+                    } else {
+                        row[i] = e.getValue(session);
+                    }
                 }
             }
+            link.reusePreparedStatement(prep, sql);
+            return row;
+        } catch (Exception e) {
+            throw TableLink.wrapException(sql, e);
         }
-        for (int i = 0; last != null && i < last.getColumnCount(); i++) {
-            Value v = last.getValue(i);
-            if (v != null) {
-                builder.append(f ? " AND " : " WHERE ");
-                f = true;
+    }
+
+    private void addBounds(StringBuilder builder, SearchRow row, String operator, ArrayList<Value> params) {
+        for (int i = 0; row != null && i < row.getColumnCount(); i++) {
+            Value v = row.getValue(i);
+            // character strings are compared locally only, see getTypeGroup()
+            if (v != null && (v == ValueNull.INSTANCE
+                    || !DataType.isCharacterStringType(table.getColumn(i).getType().getValueType()))) {
+                if (builder.length() > 0) {
+                    builder.append(" AND ");
+                }
                 Column col = table.getColumn(i);
                 addColumnName(builder, col);
                 if (v == ValueNull.INSTANCE) {
                     builder.append(" IS NULL");
                 } else {
-                    builder.append("<=");
+                    builder.append(operator);
                     addParameter(builder, col);
                     params.add(v);
                 }
             }
         }
-        String sql = builder.toString();
-        try {
-            PreparedStatement prep = link.execute(sql, params, false, session);
-            ResultSet rs = prep.getResultSet();
-            return new LinkedCursor(link, rs, session, sql, prep);
-        } catch (Exception e) {
-            throw TableLink.wrapException(sql, e);
+    }
+
+    /**
+     * Returns the identifiers of columns referenced by the query of the
+     * specified table filter.
+     *
+     * @param filter the table filter
+     * @return the sorted identifiers of columns, or {@code null} if all
+     *         columns are needed
+     */
+    private int[] getSelectedColumns(TableFilter filter) {
+        Select select = filter.getSelect();
+        if (select == null || select.getForUpdate() != null) {
+            // Rows of updated tables need values of all columns
+            return null;
+        }
+        ArrayList<Column> columns = new AllColumnsForPlan(new TableFilter[] { filter }).get(table);
+        int columnCount = table.getColumns().length;
+        boolean[] used = new boolean[columnCount];
+        int count = 0;
+        if (columns != null) {
+            for (Column column : columns) {
+                int columnId = column.getColumnId();
+                if (columnId >= 0 && !used[columnId]) {
+                    used[columnId] = true;
+                    count++;
+                }
+            }
+        }
+        if (count == columnCount) {
+            return null;
+        } else if (count == 0) {
+            // At least one column needs to be selected
+            return new int[1];
+        }
+        int[] columnIds = new int[count];
+        for (int i = 0, j = 0; i < columnCount; i++) {
+            if (used[i]) {
+                columnIds[j++] = i;
+            }
+        }
+        return columnIds;
+    }
+
+    /**
+     * Appends the conjuncts of the specified condition that can be evaluated
+     * by the remote database.
+     *
+     * @return whether all conjuncts were appended
+     */
+    private boolean addConditions(StringBuilder builder, Expression condition, TableFilter filter,
+            ArrayList<Value> params, SessionLocal session) {
+        if (condition == null) {
+            return true;
+        }
+        if (condition instanceof ConditionAndOr
+                && ((ConditionAndOr) condition).getAndOrType() == ConditionAndOr.AND
+                || condition instanceof ConditionAndOrN
+                        && ((ConditionAndOrN) condition).getAndOrType() == ConditionAndOr.AND) {
+            boolean all = true;
+            for (int i = 0, l = condition.getSubexpressionCount(); i < l; i++) {
+                all &= addConditions(builder, condition.getSubexpression(i), filter, params, session);
+            }
+            return all;
+        }
+        int length = builder.length(), paramCount = params.size();
+        if (length > 0) {
+            builder.append(" AND ");
+        }
+        if (addCondition(builder, condition, filter, params, session)) {
+            return true;
+        }
+        builder.setLength(length);
+        params.subList(paramCount, params.size()).clear();
+        return false;
+    }
+
+    /**
+     * Appends the specified condition if it can be evaluated by the remote
+     * database.
+     *
+     * @param params the list of parameters, or {@code null} to check the
+     *            condition without evaluation of its operands
+     * @return {@code false} if the condition cannot be appended, the builder
+     *         and parameters may contain a part of it in this case
+     */
+    private boolean addCondition(StringBuilder builder, Expression e, TableFilter filter,
+            ArrayList<Value> params, SessionLocal session) {
+        if (e instanceof ConditionAndOr || e instanceof ConditionAndOrN) {
+            boolean and = e instanceof ConditionAndOr ? ((ConditionAndOr) e).getAndOrType() == ConditionAndOr.AND
+                    : ((ConditionAndOrN) e).getAndOrType() == ConditionAndOr.AND;
+            builder.append('(');
+            for (int i = 0, l = e.getSubexpressionCount(); i < l; i++) {
+                if (i > 0) {
+                    builder.append(and ? " AND " : " OR ");
+                }
+                if (!addCondition(builder, e.getSubexpression(i), filter, params, session)) {
+                    return false;
+                }
+            }
+            builder.append(')');
+            return true;
+        } else if (e instanceof ConditionNot) {
+            builder.append("(NOT ");
+            if (!addCondition(builder, e.getSubexpression(0), filter, params, session)) {
+                return false;
+            }
+            builder.append(')');
+            return true;
+        } else if (e instanceof Comparison) {
+            return addComparison(builder, (Comparison) e, filter, params, session);
+        } else if (e instanceof NullPredicate) {
+            NullPredicate p = (NullPredicate) e;
+            Column column = getColumn(p.getSubexpression(0), filter);
+            if (p.isWhenConditionOperand() || column == null) {
+                return false;
+            }
+            addColumnName(builder, column);
+            builder.append(p.isNot() ? " IS NOT NULL" : " IS NULL");
+            return true;
+        } else if (e instanceof ConditionInList || e instanceof ConditionInConstantSet) {
+            Column column = getColumn(e.getSubexpression(0), filter);
+            if (e.isWhenConditionOperand() || column == null || getTypeGroup(column) == 0) {
+                return false;
+            }
+            boolean not = e instanceof ConditionInList ? ((ConditionInList) e).isNot()
+                    : ((ConditionInConstantSet) e).isNot();
+            builder.append('(');
+            addColumnName(builder, column);
+            builder.append(not ? " NOT IN(" : " IN(");
+            for (int i = 1, l = e.getSubexpressionCount(); i < l; i++) {
+                if (i > 1) {
+                    builder.append(", ");
+                }
+                if (!addOperand(builder, e.getSubexpression(i), column, filter, params, session)) {
+                    return false;
+                }
+            }
+            builder.append("))");
+            return true;
+        }
+        return false;
+    }
+
+    private boolean addComparison(StringBuilder builder, Comparison c, TableFilter filter,
+            ArrayList<Value> params, SessionLocal session) {
+        if (c.isWhenConditionOperand()) {
+            return false;
+        }
+        Expression left = c.getSubexpression(0), right = c.getSubexpression(1);
+        Column leftColumn = getColumn(left, filter), rightColumn = getColumn(right, filter);
+        Column column = leftColumn != null ? leftColumn : rightColumn;
+        if (column == null) {
+            return false;
+        }
+        int typeGroup = getTypeGroup(column);
+        if (typeGroup == 0 || rightColumn != null && getTypeGroup(rightColumn) != typeGroup) {
+            return false;
+        }
+        String operator;
+        boolean not = false;
+        int compareType = c.getCompareType();
+        switch (compareType) {
+        case Comparison.EQUAL:
+            operator = " = ";
+            break;
+        case Comparison.NOT_EQUAL:
+            operator = " <> ";
+            break;
+        case Comparison.SMALLER:
+            operator = " < ";
+            break;
+        case Comparison.SMALLER_EQUAL:
+            operator = " <= ";
+            break;
+        case Comparison.BIGGER:
+            operator = " > ";
+            break;
+        case Comparison.BIGGER_EQUAL:
+            operator = " >= ";
+            break;
+        case Comparison.EQUAL_NULL_SAFE:
+        case Comparison.NOT_EQUAL_NULL_SAFE: {
+            Mode dialect = link.getDialect();
+            if (dialect == null) {
+                return false;
+            }
+            boolean equal = compareType == Comparison.EQUAL_NULL_SAFE;
+            switch (dialect.getEnum()) {
+            case REGULAR:
+            case STRICT:
+            case LEGACY:
+            case HSQLDB:
+            case PostgreSQL:
+                operator = equal ? " IS NOT DISTINCT FROM " : " IS DISTINCT FROM ";
+                break;
+            case MariaDB:
+            case MySQL:
+                operator = " <=> ";
+                not = !equal;
+                break;
+            default:
+                return false;
+            }
+            break;
+        }
+        default:
+            return false;
+        }
+        builder.append(not ? "(NOT (" : "(");
+        if (!addOperand(builder, left, column, filter, params, session)) {
+            return false;
+        }
+        builder.append(operator);
+        if (!addOperand(builder, right, column, filter, params, session)) {
+            return false;
+        }
+        builder.append(not ? "))" : ")");
+        return true;
+    }
+
+    /**
+     * Appends a column of the table filter, or a parameter with the value of
+     * a constant or parameter expression.
+     *
+     * @param column the column of the table filter that is compared with the
+     *            operand
+     */
+    private boolean addOperand(StringBuilder builder, Expression e, Column column, TableFilter filter,
+            ArrayList<Value> params, SessionLocal session) {
+        Column c = getColumn(e, filter);
+        if (c != null) {
+            addColumnName(builder, c);
+            return true;
+        }
+        if (!(e instanceof Parameter) && !e.isConstant()) {
+            return false;
+        }
+        if (params != null) {
+            Value v = e.getValue(session);
+            if (v == ValueNull.INSTANCE || getTypeGroup(v.getValueType()) != getTypeGroup(column)) {
+                return false;
+            }
+            params.add(v);
+        }
+        addParameter(builder, column);
+        return true;
+    }
+
+    private boolean addAggregates(StringBuilder builder, TableFilter filter, Expression[] expressions) {
+        boolean found = false;
+        for (Expression e : expressions) {
+            e = e.getNonAliasExpression();
+            if (!(e instanceof Aggregate)) {
+                if (!e.isConstant()) {
+                    return false;
+                }
+                continue;
+            }
+            Aggregate a = (Aggregate) e;
+            if (a.isDistinct() || a.getFilterCondition() != null) {
+                return false;
+            }
+            if (found) {
+                builder.append(", ");
+            }
+            found = true;
+            AggregateType aggregateType = a.getAggregateType();
+            if (aggregateType == AggregateType.COUNT_ALL) {
+                builder.append("COUNT(*)");
+                continue;
+            }
+            Column column = getColumn(a.getSubexpression(0), filter);
+            if (column == null) {
+                return false;
+            }
+            int typeGroup = getTypeGroup(column);
+            switch (aggregateType) {
+            case COUNT:
+                builder.append("COUNT(");
+                break;
+            case MIN:
+            case MAX:
+                // Character strings may be sorted differently
+                if (typeGroup != TYPE_NUMERIC && typeGroup != TYPE_DATETIME) {
+                    return false;
+                }
+                builder.append(aggregateType == AggregateType.MIN ? "MIN(" : "MAX(");
+                break;
+            case SUM:
+                if (typeGroup != TYPE_NUMERIC) {
+                    return false;
+                }
+                builder.append("SUM(");
+                break;
+            default:
+                return false;
+            }
+            addColumnName(builder, column);
+            builder.append(')');
+        }
+        return found;
+    }
+
+    private static Column getColumn(Expression e, TableFilter filter) {
+        if (e instanceof ExpressionColumn) {
+            ExpressionColumn c = (ExpressionColumn) e;
+            if (c.getTableFilter() == filter) {
+                Column column = c.getColumn();
+                if (column.getColumnId() >= 0) {
+                    return column;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int getTypeGroup(Column column) {
+        return getTypeGroup(column.getType().getValueType());
+    }
+
+    /**
+     * Returns the group of data types that can be compared with each other by
+     * the remote database in the same way as locally. Character strings are
+     * not compared remotely, because the remote database may use another
+     * collation and may skip rows that match locally.
+     *
+     * @param valueType the value type
+     * @return the group of data types, or 0 if values of this data type should
+     *         not be compared by the remote database
+     */
+    private static int getTypeGroup(int valueType) {
+        if (DataType.isNumericType(valueType)) {
+            return TYPE_NUMERIC;
+        }
+        switch (valueType) {
+        case Value.DATE:
+        case Value.TIME:
+        case Value.TIMESTAMP:
+            return TYPE_DATETIME;
+        default:
+            return 0;
         }
     }
 
@@ -29,4 +29,14 @@ public interface SpatialIndex {
     Cursor findByGeometry(SessionLocal session, SearchRow first, SearchRow last, boolean reverse,
             SearchRow intersection);
 
+    /**
+     * Get the overlap of sibling nodes of the index tree: the sum of the areas
+     * of intersections of their bounds divided by the sum of their areas.
+     *
+     * @return the overlap, or -1 if this index is not a tree
+     */
+    default double getNodeOverlap() {
+        return -1d;
+    }
+
 }
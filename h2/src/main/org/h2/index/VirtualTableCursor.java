@@ -100,6 +100,7 @@ private boolean nextImpl() {
             values = result.currentRow();
         } else {
             values = null;
+            close();
         }
         return values != null;
     }
@@ -109,4 +110,11 @@ public boolean previous() {
         throw DbException.getInternalError(toString());
     }
 
+    @Override
+    public void close() {
+        if (result != null && !result.isClosed()) {
+            result.close();
+        }
+    }
+
 }
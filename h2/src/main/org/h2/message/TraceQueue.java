@@ -0,0 +1,136 @@
+/*
+ * Copyright 2004-2025 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.message;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free ring buffer of trace records with multiple producers and
+ * a single consumer. Each slot has a sequence number that tells producers and
+ * the consumer whether the slot is free or contains a record.
+ */
+final class TraceQueue {
+
+    /**
+     * A trace record.
+     */
+    static final class Record {
+
+        /**
+         * The time of the record.
+         */
+        final Instant time;
+
+        /**
+         * The module name.
+         */
+        final String module;
+
+        /**
+         * The message.
+         */
+        final String message;
+
+        /**
+         * The exception, or {@code null}.
+         */
+        final Throwable throwable;
+
+        Record(Instant time, String module, String message, Throwable throwable) {
+            this.time = time;
+            this.module = module;
+            this.message = message;
+            this.throwable = throwable;
+        }
+
+    }
+
+    private final int mask;
+
+    private final AtomicReferenceArray<Record> records;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The position of the next record to poll, used only by the consumer.
+     */
+    private long head;
+
+    /**
+     * Creates a new queue.
+     *
+     * @param capacity the capacity, must be a power of two
+     */
+    TraceQueue(int capacity) {
+        mask = capacity - 1;
+        records = new AtomicReferenceArray<>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds a record to the queue. This method may be called concurrently.
+     *
+     * @param record the record
+     * @return {@code true} on success, {@code false} if the queue is full
+     */
+    boolean offer(Record record) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0L) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    records.lazySet(index, record);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0L) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest record from the queue. This method may be called only
+     * by one thread at a time.
+     *
+     * @return the record, or {@code null} if the queue is empty
+     */
+    Record poll() {
+        long pos = head;
+        int index = (int) pos & mask;
+        if (sequences.get(index) != pos + 1) {
+            return null;
+        }
+        Record record = records.get(index);
+        records.lazySet(index, null);
+        sequences.set(index, pos + mask + 1);
+        head = pos + 1;
+        return record;
+    }
+
+    /**
+     * Checks whether the queue is empty. This method may be called only by
+     * the consumer.
+     *
+     * @return whether the queue is empty
+     */
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+}
@@ -13,12 +13,18 @@
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.TemporalAccessor;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
 import org.h2.api.ErrorCode;
 import org.h2.engine.Constants;
@@ -32,6 +38,11 @@
  * 'log' is already used in the database domain and means 'transaction log'. It
  * is possible to write after close was called, but that means for each write
  * the file will be opened and closed again (which is slower).
+ * <p>
+ * Errors are written to the trace file immediately. Other records are added
+ * to a bounded queue and written in batches by a background thread, if the
+ * queue is full they are dropped and counted.
+ * </p>
  */
 public class TraceSystem implements TraceWriter {
 
@@ -83,7 +94,16 @@ public class TraceSystem implements TraceWriter {
      */
     private static final int DEFAULT_MAX_FILE_SIZE = 64 * 1024 * 1024;
 
-    private static final int CHECK_SIZE_EACH_WRITES = 4096;
+    /**
+     * The maximum number of trace records that wait for the background writer.
+     */
+    private static final int QUEUE_CAPACITY = 8192;
+
+    /**
+     * The maximum time the background writer waits for new records, in
+     * nanoseconds.
+     */
+    private static final long WRITER_WAIT_NANOS = 100_000_000L;
 
     private static DateTimeFormatter DATE_TIME_FORMATTER;
 
@@ -97,12 +117,15 @@ public class TraceSystem implements TraceWriter {
     private Writer fileWriter;
     private PrintWriter printWriter;
     /**
-     * Starts at -1 so that we check the file size immediately upon open. This
-     * Can be important if we open and close the trace file without managing to
-     * have written CHECK_SIZE_EACH_WRITES bytes each time.
+     * The approximate size of the trace file, in bytes.
      */
-    private int checkSize = -1;
-    private boolean closed;
+    private long fileSize;
+    private volatile boolean closed;
+    private volatile TraceQueue queue;
+    private Thread writerThread;
+    private volatile boolean writerWaiting;
+    private final AtomicLong droppedRecords = new AtomicLong();
+    private long reportedDroppedRecords;
     private boolean writingErrorLogged;
     private TraceWriter writer = this;
     private PrintStream sysOut = System.out;
@@ -235,12 +258,22 @@ public int getLevelFile() {
         return levelFile;
     }
 
-    private static String format(String module, String s) {
+    /**
+     * Returns the number of trace records that were not written to the trace
+     * file because the queue of the background writer was full.
+     *
+     * @return the number of dropped records
+     */
+    public long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    private static String format(TemporalAccessor time, String module, String s) {
         DateTimeFormatter dateTimeFormatter = DATE_TIME_FORMATTER;
         if (dateTimeFormatter == null) {
             dateTimeFormatter = initTimeFormatter();
         }
-        return dateTimeFormatter.format(OffsetDateTime.now()) + ' ' + module + ": " + s;
+        return dateTimeFormatter.format(time) + ' ' + module + ": " + s;
     }
 
     private static DateTimeFormatter initTimeFormatter() {
@@ -268,54 +301,147 @@ public void write(int level, String module, String s, Throwable t) {
         // level > levelMax: the level for this module is set higher
         boolean logToSystemOut = level <= levelSystemOut || level > levelMax;
         boolean logToFile = fileName != null && level <= levelFile;
-        if (logToSystemOut || logToFile) {
-            String row = format(module, s);
-            if (logToSystemOut) {
-                sysOut.println(row);
-                if (t != null && levelSystemOut == DEBUG) {
-                    t.printStackTrace(sysOut);
-                }
+        if (logToSystemOut) {
+            sysOut.println(format(OffsetDateTime.now(), module, s));
+            if (t != null && levelSystemOut == DEBUG) {
+                t.printStackTrace(sysOut);
             }
-            if (logToFile) {
-                writeFile(row, t);
+        }
+        if (logToFile) {
+            TraceQueue.Record record = new TraceQueue.Record(Instant.now(), module, s, t);
+            TraceQueue q = level == ERROR || closed ? null : getQueue();
+            if (q == null) {
+                writeFile(record);
+            } else if (!q.offer(record)) {
+                droppedRecords.incrementAndGet();
+            } else if (writerWaiting) {
+                LockSupport.unpark(writerThread);
             }
         }
     }
 
-    private synchronized void writeFile(String s, Throwable t) {
-        try {
-            checkSize = (checkSize + 1) % CHECK_SIZE_EACH_WRITES;
-            if (checkSize == 0) {
-                closeWriter();
-                if (maxFileSize > 0 && FileUtils.size(fileName) > maxFileSize) {
-                    String old = fileName + ".old";
-                    FileUtils.delete(old);
-                    FileUtils.move(fileName, old);
+    private TraceQueue getQueue() {
+        TraceQueue q = queue;
+        if (q == null && !closed) {
+            synchronized (this) {
+                q = queue;
+                if (q == null && !closed) {
+                    queue = q = new TraceQueue(QUEUE_CAPACITY);
+                    Thread thread = new Thread(this::runWriter, "H2 Trace Writer " + FileUtils.getName(fileName));
+                    thread.setDaemon(true);
+                    writerThread = thread;
+                    thread.start();
+                }
+            }
+        }
+        return q;
+    }
+
+    private void runWriter() {
+        while (true) {
+            boolean empty;
+            synchronized (this) {
+                writeQueued();
+                if (closed) {
+                    writerThread = null;
+                    return;
                 }
+                empty = queue.isEmpty();
+                writerWaiting = empty;
+            }
+            if (empty) {
+                LockSupport.parkNanos(this, WRITER_WAIT_NANOS);
+                writerWaiting = false;
             }
+        }
+    }
+
+    /**
+     * Writes the queued records and flushes the trace file. Must be called
+     * with the lock of this object.
+     */
+    private void writeQueued() {
+        TraceQueue q = queue;
+        if (q == null) {
+            return;
+        }
+        boolean written = false;
+        for (TraceQueue.Record record; (record = q.poll()) != null;) {
+            written |= writeRecord(record);
+        }
+        long dropped = droppedRecords.get();
+        if (dropped != reportedDroppedRecords) {
+            written |= writeRecord(new TraceQueue.Record(Instant.now(), Trace.MODULE_NAMES[Trace.DATABASE],
+                    (dropped - reportedDroppedRecords) + " trace records were dropped", null));
+            reportedDroppedRecords = dropped;
+        }
+        if (written) {
+            flushWriter();
+        }
+    }
+
+    private synchronized void writeFile(TraceQueue.Record record) {
+        writeQueued();
+        if (writeRecord(record)) {
+            flushWriter();
+        }
+    }
+
+    private boolean writeRecord(TraceQueue.Record record) {
+        if (fileName == null) {
+            return false;
+        }
+        try {
             if (!openWriter()) {
-                return;
+                return false;
             }
-            printWriter.println(s);
+            String row = format(OffsetDateTime.ofInstant(record.time, ZoneId.systemDefault()), record.module,
+                    record.message);
+            Throwable t = record.throwable;
             if (t != null) {
+                StringWriter w = new StringWriter();
+                PrintWriter p = new PrintWriter(w);
+                p.println(row);
                 if (levelFile == ERROR && t instanceof JdbcException) {
                     JdbcException se = (JdbcException) t;
                     int code = se.getErrorCode();
                     if (ErrorCode.isCommon(code)) {
-                        printWriter.println(t);
+                        p.println(t);
                     } else {
-                        t.printStackTrace(printWriter);
+                        t.printStackTrace(p);
                     }
                 } else {
-                    t.printStackTrace(printWriter);
+                    t.printStackTrace(p);
                 }
+                p.flush();
+                printWriter.print(w);
+                fileSize += w.getBuffer().length();
+            } else {
+                printWriter.println(row);
+                fileSize += row.length() + 1;
             }
-            printWriter.flush();
-            if (closed) {
+            if (maxFileSize > 0 && fileSize > maxFileSize) {
                 closeWriter();
+                String old = fileName + ".old";
+                FileUtils.delete(old);
+                FileUtils.move(fileName, old);
             }
+            return true;
         } catch (Exception e) {
             logWritingError(e);
+            return false;
+        }
+    }
+
+    private void flushWriter() {
+        if (printWriter != null) {
+            printWriter.flush();
+            if (printWriter.checkError()) {
+                logWritingError(new IOException(fileName));
+            }
+            if (closed) {
+                closeWriter();
+            }
         }
     }
 
@@ -341,9 +467,16 @@ private boolean openWriter() {
                     // can't be opened
                     return false;
                 }
+                fileSize = FileUtils.exists(fileName) ? FileUtils.size(fileName) : 0L;
+                if (maxFileSize > 0 && fileSize > maxFileSize) {
+                    String old = fileName + ".old";
+                    FileUtils.delete(old);
+                    FileUtils.move(fileName, old);
+                    fileSize = 0L;
+                }
                 fileWriter = IOUtils.getBufferedWriter(
                         FileUtils.newOutputStream(fileName, true));
-                printWriter = new PrintWriter(fileWriter, true);
+                printWriter = new PrintWriter(fileWriter, false);
             } catch (Exception e) {
                 logWritingError(e);
                 return false;
@@ -374,8 +507,16 @@ private synchronized void closeWriter() {
      * (slowing down tracing).
      */
     public void close() {
-        closeWriter();
-        closed = true;
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            writeQueued();
+            closeWriter();
+            thread = writerThread;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
     }
 
     @Override
@@ -5,6 +5,9 @@
  */
 package org.h2.mvstore;
 
+import org.h2.compress.CompressDeflate;
+import org.h2.compress.CompressLZF;
+import org.h2.compress.Compressor;
 import org.h2.engine.Constants;
 import static org.h2.mvstore.MVStore.INITIAL_VERSION;
 import org.h2.mvstore.cache.CacheLongKeyLIRS;
@@ -22,6 +25,7 @@
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +39,9 @@
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
@@ -143,6 +150,17 @@
      */
     private ThreadPoolExecutor serializationExecutor;
 
+    /**
+     * The number of threads used to serialize and compress leaf pages of a chunk.
+     * Value of 1 means that all pages are serialized by the serialization thread itself.
+     */
+    private final int serializationThreads;
+
+    /**
+     * Pool of workers for parallel serialization of leaf pages, created on demand
+     */
+    private ForkJoinPool serializationPool;   // protected by serializationLock
+
     /**
      * Single-threaded executor for saving ByteBuffer as a new Chunk
      */
@@ -232,6 +250,12 @@
 
     public static final int PIPE_LENGTH = 3;
 
+    /**
+     * The minimal number of unsaved leaf pages per serialization worker.
+     * Smaller change sets are serialized by a single thread.
+     */
+    private static final int MIN_PAGES_PER_SERIALIZATION_WORKER = 32;
+
 
 
 
@@ -243,6 +267,8 @@ protected FileStore(Map<String, Object> config) {
         if (mb > 0) {
             cc = new CacheLongKeyLIRS.Config();
             cc.maxMemory = mb * 1024L * 1024L;
+            // page cache hits don't synchronize on the cache segment
+            cc.readBufferSize = 16;
             Object o = config.get("cacheConcurrency");
             if (o != null) {
                 cc.segmentCount = (Integer)o;
@@ -264,6 +290,7 @@ protected FileStore(Map<String, Object> config) {
             }
         }
         this.maxPageSize = maxPageSize;
+        serializationThreads = Math.max(1, DataUtils.getConfigParam(config, "serializationThreads", 1));
     }
 
     public abstract void open(String fileName, boolean readOnly, char[] encryptionKey);
@@ -314,6 +341,7 @@ public void close() {
         }
         closed = true;
         chunks.clear();
+        shutdownSerializationPool();
     }
 
     public final int getMetaMapId(IntSupplier nextIdSupplier) {
@@ -1376,6 +1404,47 @@ protected final MVStore getMvStore() {
 
     public abstract void backup(ZipOutputStream out) throws IOException;
 
+    /**
+     * Copy the store header and the chunks that were written or moved after
+     * the previous backup to the zip output stream. The created entry is
+     * applied to the restored previous backup with
+     * {@link SingleFileStore#restoreIncremental(java.io.InputStream, String)}.
+     *
+     * @param out the zip output stream
+     * @param previousChunks the chunk positions of the previous backup, as
+     *            returned by {@link #getChunkPositions()}, or {@code null} to
+     *            copy all chunks
+     * @return the chunk positions of this backup
+     * @throws IOException on failure
+     */
+    public String backupIncremental(ZipOutputStream out, String previousChunks) throws IOException {
+        throw DataUtils.newUnsupportedOperationException("Incremental backup");
+    }
+
+    /**
+     * Get the positions and versions of all chunks of the store, in the
+     * format <code>{block}:{version},...</code> (hexadecimal).
+     *
+     * @return the chunk positions
+     */
+    public String getChunkPositions() {
+        saveChunkLock.lock();
+        try {
+            StringBuilder buff = new StringBuilder();
+            for (C c : chunks.values()) {
+                if (c.isAllocated()) {
+                    if (buff.length() > 0) {
+                        buff.append(',');
+                    }
+                    buff.append(Long.toHexString(c.block)).append(':').append(Long.toHexString(c.version));
+                }
+            }
+            return buff.toString();
+        } finally {
+            saveChunkLock.unlock();
+        }
+    }
+
     protected final ConcurrentMap<Integer, C> getChunks() {
         return chunks;
     }
@@ -1408,6 +1477,21 @@ final void storeIt(ArrayList<Page<?,?>> changed, long version, boolean syncWrite
                 syncWrite, PIPE_LENGTH);
     }
 
+    /**
+     * Wait until all chunks submitted for storage so far are serialized and
+     * written to the file.
+     */
+    final void awaitPendingWrites() {
+        try {
+            // both executors are single-threaded, chunks are serialized and
+            // saved in order of their submission
+            submitOrRun(serializationExecutor, () -> {}, true, 0);
+            submitOrRun(bufferSaveExecutor, () -> {}, true, 0);
+        } catch (ExecutionException e) {
+            throw DataUtils.newMVStoreException(DataUtils.ERROR_WRITING_FAILED, "Writing failed", e);
+        }
+    }
+
     public static void submitOrRun(ThreadPoolExecutor executor, Runnable action,
                                     boolean syncRun, int threshold) throws ExecutionException {
         if (executor != null) {
@@ -1471,7 +1555,8 @@ private void serializeToBuffer(WriteBuffer buff, ArrayList<Page<?, ?>> changed,
         c.next = headerLength;
 
         long version = c.version;
-        PageSerializationManager pageSerializationManager = new PageSerializationManager(c, buff);
+        PageSerializationManager pageSerializationManager = new PageSerializationManager(c, buff,
+                serializeLeavesInParallel(changed));
         for (Page<?,?> p : changed) {
             String key = MVMap.getMapRootKey(p.getMapId());
             if (p.getTotalCount() == 0) {
@@ -1516,6 +1601,67 @@ private void serializeToBuffer(WriteBuffer buff, ArrayList<Page<?, ?>> changed,
         c.buffer = buff.getBuffer();
     }
 
+    /**
+     * Serialize (and compress) keys and values of unsaved leaf pages from the
+     * list of changed pages using the pool of serialization workers. Each
+     * worker writes into its own buffer, and results are later copied into
+     * the chunk buffer in the usual order, so chunk layout and table of
+     * content do not depend on the number of workers.
+     *
+     * @param changed the list of changed root pages
+     * @return serialized page bodies, or null if parallel serialization is
+     *         disabled or the change set is too small
+     */
+    private Map<Page<?,?>, byte[]> serializeLeavesInParallel(ArrayList<Page<?,?>> changed) {
+        assert serializationLock.isHeldByCurrentThread();
+        if (serializationThreads <= 1) {
+            return null;
+        }
+        ArrayList<Page<?,?>> leaves = new ArrayList<>();
+        for (Page<?,?> p : changed) {
+            if (p.getTotalCount() > 0) {
+                p.collectUnsavedLeaves(leaves);
+            }
+        }
+        int count = leaves.size();
+        int workers = Math.min(serializationThreads, count / MIN_PAGES_PER_SERIALIZATION_WORKER);
+        if (workers <= 1) {
+            return null;
+        }
+        if (serializationPool == null) {
+            serializationPool = new ForkJoinPool(serializationThreads, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("H2-serialization-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+        int compressionLevel = mvStore.getCompressionLevel();
+        byte[][] bodies = new byte[count][];
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            int from = (int) ((long) count * w / workers);
+            int to = (int) ((long) count * (w + 1) / workers);
+            tasks.add(serializationPool.submit(() -> {
+                Compressor compressor = compressionLevel == 0 ? null
+                        : compressionLevel == 1 ? new CompressLZF() : new CompressDeflate();
+                int compressType = compressionLevel == 1 ? DataUtils.PAGE_COMPRESSED
+                        : DataUtils.PAGE_COMPRESSED_HIGH;
+                WriteBuffer workerBuffer = new WriteBuffer();
+                for (int i = from; i < to; i++) {
+                    bodies[i] = leaves.get(i).serializeBody(workerBuffer, compressor, compressType);
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        IdentityHashMap<Page<?,?>, byte[]> result = new IdentityHashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            result.put(leaves.get(i), bodies[i]);
+        }
+        return result;
+    }
+
     private void saveRecentChunksInLayout(long currentVersion) {
         C recentlySavedChunk;
         while((recentlySavedChunk = recentlySaved.peek()) != null
@@ -1803,6 +1949,19 @@ private void shutdownExecutors() {
         serializationExecutor = null;
         Utils.shutdownExecutor(bufferSaveExecutor);
         bufferSaveExecutor = null;
+        shutdownSerializationPool();
+    }
+
+    private void shutdownSerializationPool() {
+        serializationLock.lock();
+        try {
+            if (serializationPool != null) {
+                serializationPool.shutdown();
+                serializationPool = null;
+            }
+        } finally {
+            serializationLock.unlock();
+        }
     }
 
     private Iterable<C> findOldChunks(int writeLimit, int targetFillRate) {
@@ -2113,15 +2272,28 @@ public void accountForRemovedPage(long pos, long version, boolean pinned, int pa
         private final WriteBuffer buff;
         private final List<Long> toc = new ArrayList<>();
 
-        PageSerializationManager(C chunk, WriteBuffer buff) {
+        private final Map<Page<?,?>, byte[]> serializedBodies;
+
+        PageSerializationManager(C chunk, WriteBuffer buff, Map<Page<?,?>, byte[]> serializedBodies) {
             this.chunk = chunk;
             this.buff = buff;
+            this.serializedBodies = serializedBodies;
         }
 
         public WriteBuffer getBuffer() {
             return buff;
         }
 
+        /**
+         * Get the type, keys and values of the page, if they were serialized in advance.
+         *
+         * @param page to get serialized body for
+         * @return serialized bytes, or null if page should be serialized in place
+         */
+        byte[] getSerializedBody(Page<?,?> page) {
+            return serializedBodies == null ? null : serializedBodies.remove(page);
+        }
+
         private int getChunkId() {
             return chunk.id;
         }
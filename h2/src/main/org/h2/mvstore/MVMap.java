@@ -10,6 +10,7 @@
 import java.util.AbstractList;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -20,6 +21,7 @@
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.h2.mvstore.type.DataType;
+import org.h2.mvstore.type.LongDataType;
 import org.h2.mvstore.type.ObjectDataType;
 import org.h2.util.MemoryEstimator;
 
@@ -50,7 +52,8 @@
     private final DataType<V> valueType;
     private final int keysPerPage;
     private final boolean singleWriter;
-    private final K[] keysBuffer;
+    private final boolean primitiveLongKeys;
+    private final Object keysBuffer;
     private final V[] valuesBuffer;
 
     private final Object lock = new Object();
@@ -72,7 +75,8 @@ protected MVMap(Map<String, Object> config, DataType<K> keyType, DataType<V> val
                 DataUtils.readHexLong(config, "createVersion", 0),
                 new AtomicReference<>(),
                 ((MVStore) config.get("store")).getKeysPerPage(),
-                config.containsKey("singleWriter") && (Boolean) config.get("singleWriter")
+                config.containsKey("singleWriter") && (Boolean) config.get("singleWriter"),
+                config.containsKey("primitiveLongKeys") && (Boolean) config.get("primitiveLongKeys")
         );
         setInitialRoot(createEmptyLeaf(), store.getCurrentVersion());
     }
@@ -81,17 +85,22 @@ protected MVMap(Map<String, Object> config, DataType<K> keyType, DataType<V> val
     @SuppressWarnings("CopyConstructorMissesField")
     protected MVMap(MVMap<K, V> source) {
         this(source.store, source.keyType, source.valueType, source.id, source.createVersion,
-                new AtomicReference<>(source.root.get()), source.keysPerPage, source.singleWriter);
+                new AtomicReference<>(source.root.get()), source.keysPerPage, source.singleWriter,
+                source.primitiveLongKeys);
     }
 
     // meta map constructor
     MVMap(MVStore store, int id, DataType<K> keyType, DataType<V> valueType) {
-        this(store, keyType, valueType, id, 0, new AtomicReference<>(), store.getKeysPerPage(), false);
+        this(store, keyType, valueType, id, 0, new AtomicReference<>(), store.getKeysPerPage(), false, false);
         setInitialRoot(createEmptyLeaf(), store.getCurrentVersion());
     }
 
     private MVMap(MVStore store, DataType<K> keyType, DataType<V> valueType, int id, long createVersion,
-            AtomicReference<RootReference<K,V>> root, int keysPerPage, boolean singleWriter) {
+            AtomicReference<RootReference<K,V>> root, int keysPerPage, boolean singleWriter,
+            boolean primitiveLongKeys) {
+        if (primitiveLongKeys && !(keyType instanceof LongDataType)) {
+            throw new IllegalArgumentException("Primitive long keys require LongDataType");
+        }
         this.store = store;
         this.id = id;
         this.createVersion = createVersion;
@@ -99,7 +108,8 @@ private MVMap(MVStore store, DataType<K> keyType, DataType<V> valueType, int id,
         this.valueType = valueType;
         this.root = root;
         this.keysPerPage = keysPerPage;
-        this.keysBuffer = singleWriter ? keyType.createStorage(keysPerPage) : null;
+        this.primitiveLongKeys = primitiveLongKeys;
+        this.keysBuffer = singleWriter ? createKeyStorage(keysPerPage) : null;
         this.valuesBuffer = singleWriter ? valueType.createStorage(keysPerPage) : null;
         this.singleWriter = singleWriter;
         this.avgKeySize = keyType.isMemoryEstimationAllowed() ? new AtomicLong() : null;
@@ -167,6 +177,44 @@ public final K lastKey() {
         return getFirstLast(false);
     }
 
+    /**
+     * Get the keys that split the current version of this map into at least
+     * the given number of ranges of similar size, if possible. The keys are
+     * taken from the internal nodes of the tree, only as many levels are read
+     * as needed.
+     *
+     * @param count the desired number of ranges
+     * @return the sorted split keys, the number of ranges is one more than the
+     *         number of keys
+     */
+    public final List<K> getSplitKeys(int count) {
+        Page<K,V> root = getRootPage();
+        ArrayList<K> keys = new ArrayList<>();
+        for (int depth = 1; keys.size() + 1 < count; depth++) {
+            ArrayList<K> list = new ArrayList<>();
+            collectSplitKeys(root, depth, list);
+            if (list.size() == keys.size()) {
+                break;
+            }
+            keys = list;
+        }
+        return keys;
+    }
+
+    private static <K,V> void collectSplitKeys(Page<K,V> p, int depth, ArrayList<K> keys) {
+        if (p.isLeaf()) {
+            return;
+        }
+        for (int i = 0, keyCount = p.getKeyCount(); i <= keyCount; i++) {
+            if (depth > 1) {
+                collectSplitKeys(p.getChildPage(i), depth - 1, keys);
+            }
+            if (i < keyCount) {
+                keys.add(p.getKey(i));
+            }
+        }
+    }
+
     /**
      * Get the key at the given index.
      * <p>
@@ -622,6 +670,26 @@ boolean isSingleWriter() {
         return singleWriter;
     }
 
+    /**
+     * Whether keys of this map are kept in primitive long arrays.
+     *
+     * @return true if pages of this map store keys as long[]
+     */
+    public final boolean isPrimitiveLongKeys() {
+        return primitiveLongKeys;
+    }
+
+    /**
+     * Create an array for keys storage of new pages. That is an array of K,
+     * or long[] if this map uses primitive long keys.
+     *
+     * @param size number of entries
+     * @return keys array
+     */
+    final Object createKeyStorage(int size) {
+        return primitiveLongKeys ? new long[size] : keyType.createStorage(size);
+    }
+
     /**
      * Read a page.
      *
@@ -1250,7 +1318,7 @@ private RootReference<K,V> flushAppendBuffer(RootReference<K,V> rootReference, b
                         p.expand(available, keysBuffer, valuesBuffer);
                         keyCount -= available;
                         if (fullFlush) {
-                            K[] keys = p.createKeyStorage(keyCount);
+                            Object keys = createKeyStorage(keyCount);
                             V[] values = p.createValueStorage(keyCount);
                             System.arraycopy(keysBuffer, available, keys, 0, keyCount);
                             if (valuesBuffer != null) {
@@ -1267,8 +1335,9 @@ private RootReference<K,V> flushAppendBuffer(RootReference<K,V> rootReference, b
                     }
                 } else {
                     tip = tip.parent;
-                    page = Page.createLeaf(this,
-                            Arrays.copyOf(keysBuffer, keyCount),
+                    Object keys = createKeyStorage(keyCount);
+                    System.arraycopy(keysBuffer, 0, keys, 0, keyCount);
+                    page = Page.createLeaf(this, keys,
                             valuesBuffer == null ? null : Arrays.copyOf(valuesBuffer, keyCount),
                             0);
                 }
@@ -1284,8 +1353,8 @@ private RootReference<K,V> flushAppendBuffer(RootReference<K,V> rootReference, b
                             if (p.getKeyCount() == 0) {
                                 p = page;
                             } else {
-                                K[] keys = p.createKeyStorage(1);
-                                keys[0] = key;
+                                Object keys = createKeyStorage(1);
+                                Page.setKey(keys, 0, key);
                                 Page.PageReference<K,V>[] children = Page.createRefStorage(2);
                                 children[0] = new Page.PageReference<>(p);
                                 children[1] = new Page.PageReference<>(page);
@@ -1372,7 +1441,7 @@ public void append(K key, V value) {
                     appendCounter = rootReference.getAppendCounter();
                     assert appendCounter < keysPerPage;
                 }
-                keysBuffer[appendCounter] = key;
+                Page.setKey(keysBuffer, appendCounter, key);
                 if (valuesBuffer != null) {
                     valuesBuffer[appendCounter] = value;
                 }
@@ -1385,6 +1454,94 @@ public void append(K key, V value) {
         }
     }
 
+    /**
+     * Appends entries to this map, adding whole leaf pages to the right edge of
+     * the tree instead of inserting entries one by one. This method is NOT
+     * thread safe and can not be used concurrently with any method that updates
+     * this map, but it doesn't need a single writer map.
+     *
+     * @param keys the keys in ascending order, higher in map's order than any
+     *            existing key
+     * @param values the values, one for each key
+     */
+    public void appendAll(List<? extends K> keys, List<? extends V> values) {
+        for (int start = 0, size = keys.size(); start < size;) {
+            int count = Math.min(keysPerPage, size - start);
+            Object keyStorage = createKeyStorage(count);
+            V[] valueStorage = getRootPage().createValueStorage(count);
+            for (int i = 0; i < count; i++) {
+                Page.setKey(keyStorage, i, keys.get(start + i));
+                valueStorage[i] = values.get(start + i);
+            }
+            appendLeaf(Page.createLeaf(this, keyStorage, valueStorage, 0));
+            start += count;
+        }
+    }
+
+    private void appendLeaf(Page<K,V> page) {
+        beforeWrite();
+        RootReference<K,V> rootReference = lockRoot(getRoot(), 1);
+        boolean locked = true;
+        try {
+            Page<K,V> rootPage = rootReference.root;
+            long version = rootReference.version;
+            CursorPos<K,V> pos = rootPage.getAppendCursorPos(null);
+            Page<K,V> p = pos.page;
+            CursorPos<K,V> tip = pos;
+            pos = pos.parent;
+            IntValueHolder unsavedMemoryHolder = new IntValueHolder();
+            unsavedMemoryHolder.value = page.getMemory();
+            if (p.getKeyCount() == 0) {
+                // the map is empty
+                p = page;
+            } else {
+                // the last leaf is not changed
+                tip = tip.parent;
+                K key = page.getKey(0);
+                while (true) {
+                    if (pos == null) {
+                        Object keys = createKeyStorage(1);
+                        Page.setKey(keys, 0, key);
+                        Page.PageReference<K,V>[] children = Page.createRefStorage(2);
+                        children[0] = new Page.PageReference<>(p);
+                        children[1] = new Page.PageReference<>(page);
+                        unsavedMemoryHolder.value += p.getMemory();
+                        p = Page.createNode(this, keys, children, p.getTotalCount() + page.getTotalCount(), 0);
+                        break;
+                    }
+                    Page<K,V> c = p;
+                    p = pos.page;
+                    int index = pos.index;
+                    pos = pos.parent;
+                    p = p.copy();
+                    p.setChild(index, page);
+                    p.insertNode(index, key, c);
+                    int keyCount = p.getKeyCount();
+                    int at = keyCount - 2;
+                    if (keyCount <= keysPerPage && (p.getMemory() < store.getMaxPageSize() || at <= 0)) {
+                        break;
+                    }
+                    key = p.getKey(at);
+                    page = p.split(at);
+                    unsavedMemoryHolder.value += p.getMemory() + page.getMemory();
+                }
+            }
+            p = replacePage(pos, p, unsavedMemoryHolder);
+            RootReference<K,V> updatedRootReference;
+            while ((updatedRootReference = rootReference.updatePageAndLockedStatus(p, isPersistent(), 0)) == null) {
+                rootReference = getRoot();
+            }
+            locked = isPersistent();
+            if (locked && tip != null) {
+                registerUnsavedMemory(unsavedMemoryHolder.value + tip.processRemovalInfo(version));
+            }
+        } finally {
+            if (locked) {
+                unlockRoot();
+            }
+        }
+    }
+
     /**
      * Removes last entry from this map. this method is NOT thread safe and can not be used
      * neither concurrently, nor in combination with any method that updates this map.
@@ -1547,6 +1704,7 @@ public M create(MVStore store, Map<String, Object> config) {
      */
     public static class Builder<K, V> extends BasicBuilder<MVMap<K, V>, K, V> {
         private boolean singleWriter;
+        private boolean primitiveLongKeys;
 
         public Builder() {}
 
@@ -1573,9 +1731,33 @@ public Builder<K,V> singleWriter() {
             return this;
         }
 
+        /**
+         * Set up this Builder to produce MVMap, which keeps keys of its pages
+         * in primitive long arrays instead of arrays of boxed values. This
+         * reduces memory footprint of pages and avoids unboxing on key search.
+         * Key type has to be {@link LongDataType}, on-disk format is not affected.
+         *
+         * @return this Builder for chained execution
+         */
+        public Builder<K,V> primitiveLongKeys() {
+            primitiveLongKeys = true;
+            return this;
+        }
+
+        /**
+         * Returns whether the produced map keeps keys of its pages in
+         * primitive long arrays.
+         *
+         * @return whether keys are kept in primitive long arrays
+         */
+        protected boolean isPrimitiveLongKeys() {
+            return primitiveLongKeys;
+        }
+
         @Override
         protected MVMap<K, V> create(Map<String, Object> config) {
             config.put("singleWriter", singleWriter);
+            config.put("primitiveLongKeys", primitiveLongKeys);
             Object type = config.get("type");
             if(type == null || type.equals("rtree")) {
                 return new MVMap<>(config, getKeyType(), getValueType());
@@ -1783,8 +1965,8 @@ public <K> CursorPos<K,V> decide(CursorPos<K,V> tip, K key, V providedValue) {
                             unsavedMemory += p.getMemory() + split.getMemory();
                             // if root was split, create a new root with two children (increase tree height)
                             if (pos == null) {
-                                K[] keys = p.createKeyStorage(1);
-                                keys[0] = k;
+                                Object keys = map.createKeyStorage(1);
+                                Page.setKey(keys, 0, k);
                                 Page.PageReference<K,V>[] children = Page.createRefStorage(2);
                                 children[0] = new Page.PageReference<>(p);
                                 children[1] = new Page.PageReference<>(split);
@@ -2038,11 +2220,16 @@ final boolean isMemoryEstimationAllowed() {
         return avgKeySize != null || avgValSize != null;
     }
 
-    final int evaluateMemoryForKeys(K[] storage, int count) {
+    @SuppressWarnings("unchecked")
+    final int evaluateMemoryForKeys(Object storage, int count) {
+        if (storage instanceof long[]) {
+            // no references and no boxed objects
+            return count * 8;
+        }
         if (avgKeySize == null) {
-            return calculateMemory(keyType, storage, count);
+            return calculateMemory(keyType, (K[]) storage, count);
         }
-        return MemoryEstimator.estimateMemory(avgKeySize, keyType, storage, count);
+        return MemoryEstimator.estimateMemory(avgKeySize, keyType, (K[]) storage, count);
     }
 
     final int evaluateMemoryForValues(V[] storage, int count) {
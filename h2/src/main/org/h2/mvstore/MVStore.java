@@ -706,6 +706,7 @@ private boolean isRegularMap(MVMap<?,?> map) {
      * name.{name} = {mapId}
      * map.{mapId} = {map metadata}
      * setting.storeVersion = {version}
+     * backup.chunks = {chunk positions of the last backup}
      * </pre>
      *
      * @return the metadata map
@@ -1085,13 +1086,17 @@ <R> R tryExecuteUnderStoreLock(Callable<R> operation) throws InterruptedExceptio
     }
 
     /**
-     * Force all stored changes to be written to the storage. The default
-     * implementation calls FileChannel.force(true).
+     * Force all stored changes to be written to the storage. Chunks that are
+     * still serialized or written by the background threads are awaited. The
+     * default implementation calls FileChannel.force(true).
      */
     public void sync() {
         checkOpen();
         FileStore<?> f = fileStore;
         if (f != null) {
+            f.awaitPendingWrites();
+            // a background write may have failed
+            checkOpen();
             f.sync();
         }
     }
@@ -1453,6 +1458,35 @@ public void setStoreVersion(int version) {
         }
     }
 
+    /**
+     * Get the positions of the chunks at the time of the last backup.
+     *
+     * @return the chunk positions, or {@code null} if the store was not backed
+     *         up yet
+     * @see FileStore#getChunkPositions()
+     */
+    public String getBackupChunks() {
+        checkOpen();
+        return meta.get("backup.chunks");
+    }
+
+    /**
+     * Remember the positions of the chunks of a completed backup, so the next
+     * incremental backup only contains the chunks changed since then.
+     *
+     * @param positions the chunk positions
+     */
+    public void setBackupChunks(String positions) {
+        storeLock.lock();
+        try {
+            checkOpen();
+            markMetaChanged();
+            meta.put("backup.chunks", positions);
+        } finally {
+            storeLock.unlock();
+        }
+    }
+
     /**
      * Revert to the beginning of the current version, reverting all uncommitted
      * changes.
@@ -2136,6 +2170,21 @@ public Builder compressHigh() {
             return set("compress", 2);
         }
 
+        /**
+         * Set the number of threads used to serialize and compress changed
+         * leaf pages when a new chunk is written. The default is 1, which
+         * means that all pages are serialized by the single serialization
+         * thread. Larger values split big change sets across a pool of
+         * worker threads; the resulting chunk is the same as with a single
+         * thread. Key and value data types must support concurrent writes.
+         *
+         * @param threads the number of threads
+         * @return this
+         */
+        public Builder serializationThreads(int threads) {
+            return set("serializationThreads", threads);
+        }
+
         /**
          * Set the amount of memory a page should contain at most, in bytes,
          * before it is split. The default is 16 KB for persistent stores and 4
@@ -11,6 +11,7 @@
 import static org.h2.mvstore.DataUtils.PAGE_TYPE_LEAF;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import org.h2.compress.Compressor;
 import org.h2.mvstore.FileStore.PageSerializationManager;
@@ -78,9 +79,10 @@
     private int diskSpaceUsed;
 
     /**
-     * The keys.
+     * The keys, as an array of K or, for maps with primitive long keys, as
+     * long[].
      */
-    private K[] keys;
+    private Object keys;
 
     /**
      * Updater for pos field, which can be updated when page is saved,
@@ -137,7 +139,7 @@
         memory = source.memory;
     }
 
-    Page(MVMap<K,V> map, K[] keys) {
+    Page(MVMap<K,V> map, Object keys) {
         this.map = map;
         this.keys = keys;
     }
@@ -152,7 +154,7 @@
      * @return the new page
      */
     public static <K,V> Page<K,V> createEmptyLeaf(MVMap<K,V> map) {
-        return createLeaf(map, map.getKeyType().createStorage(0),
+        return createLeaf(map, map.createKeyStorage(0),
                 map.getValueType().createStorage(0), PAGE_LEAF_MEMORY);
     }
 
@@ -167,7 +169,7 @@ public static <K,V> Page<K,V> createEmptyLeaf(MVMap<K,V> map) {
      */
     @SuppressWarnings("unchecked")
     static <K,V> Page<K,V> createEmptyNode(MVMap<K,V> map) {
-        return createNode(map, map.getKeyType().createStorage(0), SINGLE_EMPTY, 0,
+        return createNode(map, map.createKeyStorage(0), SINGLE_EMPTY, 0,
                             PAGE_NODE_MEMORY + MEMORY_POINTER + PAGE_MEMORY_CHILD); // there is always one child
     }
 
@@ -177,13 +179,13 @@ static <K,V> Page<K,V> createEmptyNode(MVMap<K,V> map) {
      * @param <K> the key class
      * @param <V> the value class
      * @param map the map
-     * @param keys the keys
+     * @param keys the keys, see {@link #createKeyStorage(int)}
      * @param children the child page positions
      * @param totalCount the total number of keys
      * @param memory the memory used in bytes
      * @return the page
      */
-    public static <K,V> Page<K,V> createNode(MVMap<K,V> map, K[] keys, PageReference<K,V>[] children,
+    public static <K,V> Page<K,V> createNode(MVMap<K,V> map, Object keys, PageReference<K,V>[] children,
                                     long totalCount, int memory) {
         assert keys != null;
         Page<K,V> page = new NonLeaf<>(map, keys, children, totalCount);
@@ -198,12 +200,12 @@ public static <K,V> Page<K,V> createNode(MVMap<K,V> map, K[] keys, PageReference
      * @param <V> value type
      *
      * @param map the map
-     * @param keys the keys
+     * @param keys the keys, see {@link #createKeyStorage(int)}
      * @param values the values
      * @param memory the memory used in bytes
      * @return the page
      */
-    static <K,V> Page<K,V> createLeaf(MVMap<K,V> map, K[] keys, V[] values, int memory) {
+    public static <K,V> Page<K,V> createLeaf(MVMap<K,V> map, Object keys, V[] values, int memory) {
         assert keys != null;
         Page<K,V> page = new Leaf<>(map, keys, values);
         page.initMemoryAccount(memory);
@@ -291,7 +293,56 @@ public final int getMapId() {
      * @return the key
      */
     public K getKey(int index) {
-        return keys[index];
+        return getKey(keys, index);
+    }
+
+    /**
+     * Get the key at the given index of the key storage.
+     *
+     * @param <K> the key class
+     * @param keys the key storage
+     * @param index the index
+     * @return the key
+     */
+    @SuppressWarnings("unchecked")
+    static <K> K getKey(Object keys, int index) {
+        return keys instanceof long[] ? (K) (Long) ((long[]) keys)[index] : ((K[]) keys)[index];
+    }
+
+    /**
+     * Replace the key at the given index of the key storage.
+     *
+     * @param <K> the key class
+     * @param keys the key storage
+     * @param index the index
+     * @param key the new key
+     */
+    @SuppressWarnings("unchecked")
+    static <K> void setKey(Object keys, int index, K key) {
+        if (keys instanceof long[]) {
+            ((long[]) keys)[index] = (Long) key;
+        } else {
+            ((K[]) keys)[index] = key;
+        }
+    }
+
+    /**
+     * Copy keys between key storages, which may be of different kinds.
+     *
+     * @param src the source key storage
+     * @param srcPos the first index to copy from
+     * @param dst the target key storage
+     * @param dstPos the first index to copy to
+     * @param length the number of keys to copy
+     */
+    static void copyKeys(Object src, int srcPos, Object dst, int dstPos, int length) {
+        if (src.getClass() == dst.getClass()) {
+            System.arraycopy(src, srcPos, dst, dstPos, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                setKey(dst, dstPos + i, getKey(src, srcPos + i));
+            }
+        }
     }
 
     /**
@@ -324,7 +375,8 @@ public K getKey(int index) {
      * @return the number of keys
      */
     public final int getKeyCount() {
-        return keys.length;
+        Object keys = this.keys;
+        return keys instanceof long[] ? ((long[]) keys).length : ((Object[]) keys).length;
     }
 
     /**
@@ -430,10 +482,10 @@ int binarySearch(K key) {
      * @param bCount size of the second array/
      * @return the second array.
      */
-    final K[] splitKeys(int aCount, int bCount) {
+    final Object splitKeys(int aCount, int bCount) {
         assert aCount + bCount <= getKeyCount();
-        K[] aKeys = createKeyStorage(aCount);
-        K[] bKeys = createKeyStorage(bCount);
+        Object aKeys = createKeyStorage(aCount);
+        Object bKeys = createKeyStorage(bCount);
         System.arraycopy(keys, 0, aKeys, 0, aCount);
         System.arraycopy(keys, getKeyCount() - bCount, bKeys, 0, bCount);
         keys = aKeys;
@@ -448,7 +500,7 @@ final K[] splitKeys(int aCount, int bCount) {
      * @param extraKeys to be added
      * @param extraValues to be added
      */
-    abstract void expand(int extraKeyCount, K[] extraKeys, V[] extraValues);
+    abstract void expand(int extraKeyCount, Object extraKeys, V[] extraValues);
 
     /**
      * Expand the keys array.
@@ -456,11 +508,11 @@ final K[] splitKeys(int aCount, int bCount) {
      * @param extraKeyCount number of extra key entries to create
      * @param extraKeys extra key values
      */
-    final void expandKeys(int extraKeyCount, K[] extraKeys) {
+    final void expandKeys(int extraKeyCount, Object extraKeys) {
         int keyCount = getKeyCount();
-        K[] newKeys = createKeyStorage(keyCount + extraKeyCount);
+        Object newKeys = createKeyStorage(keyCount + extraKeyCount);
         System.arraycopy(keys, 0, newKeys, 0, keyCount);
-        System.arraycopy(extraKeys, 0, newKeys, keyCount, extraKeyCount);
+        copyKeys(extraKeys, 0, newKeys, keyCount, extraKeyCount);
         keys = newKeys;
     }
 
@@ -504,9 +556,12 @@ public Page<K,V> remove(long positionsToRemove) {
      * @param key the new key
      */
     public final void setKey(int index, K key) {
-        keys = keys.clone();
+        int keyCount = getKeyCount();
+        Object newKeys = createKeyStorage(keyCount);
+        System.arraycopy(keys, 0, newKeys, 0, keyCount);
+        keys = newKeys;
         if(isPersistent()) {
-            K old = keys[index];
+            K old = getKey(index);
             if (!map.isMemoryEstimationAllowed() || old == null) {
                 int mem = map.evaluateMemoryForKey(key);
                 if (old != null) {
@@ -515,7 +570,7 @@ public final void setKey(int index, K key) {
                 addMemory(mem);
             }
         }
-        keys[index] = key;
+        setKey(keys, index, key);
     }
 
     /**
@@ -554,14 +609,14 @@ public final void setKey(int index, K key) {
     final void insertKey(int index, K key) {
         int keyCount = getKeyCount();
         assert index <= keyCount : index + " > " + keyCount;
-        K[] newKeys = createKeyStorage(keyCount + 1);
+        Object newKeys = createKeyStorage(keyCount + 1);
         DataUtils.copyWithGap(keys, newKeys, keyCount, index);
         keys = newKeys;
 
-        keys[index] = key;
+        setKey(keys, index, key);
 
         if (isPersistent()) {
-            addMemory(MEMORY_POINTER + map.evaluateMemoryForKey(key));
+            addMemory(getKeyReferenceMemory() + map.evaluateMemoryForKey(key));
         }
     }
 
@@ -578,10 +633,10 @@ public void remove(int index) {
         if(isPersistent()) {
             if (!map.isMemoryEstimationAllowed()) {
                 K old = getKey(index);
-                addMemory(-MEMORY_POINTER - map.evaluateMemoryForKey(old));
+                addMemory(-getKeyReferenceMemory() - map.evaluateMemoryForKey(old));
             }
         }
-        K[] newKeys = createKeyStorage(keyCount - 1);
+        Object newKeys = createKeyStorage(keyCount - 1);
         DataUtils.copyExcept(keys, newKeys, keyCount, index);
         keys = newKeys;
     }
@@ -626,7 +681,7 @@ private void read(ByteBuffer buff) {
         }
 
         int keyCount = DataUtils.readVarInt(buff);
-        keys = createKeyStorage(keyCount);
+        keys = map.createKeyStorage(keyCount);
         int type = buff.get();
         if(isLeaf() != ((type & 1) == PAGE_TYPE_LEAF)) {
             throw DataUtils.newMVStoreException(
@@ -732,46 +787,25 @@ protected final int write(FileStore<?>.PageSerializationManager pageSerializatio
             .putVarInt(keyCount);
         int typePos = buff.position();
         int type = isLeaf() ? PAGE_TYPE_LEAF : DataUtils.PAGE_TYPE_NODE;
-        buff.put((byte)type);
-        int childrenPos = buff.position();
-        writeChildren(buff, true);
-        int compressStart = buff.position();
-        map.getKeyType().write(buff, keys, keyCount);
-        writeValues(buff);
-        MVStore store = map.getStore();
-        int expLen = buff.position() - compressStart;
-        if (expLen > 16) {
+        int childrenPos;
+        byte[] body = pageSerializationManager.getSerializedBody(this);
+        if (body != null) {
+            // type, keys and values were already serialized by a worker thread
+            buff.put(body);
+            childrenPos = typePos + 1;
+        } else {
+            buff.put((byte)type);
+            childrenPos = buff.position();
+            writeChildren(buff, true);
+            MVStore store = map.getStore();
             int compressionLevel = store.getCompressionLevel();
-            if (compressionLevel > 0) {
-                Compressor compressor;
-                int compressType;
-                if (compressionLevel == 1) {
-                    compressor = store.getCompressorFast();
-                    compressType = DataUtils.PAGE_COMPRESSED;
-                } else {
-                    compressor = store.getCompressorHigh();
-                    compressType = DataUtils.PAGE_COMPRESSED_HIGH;
-                }
-                byte[] comp = new byte[expLen * 2];
-                ByteBuffer byteBuffer = buff.getBuffer();
-                int pos = 0;
-                byte[] exp;
-                if (byteBuffer.hasArray()) {
-                    exp = byteBuffer.array();
-                    pos = byteBuffer.arrayOffset()  + compressStart;
-                } else {
-                    exp = Utils.newBytes(expLen);
-                    buff.position(compressStart).get(exp);
-                }
-                int compLen = compressor.compress(exp, pos, expLen, comp, 0);
-                int plus = DataUtils.getVarIntLen(expLen - compLen);
-                if (compLen + plus < expLen) {
-                    buff.position(typePos)
-                        .put((byte) (type | compressType));
-                    buff.position(compressStart)
-                        .putVarInt(expLen - compLen)
-                        .put(comp, 0, compLen);
-                }
+            if (compressionLevel == 0) {
+                writeKeysAndValues(buff, typePos, type, null, 0);
+            } else if (compressionLevel == 1) {
+                writeKeysAndValues(buff, typePos, type, store.getCompressorFast(), DataUtils.PAGE_COMPRESSED);
+            } else {
+                writeKeysAndValues(buff, typePos, type, store.getCompressorHigh(),
+                        DataUtils.PAGE_COMPRESSED_HIGH);
             }
         }
         int pageLength = buff.position() - start;
@@ -792,6 +826,67 @@ protected final int write(FileStore<?>.PageSerializationManager pageSerializatio
         return childrenPos;
     }
 
+    /**
+     * Write keys and values of this page at the current position of the buffer,
+     * and compress them if that makes the page image smaller.
+     *
+     * @param buff the target buffer
+     * @param typePos the position of the page type byte within the buffer
+     * @param type the page type
+     * @param compressor the compressor to use, or null if compression is disabled
+     * @param compressType the compression flag which corresponds to the compressor
+     */
+    private void writeKeysAndValues(WriteBuffer buff, int typePos, int type,
+                                    Compressor compressor, int compressType) {
+        int compressStart = buff.position();
+        map.getKeyType().write(buff, keys, getKeyCount());
+        writeValues(buff);
+        int expLen = buff.position() - compressStart;
+        if (expLen > 16 && compressor != null) {
+            byte[] comp = new byte[expLen * 2];
+            ByteBuffer byteBuffer = buff.getBuffer();
+            int pos = 0;
+            byte[] exp;
+            if (byteBuffer.hasArray()) {
+                exp = byteBuffer.array();
+                pos = byteBuffer.arrayOffset()  + compressStart;
+            } else {
+                exp = Utils.newBytes(expLen);
+                buff.position(compressStart).get(exp);
+            }
+            int compLen = compressor.compress(exp, pos, expLen, comp, 0);
+            int plus = DataUtils.getVarIntLen(expLen - compLen);
+            if (compLen + plus < expLen) {
+                buff.position(typePos)
+                    .put((byte) (type | compressType));
+                buff.position(compressStart)
+                    .putVarInt(expLen - compLen)
+                    .put(comp, 0, compLen);
+            }
+        }
+    }
+
+    /**
+     * Serialize the type, keys and values of this leaf page, which is the
+     * part of the page image that does not depend on the page position
+     * within a chunk. This allows it to be prepared by a thread other than
+     * the one that assembles the chunk.
+     *
+     * @param buff the scratch buffer to use
+     * @param compressor the compressor to use, or null if compression is disabled
+     * @param compressType the compression flag which corresponds to the compressor
+     * @return the serialized bytes
+     */
+    final byte[] serializeBody(WriteBuffer buff, Compressor compressor, int compressType) {
+        assert isLeaf();
+        buff.clear();
+        buff.put((byte) PAGE_TYPE_LEAF);
+        writeKeysAndValues(buff, 0, PAGE_TYPE_LEAF, compressor, compressType);
+        byte[] body = new byte[buff.position()];
+        buff.position(0).get(body);
+        return body;
+    }
+
     /**
      * Write values that the buffer contains to the buff.
      *
@@ -817,6 +912,14 @@ protected final int write(FileStore<?>.PageSerializationManager pageSerializatio
      */
     abstract void writeUnsavedRecursive(PageSerializationManager pageSerializationManager);
 
+    /**
+     * Collect all unsaved leaf pages of this subtree, in the same order as
+     * {@link #writeUnsavedRecursive(PageSerializationManager)} would write them.
+     *
+     * @param target the list to add the pages to
+     */
+    abstract void collectUnsavedLeaves(List<Page<?,?>> target);
+
     /**
      * Unlink the children recursively after all data is written.
      */
@@ -930,7 +1033,7 @@ protected int calculateMemory() {
         int mem = keyCount * MEMORY_POINTER;
         DataType<K> keyType = map.getKeyType();
         for (int i = 0; i < keyCount; i++) {
-            mem += getMemory(keyType, keys[i]);
+            mem += getMemory(keyType, getKey(i));
         }
         return mem;
 //*/
@@ -991,13 +1094,24 @@ public final int removePage(long version) {
     public abstract int removeAllRecursive(long version);
 
     /**
-     * Create array for keys storage.
+     * Get the memory used by a key slot in the keys array, excluding the key itself.
+     *
+     * @return the size of a reference, or 0 if keys are stored as primitives
+     */
+    private int getKeyReferenceMemory() {
+        return keys instanceof long[] ? 0 : MEMORY_POINTER;
+    }
+
+    /**
+     * Create array for keys storage of the same kind as this page uses.
+     * That is an array of K, or long[] for pages of maps with primitive
+     * long keys.
      *
      * @param size number of entries
-     * @return values array
+     * @return keys array
      */
-    public final K[] createKeyStorage(int size) {
-        return map.getKeyType().createStorage(size);
+    public final Object createKeyStorage(int size) {
+        return keys instanceof long[] ? new long[size] : map.getKeyType().createStorage(size);
     }
 
     /**
@@ -1152,7 +1266,7 @@ public String toString() {
             this.totalCount = totalCount;
         }
 
-        NonLeaf(MVMap<K,V> map, K[] keys, PageReference<K,V>[] children, long totalCount) {
+        NonLeaf(MVMap<K,V> map, Object keys, PageReference<K,V>[] children, long totalCount) {
             super(map, keys);
             this.children = children;
             this.totalCount = totalCount;
@@ -1205,7 +1319,7 @@ int calculateTraversalIndex(K key) {
         public Page<K,V> split(int at) {
             assert !isSaved();
             int b = getKeyCount() - at;
-            K[] bKeys = splitKeys(at, b - 1);
+            Object bKeys = splitKeys(at, b - 1);
             PageReference<K,V>[] aChildren = createRefStorage(at + 1);
             PageReference<K,V>[] bChildren = createRefStorage(b);
             System.arraycopy(children, 0, aChildren, 0, at + 1);
@@ -1229,7 +1343,7 @@ public Page<K,V> split(int at) {
         }
 
         @Override
-        public void expand(int keyCount, Object[] extraKeys, Object[] extraValues) {
+        public void expand(int keyCount, Object extraKeys, V[] extraValues) {
             throw new UnsupportedOperationException();
         }
 
@@ -1398,6 +1512,19 @@ void writeUnsavedRecursive(PageSerializationManager pageSerializationManager) {
             }
         }
 
+        @Override
+        void collectUnsavedLeaves(List<Page<?,?>> target) {
+            if (!isSaved()) {
+                int len = getRawChildPageCount();
+                for (int i = 0; i < len; i++) {
+                    Page<K,V> p = children[i].getPage();
+                    if (p != null) {
+                        p.collectUnsavedLeaves(target);
+                    }
+                }
+            }
+        }
+
         void writeChildrenRecursive(PageSerializationManager pageSerializationManager) {
             int len = getRawChildPageCount();
             for (int i = 0; i < len; i++) {
@@ -1506,7 +1633,7 @@ private Leaf(MVMap<K,V> map, Leaf<K,V> source) {
             this.values = source.values;
         }
 
-        Leaf(MVMap<K,V> map, K[] keys, V[] values) {
+        Leaf(MVMap<K,V> map, Object keys, V[] values) {
             super(map, keys);
             this.values = values;
         }
@@ -1545,7 +1672,7 @@ int calculateTraversalIndex(K key) {
         public Page<K,V> split(int at) {
             assert !isSaved();
             int b = getKeyCount() - at;
-            K[] bKeys = splitKeys(at, b);
+            Object bKeys = splitKeys(at, b);
             V[] bValues = createValueStorage(b);
             if(values != null) {
                 V[] aValues = createValueStorage(at);
@@ -1561,7 +1688,7 @@ public Page<K,V> split(int at) {
         }
 
         @Override
-        public void expand(int extraKeyCount, K[] extraKeys, V[] extraValues) {
+        public void expand(int extraKeyCount, Object extraKeys, V[] extraValues) {
             int keyCount = getKeyCount();
             expandKeys(extraKeyCount, extraKeys);
             if(values != null) {
@@ -1582,11 +1709,11 @@ public Page<K,V> remove(long positionsToRemove) {
             if (keyCount == 0) {
                 return map.createEmptyLeaf();
             }
-            K[] newKeys = createKeyStorage(keyCount);
+            Object newKeys = createKeyStorage(keyCount);
             V[] newValues = values == null ? null : createValueStorage(keyCount);
             for(int src = 0, dst = 0; dst < keyCount; ++src, positionsToRemove >>>= 1) {
                 if ((positionsToRemove & 1L) == 0) {
-                    newKeys[dst] = getKey(src);
+                    setKey(newKeys, dst, getKey(src));
                     if (newValues != null) {
                         newValues[dst] = values[src];
                     }
@@ -1708,6 +1835,13 @@ void writeUnsavedRecursive(PageSerializationManager pageSerializationManager) {
             }
         }
 
+        @Override
+        void collectUnsavedLeaves(List<Page<?,?>> target) {
+            if (!isSaved()) {
+                target.add(this);
+            }
+        }
+
         @Override
         void releaseSavedPages() {}
 
@@ -5,11 +5,16 @@
  */
 package org.h2.mvstore;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.zip.ZipEntry;
@@ -27,6 +32,16 @@
  */
 public class SingleFileStore extends RandomAccessStore {
 
+    /**
+     * The suffix of zip file entries of incremental backups.
+     */
+    public static final String INCREMENTAL_BACKUP_SUFFIX = ".incremental";
+
+    /**
+     * The maximum length of a range in an incremental backup.
+     */
+    private static final int INCREMENTAL_BACKUP_RANGE = 64 * 1024;
+
     /**
      * The file.
      */
@@ -224,10 +239,118 @@ public void backup(ZipOutputStream out) throws IOException {
         }
     }
 
+    @Override
+    public String backupIncremental(ZipOutputStream out, String previousChunks) throws IOException {
+        HashMap<Long, Long> previous = parseChunkPositions(previousChunks);
+        boolean before = isSpaceReused();
+        setReuseSpace(false);
+        try {
+            FileChannel in = originalFileChannel != null ? originalFileChannel : fileChannel;
+            String positions;
+            long fileLength;
+            ByteBuffer header;
+            ArrayList<long[]> ranges = new ArrayList<>();
+            saveChunkLock.lock();
+            try {
+                positions = getChunkPositions();
+                fileLength = in.size();
+                // the encrypted file has its own header before the store header
+                long offset = fileLength - fileChannel.size();
+                header = ByteBuffer.allocate((int) (2 * BLOCK_SIZE + offset));
+                DataUtils.readFully(in, 0, header);
+                for (SFChunk c : getChunks().values()) {
+                    if (c.isAllocated()) {
+                        Long version = previous.get(c.block);
+                        if (version == null || version != c.version) {
+                            ranges.add(new long[] { c.block * BLOCK_SIZE + offset, (long) c.len * BLOCK_SIZE });
+                        }
+                    }
+                }
+            } finally {
+                saveChunkLock.unlock();
+            }
+            out.putNextEntry(new ZipEntry(getBackupEntryName(getFileName()) + INCREMENTAL_BACKUP_SUFFIX));
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeLong(fileLength);
+            data.writeLong(0L);
+            data.writeInt(header.capacity());
+            data.write(header.array());
+            for (long[] range : ranges) {
+                copyRange(in, data, range[0], range[1]);
+            }
+            data.writeLong(-1L);
+            data.flush();
+            out.closeEntry();
+            return positions;
+        } finally {
+            setReuseSpace(before);
+        }
+    }
+
+    private static void copyRange(FileChannel in, DataOutputStream out, long pos, long length) throws IOException {
+        ByteBuffer buff = ByteBuffer.allocate((int) Math.min(length, INCREMENTAL_BACKUP_RANGE));
+        for (long end = pos + length; pos < end;) {
+            int len = (int) Math.min(end - pos, INCREMENTAL_BACKUP_RANGE);
+            buff.clear().limit(len);
+            DataUtils.readFully(in, pos, buff);
+            out.writeLong(pos);
+            out.writeInt(len);
+            out.write(buff.array(), 0, len);
+            pos += len;
+        }
+    }
+
+    private static HashMap<Long, Long> parseChunkPositions(String positions) {
+        HashMap<Long, Long> map = new HashMap<>();
+        if (positions != null && !positions.isEmpty()) {
+            for (String p : positions.split(",")) {
+                int idx = p.indexOf(':');
+                map.put(Long.parseLong(p.substring(0, idx), 16), Long.parseLong(p.substring(idx + 1), 16));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Apply an incremental backup to a file that was restored from the
+     * previous backup.
+     *
+     * @param in the input stream of the incremental backup entry
+     * @param fileName the name of the restored file
+     * @throws IOException on failure
+     */
+    public static void restoreIncremental(InputStream in, String fileName) throws IOException {
+        FilePath path = FilePath.get(fileName);
+        if (!path.exists()) {
+            throw new IOException("File not found: " + fileName);
+        }
+        DataInputStream data = new DataInputStream(in);
+        try (FileChannel file = path.open("rw")) {
+            long fileLength = data.readLong();
+            byte[] buff = new byte[INCREMENTAL_BACKUP_RANGE];
+            for (long pos; (pos = data.readLong()) >= 0;) {
+                int len = data.readInt();
+                if (len < 0 || len > INCREMENTAL_BACKUP_RANGE || pos + len > fileLength) {
+                    throw new IOException("Corrupt incremental backup: pos=" + pos + " len=" + len);
+                }
+                data.readFully(buff, 0, len);
+                DataUtils.writeFully(file, pos, ByteBuffer.wrap(buff, 0, len));
+            }
+            long size = file.size();
+            if (size > fileLength) {
+                file.truncate(fileLength);
+            } else if (size < fileLength) {
+                DataUtils.writeFully(file, fileLength - 1, ByteBuffer.allocate(1));
+            }
+        }
+    }
+
+    private static String getBackupEntryName(String fileName) throws IOException {
+        return correctFileName(FilePath.get(fileName).toRealPath().getName());
+    }
+
     private static void backupFile(ZipOutputStream out, String fileName, FileChannel in) throws IOException {
-        String f = FilePath.get(fileName).toRealPath().getName();
-        f = correctFileName(f);
-        out.putNextEntry(new ZipEntry(f));
+        out.putNextEntry(new ZipEntry(getBackupEntryName(fileName)));
         IOUtils.copy(in, out);
         out.closeEntry();
     }
@@ -12,6 +12,10 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 import org.h2.mvstore.DataUtils;
 
 /**
@@ -38,7 +42,11 @@
  * Accessed entries are only moved to the top of the stack if at least a number
  * of other entries have been moved to the front (8 per segment by default).
  * Write access and moving entries to the top of the stack is synchronized per
- * segment.
+ * segment. If a read buffer is configured, cache hits don't need any locks:
+ * accessed entries are recorded in a striped buffer of the segment, and moved
+ * in the stack in batches, when the buffer is full or before the segment is
+ * modified. Accesses are dropped if the buffer is full while another thread
+ * applies it.
  *
  * @author Thomas Mueller
  * @param <V> the value type
@@ -56,6 +64,7 @@
     private final int segmentShift;
     private final int segmentMask;
     private final int stackMoveDistance;
+    private final int readBufferSize;
     private final int nonResidentQueueSize;
     private final int nonResidentQueueSizeHigh;
 
@@ -75,6 +84,7 @@ public CacheLongKeyLIRS(Config config) {
         this.segmentCount = config.segmentCount;
         this.segmentMask = segmentCount - 1;
         this.stackMoveDistance = config.stackMoveDistance;
+        this.readBufferSize = config.readBufferSize;
         segments = new Segment[segmentCount];
         clear();
         // use the high bits for the segment
@@ -87,7 +97,7 @@ public CacheLongKeyLIRS(Config config) {
     public void clear() {
         long max = getMaxItemSize();
         for (int i = 0; i < segmentCount; i++) {
-            segments[i] = new Segment<>(max, stackMoveDistance, 8, nonResidentQueueSize,
+            segments[i] = new Segment<>(max, stackMoveDistance, readBufferSize, 8, nonResidentQueueSize,
                                         nonResidentQueueSizeHigh);
         }
     }
@@ -162,6 +172,7 @@ public V put(long key, V value, long memory) {
         // concurrent resizes (concurrent reads read
         // from the old segment)
         synchronized (s) {
+            s.drainReadBuffer();
             s = resizeIfNeeded(s, segmentIndex);
             return s.put(key, hash, value, memory);
         }
@@ -209,6 +220,7 @@ public V remove(long key) {
         // concurrent resizes (concurrent reads read
         // from the old segment)
         synchronized (s) {
+            s.drainReadBuffer();
             s = resizeIfNeeded(s, segmentIndex);
             return s.remove(key, hash);
         }
@@ -385,7 +397,7 @@ public int sizeHot() {
     public long getHits() {
         long x = 0;
         for (Segment<V> s : segments) {
-            x += s.hits;
+            x += s.hits.sum();
         }
         return x;
     }
@@ -398,7 +410,7 @@ public long getHits() {
     public long getMisses() {
         long x = 0;
         for (Segment<V> s : segments) {
-            x += s.misses;
+            x += s.misses.sum();
         }
         return x;
     }
@@ -513,6 +525,17 @@ public void trimNonResidentQueue() {
      */
     private static class Segment<V> {
 
+        /**
+         * The number of stripes of the read buffer.
+         */
+        private static final int READ_BUFFER_STRIPES = 4;
+
+        /**
+         * The distance between the counters of the stripes, to place them in
+         * different cache lines.
+         */
+        private static final int READ_BUFFER_COUNTER_PADDING = 16;
+
         /**
          * The number of (hot, cold, and non-resident) entries in the map.
          */
@@ -531,12 +554,12 @@ public void trimNonResidentQueue() {
         /**
          * The number of cache hits.
          */
-        long hits;
+        final LongAdder hits = new LongAdder();
 
         /**
          * The number of cache misses.
          */
-        long misses;
+        final LongAdder misses = new LongAdder();
 
         /**
          * The map array. The size is always a power of 2.
@@ -611,19 +634,51 @@ public void trimNonResidentQueue() {
          */
         private int stackMoveCounter;
 
+        /**
+         * The number of entries in each stripe of the read buffer, or 0 if
+         * accesses are applied immediately.
+         */
+        private final int readBufferSize;
+
+        /**
+         * The entries that were accessed, but not moved in the stack yet. The
+         * stripe of a thread is chosen by its hash code.
+         */
+        private final AtomicReferenceArray<Entry<V>> readBuffer;
+
+        /**
+         * The number of used slots of each stripe of the read buffer.
+         */
+        private final AtomicIntegerArray readBufferCounts;
+
+        /**
+         * Whether a thread is applying the read buffer.
+         */
+        private final AtomicBoolean draining = new AtomicBoolean();
+
         /**
          * Create a new cache segment.
          *  @param maxMemory the maximum memory to use
          * @param stackMoveDistance the number of other entries to be moved to
          *        the top of the stack before moving an entry to the top
+         * @param readBufferSize the number of buffered accesses per stripe, or
+         *        0 to apply accesses immediately
          * @param len the number of hash table buckets (must be a power of 2)
          * @param nonResidentQueueSize the non-resident queue size low watermark factor
          * @param nonResidentQueueSizeHigh  the non-resident queue size high watermark factor
          */
-        Segment(long maxMemory, int stackMoveDistance, int len,
+        Segment(long maxMemory, int stackMoveDistance, int readBufferSize, int len,
                 int nonResidentQueueSize, int nonResidentQueueSizeHigh) {
             setMaxMemory(maxMemory);
             this.stackMoveDistance = stackMoveDistance;
+            this.readBufferSize = readBufferSize;
+            if (readBufferSize > 0) {
+                readBuffer = new AtomicReferenceArray<>(READ_BUFFER_STRIPES * readBufferSize);
+                readBufferCounts = new AtomicIntegerArray(READ_BUFFER_STRIPES * READ_BUFFER_COUNTER_PADDING);
+            } else {
+                readBuffer = null;
+                readBufferCounts = null;
+            }
             this.nonResidentQueueSize = nonResidentQueueSize;
             this.nonResidentQueueSizeHigh = nonResidentQueueSizeHigh;
 
@@ -652,10 +707,10 @@ public void trimNonResidentQueue() {
          * @param len the number of hash table buckets (must be a power of 2)
          */
         Segment(Segment<V> old, int len) {
-            this(old.maxMemory, old.stackMoveDistance, len,
+            this(old.maxMemory, old.stackMoveDistance, old.readBufferSize, len,
                     old.nonResidentQueueSize, old.nonResidentQueueSizeHigh);
-            hits = old.hits;
-            misses = old.misses;
+            hits.add(old.hits.sum());
+            misses.add(old.misses.sum());
             Entry<V> s = old.stack.stackPrev;
             while (s != old.stack) {
                 Entry<V> e = new Entry<>(s);
@@ -719,19 +774,84 @@ private void addToMap(Entry<V> e) {
          * @param e the entry
          * @return the value, or null if there is no resident entry
          */
-        synchronized V get(Entry<V> e) {
+        V get(Entry<V> e) {
+            if (readBuffer == null) {
+                return getAndAccess(e);
+            }
+            V value = e == null ? null : e.getValue();
+            if (value == null) {
+                // the entry was not found
+                // or it was a non-resident entry
+                misses.increment();
+            } else {
+                hits.increment();
+                recordAccess(e);
+            }
+            return value;
+        }
+
+        private synchronized V getAndAccess(Entry<V> e) {
             V value = e == null ? null : e.getValue();
             if (value == null) {
                 // the entry was not found
                 // or it was a non-resident entry
-                misses++;
+                misses.increment();
             } else {
                 access(e);
-                hits++;
+                hits.increment();
             }
             return value;
         }
 
+        /**
+         * Record an access in the read buffer, and apply the buffer if it is
+         * full.
+         *
+         * @param e the accessed entry
+         */
+        private void recordAccess(Entry<V> e) {
+            int stripe = Thread.currentThread().hashCode() & (READ_BUFFER_STRIPES - 1);
+            int index = readBufferCounts.getAndIncrement(stripe * READ_BUFFER_COUNTER_PADDING);
+            if (index < readBufferSize) {
+                readBuffer.lazySet(stripe * readBufferSize + index, e);
+            }
+            if (index >= readBufferSize - 1 && draining.compareAndSet(false, true)) {
+                try {
+                    synchronized (this) {
+                        drainReadBuffer();
+                    }
+                } finally {
+                    draining.set(false);
+                }
+            }
+        }
+
+        /**
+         * Move the entries recorded in the read buffer in the stack. The
+         * caller must synchronize on this segment.
+         */
+        void drainReadBuffer() {
+            if (readBuffer == null) {
+                return;
+            }
+            for (int stripe = 0; stripe < READ_BUFFER_STRIPES; stripe++) {
+                int counter = stripe * READ_BUFFER_COUNTER_PADDING;
+                int count = Math.min(readBufferCounts.get(counter), readBufferSize);
+                if (count == 0) {
+                    continue;
+                }
+                for (int i = stripe * readBufferSize, end = i + count; i < end; i++) {
+                    Entry<V> e = readBuffer.getAndSet(i, null);
+                    // removed entries are neither in the stack nor in a queue,
+                    // so access() doesn't change anything for them
+                    if (e != null) {
+                        access(e);
+                    }
+                }
+                readBufferCounts.set(counter, 0);
+            }
+        }
+
         /**
          * Access an item, moving the entry to the top of the stack or front of
          * the queue if found.
@@ -1041,6 +1161,7 @@ private void removeFromQueue(Entry<V> e) {
          * @return the key list
          */
         synchronized List<Long> keys(boolean cold, boolean nonResident) {
+            drainReadBuffer();
             ArrayList<Long> keys = new ArrayList<>();
             if (cold) {
                 Entry<V> start = nonResident ? queue2 : queue;
@@ -1063,6 +1184,7 @@ synchronized List<Long> keys(boolean cold, boolean nonResident) {
          * @return the set of keys
          */
         synchronized Set<Long> keySet() {
+            drainReadBuffer();
             HashSet<Long> set = new HashSet<>();
             for (Entry<V> e = stack.stackNext; e != stack; e = e.stackNext) {
                 set.add(e.key);
@@ -1105,14 +1227,16 @@ void setMaxMemory(long maxMemory) {
         final long key;
 
         /**
-         * The value. Set to null for non-resident-cold entries.
+         * The value. Set to null for non-resident-cold entries. Read without
+         * the segment lock on a cache hit.
          */
-        V value;
+        volatile V value;
 
         /**
-         * Weak reference to the value. Set to null for resident entries.
+         * Weak reference to the value. Set to null for resident entries. It is
+         * set before the value is cleared, and cleared after the value is set.
          */
-        WeakReference<V> reference;
+        volatile WeakReference<V> reference;
 
         /**
          * The estimated memory used.
@@ -1179,7 +1303,13 @@ boolean isHot() {
         }
 
         V getValue() {
-            return value == null ? reference.get() : value;
+            V v = value;
+            if (v == null) {
+                WeakReference<V> r = reference;
+                // the entry may have been made resident concurrently
+                v = r != null ? r.get() : value;
+            }
+            return v;
         }
 
         long getMemory() {
@@ -1208,6 +1338,13 @@ public static class Config {
          */
         public int stackMoveDistance = 32;
 
+        /**
+         * The number of accesses per stripe of a segment that are buffered
+         * before they are applied to the stack, so that cache hits don't need
+         * to synchronize; 0 to apply each access immediately.
+         */
+        public int readBufferSize;
+
         /**
          * Low water mark for the number of entries in the non-resident queue,
          * as a factor of the number of all other entries in the map.
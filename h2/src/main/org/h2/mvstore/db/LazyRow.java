@@ -0,0 +1,74 @@
+/*
+ * Copyright 2004-2025 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.db;
+
+import org.h2.engine.Constants;
+import org.h2.result.DefaultRow;
+import org.h2.value.Value;
+
+/**
+ * A row read from a page of a table, which keeps the serialized form of its
+ * columns and creates values of individual columns only when they are
+ * requested.
+ */
+final class LazyRow extends DefaultRow {
+
+    private final RowDataType rowDataType;
+
+    /**
+     * Serialized values of all columns.
+     */
+    private final byte[] encoded;
+
+    /**
+     * Offsets of serialized values of columns within encoded data.
+     */
+    private final int[] offsets;
+
+    LazyRow(RowDataType rowDataType, byte[] encoded, int[] offsets) {
+        super(new Value[offsets.length]);
+        this.rowDataType = rowDataType;
+        this.encoded = encoded;
+        this.offsets = offsets;
+    }
+
+    @Override
+    public Value getValue(int i) {
+        if (i == ROWID_INDEX) {
+            return super.getValue(i);
+        }
+        Value v = data[i];
+        if (v == null) {
+            // races are benign here, values are immutable
+            data[i] = v = rowDataType.readColumn(encoded, offsets[i], i);
+        }
+        return v;
+    }
+
+    @Override
+    public Value[] getValueList() {
+        for (int i = 0, length = data.length; i < length; i++) {
+            getValue(i);
+        }
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        getValueList();
+        return super.toString();
+    }
+
+    @Override
+    protected int calculateMemory() {
+        // estimate memory of the row with all columns materialized,
+        // because values stay referenced from the row once they were created
+        int columnCount = data.length;
+        return Constants.MEMORY_ROW + 3 * Constants.MEMORY_ARRAY
+                + columnCount * (Constants.MEMORY_POINTER + Constants.MEMORY_OBJECT + 4)
+                + encoded.length * 3;
+    }
+}
@@ -22,7 +22,6 @@
 import org.h2.mvstore.tx.Transaction;
 import org.h2.mvstore.tx.TransactionMap;
 import org.h2.mvstore.tx.TransactionMap.TMIterator;
-import org.h2.mvstore.type.LongDataType;
 import org.h2.result.Row;
 import org.h2.result.SearchRow;
 import org.h2.result.SortOrder;
@@ -51,7 +50,7 @@ public MVPrimaryIndex(Database db, MVTable table, int id, IndexColumn[] columns,
         RowDataType valueType = table.getRowFactory().getRowDataType();
         mapName = "table." + getId();
         Transaction t = mvTable.getTransactionBegin();
-        dataMap = t.openMap(mapName, LongDataType.INSTANCE, valueType);
+        dataMap = t.openLongKeyMap(mapName, valueType);
         dataMap.map.setVolatile(!table.isPersistData() || !indexType.isPersistent());
         if (!db.isStarting()) {
             dataMap.clear();
@@ -452,6 +451,18 @@ TransactionMap<Long,SearchRow> getMap(SessionLocal session) {
         return dataMap.getInstance(t);
     }
 
+    /**
+     * Opens the snapshot of this index visible to the specified session for
+     * scans of key ranges. The snapshot must be opened by the thread of the
+     * session, its cursors may be created and iterated by other threads.
+     *
+     * @param session the session
+     * @return the range scan
+     */
+    public RangeScan openRangeScan(SessionLocal session) {
+        return new RangeScan(getMap(session));
+    }
+
     @Override
     public MVMap<Long, VersionedValue<SearchRow>> getMVMap() {
         return dataMap.map;
@@ -464,6 +475,29 @@ private static Row setRowKey(Row row, long key) {
         return row;
     }
 
+    /**
+     * Scans of key ranges of a snapshot of the primary index.
+     */
+    public static final class RangeScan {
+
+        private final TransactionMap<Long, SearchRow> map;
+
+        RangeScan(TransactionMap<Long, SearchRow> map) {
+            this.map = map;
+        }
+
+        /**
+         * Creates a cursor over the specified range of row keys.
+         *
+         * @param first the first key, inclusive, or {@code null}
+         * @param last the last key, inclusive, or {@code null}
+         * @return the cursor
+         */
+        public Cursor find(Long first, Long last) {
+            return new MVStoreCursor(map.entryIterator(first, last, false));
+        }
+    }
+
     /**
      * A cursor.
      */
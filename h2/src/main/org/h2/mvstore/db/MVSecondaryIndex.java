@@ -5,6 +5,7 @@
  */
 package org.h2.mvstore.db;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -40,6 +41,11 @@
  */
 public final class MVSecondaryIndex extends MVIndex<SearchRow, Value> {
 
+    /**
+     * The number of merged rows that are appended to the index map at once.
+     */
+    private static final int APPEND_BATCH_SIZE = 1024;
+
     /**
      * The multi-value table.
      */
@@ -131,6 +137,10 @@ public void addBufferedRows(List<String> bufferNames) {
         }
 
         try {
+            if (dataMap.map.isEmpty()) {
+                appendMergedRows(queue);
+                return;
+            }
             while (!queue.isEmpty()) {
                 Source s = queue.poll();
                 SearchRow row = s.next();
@@ -153,6 +163,40 @@ public void addBufferedRows(List<String> bufferNames) {
         }
     }
 
+    /**
+     * Merge the sorted buffers into the empty index map, appending whole leaf
+     * pages. Rows with the same values of unique columns are adjacent in the
+     * merged order, so they are detected without searching the map.
+     *
+     * @param queue the sources of the sorted buffers
+     */
+    private void appendMergedRows(Queue<Source> queue) {
+        RowFactory uniqueRowFactory = getUniqueRowFactory();
+        ArrayList<SearchRow> rows = new ArrayList<>(APPEND_BATCH_SIZE);
+        SearchRow lastUnique = null;
+        while (!queue.isEmpty()) {
+            Source s = queue.poll();
+            SearchRow row = s.next();
+            if (needsUniqueCheck(row)) {
+                SearchRow unique = uniqueRowFactory.createRow();
+                unique.copyFrom(row);
+                if (lastUnique != null && compareRows(lastUnique, unique) == 0) {
+                    throw getDuplicateKeyException(row.toString());
+                }
+                lastUnique = unique;
+            }
+            rows.add(row);
+            if (rows.size() == APPEND_BATCH_SIZE) {
+                dataMap.appendCommitted(rows, ValueNull.INSTANCE);
+                rows.clear();
+            }
+            if (s.hasNext()) {
+                queue.offer(s);
+            }
+        }
+        dataMap.appendCommitted(rows, ValueNull.INSTANCE);
+    }
+
     private MVMap<SearchRow,Value> openMap(String mapName) {
         RowDataType keyType = getRowFactory().getRowDataType();
         MVMap.Builder<SearchRow,Value> builder = new MVMap.Builder<SearchRow,Value>()
@@ -10,6 +10,7 @@
 import static org.h2.util.geometry.GeometryUtils.MIN_X;
 import static org.h2.util.geometry.GeometryUtils.MIN_Y;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import org.h2.api.ErrorCode;
@@ -120,6 +121,52 @@ public void addBufferedRows(List<String> bufferNames) {
         throw DbException.getInternalError();
     }
 
+    /**
+     * Add the keys of committed rows to the empty index at once. The tree is
+     * bulk loaded with {@link MVRTreeMap#bulkLoad(List, List)}.
+     *
+     * @param keys the keys of the rows, without keys of NULL values
+     */
+    void bulkLoad(ArrayList<Spatial> keys) {
+        if (uniqueColumnColumn > 0) {
+            ArrayList<Spatial> sorted = new ArrayList<>(keys);
+            sorted.sort((a, b) -> {
+                for (int i = 0; i < 2; i++) {
+                    int c = Float.compare(a.min(i), b.min(i));
+                    if (c == 0) {
+                        c = Float.compare(a.max(i), b.max(i));
+                    }
+                    if (c != 0) {
+                        return c;
+                    }
+                }
+                return 0;
+            });
+            for (int i = 1, size = sorted.size(); i < size; i++) {
+                Spatial k = sorted.get(i);
+                if (k.equalsIgnoringId(sorted.get(i - 1))) {
+                    throw getDuplicateKeyException(k.toString());
+                }
+            }
+        }
+        try {
+            dataMap.appendCommitted(keys, ValueNull.INSTANCE);
+        } catch (MVStoreException e) {
+            throw mvTable.convertException(e);
+        }
+    }
+
+    /**
+     * Get the overlap of sibling pages of the tree, see
+     * {@link MVRTreeMap#getNodeOverlap()}.
+     *
+     * @return the overlap
+     */
+    @Override
+    public double getNodeOverlap() {
+        return spatialMap.getNodeOverlap();
+    }
+
     @Override
     public void close(SessionLocal session) {
         // ok
@@ -263,7 +310,13 @@ public Value getEstimatedBounds(SessionLocal session) {
         return ValueNull.INSTANCE;
     }
 
-    private SpatialKey getKey(SearchRow row) {
+    /**
+     * Get the key of the row.
+     *
+     * @param row the row
+     * @return the key
+     */
+    SpatialKey getKey(SearchRow row) {
         Value v = row.getValue(columnIds[0]);
         double[] env;
         if (v == ValueNull.INSTANCE || (env = v.convertToGeometry(null).getEnvelopeNoCopy()) == null) {
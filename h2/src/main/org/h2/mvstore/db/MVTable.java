@@ -11,6 +11,9 @@
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import org.h2.api.DatabaseEventListener;
@@ -30,8 +33,11 @@
 import org.h2.message.Trace;
 import org.h2.mode.DefaultNullOrdering;
 import org.h2.mvstore.DataUtils;
+import org.h2.mvstore.MVStore;
 import org.h2.mvstore.MVStoreException;
+import org.h2.mvstore.rtree.Spatial;
 import org.h2.mvstore.tx.Transaction;
+import org.h2.mvstore.tx.TransactionMap;
 import org.h2.mvstore.tx.TransactionStore;
 import org.h2.result.LocalResult;
 import org.h2.result.Row;
@@ -91,6 +97,16 @@ public String getEventText() {
     }
     private static final String NO_EXTRA_INFO = "";
 
+    /**
+     * The minimum number of rows to build an index with parallel scans.
+     */
+    private static final long PARALLEL_INDEX_MIN_ROWS = 10_000;
+
+    /**
+     * The minimum number of rows to bulk load a spatial index.
+     */
+    private static final long SPATIAL_BULK_LOAD_MIN_ROWS = 1_000;
+
     static {
         if (SysProperties.THREAD_DEADLOCK_DETECTOR) {
             WAITING_FOR_LOCK = new DebuggingThreadLocal<>();
@@ -384,7 +400,9 @@ public Index addIndex(SessionLocal session, String indexName, int indexId, Index
 
     private void rebuildIndex(SessionLocal session, MVIndex<?,?> index, String indexName) {
         try {
-            if (!session.getDatabase().isPersistent() || index instanceof MVSpatialIndex) {
+            if (index instanceof MVSpatialIndex) {
+                rebuildSpatialIndex(session, (MVSpatialIndex) index);
+            } else if (!session.getDatabase().isPersistent()) {
                 // in-memory
                 rebuildIndexBuffered(session, index);
             } else {
@@ -416,6 +434,11 @@ private void rebuildIndexBlockMerge(SessionLocal session, MVIndex<?,?> index) {
         Index scan = getScanIndex(session);
         long remaining = scan.getRowCount(session);
         long total = remaining;
+        if (index instanceof MVSecondaryIndex && total >= PARALLEL_INDEX_MIN_ROWS
+                && database.getSettings().parallelScanThreads > 1
+                && rebuildIndexParallel(session, index, total)) {
+            return;
+        }
         Cursor cursor = scan.find(session, null, null, false);
         long i = 0;
         Store store = session.getDatabase().getStore();
@@ -444,6 +467,115 @@ private void rebuildIndexBlockMerge(SessionLocal session, MVIndex<?,?> index) {
         }
     }
 
+    /**
+     * Sorts rows of key ranges of the primary index into temporary maps with
+     * worker threads of the parallel scan pool, and merges them into the
+     * index.
+     *
+     * @param session the session
+     * @param index the new index
+     * @param total the number of rows
+     * @return {@code false} if the primary index can't be split into ranges
+     */
+    private boolean rebuildIndexParallel(SessionLocal session, MVIndex<?,?> index, long total) {
+        int threads = database.getSettings().parallelScanThreads;
+        List<Long> keys = primaryIndex.getMVMap().getSplitKeys(threads * 4);
+        int ranges = keys.size() + 1;
+        if (ranges < 2) {
+            return false;
+        }
+        int workers = Math.min(threads, ranges);
+        // the transaction map is opened by this thread, workers only create
+        // iterators over its snapshot
+        TransactionMap<Long, SearchRow> map = primaryIndex.getMap(session);
+        Store store = database.getStore();
+        int bufferSize = (int) Math.max(1, Math.min(total, database.getMaxMemoryRows() / 2) / workers);
+        String n = getName() + ':' + index.getName();
+        ArrayList<String> bufferNames = new ArrayList<>();
+        AtomicInteger nextRange = new AtomicInteger();
+        AtomicLong rowCount = new AtomicLong();
+        ForkJoinPool pool = database.getParallelScanPool();
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(workers);
+        boolean success = false;
+        try {
+            for (int i = 0; i < workers; i++) {
+                tasks.add(pool.submit(() -> {
+                    ArrayList<Row> buffer = new ArrayList<>(bufferSize);
+                    for (int r; (r = nextRange.getAndIncrement()) < ranges;) {
+                        Long first = r > 0 ? keys.get(r - 1) : null;
+                        Long last = r < ranges - 1 ? keys.get(r) - 1 : null;
+                        Cursor cursor = new MVPrimaryIndex.MVStoreCursor(map.entryIterator(first, last, false));
+                        while (cursor.next()) {
+                            buffer.add(cursor.get());
+                            if (buffer.size() >= bufferSize) {
+                                dumpBufferIntoTempMap(index, buffer, store, bufferNames, rowCount, n, total);
+                            }
+                        }
+                    }
+                    if (!buffer.isEmpty()) {
+                        dumpBufferIntoTempMap(index, buffer, store, bufferNames, rowCount, n, total);
+                    }
+                }));
+            }
+            Throwable failure = null;
+            for (ForkJoinTask<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    // stop other workers after their current ranges
+                    nextRange.set(ranges);
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                } catch (InterruptedException e) {
+                    nextRange.set(ranges);
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw DbException.convert(failure);
+            }
+            if (rowCount.get() != total) {
+                throw DbException.getInternalError("rowcount remaining=" + (total - rowCount.get()) + ' ' + getName());
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                // wait for workers that weren't awaited above
+                nextRange.set(ranges);
+                for (ForkJoinTask<?> task : tasks) {
+                    task.quietlyJoin();
+                }
+                MVStore mvStore = store.getMvStore();
+                synchronized (bufferNames) {
+                    for (String tempMapName : bufferNames) {
+                        mvStore.removeMap(tempMapName);
+                    }
+                }
+            }
+        }
+        if (!bufferNames.isEmpty()) {
+            // temporary maps are removed by the index
+            index.addBufferedRows(bufferNames);
+        }
+        return true;
+    }
+
+    private void dumpBufferIntoTempMap(MVIndex<?, ?> index, ArrayList<Row> buffer, Store store,
+            ArrayList<String> bufferNames, AtomicLong rowCount, String progressName, long total) {
+        sortRows(buffer, index);
+        String mapName = store.nextTemporaryMapName();
+        index.addRowsToBuffer(buffer, mapName);
+        long count = rowCount.addAndGet(buffer.size());
+        buffer.clear();
+        synchronized (bufferNames) {
+            bufferNames.add(mapName);
+            database.setProgress(DatabaseEventListener.STATE_CREATE_INDEX, progressName, count, total);
+        }
+    }
+
     private static void dumpBufferIntoTempMap(MVIndex<?, ?> index, ArrayList<Row> buffer, Store store, ArrayList<String> bufferNames) {
         sortRows(buffer, index);
         String mapName = store.nextTemporaryMapName();
@@ -452,6 +584,36 @@ private static void dumpBufferIntoTempMap(MVIndex<?, ?> index, ArrayList<Row> bu
         buffer.clear();
     }
 
+    private void rebuildSpatialIndex(SessionLocal session, MVSpatialIndex index) {
+        // Collect the keys of all rows and pack them into the tree at once,
+        // this is faster and produces less overlap than inserting them one
+        // by one. Keys are kept in memory, so large tables are indexed row
+        // by row.
+        Index scan = getScanIndex(session);
+        long remaining = scan.getRowCount(session);
+        long total = remaining;
+        if (total < SPATIAL_BULK_LOAD_MIN_ROWS || total > database.getMaxMemoryRows()) {
+            rebuildIndexBuffered(session, index);
+            return;
+        }
+        Cursor cursor = scan.find(session, null, null, false);
+        long i = 0;
+        ArrayList<Spatial> keys = new ArrayList<>();
+        String n = getName() + ':' + index.getName();
+        while (cursor.next()) {
+            SpatialKey key = index.getKey(cursor.get());
+            if (!key.isNull()) {
+                keys.add(key);
+            }
+            database.setProgress(DatabaseEventListener.STATE_CREATE_INDEX, n, i++, total);
+            remaining--;
+        }
+        index.bulkLoad(keys);
+        if (remaining != 0) {
+            throw DbException.getInternalError("rowcount remaining=" + remaining + ' ' + getName());
+        }
+    }
+
     private void rebuildIndexBuffered(SessionLocal session, Index index) {
         Index scan = getScanIndex(session);
         long remaining = scan.getRowCount(session);
@@ -494,6 +656,7 @@ public void removeRow(SessionLocal session, Row row) {
             throw DbException.convert(e);
         }
         session.registerTableAsUpdated(this);
+        registerMaterializedViewChange(session, row, null);
         analyzeIfRequired(session);
     }
 
@@ -505,6 +668,7 @@ public long truncate(SessionLocal session) {
             index.truncate(session);
         }
         syncLastModificationIdWithDatabase();
+        registerMaterializedViewChange(session, null, null);
         if (changesUntilAnalyze != null) {
             changesUntilAnalyze.set(nextAnalyze);
         }
@@ -528,6 +692,7 @@ public void addRow(SessionLocal session, Row row) {
             throw DbException.convert(e);
         }
         session.registerTableAsUpdated(this);
+        registerMaterializedViewChange(session, null, row);
         analyzeIfRequired(session);
     }
 
@@ -549,6 +714,7 @@ public void updateRow(SessionLocal session, Row oldRow, Row newRow) {
             throw DbException.convert(e);
         }
         session.registerTableAsUpdated(this);
+        registerMaterializedViewChange(session, oldRow, newRow);
         analyzeIfRequired(session);
     }
 
@@ -732,6 +898,7 @@ public void updateRows(SessionLocal session, LocalResult rows, Runnable cancella
                         index.update(session, oldRow, newRow);
                     }
                 }
+                registerMaterializedViewChange(session, oldRow, newRow);
 
             }
             rows.reset();
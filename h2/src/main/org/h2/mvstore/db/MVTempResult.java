@@ -33,7 +33,10 @@
  */
 public abstract class MVTempResult implements ResultExternal {
 
-    private static final class CloseImpl implements AutoCloseable {
+    /**
+     * Closes the storage and deletes its file.
+     */
+    static final class CloseImpl implements AutoCloseable {
         /**
          * MVStore.
          */
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2004-2025 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.mvstore.db;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import org.h2.engine.Constants;
+import org.h2.engine.Database;
+import org.h2.message.DbException;
+import org.h2.mvstore.Cursor;
+import org.h2.mvstore.FileStore;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVMap.Builder;
+import org.h2.mvstore.MVStore;
+import org.h2.result.RowFactory.DefaultRowFactory;
+import org.h2.store.fs.FileUtils;
+import org.h2.util.TempFileDeleter;
+import org.h2.value.TypeInfo;
+import org.h2.value.Value;
+import org.h2.value.ValueBigint;
+import org.h2.value.ValueRow;
+
+/**
+ * A temporary map from keys to rows stored in a temporary file. Rows with the
+ * same key are stored next to each other, so they can be found without reading
+ * of other rows.
+ */
+public final class MVTempRowMap implements AutoCloseable {
+
+    private final MVMap<ValueRow, ValueRow> map;
+
+    private final int keyLength;
+
+    private final TempFileDeleter tempFileDeleter;
+
+    private final MVTempResult.CloseImpl closeable;
+
+    private final Reference<?> fileRef;
+
+    /**
+     * The number of added rows, used to distinguish rows with the same key.
+     */
+    private long counter;
+
+    private boolean closed;
+
+    /**
+     * Creates a new map.
+     *
+     * @param database the database
+     * @param keyTypes the data types of key values, equal values of these
+     *            data types must be also equal in the database
+     * @param rowTypes the data types of values of rows
+     */
+    public MVTempRowMap(Database database, TypeInfo[] keyTypes, TypeInfo[] rowTypes) {
+        keyLength = keyTypes.length;
+        MVStore store;
+        String fileName;
+        try {
+            fileName = FileUtils.createTempFile("h2tmp", Constants.SUFFIX_TEMP_FILE, true);
+            FileStore<?> fileStore = database.getStore().getMvStore().getFileStore().open(fileName, false);
+            store = new MVStore.Builder().adoptFileStore(fileStore).autoCommitDisabled().open();
+        } catch (IOException e) {
+            throw DbException.convert(e);
+        }
+        tempFileDeleter = database.getTempFileDeleter();
+        closeable = new MVTempResult.CloseImpl(store, fileName);
+        fileRef = tempFileDeleter.addFile(closeable, this);
+        // keys are followed by the number of the row
+        TypeInfo[] types = Arrays.copyOf(keyTypes, keyLength + 1);
+        types[keyLength] = TypeInfo.TYPE_BIGINT;
+        ValueDataType keyType = new ValueDataType(database, new int[keyLength + 1]);
+        keyType.setRowFactory(DefaultRowFactory.INSTANCE.createRowFactory(database, database.getCompareMode(),
+                database, types, null, false));
+        ValueDataType valueType = new ValueDataType(database, new int[rowTypes.length]);
+        valueType.setRowFactory(DefaultRowFactory.INSTANCE.createRowFactory(database, database.getCompareMode(),
+                database, rowTypes, null, false));
+        map = store.openMap("tmp", new Builder<ValueRow, ValueRow>().keyType(keyType).valueType(valueType)
+                .singleWriter());
+    }
+
+    /**
+     * Adds a row.
+     *
+     * @param key the key values
+     * @param row the values of the row
+     */
+    public void add(Value[] key, Value[] row) {
+        Value[] k = Arrays.copyOf(key, keyLength + 1);
+        k[keyLength] = ValueBigint.get(counter++);
+        map.put(ValueRow.get(k), ValueRow.get(row));
+    }
+
+    /**
+     * Returns rows with the specified key in order of their addition.
+     *
+     * @param key the key values
+     * @return the list of rows, may be empty
+     */
+    public ArrayList<Value[]> get(Value[] key) {
+        Value[] from = Arrays.copyOf(key, keyLength + 1);
+        from[keyLength] = ValueBigint.get(Long.MIN_VALUE);
+        ArrayList<Value[]> list = new ArrayList<>();
+        Cursor<ValueRow, ValueRow> cursor = map.cursor(ValueRow.get(from));
+        loop: while (cursor.hasNext()) {
+            Value[] k = cursor.next().getList();
+            for (int i = 0; i < keyLength; i++) {
+                if (!k[i].equals(key[i])) {
+                    break loop;
+                }
+            }
+            list.add(cursor.getValue().getList());
+        }
+        return list;
+    }
+
+    /**
+     * Passes all rows to the specified consumer.
+     *
+     * @param consumer the consumer
+     */
+    public void forEach(Consumer<Value[]> consumer) {
+        Cursor<ValueRow, ValueRow> cursor = map.cursor(null);
+        while (cursor.hasNext()) {
+            cursor.next();
+            consumer.accept(cursor.getValue().getList());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            tempFileDeleter.deleteFile(fileRef, closeable);
+        }
+    }
+
+}
@@ -28,6 +28,12 @@
  */
 public final class RowDataType extends BasicDataType<SearchRow> implements StatefulDataType<Database> {
 
+    /**
+     * The minimal number of columns in rows, which are read lazily: values of
+     * their columns are created only when they are requested.
+     */
+    private static final int LAZY_ROW_MIN_COLUMNS = 8;
+
     private final ValueDataType valueDataType;
     private final int[]         sortTypes;
     private final int[]         indexes;
@@ -146,6 +152,10 @@ public int getMemory(SearchRow row) {
     @Override
     public SearchRow read(ByteBuffer buff) {
         RowFactory rowFactory = valueDataType.getRowFactory();
+        if (indexes == null && columnCount >= LAZY_ROW_MIN_COLUMNS
+                && rowFactory instanceof RowFactory.DefaultRowFactory) {
+            return readLazyRow(buff);
+        }
         SearchRow row = rowFactory.createRow();
         if (storeKeys) {
             row.setKey(DataUtils.readVarLong(buff));
@@ -164,6 +174,36 @@ public SearchRow read(ByteBuffer buff) {
         return row;
     }
 
+    private SearchRow readLazyRow(ByteBuffer buff) {
+        long key = storeKeys ? DataUtils.readVarLong(buff) : 0L;
+        int start = buff.position();
+        int[] offsets = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            offsets[i] = buff.position() - start;
+            valueDataType.skipValue(buff);
+        }
+        byte[] encoded = new byte[buff.position() - start];
+        buff.position(start);
+        buff.get(encoded);
+        LazyRow row = new LazyRow(this, encoded, offsets);
+        row.setKey(key);
+        return row;
+    }
+
+    /**
+     * Read the value of a column from serialized row data.
+     *
+     * @param encoded serialized values of the row
+     * @param offset the offset of the value within encoded data
+     * @param column the index of the column
+     * @return the value
+     */
+    Value readColumn(byte[] encoded, int offset, int column) {
+        TypeInfo[] columnTypes = valueDataType.getRowFactory().getColumnTypes();
+        return valueDataType.readValue(ByteBuffer.wrap(encoded, offset, encoded.length - offset),
+                columnTypes != null ? columnTypes[column] : null);
+    }
+
     @Override
     public void write(WriteBuffer buff, SearchRow row) {
         if (storeKeys) {
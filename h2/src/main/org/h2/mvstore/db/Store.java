@@ -109,6 +109,10 @@ public Store(Database db, byte[] key) {
                 if (autoCompactFillRate <= 100) {
                     builder.autoCompactFillRate(autoCompactFillRate);
                 }
+                int serializationThreads = db.getSettings().serializationThreads;
+                if (serializationThreads > 1) {
+                    builder.serializationThreads(serializationThreads);
+                }
             }
             if (key != null) {
                 encrypted = true;
@@ -145,6 +149,9 @@ public Store(Database db, byte[] key) {
             this.transactionStore = new TransactionStore(mvStore,
                     new MetaType<>(db, mvStore.backgroundExceptionHandler), new ValueDataType(db, null),
                     db.getLockTimeout());
+            if (fileName != null && !db.isReadOnly() && db.getSettings().durableCommit) {
+                transactionStore.setDurableCommit(true);
+            }
         } catch (MVStoreException e) {
             throw convertMVStoreException(e);
         }
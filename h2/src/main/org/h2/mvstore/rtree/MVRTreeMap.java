@@ -5,9 +5,12 @@
  */
 package org.h2.mvstore.rtree;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.h2.mvstore.CursorPos;
@@ -31,6 +34,11 @@
 
     private boolean quadraticSplit;
 
+    /**
+     * The last computed node overlap, or null.
+     */
+    private volatile NodeOverlap<V> nodeOverlap;
+
     public MVRTreeMap(Map<String, Object> config, SpatialDataType keyType, DataType<V> valueType) {
         super(config, keyType, valueType);
         this.keyType = keyType;
@@ -141,7 +149,7 @@ public V operate(Spatial key, V value, DecisionMaker<V> decisionMaker) {
                 Page<Spatial,V> split = split(p);
                 Spatial k1 = getBounds(p);
                 Spatial k2 = getBounds(split);
-                Spatial[] keys = p.createKeyStorage(2);
+                Spatial[] keys = (Spatial[]) p.createKeyStorage(2);
                 keys[0] = k1;
                 keys[1] = k2;
                 Page.PageReference<Spatial,V>[] children = Page.createRefStorage(3);
@@ -296,6 +304,128 @@ public void add(Spatial key, V value) {
         operate(key, value, DecisionMaker.putDecision());
     }
 
+    /**
+     * Add all given key-value pairs. If the map is empty, the tree is built
+     * bottom-up with the Sort-Tile-Recursive algorithm: the entries are sorted
+     * into tiles of full leaf pages by the centers of their bounding boxes,
+     * and the same is done for the bounds of each level of pages until there
+     * is a single root page. This is much faster than adding the entries one
+     * by one, and sibling pages overlap much less. If the map is not empty,
+     * the entries are added one by one. The keys should not exist (if they
+     * exist, the result is undefined).
+     *
+     * @param keys the keys
+     * @param values the values
+     */
+    public void bulkLoad(List<? extends Spatial> keys, List<? extends V> values) {
+        int size = keys.size();
+        if (size == 0) {
+            return;
+        }
+        int pageSize = Math.max(store.getKeysPerPage(), 2);
+        @SuppressWarnings("unchecked")
+        BulkEntry<V>[] entries = new BulkEntry[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = new BulkEntry<>(keys.get(i), values.get(i), null);
+        }
+        int memory = 0;
+        boolean leaf = true;
+        do {
+            sortTiles(entries, 0, size, 0, pageSize);
+            int pageCount = (size + pageSize - 1) / pageSize;
+            @SuppressWarnings("unchecked")
+            BulkEntry<V>[] parents = new BulkEntry[pageCount];
+            for (int i = 0, start = 0; i < pageCount; i++, start += pageSize) {
+                int count = Math.min(pageSize, size - start);
+                Spatial[] pageKeys = keyType.createStorage(count);
+                Spatial bounds = keyType.createBoundingBox(entries[start].key);
+                Page<Spatial,V> page;
+                if (leaf) {
+                    V[] pageValues = getValueType().createStorage(count);
+                    for (int j = 0; j < count; j++) {
+                        BulkEntry<V> e = entries[start + j];
+                        pageKeys[j] = e.key;
+                        pageValues[j] = e.value;
+                        keyType.increaseBounds(bounds, e.key);
+                    }
+                    page = Page.createLeaf(this, pageKeys, pageValues, 0);
+                } else {
+                    Page.PageReference<Spatial,V>[] children = Page.createRefStorage(count + 1);
+                    long totalCount = 0;
+                    for (int j = 0; j < count; j++) {
+                        BulkEntry<V> e = entries[start + j];
+                        pageKeys[j] = e.key;
+                        children[j] = new Page.PageReference<>(e.page);
+                        totalCount += e.page.getTotalCount();
+                        keyType.increaseBounds(bounds, e.key);
+                    }
+                    children[count] = Page.PageReference.empty();
+                    page = Page.createNode(this, pageKeys, children, totalCount, 0);
+                }
+                memory += page.getMemory();
+                parents[i] = new BulkEntry<>(bounds, null, page);
+            }
+            entries = parents;
+            size = pageCount;
+            leaf = false;
+        } while (size > 1);
+        Page<Spatial,V> root = entries[0].page;
+        int attempt = 0;
+        while (true) {
+            RootReference<Spatial,V> rootReference = flushAndGetRoot();
+            if (attempt++ == 0 && !rootReference.isLockedByCurrentThread()) {
+                beforeWrite();
+            }
+            if (rootReference.root.getTotalCount() > 0) {
+                for (int i = 0, l = keys.size(); i < l; i++) {
+                    add(keys.get(i), values.get(i));
+                }
+                return;
+            }
+            if (updateRoot(rootReference, root, attempt)) {
+                registerUnsavedMemory(memory);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sort the entries into tiles for the Sort-Tile-Recursive algorithm. The
+     * entries are sorted by the given dimension, and the resulting slices are
+     * sorted by the next dimensions recursively.
+     *
+     * @param entries the entries
+     * @param from the index of the first entry
+     * @param to the index after the last entry
+     * @param dim the dimension
+     * @param pageSize the number of entries per page
+     */
+    private void sortTiles(BulkEntry<V>[] entries, int from, int to, int dim, int pageSize) {
+        Arrays.sort(entries, from, to, (a, b) -> Float.compare(a.key.min(dim) + a.key.max(dim),
+                b.key.min(dim) + b.key.max(dim)));
+        int remainingDimensions = keyType.getDimensions() - dim;
+        if (remainingDimensions > 1) {
+            int pageCount = (to - from + pageSize - 1) / pageSize;
+            int sliceCount = (int) Math.ceil(Math.pow(pageCount, 1d / remainingDimensions));
+            int sliceSize = (pageCount + sliceCount - 1) / sliceCount * pageSize;
+            for (int start = from; start < to; start += sliceSize) {
+                sortTiles(entries, start, Math.min(start + sliceSize, to), dim + 1, pageSize);
+            }
+        }
+    }
+
+    /**
+     * Add all given key-value pairs. As keys of this map are not ordered, this
+     * is the same as {@link #bulkLoad(List, List)}.
+     *
+     * @param keys the keys
+     * @param values the values
+     */
+    @Override
+    public void appendAll(List<? extends Spatial> keys, List<? extends V> values) {
+        bulkLoad(keys, values);
+    }
+
     private Page<Spatial,V> split(Page<Spatial,V> p) {
         return quadraticSplit ?
                 splitQuadratic(p) :
@@ -432,6 +562,51 @@ public void addNodeKeys(ArrayList<Spatial> list, Page<Spatial,V> p) {
         }
     }
 
+    /**
+     * Get the overlap of sibling pages. For each internal page, the areas of
+     * the pairwise intersections of the bounds of its children are added up
+     * and divided by the sum of the areas of these bounds. 0 means no overlap;
+     * larger values mean that searches need to visit more pages.
+     * <p>
+     * The value is computed by a traversal of all internal pages and then
+     * kept until the map is changed.
+     *
+     * @return the overlap
+     */
+    public double getNodeOverlap() {
+        Page<Spatial,V> root = getRootPage();
+        NodeOverlap<V> cached = nodeOverlap;
+        if (cached != null && cached.root.get() == root) {
+            return cached.overlap;
+        }
+        int height = 0;
+        for (Page<Spatial,V> p = root; !p.isLeaf(); p = p.getChildPage(0)) {
+            height++;
+        }
+        double[] areas = new double[2];
+        addNodeOverlap(root, height, areas);
+        double overlap = areas[1] > 0 ? areas[0] / areas[1] : 0;
+        nodeOverlap = new NodeOverlap<>(root, overlap);
+        return overlap;
+    }
+
+    private void addNodeOverlap(Page<Spatial,V> p, int height, double[] areas) {
+        if (height == 0) {
+            return;
+        }
+        int keyCount = p.getKeyCount();
+        for (int i = 0; i < keyCount; i++) {
+            Spatial k = p.getKey(i);
+            areas[1] += keyType.getArea(k);
+            for (int j = i + 1; j < keyCount; j++) {
+                areas[0] += keyType.getOverlapArea(k, p.getKey(j));
+            }
+            if (height > 1) {
+                addNodeOverlap(p.getChildPage(i), height - 1, areas);
+            }
+        }
+    }
+
     @SuppressWarnings("unused")
     public boolean isQuadraticSplit() {
         return quadraticSplit;
@@ -446,6 +621,57 @@ protected int getChildPageCount(Page<Spatial,V> p) {
         return p.getRawChildPageCount() - 1;
     }
 
+    /**
+     * An entry of a level of the tree that is built by bulk loading.
+     */
+    private static final class BulkEntry<V> {
+
+        /**
+         * The key, or the bounds of the page.
+         */
+        final Spatial key;
+
+        /**
+         * The value of a leaf entry.
+         */
+        final V value;
+
+        /**
+         * The page of an internal entry.
+         */
+        final Page<Spatial,V> page;
+
+        BulkEntry(Spatial key, V value, Page<Spatial,V> page) {
+            this.key = key;
+            this.value = value;
+            this.page = page;
+        }
+
+    }
+
+    /**
+     * The node overlap of a version of the tree.
+     */
+    private static final class NodeOverlap<V> {
+
+        /**
+         * The root page the overlap was computed for. It is weakly referenced
+         * to not keep old versions of the tree in memory.
+         */
+        final WeakReference<Page<Spatial,V>> root;
+
+        /**
+         * The overlap.
+         */
+        final double overlap;
+
+        NodeOverlap(Page<Spatial,V> root, double overlap) {
+            this.root = new WeakReference<>(root);
+            this.overlap = overlap;
+        }
+
+    }
+
     /**
      * A cursor to iterate over a subset of the keys.
      */
@@ -31,6 +31,15 @@ public SpatialDataType(int dimensions) {
         this.dimensions = dimensions;
     }
 
+    /**
+     * Get the number of dimensions.
+     *
+     * @return the number of dimensions
+     */
+    public int getDimensions() {
+        return dimensions;
+    }
+
     /**
      * Creates spatial object with specified parameters.
      *
@@ -219,7 +228,35 @@ float getCombinedArea(Spatial a, Spatial b) {
         return area;
     }
 
-    private float getArea(Spatial a) {
+    /**
+     * Get the area of the intersection of both objects.
+     *
+     * @param a the first object
+     * @param b the second object
+     * @return the area, or 0 if the objects don't overlap
+     */
+    float getOverlapArea(Spatial a, Spatial b) {
+        if (a.isNull() || b.isNull()) {
+            return 0;
+        }
+        float area = 1;
+        for (int i = 0; i < dimensions; i++) {
+            float d = Math.min(a.max(i), b.max(i)) - Math.max(a.min(i), b.min(i));
+            if (d <= 0) {
+                return 0;
+            }
+            area *= d;
+        }
+        return area;
+    }
+
+    /**
+     * Get the area of the object.
+     *
+     * @param a the object
+     * @return the area
+     */
+    float getArea(Spatial a) {
         if (a.isNull()) {
             return 0;
         }
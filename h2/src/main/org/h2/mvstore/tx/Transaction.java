@@ -456,6 +456,20 @@ public <K, V> TransactionMap<K, V> openMap(String name,
         return openMapX(map);
     }
 
+    /**
+     * Open the map with long keys to store the data. Pages of this map keep
+     * keys in primitive long arrays.
+     *
+     * @param <V> the value type
+     * @param name the name of the map
+     * @param valueType the value data type
+     * @return the transaction map
+     */
+    public <V> TransactionMap<Long, V> openLongKeyMap(String name, DataType<V> valueType) {
+        MVMap<Long, VersionedValue<V>> map = store.openVersionedLongKeyMap(name, valueType);
+        return openMapX(map);
+    }
+
     /**
      * Open the transactional version of the given map.
      *
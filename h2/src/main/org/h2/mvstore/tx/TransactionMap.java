@@ -7,7 +7,9 @@
 
 import java.util.AbstractMap;
 import java.util.AbstractSet;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
@@ -347,6 +349,19 @@ public V putCommitted(K key, V value) {
         return result;
     }
 
+    /**
+     * Append committed entries with the same value, without adding undo log
+     * entries. The keys must be sorted and higher than all existing keys, and
+     * the map must not be updated concurrently.
+     *
+     * @param keys the keys
+     * @param value the value
+     */
+    public void appendCommitted(List<? extends K> keys, V value) {
+        DataUtils.checkArgument(value != null, "The value may not be null");
+        map.appendAll(keys, Collections.nCopies(keys.size(), VersionedValueCommitted.getInstance(value)));
+    }
+
     private V set(K key, V value) {
         txDecisionMaker.initialize(key, value);
         return set(key, txDecisionMaker, -1);
@@ -103,6 +103,32 @@ public class TransactionStore implements AutoCloseable
      */
     private int maxTransactionId = MAX_OPEN_TRANSACTIONS;
 
+    /**
+     * Whether each commit waits until its changes are written and synced to
+     * the storage.
+     */
+    private volatile boolean durableCommit;
+
+    /**
+     * The lock for the group commit counters.
+     */
+    private final Object groupCommitLock = new Object();
+
+    /**
+     * The number of durable commits requested so far.
+     */
+    private long groupCommitRequested;
+
+    /**
+     * The number of durable commits known to be on the storage.
+     */
+    private long groupCommitDone;
+
+    /**
+     * Whether some thread currently writes and syncs a batch of commits.
+     */
+    private boolean groupCommitInProgress;
+
     /**
      * Array holding all open transaction objects.
      * Position in array is "transaction id".
@@ -328,6 +354,18 @@ public void setMaxTransactionId(int max) {
         this.maxTransactionId = max;
     }
 
+    /**
+     * Set whether each commit of a transaction with changes should wait until
+     * these changes are written and synced to the storage. Concurrent commits
+     * are grouped together, so one store operation and one sync covers all
+     * transactions committed while the previous batch was written.
+     *
+     * @param durableCommit whether commits should be durable
+     */
+    public void setDurableCommit(boolean durableCommit) {
+        this.durableCommit = durableCommit;
+    }
+
     /**
      * Check whether a given map exists.
      *
@@ -665,6 +703,21 @@ public <K,V> MVMap<K, V> openMap(String name, DataType<K> keyType, DataType<V> v
                                             .keyType(keyType).valueType(valueType));
     }
 
+    /**
+     * Open the map with the given name and long keys, which are kept in
+     * primitive arrays by the map pages.
+     *
+     * @param <V> the value type
+     * @param name the map name
+     * @param valueType the value type
+     * @return the map
+     */
+    <V> MVMap<Long, VersionedValue<V>> openVersionedLongKeyMap(String name, DataType<V> valueType) {
+        VersionedValueType<V,?> vt = valueType == null ? null : new VersionedValueType<>(valueType);
+        return store.openMap(name, new TxMapBuilder<Long, VersionedValue<V>>(typeRegistry, dataType)
+                                            .keyType(LongDataType.INSTANCE).valueType(vt).primitiveLongKeys());
+    }
+
     /**
      * Open the map with the given id.
      *
@@ -733,7 +786,9 @@ void endTransaction(Transaction t, boolean hasChanges) {
             }
 
             if (store.isVersioningRequired()) {
-                if (wasStored || store.getAutoCommitDelay() == 0) {
+                if (durableCommit) {
+                    commitDurably();
+                } else if (wasStored || store.getAutoCommitDelay() == 0) {
                     store.commit();
                 } else {
                     if (isUndoEmpty()) {
@@ -752,6 +807,51 @@ void endTransaction(Transaction t, boolean hasChanges) {
         }
     }
 
+    /**
+     * Write and sync all changes made so far. If another thread is already
+     * writing a batch, wait for it; the first thread that finds no batch in
+     * progress writes all commits requested up to that moment.
+     */
+    private void commitDurably() {
+        long ticket;
+        synchronized (groupCommitLock) {
+            ticket = ++groupCommitRequested;
+            boolean interrupted = false;
+            try {
+                while (groupCommitInProgress && groupCommitDone < ticket) {
+                    try {
+                        groupCommitLock.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (groupCommitDone >= ticket) {
+                return;
+            }
+            groupCommitInProgress = true;
+            ticket = groupCommitRequested;
+        }
+        boolean success = false;
+        try {
+            store.commit();
+            store.sync();
+            success = true;
+        } finally {
+            synchronized (groupCommitLock) {
+                if (success) {
+                    groupCommitDone = ticket;
+                }
+                groupCommitInProgress = false;
+                groupCommitLock.notifyAll();
+            }
+        }
+    }
+
     /**
      * Get the root references (snapshots) for undo-log maps.
      * Those snapshots can potentially be used to optimize TransactionMap.size().
@@ -1015,6 +1115,7 @@ public MVMap<K,V> create(MVStore store, Map<String, Object> config) {
             config.put("store", store);
             config.put("key", getKeyType());
             config.put("val", getValueType());
+            config.put("primitiveLongKeys", isPrimitiveLongKeys());
             return create(config);
         }
 
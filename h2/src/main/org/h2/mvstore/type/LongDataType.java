@@ -40,6 +40,30 @@ public Long read(ByteBuffer buff) {
         return DataUtils.readVarLong(buff);
     }
 
+    @Override
+    public void write(WriteBuffer buff, Object storage, int len) {
+        if (storage instanceof long[]) {
+            long[] keys = (long[]) storage;
+            for (int i = 0; i < len; i++) {
+                buff.putVarLong(keys[i]);
+            }
+        } else {
+            super.write(buff, storage, len);
+        }
+    }
+
+    @Override
+    public void read(ByteBuffer buff, Object storage, int len) {
+        if (storage instanceof long[]) {
+            long[] keys = (long[]) storage;
+            for (int i = 0; i < len; i++) {
+                keys[i] = DataUtils.readVarLong(buff);
+            }
+        } else {
+            super.read(buff, storage, len);
+        }
+    }
+
     @Override
     public Long[] createStorage(int size) {
         return size == 0 ? EMPTY_LONG_ARR : new Long[size];
@@ -53,7 +77,6 @@ public int compare(Long one, Long two) {
     @Override
     public int binarySearch(Long keyObj, Object storageObj, int size, int initialGuess) {
         long key = keyObj;
-        Long[] storage = cast(storageObj);
         int low = 0;
         int high = size - 1;
         // the cached index minus one, so that
@@ -63,9 +86,28 @@ public int binarySearch(Long keyObj, Object storageObj, int size, int initialGue
         if (x < 0 || x > high) {
             x = high >>> 1;
         }
+        if (storageObj instanceof long[]) {
+            return binarySearch(key, (long[]) storageObj, low, high, x);
+        }
+        Long[] storage = cast(storageObj);
         return binarySearch(key, storage, low, high, x);
     }
 
+    private static int binarySearch(long key, long[] storage, int low, int high, int x) {
+        while (low <= high) {
+            long midVal = storage[x];
+            if (key > midVal) {
+                low = x + 1;
+            } else if (key < midVal) {
+                high = x - 1;
+            } else {
+                return x;
+            }
+            x = (low + high) >>> 1;
+        }
+        return ~low;
+    }
+
     private static int binarySearch(long key, Long[] storage, int low, int high, int x) {
         while (low <= high) {
             long midVal = storage[x];
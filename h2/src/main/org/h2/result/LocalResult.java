@@ -75,6 +75,11 @@ public static LocalResult forTable(SessionLocal session, Table table) {
     private boolean fetchPercent;
     private SortOrder withTiesSortOrder;
     private boolean limitsWereApplied;
+    /**
+     * The first rows of a sorted result with OFFSET and FETCH, or
+     * {@code null}.
+     */
+    private TopRows topRows;
     private ResultExternal external;
     private boolean distinct;
     private int[] distinctIndexes;
@@ -440,6 +445,14 @@ private void addRowInternal(Value... values) {
             } else {
                 rowCount = external.addRow(values);
             }
+        } else if (topRows != null || rowCount == 0 && initTopRows()) {
+            rowCount = topRows.add(values);
+            if (rowCount > maxMemoryRows) {
+                // too many tied rows
+                rows = topRows.getRows(false);
+                topRows = null;
+                addRowsToDisk();
+            }
         } else {
             rows.add(values);
             rowCount++;
@@ -449,6 +462,25 @@ private void addRowInternal(Value... values) {
         }
     }
 
+    /**
+     * Creates a bounded buffer for the first rows if this result is sorted and
+     * OFFSET and FETCH are known and small enough, so rows that cannot be
+     * returned are discarded as they arrive.
+     *
+     * @return whether the buffer was created
+     */
+    private boolean initTopRows() {
+        if (sort == null || limit <= 0 || fetchPercent || limitsWereApplied || external != null) {
+            return false;
+        }
+        long offset = Math.max(this.offset, 0);
+        if (limit > maxMemoryRows || offset > maxMemoryRows - limit) {
+            return false;
+        }
+        topRows = new TopRows(sort, (int) (offset + limit), withTiesSortOrder != null);
+        return true;
+    }
+
     private void addRowsToDisk() {
         if (external == null) {
             createExternalResult();
@@ -468,6 +500,9 @@ public int getVisibleColumnCount() {
     public void done() {
         if (external != null) {
             addRowsToDisk();
+        } else if (topRows != null) {
+            rows = topRows.getRows(true);
+            topRows = null;
         } else {
             if (isAnyDistinct()) {
                 rows = new ArrayList<>(distinctRows.values());
@@ -594,7 +629,9 @@ public boolean hasNext() {
     }
 
     /**
-     * Set the number of rows that this result will return at the maximum.
+     * Set the number of rows that this result will return at the maximum. If
+     * the limit, the offset, and the sort order are set before rows are added,
+     * only the rows that may be returned are kept.
      *
      * @param limit the limit (-1 means no limit, 0 means no rows)
      */
@@ -21,10 +21,62 @@
  * The client side part of a result set that is kept on the server.
  * In many cases, the complete data is kept on the client side,
  * but for large results only a subset is in-memory.
+ * <p>
+ * When a batch of rows is received, the request for the next batch is sent
+ * immediately, so the server prepares and sends the next batch while the
+ * application processes the current one. The response is read when the
+ * application reaches the end of the current batch, or before the response to
+ * any other request of the same session.
+ * </p>
  */
 public final class ResultRemote extends FetchedResult {
 
+    /**
+     * The maximum estimated memory of rows in one batch when the number of
+     * rows to fetch is increased above the fetch size.
+     */
+    private static final long MAX_FETCH_MEMORY = 4L * 1024 * 1024;
+
     private int fetchSize;
+
+    /**
+     * The number of rows to request in the next fetch. It starts with the
+     * fetch size and is increased while the application waits for the
+     * network, as long as batches of wide rows do not grow too large.
+     */
+    private int nextFetch;
+
+    /**
+     * Whether next batches are requested before they are needed.
+     */
+    private final boolean prefetch;
+
+    /**
+     * The number of rows requested by a fetch whose response was not read
+     * yet, or 0.
+     */
+    private int pendingFetch;
+
+    /**
+     * The next batch of rows that was read ahead, or {@code null}.
+     */
+    private ArrayList<Value[]> prefetched;
+
+    /**
+     * The exception thrown while the next batch was read ahead.
+     */
+    private DbException prefetchException;
+
+    /**
+     * The estimated memory of rows in the last fetched batch.
+     */
+    private long fetchedMemory;
+
+    /**
+     * The time when the current batch became available to the application.
+     */
+    private long batchTime;
+
     private SessionRemote session;
     private Transfer transfer;
     private int id;
@@ -47,6 +99,11 @@ public ResultRemote(SessionRemote session, Transfer transfer, int id,
         }
         rowId = -1;
         this.fetchSize = fetchSize;
+        nextFetch = fetchSize;
+        // Results of metadata and generated keys, scrollable results, and
+        // results in cluster mode are fetched at once
+        prefetch = fetchSize != Integer.MAX_VALUE && SysProperties.SERVER_RESULT_SET_PREFETCH
+                && session.isPrefetchAllowed();
         if (rowCount >= 0) {
             fetchSize = (int) Math.min(rowCount, fetchSize);
             result = new ArrayList<>(fetchSize);
@@ -56,8 +113,10 @@ public ResultRemote(SessionRemote session, Transfer transfer, int id,
         session.lock();
         try {
             try {
-                if (fetchRows(fetchSize)) {
+                if (fetchRows(result, 0L, fetchSize)) {
                     rowCount = result.size();
+                } else if (prefetch && this.session != null) {
+                    sendFetch(session);
                 }
             } catch (IOException e) {
                 throw DbException.convertIOException(e, null);
@@ -65,6 +124,7 @@ public ResultRemote(SessionRemote session, Transfer transfer, int id,
         } finally {
             session.unlock();
         }
+        batchTime = System.nanoTime();
     }
 
     @Override
@@ -124,6 +184,11 @@ public void reset() {
         try {
             session.checkClosed();
             try {
+                if (pendingFetch != 0) {
+                    readFetchedRows();
+                }
+                prefetched = null;
+                prefetchException = null;
                 session.traceOperation("RESULT_RESET", id);
                 transfer.writeInt(SessionRemote.RESULT_RESET).writeInt(id).flush();
             } catch (IOException e) {
@@ -157,9 +222,9 @@ public boolean hasNext() {
                 long nextRowId = rowId + 1;
                 if (session != null) {
                     remapIfOld();
-                    if (nextRowId - rowOffset >= result.size()) {
-                        fetchAdditionalRows();
-                    }
+                }
+                if (nextRowId - rowOffset >= result.size() && (session != null || prefetched != null)) {
+                    fetchAdditionalRows();
                 }
                 int index = (int) (nextRowId - rowOffset);
                 nextRow = index < result.size() ? result.get(index) : null;
@@ -189,7 +254,20 @@ private void sendClose() {
 
     @Override
     public void close() {
+        final SessionRemote session = this.session;
+        if (session != null && pendingFetch != 0) {
+            // the response must be read before the next request
+            session.lock();
+            try {
+                readFetchedRows();
+            } catch (IOException e) {
+                trace.error(e, "close");
+            } finally {
+                session.unlock();
+            }
+        }
         result = null;
+        prefetched = null;
         sendClose();
     }
 
@@ -211,53 +289,151 @@ private void remapIfOld() {
     }
 
     private void fetchAdditionalRows() {
+        long consumeTime = System.nanoTime() - batchTime;
         final SessionRemote session = this.session;
+        if (session == null) {
+            // the last batch was read ahead
+            takePrefetchedRows();
+            return;
+        }
         session.lock();
         try {
             session.checkClosed();
             try {
-                rowOffset += result.size();
-                result.clear();
-                int fetch = fetchSize;
-                if (rowCount >= 0) {
-                    fetch = (int) Math.min(fetch, rowCount - rowOffset);
-                } else if (fetch == Integer.MAX_VALUE) {
-                    fetch = SysProperties.SERVER_RESULT_SET_FETCH_SIZE;
+                long waitTime = System.nanoTime();
+                if (prefetched == null) {
+                    if (pendingFetch == 0) {
+                        sendFetch(session);
+                    }
+                    if (pendingFetch != 0) {
+                        readFetchedRows();
+                    } else {
+                        prefetched = new ArrayList<>();
+                    }
+                }
+                waitTime = System.nanoTime() - waitTime;
+                int requested = nextFetch;
+                int received = prefetched.size();
+                takePrefetchedRows();
+                adaptFetch(requested, received, consumeTime, waitTime);
+                if (prefetch && this.session != null) {
+                    sendFetch(session);
                 }
-                session.traceOperation("RESULT_FETCH_ROWS", id);
-                transfer.writeInt(SessionRemote.RESULT_FETCH_ROWS).writeInt(id).writeInt(fetch);
-                session.done(transfer);
-                fetchRows(fetch);
             } catch (IOException e) {
                 throw DbException.convertIOException(e, null);
             }
         } finally {
             session.unlock();
         }
+        batchTime = System.nanoTime();
     }
 
-    private boolean fetchRows(int fetch) throws IOException {
+    /**
+     * Sends a request for the next batch of rows. The response is read later
+     * by {@link #readFetchedRows()}.
+     *
+     * @param session the session
+     * @throws IOException on I/O exception
+     */
+    private void sendFetch(SessionRemote session) throws IOException {
+        int fetch = nextFetch;
+        if (rowCount >= 0) {
+            fetch = (int) Math.min(fetch, rowCount - rowOffset - result.size());
+        } else if (fetch == Integer.MAX_VALUE) {
+            fetch = SysProperties.SERVER_RESULT_SET_FETCH_SIZE;
+        }
+        if (fetch <= 0) {
+            return;
+        }
+        session.traceOperation("RESULT_FETCH_ROWS", id);
+        transfer.writeInt(SessionRemote.RESULT_FETCH_ROWS).writeInt(id).writeInt(fetch);
+        transfer.flush();
+        pendingFetch = fetch;
+        session.setPendingFetch(this);
+    }
+
+    /**
+     * Reads the response to the last request for rows of this result. This
+     * method is called by the session before it reads the response to any
+     * other request.
+     *
+     * @throws IOException on I/O exception
+     */
+    public void readFetchedRows() throws IOException {
+        int fetch = pendingFetch;
+        pendingFetch = 0;
+        session.removePendingFetch(this);
+        ArrayList<Value[]> rows = new ArrayList<>(fetch);
+        try {
+            session.done(transfer);
+            fetchRows(rows, rowOffset + (result != null ? result.size() : 0), fetch);
+        } catch (DbException e) {
+            prefetchException = e;
+        }
+        prefetched = rows;
+    }
+
+    private void takePrefetchedRows() {
+        DbException e = prefetchException;
+        if (e != null) {
+            prefetchException = null;
+            prefetched = null;
+            throw e;
+        }
+        rowOffset += result.size();
+        result = prefetched;
+        prefetched = null;
+    }
+
+    /**
+     * Adapts the number of rows to request in the next fetch. The number is
+     * doubled if the application had to wait for the last batch longer than
+     * it processed the previous one, but the estimated memory of a batch may
+     * not exceed {@link #MAX_FETCH_MEMORY}. It never goes below the fetch
+     * size.
+     */
+    private void adaptFetch(int requested, int received, long consumeTime, long waitTime) {
+        if (received < requested || received == 0 || fetchSize == Integer.MAX_VALUE) {
+            return;
+        }
+        long limit = Math.max(fetchSize,
+                Math.min(Integer.MAX_VALUE, MAX_FETCH_MEMORY * received / Math.max(fetchedMemory, 1L)));
+        long next = nextFetch;
+        if (waitTime > consumeTime) {
+            next <<= 1;
+        }
+        nextFetch = (int) Math.max(Math.min(next, limit), fetchSize);
+    }
+
+    private boolean fetchRows(ArrayList<Value[]> rows, long offset, int fetch) throws IOException {
         int len = columns.length;
-        for (int r = 0; r < fetch; r++) {
-            switch (transfer.readByte()) {
-            case 1: {
-                Value[] values = new Value[len];
-                for (int i = 0; i < len; i++) {
-                    values[i] = transfer.readValue(columns[i].columnType);
+        long memory = 0L;
+        try {
+            for (int r = 0; r < fetch; r++) {
+                switch (transfer.readByte()) {
+                case 1: {
+                    Value[] values = new Value[len];
+                    for (int i = 0; i < len; i++) {
+                        Value v = transfer.readValue(columns[i].columnType);
+                        values[i] = v;
+                        memory += v.getMemory();
+                    }
+                    rows.add(values);
+                    break;
+                }
+                case 0:
+                    sendClose();
+                    return true;
+                case -1:
+                    throw SessionRemote.readException(transfer);
+                default:
+                    throw DbException.getInternalError();
                 }
-                result.add(values);
-                break;
-            }
-            case 0:
-                sendClose();
-                return true;
-            case -1:
-                throw SessionRemote.readException(transfer);
-            default:
-                throw DbException.getInternalError();
             }
+        } finally {
+            fetchedMemory = memory;
         }
-        if (rowCount >= 0L && rowOffset + result.size() >= rowCount) {
+        if (rowCount >= 0L && offset + rows.size() >= rowCount) {
             sendClose();
         }
         return false;
@@ -276,6 +452,7 @@ public int getFetchSize() {
     @Override
     public void setFetchSize(int fetchSize) {
         this.fetchSize = fetchSize;
+        nextFetch = fetchSize;
     }
 
     @Override
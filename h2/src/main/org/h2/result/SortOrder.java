@@ -109,6 +109,18 @@ public SortOrder(SessionLocal session, int[] queryColumnIndexes, int[] sortType,
         this.orderList = orderList;
     }
 
+    /**
+     * Returns a sort order with the same columns and sort types for the
+     * specified session.
+     *
+     * @param session the session
+     * @return this sort order if it belongs to the specified session, or a
+     *         copy of it
+     */
+    public SortOrder forSession(SessionLocal session) {
+        return this.session == session ? this : new SortOrder(session, queryColumnIndexes, sortTypes, orderList);
+    }
+
     /**
      * Create the SQL snippet that describes this sort order.
      * This is the SQL snippet that usually appears after the ORDER BY clause.
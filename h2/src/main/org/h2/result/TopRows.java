@@ -0,0 +1,172 @@
+/*
+ * Copyright 2004-2025 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.result;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.h2.value.Value;
+
+/**
+ * A bounded buffer that keeps only the first rows of a sorted result. Rows are
+ * kept in a binary max-heap, so the row that would be returned last is at the
+ * root and can be compared and replaced cheaply. Rows with equal sort keys are
+ * ordered by their arrival, so the kept rows are the same as after a stable
+ * sort of all rows.
+ */
+final class TopRows {
+
+    /**
+     * A row with its sequence number.
+     */
+    private static final class Entry {
+
+        final Value[] row;
+
+        final long sequence;
+
+        Entry(Value[] row, long sequence) {
+            this.row = row;
+            this.sequence = sequence;
+        }
+
+    }
+
+    private static final Comparator<Entry> ARRIVAL_ORDER = (a, b) -> Long.compare(a.sequence, b.sequence);
+
+    private final SortOrder sort;
+
+    private final int capacity;
+
+    private final boolean withTies;
+
+    private Entry[] heap;
+
+    private int size;
+
+    /**
+     * Rows outside of the heap that are equal to the root of the heap in the
+     * sort order. Used only for WITH TIES.
+     */
+    private final ArrayList<Entry> ties;
+
+    private long sequence;
+
+    /**
+     * Creates a new buffer.
+     *
+     * @param sort the sort order
+     * @param capacity the number of rows to keep, OFFSET + FETCH
+     * @param withTies whether rows that are equal to the last kept row should
+     *            be kept too
+     */
+    TopRows(SortOrder sort, int capacity, boolean withTies) {
+        this.sort = sort;
+        this.capacity = capacity;
+        this.withTies = withTies;
+        heap = new Entry[Math.min(capacity, 16)];
+        ties = withTies ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Adds a row. The row is discarded if it cannot be returned.
+     *
+     * @param row the row
+     * @return the number of kept rows
+     */
+    int add(Value[] row) {
+        long seq = sequence++;
+        if (size < capacity) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, (int) Math.min(size * 2L, capacity));
+            }
+            siftUp(size++, new Entry(row, seq));
+        } else {
+            Entry top = heap[0];
+            int cmp = sort.compare(row, top.row);
+            if (cmp < 0) {
+                siftDown(new Entry(row, seq));
+                if (withTies) {
+                    if (sort.compare(top.row, heap[0].row) == 0) {
+                        ties.add(top);
+                    } else {
+                        ties.clear();
+                    }
+                }
+            } else if (cmp == 0 && withTies) {
+                ties.add(new Entry(row, seq));
+            }
+        }
+        return getRowCount();
+    }
+
+    /**
+     * Returns the number of kept rows.
+     *
+     * @return the number of kept rows
+     */
+    int getRowCount() {
+        return withTies ? size + ties.size() : size;
+    }
+
+    /**
+     * Returns the kept rows.
+     *
+     * @param sorted {@code true} to sort rows in the sort order,
+     *            {@code false} to return them in the order of their arrival
+     * @return the kept rows
+     */
+    ArrayList<Value[]> getRows(boolean sorted) {
+        int count = getRowCount();
+        Entry[] entries = Arrays.copyOf(heap, count);
+        for (int i = size; i < count; i++) {
+            entries[i] = ties.get(i - size);
+        }
+        Arrays.sort(entries, sorted ? this::compare : ARRIVAL_ORDER);
+        ArrayList<Value[]> rows = new ArrayList<>(count);
+        for (Entry e : entries) {
+            rows.add(e.row);
+        }
+        return rows;
+    }
+
+    private int compare(Entry a, Entry b) {
+        int cmp = sort.compare(a.row, b.row);
+        return cmp != 0 ? cmp : Long.compare(a.sequence, b.sequence);
+    }
+
+    private void siftUp(int i, Entry e) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            Entry p = heap[parent];
+            if (compare(e, p) <= 0) {
+                break;
+            }
+            heap[i] = p;
+            i = parent;
+        }
+        heap[i] = e;
+    }
+
+    private void siftDown(Entry e) {
+        int i = 0, half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1, right = child + 1;
+            Entry c = heap[child];
+            if (right < size && compare(heap[right], c) > 0) {
+                c = heap[child = right];
+            }
+            if (compare(e, c) >= 0) {
+                break;
+            }
+            heap[i] = c;
+            i = child;
+        }
+        heap[i] = e;
+    }
+
+}
@@ -0,0 +1,677 @@
+/*
+ * Copyright 2004-2025 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.server.pg;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+import org.h2.api.ErrorCode;
+import org.h2.message.DbException;
+import org.h2.util.StringUtils;
+
+/**
+ * A parsed COPY statement of PostgreSQL. Only COPY FROM STDIN and COPY TO
+ * STDOUT are supported, data is transferred with the COPY sub-protocol.
+ *
+ * <pre>
+ * COPY table [ ( column [, ...] ) ] FROM STDIN [ [ WITH ] ( option [, ...] ) ]
+ * COPY { table [ ( column [, ...] ) ] | ( query ) } TO STDOUT [ [ WITH ] ( option [, ...] ) ]
+ * </pre>
+ *
+ * Supported options are FORMAT { TEXT | CSV | BINARY }, DELIMITER, NULL,
+ * HEADER, QUOTE, and ESCAPE. The old syntax without parentheses is also
+ * accepted.
+ */
+final class PgCopy {
+
+    /**
+     * The text format.
+     */
+    static final int TEXT = 0;
+
+    /**
+     * The CSV format.
+     */
+    static final int CSV = 1;
+
+    /**
+     * The binary format.
+     */
+    static final int BINARY = 2;
+
+    private final String sql;
+
+    private int index;
+
+    /**
+     * The table name, or {@code null} for a query.
+     */
+    String table;
+
+    /**
+     * The list of columns without parentheses, or {@code null}.
+     */
+    String columns;
+
+    /**
+     * The query, or {@code null} for a table.
+     */
+    String query;
+
+    /**
+     * {@code true} for COPY FROM STDIN, {@code false} for COPY TO STDOUT.
+     */
+    boolean from;
+
+    /**
+     * The format.
+     */
+    int format = TEXT;
+
+    /**
+     * The column delimiter.
+     */
+    char delimiter;
+
+    /**
+     * The string that represents NULL.
+     */
+    String nullString;
+
+    /**
+     * Whether the CSV data has a header line.
+     */
+    boolean header;
+
+    /**
+     * The quote character of the CSV format.
+     */
+    char quote = '"';
+
+    /**
+     * The escape character of the CSV format.
+     */
+    char escape;
+
+    private Reader reader;
+
+    private char[] buffer;
+
+    private int pos, limit;
+
+    private final ArrayList<String> values = new ArrayList<>();
+
+    private final StringBuilder raw = new StringBuilder(), value = new StringBuilder();
+
+    private PgCopy(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * Parses a COPY statement.
+     *
+     * @param sql the statement
+     * @return the parsed statement, or {@code null} if it isn't a COPY
+     *         statement
+     * @throws DbException on syntax error or unsupported option
+     */
+    static PgCopy parse(String sql) {
+        PgCopy copy = new PgCopy(sql);
+        if (!copy.readIf("COPY")) {
+            return null;
+        }
+        copy.parse();
+        return copy;
+    }
+
+    private void parse() {
+        skipWhitespace();
+        if (current() == '(') {
+            query = readParenthesized();
+        } else {
+            table = readName();
+            skipWhitespace();
+            if (current() == '(') {
+                columns = readParenthesized();
+            }
+        }
+        if (readIf("FROM")) {
+            from = true;
+            if (query != null) {
+                throw syntaxError();
+            }
+            read("STDIN");
+        } else {
+            read("TO");
+            read("STDOUT");
+        }
+        readIf("WITH");
+        skipWhitespace();
+        if (current() == '(') {
+            index++;
+            do {
+                readOption(readWord());
+                skipWhitespace();
+            } while (readIfChar(','));
+            if (!readIfChar(')')) {
+                throw syntaxError();
+            }
+        } else {
+            readLegacyOptions();
+        }
+        readIfChar(';');
+        skipWhitespace();
+        if (index < sql.length()) {
+            throw syntaxError();
+        }
+        if (format != CSV && (header || escape != 0)) {
+            throw DbException.getUnsupportedException("COPY HEADER and ESCAPE options without CSV format");
+        }
+        if (delimiter == 0) {
+            delimiter = format == CSV ? ',' : '\t';
+        }
+        if (nullString == null) {
+            nullString = format == CSV ? "" : "\\N";
+        }
+        if (escape == 0) {
+            escape = quote;
+        }
+    }
+
+    /**
+     * Sets the source of the text or CSV data.
+     *
+     * @param reader the reader
+     */
+    void setReader(Reader reader) {
+        this.reader = reader;
+        buffer = new char[8_192];
+        pos = limit = 0;
+    }
+
+    /**
+     * Reads the next row of the text or CSV data. Reading stops at the end of
+     * data or at the end-of-data marker.
+     *
+     * @return the values of the row with {@code null} elements for NULL
+     *         values, or {@code null} if there are no more rows
+     * @throws IOException on failure
+     */
+    String[] readRow() throws IOException {
+        int c = nextChar();
+        if (c < 0) {
+            return null;
+        }
+        boolean csv = format == CSV, quoted = false;
+        values.clear();
+        raw.setLength(0);
+        value.setLength(0);
+        for (;; c = nextChar()) {
+            if (c < 0 || c == '\n') {
+                break;
+            } else if (c == '\r') {
+                if (peekChar() == '\n') {
+                    pos++;
+                }
+                break;
+            } else if (c == delimiter) {
+                addValue(quoted);
+                quoted = false;
+            } else if (csv && c == quote) {
+                quoted = true;
+                readQuotedValue();
+            } else if (!csv && c == '\\') {
+                readEscapeSequence();
+            } else {
+                raw.append((char) c);
+                value.append((char) c);
+            }
+        }
+        if (values.isEmpty() && !quoted && "\\.".contentEquals(raw)) {
+            // end-of-data marker
+            return null;
+        }
+        addValue(quoted);
+        return values.toArray(new String[0]);
+    }
+
+    private void addValue(boolean quoted) {
+        values.add(!quoted && nullString.contentEquals(raw) ? null : value.toString());
+        raw.setLength(0);
+        value.setLength(0);
+    }
+
+    private void readQuotedValue() throws IOException {
+        for (;;) {
+            int c = nextChar();
+            if (c < 0) {
+                throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, "unterminated CSV quoted field");
+            }
+            if (c == escape) {
+                int n = peekChar();
+                if (n == quote || n == escape) {
+                    pos++;
+                    value.append((char) n);
+                    continue;
+                }
+            }
+            if (c == quote) {
+                return;
+            }
+            value.append((char) c);
+        }
+    }
+
+    private void readEscapeSequence() throws IOException {
+        raw.append('\\');
+        int c = nextChar();
+        if (c < 0) {
+            value.append('\\');
+            return;
+        }
+        raw.append((char) c);
+        switch (c) {
+        case 'b':
+            c = '\b';
+            break;
+        case 'f':
+            c = '\f';
+            break;
+        case 'n':
+            c = '\n';
+            break;
+        case 'r':
+            c = '\r';
+            break;
+        case 't':
+            c = '\t';
+            break;
+        case 'v':
+            c = 0x0b;
+            break;
+        case '0':
+        case '1':
+        case '2':
+        case '3':
+        case '4':
+        case '5':
+        case '6':
+        case '7':
+            c -= '0';
+            for (int i = 0, d; i < 2 && (d = peekChar()) >= '0' && d <= '7'; i++) {
+                pos++;
+                raw.append((char) d);
+                c = (c << 3) + d - '0';
+            }
+            c &= 0xff;
+            break;
+        case 'x': {
+            int d = Character.digit(peekChar(), 16);
+            if (d >= 0) {
+                pos++;
+                c = d;
+                if ((d = Character.digit(peekChar(), 16)) >= 0) {
+                    pos++;
+                    c = (c << 4) + d;
+                }
+            }
+            break;
+        }
+        default:
+        }
+        value.append((char) c);
+    }
+
+    private int nextChar() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private int peekChar() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int l = reader.read(buffer);
+        if (l <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = l;
+        return true;
+    }
+
+    /**
+     * Appends a row of the text or CSV data.
+     *
+     * @param builder the target
+     * @param row the values of the row, {@code null} for NULL values
+     */
+    void appendRow(StringBuilder builder, String[] row) {
+        for (int i = 0, l = row.length; i < l; i++) {
+            if (i > 0) {
+                builder.append(delimiter);
+            }
+            String v = row[i];
+            if (v == null) {
+                builder.append(nullString);
+            } else if (format == CSV) {
+                appendCsvValue(builder, v);
+            } else {
+                appendTextValue(builder, v);
+            }
+        }
+        builder.append('\n');
+    }
+
+    private void appendTextValue(StringBuilder builder, String v) {
+        for (int i = 0, l = v.length(); i < l; i++) {
+            char c = v.charAt(i);
+            switch (c) {
+            case '\\':
+                builder.append("\\\\");
+                break;
+            case '\b':
+                builder.append("\\b");
+                break;
+            case '\f':
+                builder.append("\\f");
+                break;
+            case '\n':
+                builder.append("\\n");
+                break;
+            case '\r':
+                builder.append("\\r");
+                break;
+            case '\t':
+                builder.append("\\t");
+                break;
+            case 0x0b:
+                builder.append("\\v");
+                break;
+            default:
+                if (c == delimiter) {
+                    builder.append('\\');
+                }
+                builder.append(c);
+            }
+        }
+    }
+
+    private void appendCsvValue(StringBuilder builder, String v) {
+        boolean needQuotes = v.equals(nullString) || v.equals("\\.");
+        for (int i = 0, l = v.length(); i < l && !needQuotes; i++) {
+            char c = v.charAt(i);
+            needQuotes = c == delimiter || c == quote || c == '\n' || c == '\r';
+        }
+        if (!needQuotes) {
+            builder.append(v);
+            return;
+        }
+        builder.append(quote);
+        for (int i = 0, l = v.length(); i < l; i++) {
+            char c = v.charAt(i);
+            if (c == quote || c == escape) {
+                builder.append(escape);
+            }
+            builder.append(c);
+        }
+        builder.append(quote);
+    }
+
+    private void readOption(String option) {
+        switch (option) {
+        case "FORMAT":
+            String f = readWord();
+            switch (f) {
+            case "TEXT":
+                format = TEXT;
+                break;
+            case "CSV":
+                format = CSV;
+                break;
+            case "BINARY":
+                format = BINARY;
+                break;
+            default:
+                throw DbException.getUnsupportedException("COPY FORMAT " + f);
+            }
+            break;
+        case "DELIMITER":
+            delimiter = readCharacter();
+            break;
+        case "NULL":
+            nullString = readString();
+            break;
+        case "HEADER": {
+            skipWhitespace();
+            char c = current();
+            if (c == ',' || c == ')') {
+                header = true;
+            } else {
+                String value = readWord();
+                switch (value) {
+                case "TRUE":
+                case "ON":
+                case "1":
+                    header = true;
+                    break;
+                case "FALSE":
+                case "OFF":
+                case "0":
+                    header = false;
+                    break;
+                default:
+                    throw DbException.getUnsupportedException("COPY HEADER " + value);
+                }
+            }
+            break;
+        }
+        case "QUOTE":
+            quote = readCharacter();
+            break;
+        case "ESCAPE":
+            escape = readCharacter();
+            break;
+        default:
+            throw DbException.getUnsupportedException("COPY option " + option);
+        }
+    }
+
+    private void readLegacyOptions() {
+        for (;;) {
+            skipWhitespace();
+            if (index >= sql.length() || current() == ';') {
+                break;
+            }
+            String option = readWord();
+            switch (option) {
+            case "BINARY":
+                format = BINARY;
+                break;
+            case "CSV":
+                format = CSV;
+                break;
+            case "HEADER":
+                header = true;
+                break;
+            case "DELIMITER":
+            case "NULL":
+            case "QUOTE":
+            case "ESCAPE":
+                readIf("AS");
+                readOption(option);
+                break;
+            default:
+                throw DbException.getUnsupportedException("COPY option " + option);
+            }
+        }
+    }
+
+    private char readCharacter() {
+        String s = readString();
+        if (s.length() != 1) {
+            throw DbException.getInvalidValueException("COPY delimiter, quote, or escape", s);
+        }
+        return s.charAt(0);
+    }
+
+    private String readString() {
+        skipWhitespace();
+        int length = sql.length();
+        if (readIfChar('E') || readIfChar('e')) {
+            // escape string constants are accepted for tab delimiters
+            if (current() != '\'') {
+                throw syntaxError();
+            }
+            String s = readQuoted('\'');
+            StringBuilder builder = new StringBuilder(s.length());
+            for (int i = 0, l = s.length(); i < l; i++) {
+                char c = s.charAt(i);
+                if (c == '\\' && i + 1 < l) {
+                    c = s.charAt(++i);
+                    switch (c) {
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    }
+                }
+                builder.append(c);
+            }
+            return builder.toString();
+        }
+        if (index >= length || current() != '\'') {
+            throw syntaxError();
+        }
+        return readQuoted('\'');
+    }
+
+    private String readQuoted(char q) {
+        StringBuilder builder = new StringBuilder();
+        int length = sql.length();
+        for (index++; index < length; index++) {
+            char c = sql.charAt(index);
+            if (c == q) {
+                if (index + 1 < length && sql.charAt(index + 1) == q) {
+                    index++;
+                } else {
+                    index++;
+                    return builder.toString();
+                }
+            }
+            builder.append(c);
+        }
+        throw syntaxError();
+    }
+
+    private String readName() {
+        int start = index;
+        for (;;) {
+            skipWhitespace();
+            if (current() == '"') {
+                readQuoted('"');
+            } else {
+                readWord();
+            }
+            if (!readIfChar('.')) {
+                break;
+            }
+        }
+        return sql.substring(start, index).trim();
+    }
+
+    private String readParenthesized() {
+        int start = ++index, level = 1, length = sql.length();
+        while (index < length) {
+            char c = sql.charAt(index);
+            switch (c) {
+            case '\'':
+            case '"':
+                readQuoted(c);
+                continue;
+            case '(':
+                level++;
+                break;
+            case ')':
+                if (--level == 0) {
+                    return sql.substring(start, index++).trim();
+                }
+                break;
+            }
+            index++;
+        }
+        throw syntaxError();
+    }
+
+    private void read(String word) {
+        if (!readIf(word)) {
+            throw syntaxError();
+        }
+    }
+
+    private boolean readIf(String word) {
+        skipWhitespace();
+        int start = index;
+        if (start < sql.length() && Character.isLetter(sql.charAt(start)) && readWord().equals(word)) {
+            return true;
+        }
+        index = start;
+        return false;
+    }
+
+    private String readWord() {
+        skipWhitespace();
+        int start = index, length = sql.length();
+        while (index < length) {
+            char c = sql.charAt(index);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '$') {
+                break;
+            }
+            index++;
+        }
+        if (start == index) {
+            throw syntaxError();
+        }
+        return StringUtils.toUpperEnglish(sql.substring(start, index));
+    }
+
+    private boolean readIfChar(char c) {
+        skipWhitespace();
+        if (current() == c) {
+            index++;
+            return true;
+        }
+        return false;
+    }
+
+    private char current() {
+        return index < sql.length() ? sql.charAt(index) : 0;
+    }
+
+    private void skipWhitespace() {
+        int length = sql.length();
+        while (index < length && Character.isWhitespace(sql.charAt(index))) {
+            index++;
+        }
+    }
+
+    private DbException syntaxError() {
+        return DbException.getSyntaxError(sql, Math.min(index, sql.length()));
+    }
+
+}
@@ -5,6 +5,7 @@
  */
 package org.h2.server.pg;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
@@ -12,6 +13,7 @@
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.StringReader;
 import java.math.BigDecimal;
@@ -21,6 +23,7 @@
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -55,6 +58,7 @@
 import org.h2.value.Value;
 import org.h2.value.ValueArray;
 import org.h2.value.ValueBigint;
+import org.h2.value.ValueBoolean;
 import org.h2.value.ValueDate;
 import org.h2.value.ValueDecfloat;
 import org.h2.value.ValueDouble;
@@ -77,7 +81,18 @@ public final class PgServerThread implements Runnable {
 
     private static final boolean INTEGER_DATE_TYPES = false;
 
-    private static final Pattern SHOULD_QUOTE = Pattern.compile(".*[\",\\\\{}].*");
+    /**
+     * The signature of the binary COPY format.
+     */
+    private static final byte[] COPY_BINARY_SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r',
+            '\n', 0 };
+
+    /**
+     * The number of rows of COPY FROM STDIN inserted at once.
+     */
+    private static final int COPY_BATCH_SIZE = 1_000;
+
+    private static final Pattern SHOULD_QUOTE = Pattern.compile(".*[\",\\\\{}\\s].*");
 
     private static String pgTimeZone(String value) {
         if (value.startsWith("GMT+")) {
@@ -134,11 +149,10 @@ public void run() {
         try {
             server.trace("Connect");
             InputStream ins = socket.getInputStream();
-            out = socket.getOutputStream();
+            out = new BufferedOutputStream(socket.getOutputStream(), 65_536);
             dataInRaw = new DataInputStream(ins);
             while (!stop) {
                 process();
-                out.flush();
             }
         } catch (EOFException e) {
             // more or less normal disconnect
@@ -215,6 +229,7 @@ private void process() throws IOException {
             } else if (version == 80877103) {
                 server.trace("SSLRequest");
                 out.write('N');
+                out.flush();
             } else {
                 server.trace("StartupMessage");
                 server.trace(" version " + version +
@@ -455,6 +470,11 @@ private void process() throws IOException {
             sendReadyForQuery();
             break;
         }
+        case 'H': {
+            server.trace("Flush");
+            out.flush();
+            break;
+        }
         case 'Q': {
             server.trace("Query");
             String query = readString();
@@ -466,6 +486,20 @@ private void process() throws IOException {
                     break;
                 }
                 s = getSQL(s);
+                try {
+                    PgCopy copy = PgCopy.parse(s);
+                    if (copy != null) {
+                        if (copy.from) {
+                            copyIn(copy);
+                        } else {
+                            copyOut(copy);
+                        }
+                        continue;
+                    }
+                } catch (Exception e) {
+                    sendErrorOrCancelResponse(e);
+                    break;
+                }
                 try (Command command = session.prepareLocal(s)) {
                     setActiveRequest(command);
                     if (command.isQuery()) {
@@ -530,6 +564,272 @@ private void executeQuery(Prepared prepared, Command prep, int[] resultColumnFor
         }
     }
 
+    /**
+     * Executes COPY FROM STDIN. Rows are inserted in batches within a single
+     * transaction, all of them are rolled back if any row cannot be inserted.
+     *
+     * @param copy the COPY statement
+     * @throws IOException on failure
+     */
+    private void copyIn(PgCopy copy) throws IOException {
+        int count;
+        int[] types;
+        StringBuilder builder = new StringBuilder("INSERT INTO ").append(copy.table).append('(');
+        try (Command command = session.prepareLocal(getCopySelect(copy))) {
+            ResultInterface meta = command.getMetaData();
+            count = meta.getVisibleColumnCount();
+            types = new int[count];
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                StringUtils.quoteIdentifier(builder, meta.getColumnName(i));
+                types[i] = PgServer.convertType(meta.getColumnType(i));
+            }
+        }
+        builder.append(") VALUES (");
+        for (int i = 0; i < count; i++) {
+            builder.append(i > 0 ? ", ?" : "?");
+        }
+        try (Command command = session.prepareLocal(builder.append(')').toString())) {
+            boolean binary = copy.format == PgCopy.BINARY;
+            startMessage('G');
+            write(binary ? 1 : 0);
+            writeShort(count);
+            for (int i = 0; i < count; i++) {
+                writeShort(binary ? 1 : 0);
+            }
+            sendMessage();
+            out.flush();
+            setActiveRequest(command);
+            CopyInputStream in = new CopyInputStream();
+            boolean autoCommit = session.getAutoCommit();
+            SessionLocal.Savepoint savepoint = session.setSavepoint();
+            session.setAutoCommit(false);
+            try {
+                long rows = binary ? copyInBinary(command, in, types) : copyInText(command, copy, in, types);
+                in.skipRemaining();
+                if (autoCommit) {
+                    session.commit(false);
+                }
+                startMessage('C');
+                writeString("COPY " + rows);
+                sendMessage();
+            } catch (Exception e) {
+                if (autoCommit) {
+                    session.rollback();
+                } else {
+                    session.rollbackTo(savepoint);
+                }
+                in.skipRemaining();
+                throw e;
+            } finally {
+                session.setAutoCommit(autoCommit);
+            }
+        } finally {
+            setActiveRequest(null);
+        }
+    }
+
+    private long copyInText(Command command, PgCopy copy, CopyInputStream in, int[] types) throws IOException {
+        copy.setReader(new InputStreamReader(in, getEncoding()));
+        if (copy.header) {
+            copy.readRow();
+        }
+        int count = types.length;
+        ArrayList<Value[]> batch = new ArrayList<>();
+        long rows = 0;
+        for (String[] row; (row = copy.readRow()) != null; rows++) {
+            if (row.length != count) {
+                throw DbException.get(ErrorCode.COLUMN_COUNT_DOES_NOT_MATCH);
+            }
+            Value[] values = new Value[count];
+            for (int i = 0; i < count; i++) {
+                String s = row[i];
+                values[i] = s == null ? ValueNull.INSTANCE : parseTextValue(s, types[i]);
+            }
+            addToCopyBatch(command, batch, values);
+        }
+        executeCopyBatch(command, batch);
+        return rows;
+    }
+
+    private long copyInBinary(Command command, CopyInputStream in, int[] types) throws IOException {
+        DataInputStream oldDataIn = dataIn;
+        dataIn = new DataInputStream(in);
+        try {
+            byte[] signature = new byte[COPY_BINARY_SIGNATURE.length];
+            readFully(signature);
+            if (!Arrays.equals(signature, COPY_BINARY_SIGNATURE)) {
+                throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, "COPY binary signature");
+            }
+            // flags
+            readInt();
+            int extensionLength = readInt();
+            if (extensionLength < 0 || dataIn.skipBytes(extensionLength) != extensionLength) {
+                throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, "COPY binary header");
+            }
+            int count = types.length;
+            ArrayList<Value[]> batch = new ArrayList<>();
+            long rows = 0;
+            for (int fields; (fields = readShort()) != -1; rows++) {
+                if (fields != count) {
+                    throw DbException.get(ErrorCode.COLUMN_COUNT_DOES_NOT_MATCH);
+                }
+                Value[] values = new Value[count];
+                for (int i = 0; i < count; i++) {
+                    int length = readInt();
+                    values[i] = length == -1 ? ValueNull.INSTANCE : readBinaryValue(types[i], length);
+                }
+                addToCopyBatch(command, batch, values);
+            }
+            executeCopyBatch(command, batch);
+            return rows;
+        } catch (EOFException e) {
+            if (!in.done) {
+                throw e;
+            }
+            throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, "COPY binary data without trailer");
+        } finally {
+            dataIn = oldDataIn;
+        }
+    }
+
+    private static void addToCopyBatch(Command command, ArrayList<Value[]> batch, Value[] values) {
+        batch.add(values);
+        if (batch.size() >= COPY_BATCH_SIZE) {
+            executeCopyBatch(command, batch);
+        }
+    }
+
+    private static void executeCopyBatch(Command command, ArrayList<Value[]> batch) {
+        if (!batch.isEmpty()) {
+            List<SQLException> exceptions = command.executeBatchUpdate(batch, null).getExceptions();
+            if (!exceptions.isEmpty()) {
+                throw DbException.convert(exceptions.get(0));
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Executes COPY TO STDOUT. Rows are sent to the client while they are read
+     * from the result.
+     *
+     * @param copy the COPY statement
+     * @throws IOException on failure
+     */
+    private void copyOut(PgCopy copy) throws IOException {
+        try (Command command = session.prepareLocal(getCopySelect(copy))) {
+            if (!command.isQuery()) {
+                throw DbException.get(ErrorCode.METHOD_ONLY_ALLOWED_FOR_QUERY);
+            }
+            setActiveRequest(command);
+            try (ResultInterface result = command.executeQuery(0, -1, false)) {
+                int count = result.getVisibleColumnCount();
+                int[] types = new int[count];
+                for (int i = 0; i < count; i++) {
+                    types[i] = PgServer.convertType(result.getColumnType(i));
+                }
+                boolean binary = copy.format == PgCopy.BINARY;
+                startMessage('H');
+                write(binary ? 1 : 0);
+                writeShort(count);
+                for (int i = 0; i < count; i++) {
+                    writeShort(binary ? 1 : 0);
+                }
+                sendMessage();
+                StringBuilder builder = new StringBuilder();
+                String[] strings = new String[count];
+                if (binary) {
+                    startMessage('d');
+                    write(COPY_BINARY_SIGNATURE);
+                    // flags and length of the header extension
+                    writeInt(0);
+                    writeInt(0);
+                    sendMessage();
+                } else if (copy.header) {
+                    for (int i = 0; i < count; i++) {
+                        strings[i] = result.getColumnName(i);
+                    }
+                    copy.appendRow(builder, strings);
+                    startMessage('d');
+                    writeStringPart(builder.toString());
+                    sendMessage();
+                }
+                long rows = 0;
+                for (; result.next(); rows++) {
+                    Value[] row = result.currentRow();
+                    startMessage('d');
+                    if (binary) {
+                        writeShort(count);
+                        for (int i = 0; i < count; i++) {
+                            int pgType = types[i];
+                            writeDataColumn(row[i], pgType, !hasBinaryFormat(pgType));
+                        }
+                    } else {
+                        for (int i = 0; i < count; i++) {
+                            Value v = row[i];
+                            strings[i] = v == ValueNull.INSTANCE ? null : getTextValue(v, types[i]);
+                        }
+                        builder.setLength(0);
+                        copy.appendRow(builder, strings);
+                        writeStringPart(builder.toString());
+                    }
+                    sendMessage();
+                }
+                if (binary) {
+                    startMessage('d');
+                    writeShort(-1);
+                    sendMessage();
+                }
+                startMessage('c');
+                sendMessage();
+                startMessage('C');
+                writeString("COPY " + rows);
+                sendMessage();
+            }
+        } finally {
+            setActiveRequest(null);
+        }
+    }
+
+    private static String getCopySelect(PgCopy copy) {
+        if (copy.query != null) {
+            return copy.query;
+        }
+        return "SELECT " + (copy.columns != null ? copy.columns : "*") + " FROM " + copy.table;
+    }
+
+    /**
+     * Returns whether values of the specified type are written in their own
+     * binary format. Values of other types are written as text, this is the
+     * binary format of strings.
+     *
+     * @param pgType the PostgreSQL type
+     * @return whether the type has its own binary format
+     */
+    private static boolean hasBinaryFormat(int pgType) {
+        switch (pgType) {
+        case PgServer.PG_TYPE_BOOL:
+        case PgServer.PG_TYPE_INT2:
+        case PgServer.PG_TYPE_INT4:
+        case PgServer.PG_TYPE_INT8:
+        case PgServer.PG_TYPE_FLOAT4:
+        case PgServer.PG_TYPE_FLOAT8:
+        case PgServer.PG_TYPE_NUMERIC:
+        case PgServer.PG_TYPE_BYTEA:
+        case PgServer.PG_TYPE_DATE:
+        case PgServer.PG_TYPE_TIME:
+        case PgServer.PG_TYPE_TIMETZ:
+        case PgServer.PG_TYPE_TIMESTAMP:
+        case PgServer.PG_TYPE_TIMESTAMPTZ:
+            return true;
+        default:
+            return false;
+        }
+    }
+
     private String getSQL(String s) {
         String lower = StringUtils.toLowerEnglish(s);
         if (lower.startsWith("show max_identifier_length")) {
@@ -603,72 +903,9 @@ private void writeDataColumn(Value v, int pgType, boolean text) throws IOExcepti
         }
         if (text) {
             // plain text
-            switch (pgType) {
-            case PgServer.PG_TYPE_BOOL:
-                writeInt(1);
-                dataOut.writeByte(v.getBoolean() ? 't' : 'f');
-                break;
-            case PgServer.PG_TYPE_BYTEA: {
-                byte[] bytes = v.getBytesNoCopy();
-                int length = bytes.length;
-                int cnt = length;
-                for (int i = 0; i < length; i++) {
-                    byte b = bytes[i];
-                    if (b < 32 || b > 126) {
-                        cnt += 3;
-                    } else if (b == 92) {
-                        cnt++;
-                    }
-                }
-                byte[] data = new byte[cnt];
-                for (int i = 0, j = 0; i < length; i++) {
-                    byte b = bytes[i];
-                    if (b < 32 || b > 126) {
-                        data[j++] = '\\';
-                        data[j++] = (byte) (((b >>> 6) & 3) + '0');
-                        data[j++] = (byte) (((b >>> 3) & 7) + '0');
-                        data[j++] = (byte) ((b & 7) + '0');
-                    } else if (b == 92) {
-                        data[j++] = '\\';
-                        data[j++] = '\\';
-                    } else {
-                        data[j++] = b;
-                    }
-                }
-                writeInt(data.length);
-                write(data);
-                break;
-            }
-            case PgServer.PG_TYPE_INT2_ARRAY:
-            case PgServer.PG_TYPE_INT4_ARRAY:
-            case PgServer.PG_TYPE_VARCHAR_ARRAY:
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                baos.write('{');
-                Value[] values = ((ValueArray) v).getList();
-                Charset encoding = getEncoding();
-                for (int i = 0; i < values.length; i++) {
-                    if (i > 0) {
-                        baos.write(',');
-                    }
-                    String s = values[i].getString();
-                    if (SHOULD_QUOTE.matcher(s).matches()) {
-                        List<String> ss = new ArrayList<>();
-                        for (String s0 : s.split("\\\\")) {
-                            ss.add(s0.replace("\"", "\\\""));
-                        }
-                        s = "\"" + String.join("\\\\", ss) + "\"";
-                    }
-                    baos.write(s.getBytes(encoding));
-                }
-                baos.write('}');
-                writeInt(baos.size());
-                write(baos);
-                break;
-            default:
-                byte[] data = v.getString().getBytes(getEncoding());
-                writeInt(data.length);
-                write(data);
-            }
+            byte[] data = getTextValue(v, pgType).getBytes(getEncoding());
+            writeInt(data.length);
+            write(data);
         } else {
             // binary
             switch (pgType) {
@@ -742,6 +979,178 @@ private void writeDataColumn(Value v, int pgType, boolean text) throws IOExcepti
         }
     }
 
+    /**
+     * Returns the text representation of a value.
+     *
+     * @param v the value, not NULL
+     * @param pgType the PostgreSQL type
+     * @return the text representation
+     */
+    private static String getTextValue(Value v, int pgType) {
+        switch (pgType) {
+        case PgServer.PG_TYPE_BOOL:
+            return v.getBoolean() ? "t" : "f";
+        case PgServer.PG_TYPE_BYTEA: {
+            byte[] bytes = v.getBytesNoCopy();
+            int length = bytes.length;
+            StringBuilder builder = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                byte b = bytes[i];
+                if (b < 32 || b > 126) {
+                    builder.append('\\') //
+                            .append((char) (((b >>> 6) & 3) + '0')) //
+                            .append((char) (((b >>> 3) & 7) + '0')) //
+                            .append((char) ((b & 7) + '0'));
+                } else if (b == 92) {
+                    builder.append("\\\\");
+                } else {
+                    builder.append((char) b);
+                }
+            }
+            return builder.toString();
+        }
+        case PgServer.PG_TYPE_INT2_ARRAY:
+        case PgServer.PG_TYPE_INT4_ARRAY:
+        case PgServer.PG_TYPE_VARCHAR_ARRAY: {
+            StringBuilder builder = new StringBuilder().append('{');
+            Value[] values = ((ValueArray) v).getList();
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                String s = values[i].getString();
+                if (s == null) {
+                    s = "NULL";
+                } else if (s.isEmpty() || SHOULD_QUOTE.matcher(s).matches() || "NULL".equalsIgnoreCase(s)) {
+                    List<String> ss = new ArrayList<>();
+                    for (String s0 : s.split("\\\\")) {
+                        ss.add(s0.replace("\"", "\\\""));
+                    }
+                    s = "\"" + String.join("\\\\", ss) + "\"";
+                }
+                builder.append(s);
+            }
+            return builder.append('}').toString();
+        }
+        default:
+            return v.getString();
+        }
+    }
+
+    /**
+     * Parses the text representation of a value.
+     *
+     * @param s the text representation, not NULL
+     * @param pgType the PostgreSQL type
+     * @return the value
+     */
+    private Value parseTextValue(String s, int pgType) {
+        switch (pgType) {
+        case PgServer.PG_TYPE_BYTEA:
+            return ValueVarbinary.getNoCopy(parseBytea(s));
+        case PgServer.PG_TYPE_INT2_ARRAY:
+        case PgServer.PG_TYPE_INT4_ARRAY:
+        case PgServer.PG_TYPE_VARCHAR_ARRAY:
+            return parseArray(s);
+        default:
+            return ValueVarchar.get(s, session);
+        }
+    }
+
+    /**
+     * Parses a BYTEA value in the hex or in the escape format.
+     *
+     * @param s the text representation
+     * @return the bytes
+     */
+    private static byte[] parseBytea(String s) {
+        if (s.startsWith("\\x")) {
+            return StringUtils.convertHexToBytes(s.substring(2));
+        }
+        int length = s.length();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < length && s.charAt(i + 1) == '\\') {
+                    i++;
+                } else if (i + 3 < length && isOctalDigit(s.charAt(i + 1)) && isOctalDigit(s.charAt(i + 2))
+                        && isOctalDigit(s.charAt(i + 3))) {
+                    c = (char) (((s.charAt(i + 1) - '0') << 6) + ((s.charAt(i + 2) - '0') << 3)
+                            + s.charAt(i + 3) - '0');
+                    i += 3;
+                } else {
+                    throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, s);
+                }
+            }
+            out.write(c);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isOctalDigit(char c) {
+        return c >= '0' && c <= '7';
+    }
+
+    /**
+     * Parses a one-dimensional array. Elements are returned as character
+     * strings and converted to the type of the column on insertion.
+     *
+     * @param s the text representation
+     * @return the array
+     */
+    private ValueArray parseArray(String s) {
+        int length = s.length();
+        if (length < 2 || s.charAt(0) != '{' || s.charAt(length - 1) != '}') {
+            throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, s);
+        }
+        ArrayList<Value> list = new ArrayList<>();
+        if (!s.substring(1, length - 1).trim().isEmpty()) {
+            StringBuilder builder = new StringBuilder();
+            try {
+                for (int i = 1;;) {
+                    while (Character.isWhitespace(s.charAt(i))) {
+                        i++;
+                    }
+                    builder.setLength(0);
+                    boolean quoted = s.charAt(i) == '"';
+                    if (quoted) {
+                        for (char c; (c = s.charAt(++i)) != '"';) {
+                            builder.append(c == '\\' ? s.charAt(++i) : c);
+                        }
+                        i++;
+                    } else {
+                        for (char c; (c = s.charAt(i)) != ',' && c != '}'; i++) {
+                            if (c == '{' || c == '"') {
+                                // nested arrays aren't supported
+                                throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, s);
+                            }
+                            builder.append(c == '\\' ? s.charAt(++i) : c);
+                        }
+                    }
+                    while (Character.isWhitespace(s.charAt(i))) {
+                        i++;
+                    }
+                    String v = quoted ? builder.toString() : builder.toString().trim();
+                    list.add(!quoted && "NULL".equalsIgnoreCase(v) ? ValueNull.INSTANCE
+                            : ValueVarchar.get(v, session));
+                    char c = s.charAt(i++);
+                    if (c == '}') {
+                        if (i != length) {
+                            throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, s);
+                        }
+                        break;
+                    } else if (c != ',') {
+                        throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, s);
+                    }
+                }
+            } catch (IndexOutOfBoundsException e) {
+                throw DbException.get(ErrorCode.DATA_CONVERSION_ERROR_1, e, s);
+            }
+        }
+        return ValueArray.get(TypeInfo.TYPE_VARCHAR, list.toArray(new Value[0]), session);
+    }
+
     private static final int[] POWERS10 = {1, 10, 100, 1000, 10000};
     private static final int MAX_GROUP_SCALE = 4;
     private static final int MAX_GROUP_SIZE = POWERS10[4];
@@ -880,46 +1289,124 @@ private void setParameter(ArrayList<? extends ParameterInterface> parameters, in
             value = ValueVarchar.get(str, session);
         } else {
             // binary
-            switch (pgType) {
-            case PgServer.PG_TYPE_INT2:
-                checkParamLength(2, paramLen);
-                value = ValueSmallint.get(readShort());
-                break;
-            case PgServer.PG_TYPE_INT4:
-                checkParamLength(4, paramLen);
-                value = ValueInteger.get(readInt());
-                break;
-            case PgServer.PG_TYPE_INT8:
-                checkParamLength(8, paramLen);
-                value = ValueBigint.get(dataIn.readLong());
-                break;
-            case PgServer.PG_TYPE_FLOAT4:
-                checkParamLength(4, paramLen);
-                value = ValueReal.get(dataIn.readFloat());
-                break;
-            case PgServer.PG_TYPE_FLOAT8:
-                checkParamLength(8, paramLen);
-                value = ValueDouble.get(dataIn.readDouble());
-                break;
-            case PgServer.PG_TYPE_BYTEA: {
-                byte[] d = Utils.newBytes(paramLen);
-                readFully(d);
-                value = ValueVarbinary.getNoCopy(d);
-                break;
-            }
-            case PgServer.PG_TYPE_NUMERIC:
-                value = readNumericBinary(paramLen);
-                break;
-            default:
-                server.trace("Binary format for type: "+pgType+" is unsupported");
-                byte[] d = Utils.newBytes(paramLen);
-                readFully(d);
-                value = ValueVarchar.get(new String(d, getEncoding()), session);
-            }
+            value = readBinaryValue(pgType, paramLen);
         }
         parameters.get(i).setValue(value, true);
     }
 
+    /**
+     * Reads a value in the binary format.
+     *
+     * @param pgType the PostgreSQL type
+     * @param paramLen the length of the value
+     * @return the value
+     * @throws IOException on failure
+     */
+    private Value readBinaryValue(int pgType, int paramLen) throws IOException {
+        Value value;
+        switch (pgType) {
+        case PgServer.PG_TYPE_BOOL:
+            checkParamLength(1, paramLen);
+            value = ValueBoolean.get(readByte() != 0);
+            break;
+        case PgServer.PG_TYPE_INT2:
+            checkParamLength(2, paramLen);
+            value = ValueSmallint.get(readShort());
+            break;
+        case PgServer.PG_TYPE_INT4:
+            checkParamLength(4, paramLen);
+            value = ValueInteger.get(readInt());
+            break;
+        case PgServer.PG_TYPE_INT8:
+            checkParamLength(8, paramLen);
+            value = ValueBigint.get(dataIn.readLong());
+            break;
+        case PgServer.PG_TYPE_FLOAT4:
+            checkParamLength(4, paramLen);
+            value = ValueReal.get(dataIn.readFloat());
+            break;
+        case PgServer.PG_TYPE_FLOAT8:
+            checkParamLength(8, paramLen);
+            value = ValueDouble.get(dataIn.readDouble());
+            break;
+        case PgServer.PG_TYPE_BYTEA: {
+            byte[] d = Utils.newBytes(paramLen);
+            readFully(d);
+            value = ValueVarbinary.getNoCopy(d);
+            break;
+        }
+        case PgServer.PG_TYPE_NUMERIC:
+            value = readNumericBinary(paramLen);
+            break;
+        case PgServer.PG_TYPE_DATE:
+            checkParamLength(4, paramLen);
+            value = ValueDate.fromDateValue(DateTimeUtils.dateValueFromAbsoluteDay(readInt() + 10_957L));
+            break;
+        case PgServer.PG_TYPE_TIME:
+            checkParamLength(8, paramLen);
+            value = ValueTime.fromNanos(readTimeBinary());
+            break;
+        case PgServer.PG_TYPE_TIMETZ: {
+            checkParamLength(12, paramLen);
+            long nanos = readTimeBinary();
+            value = ValueTimeTimeZone.fromNanos(nanos, -readInt());
+            break;
+        }
+        case PgServer.PG_TYPE_TIMESTAMP:
+        case PgServer.PG_TYPE_TIMESTAMPTZ:
+            checkParamLength(8, paramLen);
+            value = readTimestampBinary(pgType == PgServer.PG_TYPE_TIMESTAMPTZ);
+            break;
+        case PgServer.PG_TYPE_VARCHAR:
+        case PgServer.PG_TYPE_BPCHAR:
+        case PgServer.PG_TYPE_TEXT: {
+            // the binary format of strings is the same as the text one
+            byte[] d = Utils.newBytes(paramLen);
+            readFully(d);
+            value = ValueVarchar.get(new String(d, getEncoding()), session);
+            break;
+        }
+        default:
+            server.trace("Binary format for type: "+pgType+" is unsupported");
+            byte[] d = Utils.newBytes(paramLen);
+            readFully(d);
+            value = ValueVarchar.get(new String(d, getEncoding()), session);
+        }
+        return value;
+    }
+
+    private long readTimeBinary() throws IOException {
+        if (INTEGER_DATE_TYPES) {
+            // long format
+            return dataIn.readLong() * 1_000;
+        }
+        // double format
+        return Math.round(dataIn.readDouble() * 1_000_000_000d);
+    }
+
+    private Value readTimestampBinary(boolean withTimeZone) throws IOException {
+        long seconds, nanos;
+        if (INTEGER_DATE_TYPES) {
+            // long format
+            long m = dataIn.readLong();
+            seconds = Math.floorDiv(m, 1_000_000L);
+            nanos = Math.floorMod(m, 1_000_000L) * 1_000;
+        } else {
+            // double format
+            double m = dataIn.readDouble();
+            seconds = (long) Math.floor(m);
+            nanos = Math.round((m - seconds) * 1_000_000_000d);
+        }
+        nanos += Math.floorMod(seconds, 86_400L) * 1_000_000_000L;
+        long dateValue = DateTimeUtils.dateValueFromAbsoluteDay(Math.floorDiv(seconds, 86_400L) + 10_957L);
+        if (nanos >= DateTimeUtils.NANOS_PER_DAY) {
+            nanos -= DateTimeUtils.NANOS_PER_DAY;
+            dateValue = DateTimeUtils.incrementDateValue(dateValue);
+        }
+        return withTimeZone ? ValueTimestampTimeZone.fromDateValueAndNanos(dateValue, nanos, 0)
+                : ValueTimestamp.fromDateValueAndNanos(dateValue, nanos);
+    }
+
     private static void checkParamLength(int expected, int got) {
         if (expected != got) {
             throw DbException.getInvalidValueException("paramLen", got);
@@ -1189,6 +1676,7 @@ private void sendAuthenticationCleartextPassword() throws IOException {
         startMessage('R');
         writeInt(3);
         sendMessage();
+        out.flush();
     }
 
     private void sendAuthenticationOk() throws IOException {
@@ -1214,6 +1702,8 @@ private void sendReadyForQuery() throws IOException {
         startMessage('Z');
         write((byte) (session.getAutoCommit() ? /* idle */ 'I' : /* in a transaction block */ 'T'));
         sendMessage();
+        // the client waits for this message
+        out.flush();
     }
 
     private void sendBackendKeyData() throws IOException {
@@ -1268,7 +1758,6 @@ private void sendMessage() throws IOException {
         write(messageType);
         writeInt(outBuffer.size() + 4);
         write(outBuffer);
-        dataOut.flush();
     }
 
     private void sendParameterStatus(String param, String value)
@@ -1309,6 +1798,97 @@ private synchronized void cancelRequest() {
         }
     }
 
+    /**
+     * The data of the COPY FROM STDIN sub-protocol. The stream reads CopyData
+     * messages and ends at CopyDone.
+     */
+    private final class CopyInputStream extends InputStream {
+
+        private byte[] data = Utils.EMPTY_BYTES;
+
+        private int pos;
+
+        /**
+         * Whether CopyDone or CopyFail was received.
+         */
+        boolean done;
+
+        CopyInputStream() {
+        }
+
+        @Override
+        public int read() throws IOException {
+            return pos < data.length || nextMessage() ? data[pos++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (pos == data.length && !nextMessage()) {
+                return -1;
+            }
+            len = Math.min(len, data.length - pos);
+            System.arraycopy(data, pos, b, off, len);
+            pos += len;
+            return len;
+        }
+
+        /**
+         * Skips the remaining data up to CopyDone or CopyFail.
+         *
+         * @throws IOException on failure
+         */
+        void skipRemaining() throws IOException {
+            try {
+                while (nextMessage()) {
+                    pos = data.length;
+                }
+            } catch (DbException e) {
+                // CopyFail
+            }
+        }
+
+        private boolean nextMessage() throws IOException {
+            while (!done) {
+                int x = dataInRaw.read();
+                if (x < 0) {
+                    throw new EOFException();
+                }
+                int len = dataInRaw.readInt() - 4;
+                byte[] d = Utils.newBytes(len);
+                dataInRaw.readFully(d);
+                switch (x) {
+                case 'd':
+                    data = d;
+                    pos = 0;
+                    if (len > 0) {
+                        return true;
+                    }
+                    break;
+                case 'c':
+                    done = true;
+                    break;
+                case 'f':
+                    done = true;
+                    throw DbException.get(ErrorCode.GENERAL_ERROR_1,
+                            "COPY from stdin failed: " + new String(d, 0, Math.max(len - 1, 0), getEncoding()));
+                case 'H':
+                case 'S':
+                    // Flush and Sync are ignored during COPY
+                    break;
+                default:
+                    done = true;
+                    throw DbException.get(ErrorCode.GENERAL_ERROR_1,
+                            "unexpected message type " + x + " during COPY from stdin");
+                }
+            }
+            return false;
+        }
+
+    }
+
     /**
      * Represents a PostgreSQL Prepared object.
      */
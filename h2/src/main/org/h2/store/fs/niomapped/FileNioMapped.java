@@ -5,101 +5,133 @@
  */
 package org.h2.store.fs.niomapped;
 
-import java.io.EOFException;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
-import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.NonWritableChannelException;
 import java.nio.file.Paths;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.h2.engine.SysProperties;
 import org.h2.store.fs.FileBaseDefault;
 import org.h2.store.fs.FileUtils;
 import org.h2.util.MemoryUnmapper;
 
 /**
- * Uses memory mapped files.
- * The file size is limited to 2 GB.
+ * Uses memory mapped files. The file is mapped in segments of fixed size, so
+ * files larger than 2 GB are supported. Reads and writes of mapped segments
+ * hold a shared lock, segments are unmapped only under the exclusive lock.
+ * Writes and changes of the file length are also synchronized.
  */
 class FileNioMapped extends FileBaseDefault {
 
     private static final int GC_TIMEOUT_MS = 10_000;
+    private static final MappedByteBuffer[] EMPTY = new MappedByteBuffer[0];
     private final String name;
     private final MapMode mode;
+    private final int segmentShift;
+    private final int segmentMask;
     private FileChannel channel;
-    private MappedByteBuffer mapped;
-    private long fileLength;
 
-    FileNioMapped(String fileName, String mode) throws IOException {
+    /**
+     * The mapped segments. All segments except the last one have the size
+     * <code>1 &lt;&lt; segmentShift</code>. The array is never modified, a new
+     * array is published when the file length changes.
+     */
+    private volatile MappedByteBuffer[] segments;
+
+    /**
+     * The lock that protects mapped segments from unmapping while they are
+     * accessed.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    FileNioMapped(String fileName, String mode, int segmentShift) throws IOException {
         if ("r".equals(mode)) {
             this.mode = MapMode.READ_ONLY;
         } else {
             this.mode = MapMode.READ_WRITE;
         }
         this.name = fileName;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1 << segmentShift) - 1;
         channel = FileChannel.open(Paths.get(fileName), FileUtils.modeToOptions(mode), FileUtils.NO_ATTRIBUTES);
-        reMap();
+        segments = map(EMPTY, channel.size());
     }
 
     private void unMap() throws IOException {
-        if (mapped == null) {
-            return;
+        MappedByteBuffer[] old;
+        lock.writeLock().lock();
+        try {
+            old = segments;
+            segments = EMPTY;
+        } finally {
+            lock.writeLock().unlock();
         }
         // first write all data
-        mapped.force();
+        for (MappedByteBuffer mapped : old) {
+            mapped.force();
+        }
 
         // need to dispose old direct buffer, see bug
         // https://bugs.openjdk.java.net/browse/JDK-4724038
 
-        if (SysProperties.NIO_CLEANER_HACK) {
-            if (MemoryUnmapper.unmap(mapped)) {
-                mapped = null;
-                return;
+        WeakReference<?>[] refs = new WeakReference<?>[old.length];
+        for (int i = 0; i < old.length; i++) {
+            if (!SysProperties.NIO_CLEANER_HACK || !MemoryUnmapper.unmap(old[i])) {
+                refs[i] = new WeakReference<>(old[i]);
             }
+            old[i] = null;
         }
-        WeakReference<MappedByteBuffer> bufferWeakRef = new WeakReference<>(mapped);
-        mapped = null;
         long stopAt = System.nanoTime() + GC_TIMEOUT_MS * 1_000_000L;
-        while (bufferWeakRef.get() != null) {
-            if (System.nanoTime() - stopAt > 0L) {
-                throw new IOException("Timeout (" + GC_TIMEOUT_MS + " ms) reached while trying to GC mapped buffer");
+        for (WeakReference<?> ref : refs) {
+            while (ref != null && ref.get() != null) {
+                if (System.nanoTime() - stopAt > 0L) {
+                    throw new IOException("Timeout (" + GC_TIMEOUT_MS + " ms) reached while trying to GC mapped buffer");
+                }
+                System.gc();
+                Thread.yield();
             }
-            System.gc();
-            Thread.yield();
         }
     }
 
     /**
-     * Re-map byte buffer into memory, called when file size has changed or file
-     * was created.
+     * Map the segments of a file with the specified length, reusing the
+     * existing full segments.
+     *
+     * @param old the current segments
+     * @param length the file length
+     * @return the new segments
      */
-    private void reMap() throws IOException {
-        if (mapped != null) {
-            unMap();
-        }
-        fileLength = channel.size();
-        checkFileSizeLimit(fileLength);
-        // maps new MappedByteBuffer; the old one is disposed during GC
-        mapped = channel.map(mode, 0, fileLength);
-        int limit = mapped.limit();
-        int capacity = mapped.capacity();
-        if (limit < fileLength || capacity < fileLength) {
-            throw new IOException("Unable to map: length=" + limit +
-                    " capacity=" + capacity + " length=" + fileLength);
-        }
-        if (SysProperties.NIO_LOAD_MAPPED) {
-            mapped.load();
+    private MappedByteBuffer[] map(MappedByteBuffer[] old, long length) throws IOException {
+        long segmentSize = 1L << segmentShift;
+        int count = (int) ((length + segmentSize - 1) >>> segmentShift);
+        MappedByteBuffer[] result = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = (long) i << segmentShift;
+            int size = (int) Math.min(segmentSize, length - start);
+            if (i < old.length && old[i].capacity() == size) {
+                result[i] = old[i];
+                continue;
+            }
+            MappedByteBuffer mapped = channel.map(mode, start, size);
+            if (mapped.limit() < size || mapped.capacity() < size) {
+                throw new IOException("Unable to map: length=" + mapped.limit() +
+                        " capacity=" + mapped.capacity() + " length=" + size);
+            }
+            if (SysProperties.NIO_LOAD_MAPPED) {
+                mapped.load();
+            }
+            result[i] = mapped;
         }
+        return result;
     }
 
-    private static void checkFileSizeLimit(long length) throws IOException {
-        if (length > Integer.MAX_VALUE) {
-            throw new IOException(
-                    "File over 2GB is not supported yet when using this file system");
-        }
+    private long getLength(MappedByteBuffer[] segments) {
+        int count = segments.length;
+        return count == 0 ? 0L : ((long) (count - 1) << segmentShift) + segments[count - 1].capacity();
     }
 
     @Override
@@ -117,32 +149,39 @@ public String toString() {
     }
 
     @Override
-    public synchronized long size() throws IOException {
-        return fileLength;
+    public long size() throws IOException {
+        return getLength(segments);
     }
 
     @Override
-    public synchronized int read(ByteBuffer dst, long pos) throws IOException {
-        checkFileSizeLimit(pos);
+    public int read(ByteBuffer dst, long pos) throws IOException {
+        if (pos < 0) {
+            throw new IllegalArgumentException("Negative position");
+        }
+        int len = dst.remaining();
+        if (len == 0) {
+            return 0;
+        }
+        lock.readLock().lock();
         try {
-            int len = dst.remaining();
-            if (len == 0) {
-                return 0;
-            }
-            len = (int) Math.min(len, fileLength - pos);
+            MappedByteBuffer[] segments = this.segments;
+            len = (int) Math.min(len, getLength(segments) - pos);
             if (len <= 0) {
                 return -1;
             }
-            mapped.position((int)pos);
-            mapped.get(dst.array(), dst.arrayOffset() + dst.position(), len);
-            dst.position(dst.position() + len);
-            pos += len;
-            return len;
-        } catch (IllegalArgumentException | BufferUnderflowException e) {
-            EOFException e2 = new EOFException("EOF");
-            e2.initCause(e);
-            throw e2;
+            for (int remaining = len; remaining > 0;) {
+                ByteBuffer segment = segments[(int) (pos >>> segmentShift)].duplicate();
+                int offset = (int) pos & segmentMask;
+                int l = Math.min(remaining, segment.capacity() - offset);
+                segment.limit(offset + l).position(offset);
+                dst.put(segment);
+                pos += l;
+                remaining -= l;
+            }
+        } finally {
+            lock.readLock().unlock();
         }
+        return len;
     }
 
     @Override
@@ -160,43 +199,92 @@ public synchronized void setFileLength(long newLength) throws IOException {
         if (mode == MapMode.READ_ONLY) {
             throw new NonWritableChannelException();
         }
-        checkFileSizeLimit(newLength);
-        unMap();
-        for (int i = 0;; i++) {
-            try {
-                long length = channel.size();
-                if (length >= newLength) {
-                    channel.truncate(newLength);
-                } else {
-                    channel.write(ByteBuffer.wrap(new byte[1]), newLength - 1);
+        long length = size();
+        if (newLength > length) {
+            channel.write(ByteBuffer.wrap(new byte[1]), newLength - 1);
+        }
+        MappedByteBuffer[] old = segments;
+        MappedByteBuffer[] result = map(old, newLength);
+        lock.writeLock().lock();
+        try {
+            segments = result;
+            // nobody can access superseded mappings any more
+            for (int i = 0; i < old.length; i++) {
+                if (i >= result.length || result[i] != old[i]) {
+                    release(old[i]);
                 }
-                break;
-            } catch (IOException e) {
-                if (i > 16 || !e.toString().contains("user-mapped section open")) {
-                    throw e;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (newLength < length) {
+            for (int i = 0;; i++) {
+                try {
+                    channel.truncate(newLength);
+                    break;
+                } catch (IOException e) {
+                    if (i > 16 || !e.toString().contains("user-mapped section open")) {
+                        throw e;
+                    }
                 }
+                System.gc();
             }
-            System.gc();
         }
-        reMap();
+    }
+
+    /**
+     * Release a mapping that is no longer used. If unmapping isn't possible,
+     * the mapping is disposed during GC.
+     *
+     * @param mapped the mapping
+     */
+    private static void release(MappedByteBuffer mapped) {
+        if (SysProperties.NIO_CLEANER_HACK) {
+            MemoryUnmapper.unmap(mapped);
+        }
     }
 
     @Override
     public void force(boolean metaData) throws IOException {
-        mapped.force();
+        lock.readLock().lock();
+        try {
+            for (MappedByteBuffer mapped : segments) {
+                mapped.force();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
         channel.force(metaData);
     }
 
     @Override
     public synchronized int write(ByteBuffer src, long position) throws IOException {
-        checkFileSizeLimit(position);
+        if (position < 0) {
+            throw new IllegalArgumentException("Negative position");
+        }
         int len = src.remaining();
         // check if need to expand file
-        if (mapped.capacity() < position + len) {
+        if (getLength(segments) < position + len) {
             setFileLength(position + len);
         }
-        mapped.position((int)position);
-        mapped.put(src);
+        lock.readLock().lock();
+        try {
+            MappedByteBuffer[] segments = this.segments;
+            int limit = src.limit();
+            for (int remaining = len; remaining > 0;) {
+                ByteBuffer segment = segments[(int) (position >>> segmentShift)].duplicate();
+                int offset = (int) position & segmentMask;
+                int l = Math.min(remaining, segment.capacity() - offset);
+                src.limit(src.position() + l);
+                segment.position(offset);
+                segment.put(src);
+                position += l;
+                remaining -= l;
+            }
+            src.limit(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
         return len;
     }
 
@@ -206,4 +294,4 @@ public synchronized FileLock tryLock(long position, long size,
         return channel.tryLock(position, size, shared);
     }
 
-}
\ No newline at end of file
+}
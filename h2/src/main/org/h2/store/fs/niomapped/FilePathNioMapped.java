@@ -7,17 +7,40 @@
 
 import java.io.IOException;
 import java.nio.channels.FileChannel;
+import org.h2.message.DbException;
+import org.h2.store.fs.FilePath;
 import org.h2.store.fs.FilePathWrapper;
 
 /**
  * This file system stores files on disk and uses java.nio to access the files.
- * This class used memory mapped files.
+ * This class used memory mapped files. Files are mapped in segments of 1 GB by
+ * default; a different segment size can be specified as a power of two, for
+ * example <code>nioMapped:20:~/test</code> uses segments of 1 MB.
  */
 public class FilePathNioMapped extends FilePathWrapper {
 
+    /**
+     * The default and maximum segment size shift.
+     */
+    private static final int MAX_SEGMENT_SHIFT = 30;
+
     @Override
     public FileChannel open(String mode) throws IOException {
-        return new FileNioMapped(name.substring(getScheme().length() + 1), mode);
+        String[] parsed = parse(name);
+        int segmentShift = parsed[0] == null ? MAX_SEGMENT_SHIFT
+                : Math.max(Math.min(Integer.decode(parsed[0]), MAX_SEGMENT_SHIFT), 1);
+        return new FileNioMapped(parsed[1], mode, segmentShift);
+    }
+
+    @Override
+    protected String getPrefix() {
+        String segmentShift = parse(name)[0];
+        return segmentShift == null ? getScheme() + ":" : getScheme() + ":" + segmentShift + ":";
+    }
+
+    @Override
+    public FilePath unwrap(String fileName) {
+        return FilePath.get(parse(fileName)[1]);
     }
 
     @Override
@@ -25,4 +48,26 @@ public String getScheme() {
         return "nioMapped";
     }
 
+    /**
+     * Split the file name into segment size shift and base file name.
+     *
+     * @param fileName the file name
+     * @return an array with segment size shift, or {@code null}, and file name
+     */
+    private String[] parse(String fileName) {
+        if (!fileName.startsWith(getScheme())) {
+            throw DbException.getInternalError(fileName + " doesn't start with " + getScheme());
+        }
+        fileName = fileName.substring(getScheme().length() + 1);
+        String segmentShift = null;
+        if (fileName.length() > 0 && Character.isDigit(fileName.charAt(0))) {
+            int idx = fileName.indexOf(':');
+            if (idx > 0) {
+                segmentShift = fileName.substring(0, idx);
+                fileName = fileName.substring(idx + 1);
+            }
+        }
+        return new String[] { segmentShift, fileName };
+    }
+
 }
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2004-2025 H2 Group. Multiple-Licensed under the MPL 2.0,
+ * and the EPL 1.0 (https://h2database.com/html/license.html).
+ * Initial Developer: H2 Group
+ */
+package org.h2.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.h2.util.HasSQL;
+import org.h2.value.DataType;
+import org.h2.value.TypeInfo;
+import org.h2.value.Value;
+import org.h2.value.ValueNull;
+
+/**
+ * The distribution statistics of a column, calculated by the ANALYZE
+ * statement: the most common values with their frequencies, and an equi-depth
+ * histogram of the remaining values.
+ */
+public final class ColumnStatistics {
+
+    /**
+     * The maximum number of most common values.
+     */
+    public static final int MAX_COMMON_VALUES = 20;
+
+    /**
+     * The number of histogram buckets.
+     */
+    public static final int HISTOGRAM_BUCKETS = 20;
+
+    /**
+     * The maximum length of a character string or binary string value that
+     * can be stored in the statistics.
+     */
+    private static final int MAX_VALUE_LENGTH = 128;
+
+    private final long sampleRows;
+
+    private final long nullRows;
+
+    private final long distinctCount;
+
+    private final Value[] commonValues;
+
+    private final long[] commonCounts;
+
+    private final Value[] histogram;
+
+    /**
+     * The fraction of rows that are neither NULL nor one of the most common
+     * values.
+     */
+    private final double otherFraction;
+
+    /**
+     * Creates new column statistics.
+     *
+     * @param sampleRows the number of sampled rows
+     * @param nullRows the number of sampled rows with NULL value
+     * @param distinctCount the estimated number of distinct non-NULL values
+     * @param commonValues the most common values, sorted
+     * @param commonCounts the numbers of sampled rows with the most common
+     *            values
+     * @param histogram the bounds of histogram buckets, sorted
+     */
+    public ColumnStatistics(long sampleRows, long nullRows, long distinctCount, Value[] commonValues,
+            long[] commonCounts, Value[] histogram) {
+        this.sampleRows = sampleRows;
+        this.nullRows = nullRows;
+        this.distinctCount = distinctCount;
+        this.commonValues = commonValues;
+        this.commonCounts = commonCounts;
+        this.histogram = histogram;
+        long others = sampleRows - nullRows;
+        for (long count : commonCounts) {
+            others -= count;
+        }
+        otherFraction = sampleRows > 0 ? Math.max(others, 0) / (double) sampleRows : 0d;
+    }
+
+    /**
+     * Calculates the statistics from the sampled values.
+     *
+     * @param comparator the comparator
+     * @param values the sampled non-NULL values, will be sorted
+     * @param sampleRows the number of sampled rows, including rows with NULL
+     * @param nullRows the number of sampled rows with NULL
+     * @param totalRows the total number of rows in the table
+     * @return the statistics, or {@code null} if they cannot be stored
+     */
+    public static ColumnStatistics calculate(Comparator<Value> comparator, ArrayList<Value> values,
+            long sampleRows, long nullRows, long totalRows) {
+        int size = values.size();
+        values.sort(comparator);
+        // distinct values with their counts, in order
+        ArrayList<Value> distinct = new ArrayList<>();
+        long[] counts = new long[size];
+        long singles = 0;
+        for (int i = 0; i < size;) {
+            Value v = values.get(i);
+            int j = i + 1;
+            while (j < size && comparator.compare(v, values.get(j)) == 0) {
+                j++;
+            }
+            long count = j - i;
+            if (count == 1) {
+                singles++;
+            }
+            counts[distinct.size()] = count;
+            distinct.add(v);
+            i = j;
+        }
+        int d = distinct.size();
+        long distinctCount = d;
+        if (size > 0 && sampleRows < totalRows) {
+            // Haas and Stokes estimator of the number of distinct values
+            long n = size, total = Math.max(totalRows - nullRows * totalRows / sampleRows, n);
+            double e = n * (double) d / (n - singles + singles * (double) n / total);
+            distinctCount = Math.max(d, Math.min((long) e, total));
+        }
+        // values that appear more often than an average value are common
+        int commonCount = 0;
+        boolean[] common = new boolean[d];
+        if (d > 0) {
+            double threshold = Math.max(1.25 * size / d, 2);
+            Integer[] order = new Integer[d];
+            for (int i = 0; i < d; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(counts[b], counts[a]));
+            for (int i = 0; i < d && commonCount < MAX_COMMON_VALUES; i++) {
+                int index = order[i];
+                if (counts[index] < threshold) {
+                    break;
+                }
+                common[index] = true;
+                commonCount++;
+            }
+        }
+        Value[] commonValues = new Value[commonCount];
+        long[] commonCounts = new long[commonCount];
+        ArrayList<Value> others = new ArrayList<>(size);
+        for (int i = 0, c = 0, p = 0; i < d; i++) {
+            Value v = distinct.get(i);
+            if (!isStorable(v)) {
+                return null;
+            }
+            long count = counts[i];
+            if (common[i]) {
+                commonValues[c] = v;
+                commonCounts[c++] = count;
+                p += count;
+            } else {
+                for (long j = 0; j < count; j++) {
+                    others.add(values.get(p++));
+                }
+            }
+        }
+        int otherCount = others.size();
+        Value[] histogram;
+        if (otherCount == 0) {
+            histogram = new Value[0];
+        } else {
+            int buckets = Math.min(HISTOGRAM_BUCKETS, otherCount);
+            histogram = new Value[buckets + 1];
+            for (int i = 0; i <= buckets; i++) {
+                histogram[i] = others.get((int) ((otherCount - 1L) * i / buckets));
+            }
+        }
+        return new ColumnStatistics(sampleRows, nullRows, distinctCount, commonValues, commonCounts, histogram);
+    }
+
+    private static boolean isStorable(Value v) {
+        switch (v.getValueType()) {
+        case Value.CHAR:
+        case Value.VARCHAR:
+        case Value.VARCHAR_IGNORECASE:
+            return v.getString().length() <= MAX_VALUE_LENGTH;
+        case Value.BINARY:
+        case Value.VARBINARY:
+            return v.getBytesNoCopy().length <= MAX_VALUE_LENGTH;
+        default:
+            return true;
+        }
+    }
+
+    /**
+     * Check whether statistics can be calculated for a column of the
+     * specified type.
+     *
+     * @param type the data type
+     * @return whether statistics are supported
+     */
+    public static boolean isSupported(TypeInfo type) {
+        int valueType = type.getValueType();
+        if (DataType.isLargeObject(valueType)) {
+            return false;
+        }
+        switch (valueType) {
+        case Value.JAVA_OBJECT:
+        case Value.GEOMETRY:
+        case Value.JSON:
+        case Value.ARRAY:
+        case Value.ROW:
+            return false;
+        default:
+            return true;
+        }
+    }
+
+    /**
+     * Returns the estimated fraction of rows where the column is equal to the
+     * specified value.
+     *
+     * @param comparator the comparator
+     * @param value the value, or {@code null} if it is not known
+     * @param nullSafe whether NULL is equal to NULL
+     * @return the fraction of rows, between 0 and 1
+     */
+    public double getEqualityFraction(Comparator<Value> comparator, Value value, boolean nullSafe) {
+        if (sampleRows <= 0) {
+            return 1d;
+        }
+        if (value == null) {
+            return getAverageEqualityFraction();
+        }
+        if (value == ValueNull.INSTANCE) {
+            return nullSafe ? nullRows / (double) sampleRows : 0d;
+        }
+        int index = Arrays.binarySearch(commonValues, value, comparator);
+        if (index >= 0) {
+            return commonCounts[index] / (double) sampleRows;
+        }
+        long others = distinctCount - commonValues.length;
+        if (others <= 0 || histogram.length == 0 || comparator.compare(value, histogram[0]) < 0
+                || comparator.compare(value, histogram[histogram.length - 1]) > 0) {
+            return Math.min(1d / Math.max(distinctCount, 1), otherFraction);
+        }
+        return otherFraction / others;
+    }
+
+    /**
+     * Returns the estimated fraction of rows where the column is equal to some
+     * unknown value, such as a parameter or a column of another table.
+     *
+     * @return the fraction of rows, between 0 and 1
+     */
+    public double getAverageEqualityFraction() {
+        if (sampleRows <= 0) {
+            return 1d;
+        }
+        return (sampleRows - nullRows) / (double) sampleRows / Math.max(distinctCount, 1);
+    }
+
+    /**
+     * Returns the estimated fraction of rows where the column is within the
+     * specified range.
+     *
+     * @param comparator the comparator
+     * @param from the lower bound, or {@code null}
+     * @param to the upper bound, or {@code null}
+     * @return the fraction of rows, between 0 and 1
+     */
+    public double getRangeFraction(Comparator<Value> comparator, Value from, Value to) {
+        if (sampleRows <= 0) {
+            return 1d;
+        }
+        double fraction = otherFraction * (getPosition(comparator, to, 1d) - getPosition(comparator, from, 0d));
+        for (int i = 0, l = commonValues.length; i < l; i++) {
+            Value v = commonValues[i];
+            if ((from == null || comparator.compare(v, from) >= 0) && (to == null || comparator.compare(v, to) <= 0)) {
+                fraction += commonCounts[i] / (double) sampleRows;
+            }
+        }
+        return Math.max(Math.min(fraction, 1d), 0d);
+    }
+
+    /**
+     * Returns the fraction of histogram values below the specified value.
+     */
+    private double getPosition(Comparator<Value> comparator, Value value, double ifNull) {
+        if (value == null) {
+            return ifNull;
+        }
+        int buckets = histogram.length - 1;
+        if (buckets < 0 || comparator.compare(value, histogram[0]) < 0) {
+            return 0d;
+        }
+        if (comparator.compare(value, histogram[buckets]) >= 0) {
+            return 1d;
+        }
+        int index = Arrays.binarySearch(histogram, value, comparator);
+        if (index >= 0) {
+            // the first bucket that starts with this value
+            while (index > 0 && comparator.compare(value, histogram[index - 1]) == 0) {
+                index--;
+            }
+            return index / (double) buckets;
+        }
+        int bucket = -index - 2;
+        double offset = 0.5d;
+        Value low = histogram[bucket], high = histogram[bucket + 1];
+        if (DataType.isNumericType(value.getValueType()) && DataType.isNumericType(low.getValueType())
+                && DataType.isNumericType(high.getValueType())) {
+            double l = low.getDouble(), h = high.getDouble();
+            if (h > l) {
+                offset = (value.getDouble() - l) / (h - l);
+            }
+        }
+        return (bucket + offset) / buckets;
+    }
+
+    /**
+     * Appends the SQL representation of these statistics.
+     *
+     * @param builder string builder
+     * @return the specified string builder
+     */
+    public StringBuilder getSQL(StringBuilder builder) {
+        builder.append('(').append(sampleRows).append(", ").append(nullRows).append(", ").append(distinctCount);
+        getSQL(builder.append(", "), commonValues).append(", ARRAY [");
+        for (int i = 0, l = commonCounts.length; i < l; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(commonCounts[i]);
+        }
+        return getSQL(builder.append("], "), histogram).append(')');
+    }
+
+    private static StringBuilder getSQL(StringBuilder builder, Value[] values) {
+        builder.append("ARRAY [");
+        for (int i = 0, l = values.length; i < l; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            values[i].getSQL(builder, HasSQL.DEFAULT_SQL_FLAGS);
+        }
+        return builder.append(']');
+    }
+
+}
@@ -48,7 +48,7 @@ public long getRowCountApproximation(SessionLocal session) {
 
     @Override
     public ResultInterface getResult(SessionLocal session) {
-        return function.getValue(session);
+        return function.getLazyValue(session);
     }
 
     @Override
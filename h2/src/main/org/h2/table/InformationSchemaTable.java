@@ -37,6 +37,7 @@
 import org.h2.index.Index;
 import org.h2.index.IndexType;
 import org.h2.index.MetaIndex;
+import org.h2.index.SpatialIndex;
 import org.h2.message.DbException;
 import org.h2.result.Row;
 import org.h2.result.SearchRow;
@@ -716,6 +717,7 @@ public InformationSchemaTable(Schema schema, int id, int type) {
                     column("IS_GENERATED", TypeInfo.TYPE_BOOLEAN), //
                     column("REMARKS"), //
                     column("INDEX_CLASS"), //
+                    column("SPATIAL_NODE_OVERLAP", TypeInfo.TYPE_DOUBLE), //
             };
             indexColumnName = "TABLE_NAME";
             break;
@@ -771,6 +773,9 @@ public InformationSchemaTable(Schema schema, int id, int type) {
                     column("CUMULATIVE_ROW_COUNT", TypeInfo.TYPE_BIGINT), //
                     column("AVERAGE_ROW_COUNT", TypeInfo.TYPE_DOUBLE), //
                     column("STD_DEV_ROW_COUNT", TypeInfo.TYPE_DOUBLE), //
+                    column("P50_EXECUTION_TIME", TypeInfo.TYPE_DOUBLE), //
+                    column("P95_EXECUTION_TIME", TypeInfo.TYPE_DOUBLE), //
+                    column("P99_EXECUTION_TIME", TypeInfo.TYPE_DOUBLE), //
             };
             break;
         case RIGHTS:
@@ -2461,6 +2466,7 @@ private void indexes(SessionLocal session, ArrayList<Row> rows, String catalog,
 
     private void indexes(SessionLocal session, ArrayList<Row> rows, String catalog, Table table, Index index) {
         IndexType indexType = index.getIndexType();
+        double overlap = index instanceof SpatialIndex ? ((SpatialIndex) index).getNodeOverlap() : -1d;
         add(session, rows,
                 // INDEX_CATALOG
                 catalog,
@@ -2483,7 +2489,9 @@ private void indexes(SessionLocal session, ArrayList<Row> rows, String catalog,
                 // REMARKS
                 index.getComment(),
                 // INDEX_CLASS
-                index.getClass().getName()
+                index.getClass().getName(),
+                // SPATIAL_NODE_OVERLAP
+                overlap >= 0d ? ValueDouble.get(overlap) : ValueNull.INSTANCE
             );
     }
 
@@ -2588,7 +2596,13 @@ private void queryStatistics(SessionLocal session, ArrayList<Row> rows) {
                         // AVERAGE_ROW_COUNT
                         ValueDouble.get(entry.rowCountMean),
                         // STD_DEV_ROW_COUNT
-                        ValueDouble.get(entry.getRowCountStandardDeviation())
+                        ValueDouble.get(entry.getRowCountStandardDeviation()),
+                        // P50_EXECUTION_TIME
+                        ValueDouble.get(entry.executionTimeP50Nanos / 1_000_000d),
+                        // P95_EXECUTION_TIME
+                        ValueDouble.get(entry.executionTimeP95Nanos / 1_000_000d),
+                        // P99_EXECUTION_TIME
+                        ValueDouble.get(entry.executionTimeP99Nanos / 1_000_000d)
                 );
             }
         }
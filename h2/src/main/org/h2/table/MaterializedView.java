@@ -5,20 +5,34 @@
  */
 package org.h2.table;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.TreeSet;
 
 import org.h2.command.query.AllColumnsForPlan;
 import org.h2.command.query.Query;
+import org.h2.command.query.Select;
 import org.h2.engine.DbObject;
 import org.h2.engine.SessionLocal;
+import org.h2.expression.ArrayConstructorByQuery;
+import org.h2.expression.Expression;
+import org.h2.expression.ExpressionColumn;
+import org.h2.expression.ExpressionVisitor;
+import org.h2.expression.Subquery;
+import org.h2.expression.condition.ConditionInQuery;
+import org.h2.expression.condition.ExistsPredicate;
+import org.h2.expression.condition.UniquePredicate;
 import org.h2.index.Index;
 import org.h2.index.IndexType;
 import org.h2.message.DbException;
 import org.h2.result.Row;
+import org.h2.result.SearchRow;
 import org.h2.result.SortOrder;
 import org.h2.schema.Schema;
 import org.h2.util.StringUtils;
+import org.h2.value.Value;
+import org.h2.value.ValueRow;
 
 /**
  * A materialized view.
@@ -29,17 +43,276 @@ public class MaterializedView extends Table {
     private String querySQL;
     private Query query;
 
+    /**
+     * Whether this view can be refreshed by recomputation of changed groups
+     * only.
+     */
+    private boolean incremental;
+
+    /**
+     * The table with GROUP BY columns, or {@code null} if there are no such
+     * columns.
+     */
+    private Table groupTable;
+
+    /**
+     * GROUP BY columns of the group table.
+     */
+    private Column[] groupColumns;
+
+    /**
+     * Indexes of GROUP BY columns in the query and in the underlying table.
+     */
+    private int[] groupColumnIndexes;
+
+    /**
+     * The metadata modification id when this view was registered in its base
+     * tables.
+     */
+    private volatile long registrationModificationMetaId;
+
+    /**
+     * Groups changed by committed transactions since the last refresh, or
+     * {@code null} if a full refresh is required.
+     */
+    private TreeSet<ValueRow> changedGroups;
+
     public MaterializedView(Schema schema, int id, String name, Table table, Query query, String querySQL) {
         super(schema, id, name, false, true);
         this.table = table;
         this.query = query;
         this.querySQL = querySQL;
+        initIncrementalRefresh();
     }
 
     public void replace(Table table, Query query, String querySQL) {
         this.table = table;
         this.query = query;
         this.querySQL = querySQL;
+        initIncrementalRefresh();
+    }
+
+    /**
+     * Checks whether this view can be refreshed incrementally. This is
+     * possible for deterministic grouped queries over base tables with inner
+     * joins only, without subqueries, where all GROUP BY expressions are
+     * selected columns of the same table. Changes in that table affect only
+     * the groups of changed rows; changes in other tables require a full
+     * refresh.
+     */
+    private void initIncrementalRefresh() {
+        incremental = false;
+        groupTable = null;
+        groupColumns = null;
+        groupColumnIndexes = null;
+        synchronized (this) {
+            changedGroups = null;
+        }
+        if (!(query instanceof Select)) {
+            return;
+        }
+        Select select = (Select) query;
+        if (!select.isGroupQuery() || select.isWindowQuery() || select.isAnyDistinct()
+                || !select.allowGlobalConditions() || !select.isEverything(ExpressionVisitor.DETERMINISTIC_VISITOR)) {
+            return;
+        }
+        ArrayList<TableFilter> filters = new ArrayList<>();
+        select.getTopTableFilter().visit(filters::add);
+        HashSet<Table> tables = new HashSet<>();
+        for (TableFilter f : filters) {
+            Table t = f.getTable();
+            if (f.isJoinOuter() || t.getTableType() != TableType.TABLE || !tables.add(t)
+                    || hasSubqueries(f.getJoinCondition())) {
+                return;
+            }
+        }
+        if (hasSubqueries(select.getCondition())) {
+            return;
+        }
+        for (Expression e : select.getExpressions()) {
+            if (hasSubqueries(e)) {
+                return;
+            }
+        }
+        HashSet<DbObject> dependencies = new HashSet<>();
+        select.collectDependencies(dependencies);
+        for (DbObject dependency : dependencies) {
+            if (dependency instanceof Table && !tables.contains(dependency)) {
+                return;
+            }
+        }
+        int[] groupIndex = select.getGroupIndex();
+        int groupCount = groupIndex != null ? groupIndex.length : 0;
+        Column[] columns = new Column[groupCount];
+        TableFilter groupFilter = null;
+        for (int i = 0; i < groupCount; i++) {
+            int index = groupIndex[i];
+            if (index >= select.getColumnCount()) {
+                return;
+            }
+            Expression e = select.getExpressions().get(index).getNonAliasExpression();
+            if (!(e instanceof ExpressionColumn)) {
+                return;
+            }
+            ExpressionColumn c = (ExpressionColumn) e;
+            TableFilter f = c.getTableFilter();
+            if (groupFilter == null) {
+                groupFilter = f;
+            } else if (groupFilter != f) {
+                return;
+            }
+            columns[i] = c.getColumn();
+        }
+        groupTable = groupFilter != null ? groupFilter.getTable() : null;
+        groupColumns = columns;
+        groupColumnIndexes = groupCount > 0 ? groupIndex.clone() : new int[0];
+        incremental = true;
+    }
+
+    private static boolean hasSubqueries(Expression e) {
+        if (e == null) {
+            return false;
+        }
+        if (e instanceof Subquery || e instanceof ArrayConstructorByQuery || e instanceof ConditionInQuery
+                || e instanceof ExistsPredicate || e instanceof UniquePredicate) {
+            return true;
+        }
+        for (int i = 0, l = e.getSubexpressionCount(); i < l; i++) {
+            if (hasSubqueries(e.getSubexpression(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether this view can be refreshed incrementally.
+     *
+     * @return whether this view can be refreshed incrementally
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Returns indexes of GROUP BY columns in the query and in the underlying
+     * table.
+     *
+     * @return indexes of GROUP BY columns
+     */
+    public int[] getGroupColumnIndexes() {
+        return groupColumnIndexes;
+    }
+
+    /**
+     * Sets the metadata modification id of the database after this view was
+     * registered in its base tables. Transactions started before this moment
+     * may have changes that were not recorded.
+     *
+     * @param registrationModificationMetaId the metadata modification id
+     */
+    public void setRegistrationModificationMetaId(long registrationModificationMetaId) {
+        this.registrationModificationMetaId = registrationModificationMetaId;
+    }
+
+    /**
+     * Returns the metadata modification id of the database after this view
+     * was registered in its base tables.
+     *
+     * @return the metadata modification id
+     */
+    public long getRegistrationModificationMetaId() {
+        return registrationModificationMetaId;
+    }
+
+    /**
+     * Records a changed row of a base table in the current transaction of the
+     * specified session.
+     *
+     * @param session the session
+     * @param baseTable the changed base table
+     * @param oldRow the old row, or {@code null} for an inserted row
+     * @param newRow the new row, or {@code null} for a deleted row; if both
+     *            rows are {@code null} all rows may be changed
+     */
+    public void registerChange(SessionLocal session, Table baseTable, Row oldRow, Row newRow) {
+        if (!incremental) {
+            return;
+        }
+        if (oldRow == null && newRow == null || groupTable != baseTable && groupTable != null) {
+            session.registerMaterializedViewChange(this, null);
+            return;
+        }
+        if (oldRow != null) {
+            session.registerMaterializedViewChange(this, getGroup(oldRow));
+        }
+        if (newRow != null) {
+            session.registerMaterializedViewChange(this, getGroup(newRow));
+        }
+    }
+
+    private ValueRow getGroup(Row row) {
+        Column[] columns = groupColumns;
+        int l = columns.length;
+        Value[] values = new Value[l];
+        for (int i = 0; i < l; i++) {
+            values[i] = row.getValue(columns[i].getColumnId());
+        }
+        return ValueRow.get(values);
+    }
+
+    /**
+     * Returns the group of the specified row of the underlying table.
+     *
+     * @param row the row of the underlying table
+     * @return the group
+     */
+    public ValueRow getGroupOfStoredRow(SearchRow row) {
+        int[] indexes = groupColumnIndexes;
+        int l = indexes.length;
+        Value[] values = new Value[l];
+        for (int i = 0; i < l; i++) {
+            values[i] = row.getValue(indexes[i]);
+        }
+        return ValueRow.get(values);
+    }
+
+    /**
+     * Creates a new empty set of groups.
+     *
+     * @return the new set
+     */
+    public TreeSet<ValueRow> newGroupSet() {
+        return new TreeSet<>((a, b) -> a.compareTo(b, database, database.getCompareMode()));
+    }
+
+    /**
+     * Adds groups changed by a committed transaction.
+     *
+     * @param groups the changed groups, or {@code null} if a full refresh is
+     *            required
+     */
+    public synchronized void addChangedGroups(TreeSet<ValueRow> groups) {
+        if (changedGroups != null) {
+            if (groups == null || changedGroups.size() + groups.size() > database.getMaxMemoryRows()) {
+                changedGroups = null;
+            } else {
+                changedGroups.addAll(groups);
+            }
+        }
+    }
+
+    /**
+     * Returns groups changed since the last refresh and starts a new set of
+     * changes.
+     *
+     * @return the changed groups, or {@code null} if a full refresh is
+     *         required
+     */
+    public synchronized TreeSet<ValueRow> takeChangedGroups() {
+        TreeSet<ValueRow> groups = changedGroups;
+        changedGroups = incremental ? newGroupSet() : null;
+        return groups;
     }
 
     public Table getUnderlyingTable() {
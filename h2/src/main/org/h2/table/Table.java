@@ -570,6 +570,21 @@ public CopyOnWriteArrayList<MaterializedView> getDependentMaterializedViews() {
         return dependentMaterializedViews;
     }
 
+    /**
+     * Records a changed row for incremental refresh of materialized views that
+     * depend on this table.
+     *
+     * @param session the session
+     * @param oldRow the old row, or {@code null} for an inserted row
+     * @param newRow the new row, or {@code null} for a deleted row; if both
+     *            rows are {@code null} all rows may be changed
+     */
+    protected final void registerMaterializedViewChange(SessionLocal session, Row oldRow, Row newRow) {
+        for (MaterializedView view : dependentMaterializedViews) {
+            view.registerChange(session, this, oldRow, newRow);
+        }
+    }
+
     @Override
     public void removeChildrenAndResources(SessionLocal session) {
         while (!dependentViews.isEmpty()) {
@@ -6,6 +6,7 @@
 package org.h2.table;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -20,6 +21,7 @@
 import org.h2.expression.Expression;
 import org.h2.expression.condition.Comparison;
 import org.h2.expression.condition.ConditionAndOr;
+import org.h2.index.HashJoinIndex;
 import org.h2.index.Index;
 import org.h2.index.IndexCondition;
 import org.h2.index.IndexCursor;
@@ -70,6 +72,11 @@ public class TableFilter implements ColumnResolver {
     private final Select select;
     private String alias;
     private Index index;
+
+    /**
+     * The last created hash join index, it can be reused by other plans.
+     */
+    private HashJoinIndex hashJoinIndex;
     private final IndexHints indexHints;
     private int[] masks;
     private int scanCount;
@@ -101,6 +108,12 @@ public class TableFilter implements ColumnResolver {
      */
     private Expression joinCondition;
 
+    /**
+     * The maximum number of rows that the query needs from this filter if all
+     * conditions of the query are checked by the index, or -1.
+     */
+    private long rowLimit = -1L;
+
     private SearchRow currentSearchRow;
     private Row current;
     private int state;
@@ -156,7 +169,7 @@ public TableFilter(SessionLocal session, Table table, String alias,
         this.table = table;
         this.alias = alias;
         this.select = select;
-        this.cursor = new IndexCursor();
+        this.cursor = new IndexCursor(this);
         if (!rightsChecked) {
             session.getUser().checkTableRight(table, Right.SELECT);
         }
@@ -247,6 +260,19 @@ public PlanItem getBestPlanItem(SessionLocal s, TableFilter[] filters, int filte
             }
         }
         PlanItem item = table.getBestPlanItem(s, masks, filters, filter, sortOrder, allColumnsSet, isSelectCommand);
+        if (filter > 0 && masks != null && isSelectCommand && item.getIndex().getIndexType().isScan()
+                && s.getDatabase().getSettings().hashJoin) {
+            HashJoinIndex hashIndex = getHashJoinIndex();
+            if (hashIndex != null
+                    && hashIndex.getCost(s, masks, filters, filter, sortOrder, allColumnsSet, true) < item.cost) {
+                // The cost of the scan is preserved, the hash table is built
+                // only once, but the cost model doesn't have a separate
+                // cost of initialization, and lower costs of lookups make
+                // plans with scans of outer tables more attractive than plans
+                // with lookups in regular indexes.
+                item.setIndex(hashIndex);
+            }
+        }
         item.setMasks(masks);
         // The more index conditions, the earlier the table.
         // This is to ensure joins without indexes run quickly:
@@ -277,6 +303,43 @@ public PlanItem getBestPlanItem(SessionLocal s, TableFilter[] filters, int filte
         return item;
     }
 
+    /**
+     * Returns a hash join index for evaluatable equality conditions on
+     * suitable columns of this table.
+     *
+     * @return the hash join index, or {@code null}
+     */
+    private HashJoinIndex getHashJoinIndex() {
+        TableType tableType = table.getTableType();
+        if (tableType != TableType.TABLE && tableType != TableType.MATERIALIZED_VIEW) {
+            return null;
+        }
+        ArrayList<Column> list = new ArrayList<>();
+        for (IndexCondition condition : indexConditions) {
+            if (condition.getCompareType() != Comparison.EQUAL || condition.isCompoundColumns()
+                    || !condition.isEvaluatable()) {
+                continue;
+            }
+            Column column = condition.getColumn();
+            if (column.getColumnId() < 0
+                    || !HashJoinIndex.isSuitable(table, column, condition.getExpression().getType())) {
+                continue;
+            }
+            if (!list.contains(column)) {
+                list.add(column);
+            }
+        }
+        if (list.isEmpty()) {
+            return null;
+        }
+        Column[] columns = list.toArray(new Column[0]);
+        HashJoinIndex index = hashJoinIndex;
+        if (index == null || !Arrays.equals(index.getColumns(), columns)) {
+            hashJoinIndex = index = new HashJoinIndex(table, IndexColumn.wrap(columns));
+        }
+        return index;
+    }
+
     /**
      * Set what plan item (index, cost, masks) to use.
      *
@@ -408,6 +471,9 @@ public void prepare() {
     public void startQuery(SessionLocal s) {
         this.session = s;
         scanCount = 0;
+        if (index instanceof HashJoinIndex) {
+            ((HashJoinIndex) index).release();
+        }
         if (nestedJoin != null) {
             nestedJoin.startQuery(s);
         }
@@ -416,6 +482,23 @@ public void startQuery(SessionLocal s) {
         }
     }
 
+    /**
+     * End the query. This will release resources used by the query of this and
+     * joined tables.
+     */
+    public void endQuery() {
+        cursor.close();
+        if (index instanceof HashJoinIndex) {
+            ((HashJoinIndex) index).release();
+        }
+        if (nestedJoin != null) {
+            nestedJoin.endQuery();
+        }
+        if (join != null) {
+            join.endQuery();
+        }
+    }
+
     /**
      * Reset to the current position.
      */
@@ -589,6 +672,15 @@ public String getTableAlias() {
         return table.getName();
     }
 
+    /**
+     * Get the index conditions.
+     *
+     * @return the index conditions
+     */
+    public ArrayList<IndexCondition> getIndexConditions() {
+        return indexConditions;
+    }
+
     /**
      * Add an index condition.
      *
@@ -917,6 +1009,27 @@ public Expression getFilterCondition() {
         return filterCondition;
     }
 
+    /**
+     * Sets the maximum number of rows that the query needs from this filter if
+     * all conditions of the query are checked by the index. An index may use
+     * this limit only if it evaluates all these conditions itself.
+     *
+     * @param rowLimit the maximum number of rows, or -1 if not limited
+     */
+    public void setRowLimit(long rowLimit) {
+        this.rowLimit = rowLimit;
+    }
+
+    /**
+     * Returns the maximum number of rows that the query needs from this filter
+     * if all conditions of the query are checked by the index.
+     *
+     * @return the maximum number of rows, or -1 if not limited
+     */
+    public long getRowLimit() {
+        return rowLimit;
+    }
+
     /**
      * Remove the filter condition.
      */
@@ -19,6 +19,8 @@
 
 import org.h2.api.ErrorCode;
 import org.h2.command.Prepared;
+import org.h2.engine.Mode;
+import org.h2.engine.Mode.ModeEnum;
 import org.h2.engine.NullsDistinct;
 import org.h2.engine.SessionLocal;
 import org.h2.index.Index;
@@ -60,6 +62,7 @@ public class TableLink extends Table {
     private LinkedIndex linkedIndex;
     private DbException connectException;
     private String identifierQuoteString;
+    private Mode dialect;
     private boolean globalTemporary;
     private boolean readOnly;
     private int fetchSize = 0;
@@ -118,6 +121,7 @@ private void connect() {
     private void readMetaData() throws SQLException {
         DatabaseMetaData meta = conn.getConnection().getMetaData();
         identifierQuoteString = meta.getIdentifierQuoteString();
+        dialect = getDialect(meta.getDatabaseProductName());
         ArrayList<Column> columnList = Utils.newSmallArrayList();
         HashMap<String, Column> columnMap = new HashMap<>();
         String schema = null;
@@ -211,6 +215,54 @@ private void readMetaData() throws SQLException {
         }
     }
 
+    /**
+     * Returns the compatibility mode that corresponds to the SQL dialect of
+     * the remote database.
+     *
+     * @param productName the name of the database product
+     * @return the compatibility mode, or {@code null} if the database is not
+     *         known
+     */
+    private static Mode getDialect(String productName) {
+        if (productName == null) {
+            return null;
+        }
+        ModeEnum mode;
+        if (productName.startsWith("DB2")) {
+            mode = ModeEnum.DB2;
+        } else {
+            switch (productName) {
+            case "H2":
+                mode = ModeEnum.REGULAR;
+                break;
+            case "Apache Derby":
+                mode = ModeEnum.Derby;
+                break;
+            case "HSQL Database Engine":
+                mode = ModeEnum.HSQLDB;
+                break;
+            case "MariaDB":
+                mode = ModeEnum.MariaDB;
+                break;
+            case "Microsoft SQL Server":
+                mode = ModeEnum.MSSQLServer;
+                break;
+            case "MySQL":
+                mode = ModeEnum.MySQL;
+                break;
+            case "Oracle":
+                mode = ModeEnum.Oracle;
+                break;
+            case "PostgreSQL":
+                mode = ModeEnum.PostgreSQL;
+                break;
+            default:
+                return null;
+            }
+        }
+        return Mode.getInstance(mode.name());
+    }
+
     private void readIndexes(DatabaseMetaData meta, HashMap<String, Column> columnMap) {
         String pkName = null;
         try (ResultSet rs = meta.getPrimaryKeys(null, originalSchema, originalTable)) {
@@ -714,4 +766,16 @@ public String getIdentifierQuoteString() {
         return identifierQuoteString;
     }
 
+    /**
+     * Returns the compatibility mode that corresponds to the SQL dialect of
+     * the remote database. It is used to determine which parts of queries can
+     * be evaluated by the remote database.
+     *
+     * @return the compatibility mode, or {@code null} if the remote database
+     *         is not known
+     */
+    public Mode getDialect() {
+        return dialect;
+    }
+
 }
@@ -8,6 +8,7 @@
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.CharArrayReader;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
@@ -612,6 +613,134 @@ public void reset() throws SQLException {
         throw new SQLException("Method is not supported", "CSV");
     }
 
+    /**
+     * INTERNAL.
+     * Reads characters of the input that were not parsed yet. The input must
+     * be opened with one of the read methods.
+     *
+     * @param chars the destination
+     * @param offset the offset in the destination
+     * @param length the maximum number of characters to read
+     * @return the number of read characters, or -1 at the end of the input
+     * @throws IOException on failure
+     */
+    public int readChars(char[] chars, int offset, int length) throws IOException {
+        if (input == null) {
+            return -1;
+        }
+        int remaining = inputBufferEnd - inputBufferPos;
+        if (remaining > 0) {
+            int n = Math.min(remaining, length);
+            System.arraycopy(inputBuffer, inputBufferPos, chars, offset, n);
+            inputBufferPos += n;
+            return n;
+        }
+        return endOfFile ? -1 : input.read(chars, offset, length);
+    }
+
+    /**
+     * INTERNAL.
+     * Finds the end of the record that starts at the specified position. The
+     * rules are the same as in {@link #readRow()}, an empty line is a separate
+     * record.
+     *
+     * @param chars the characters
+     * @param start the start of the record
+     * @param end the end of available characters
+     * @return the position after the end of the record, or -1 if the record
+     *         does not end before the end of available characters
+     */
+    public int findRecordEnd(char[] chars, int start, int end) {
+        int pos = start;
+        while (pos < end) {
+            char ch = chars[pos++];
+            if (ch == fieldDelimiter) {
+                // delimited value
+                while (true) {
+                    if (pos >= end) {
+                        return -1;
+                    }
+                    ch = chars[pos++];
+                    if (ch == fieldDelimiter) {
+                        if (pos >= end) {
+                            return -1;
+                        }
+                        ch = chars[pos++];
+                        if (ch != fieldDelimiter) {
+                            break;
+                        }
+                    } else if (ch == escapeCharacter) {
+                        pos++;
+                    }
+                }
+                while (true) {
+                    if (ch == fieldSeparatorRead) {
+                        break;
+                    } else if (ch == '\n' || ch == '\r') {
+                        return pos;
+                    } else if (ch == ' ' || ch == '\t') {
+                        if (pos >= end) {
+                            return -1;
+                        }
+                        ch = chars[pos++];
+                    } else {
+                        pos--;
+                        break;
+                    }
+                }
+            } else if (ch == '\n' || ch == '\r') {
+                return pos;
+            } else if (ch == fieldSeparatorRead || ch <= ' ') {
+                // null or ignored spaces
+            } else {
+                // un-delimited value or comment until end of line
+                boolean comment = lineComment != 0 && ch == lineComment;
+                while (true) {
+                    if (pos >= end) {
+                        return -1;
+                    }
+                    ch = chars[pos++];
+                    if (ch == '\n' || ch == '\r') {
+                        return pos;
+                    } else if (ch == fieldSeparatorRead && !comment) {
+                        break;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * INTERNAL.
+     * Parses complete records with the settings and column names of this
+     * object. This method may be invoked concurrently.
+     *
+     * @param chars the characters
+     * @param offset the offset of the first record
+     * @param length the number of characters
+     * @return the rows, {@code null} elements are SQL NULL
+     * @throws SQLException on failure
+     */
+    public ArrayList<String[]> readRows(char[] chars, int offset, int length) throws SQLException {
+        Csv csv = new Csv();
+        csv.escapeCharacter = escapeCharacter;
+        csv.fieldDelimiter = fieldDelimiter;
+        csv.fieldSeparatorRead = fieldSeparatorRead;
+        csv.preserveWhitespace = preserveWhitespace;
+        csv.lineComment = lineComment;
+        csv.nullString = nullString;
+        csv.quotedNulls = quotedNulls;
+        csv.columnNames = columnNames;
+        csv.input = new BufferedReader(new CharArrayReader(chars, offset, length));
+        csv.inputBuffer = new char[Constants.IO_BUFFER_SIZE * 2];
+        ArrayList<String[]> rows = new ArrayList<>();
+        for (Object[] row; (row = csv.readRow()) != null;) {
+            rows.add((String[]) row);
+        }
+        return rows;
+    }
+
     /**
      * Override the field separator for writing. The default is ",".
      *
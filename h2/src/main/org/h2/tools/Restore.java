@@ -10,16 +10,20 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import org.h2.engine.Constants;
 import org.h2.message.DbException;
+import org.h2.mvstore.SingleFileStore;
 import org.h2.store.fs.FileUtils;
 import org.h2.util.IOUtils;
 import org.h2.util.Tool;
 
 /**
  * Restores a H2 database by extracting the database files from a .zip file.
+ * Incremental backups are applied to the files restored from the previous
+ * backup.
  */
 public class Restore extends Tool {
 
@@ -30,7 +34,8 @@ public class Restore extends Tool {
      * <tr><td>[-help] or [-?]</td>
      * <td>Print the list of options</td></tr>
      * <tr><td>[-file &lt;filename&gt;]</td>
-     * <td>The source file name (default: backup.zip)</td></tr>
+     * <td>The source file name (default: backup.zip);
+     * repeat to apply incremental backups in the order they were created</td></tr>
      * <tr><td>[-dir &lt;dir&gt;]</td>
      * <td>The target directory (default: .)</td></tr>
      * <tr><td>[-db &lt;database&gt;]</td>
@@ -53,7 +58,7 @@ public Restore() {}
 
     @Override
     public void runTool(String... args) throws SQLException {
-        String zipFileName = "backup.zip";
+        ArrayList<String> zipFileNames = new ArrayList<>();
         String dir = ".";
         String db = null;
         for (int i = 0; args != null && i < args.length; i++) {
@@ -61,7 +66,7 @@ public void runTool(String... args) throws SQLException {
             if (arg.equals("-dir")) {
                 dir = args[++i];
             } else if (arg.equals("-file")) {
-                zipFileName = args[++i];
+                zipFileNames.add(args[++i]);
             } else if (arg.equals("-db")) {
                 db = args[++i];
             } else if (arg.equals("-quiet")) {
@@ -73,7 +78,12 @@ public void runTool(String... args) throws SQLException {
                 showUsageAndThrowUnsupportedOption(arg);
             }
         }
-        execute(zipFileName, dir, db);
+        if (zipFileNames.isEmpty()) {
+            zipFileNames.add("backup.zip");
+        }
+        for (String zipFileName : zipFileNames) {
+            execute(zipFileName, dir, db);
+        }
     }
 
     private static String getOriginalDbName(String fileName, String db)
@@ -116,12 +126,16 @@ private static String getOriginalDbName(String fileName, String db)
 
     /**
      * Extract the name of the database from a given file name.
-     * Only files ending with .h2.db are considered, all others return null.
+     * Only files ending with .mv.db are considered, all others return null.
      *
      * @param fileName the file name (without directory)
      * @return the database name or null
      */
     private static String getDatabaseNameFromFileName(String fileName) {
+        if (fileName.endsWith(SingleFileStore.INCREMENTAL_BACKUP_SUFFIX)) {
+            fileName = fileName.substring(0,
+                    fileName.length() - SingleFileStore.INCREMENTAL_BACKUP_SUFFIX.length());
+        }
         if (fileName.endsWith(Constants.SUFFIX_MV_FILE)) {
             return fileName.substring(0,
                     fileName.length() - Constants.SUFFIX_MV_FILE.length());
@@ -130,7 +144,8 @@ private static String getDatabaseNameFromFileName(String fileName) {
     }
 
     /**
-     * Restores database files.
+     * Restores database files. If the backup is incremental, the database
+     * files must already be restored from the previous backup.
      *
      * @param zipFileName the name of the backup file
      * @param directory the directory name
@@ -175,7 +190,11 @@ public static void execute(String zipFileName, String directory, String db) {
                         fileName = db + fileName.substring(originalDbLen);
                         copy = true;
                     }
-                    if (copy) {
+                    if (copy && fileName.endsWith(SingleFileStore.INCREMENTAL_BACKUP_SUFFIX)) {
+                        fileName = fileName.substring(0,
+                                fileName.length() - SingleFileStore.INCREMENTAL_BACKUP_SUFFIX.length());
+                        SingleFileStore.restoreIncremental(zipIn, directory + File.separatorChar + fileName);
+                    } else if (copy) {
                         OutputStream o = null;
                         try {
                             o = FileUtils.newOutputStream(directory + File.separatorChar + fileName, false);
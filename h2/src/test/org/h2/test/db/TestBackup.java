@@ -48,6 +48,7 @@ public void test() throws SQLException {
         testBackupRestoreLobStatement();
         testBackupRestoreLob();
         testBackup();
+        testIncrementalBackup();
         deleteDb("backup");
         FileUtils.delete(getBaseDir() + "/backup.zip");
     }
@@ -192,4 +193,45 @@ private void testBackup() throws SQLException {
         deleteDb("restored");
     }
 
+    private void testIncrementalBackup() throws SQLException {
+        deleteDb("backup");
+        deleteDb("restored");
+        String full = getBaseDir() + "/backup.zip";
+        String inc1 = getBaseDir() + "/backup-1.zip";
+        String inc2 = getBaseDir() + "/backup-2.zip";
+        Connection conn = getConnection("backup");
+        Statement stat = conn.createStatement();
+        stat.execute("create table test(id int primary key, name varchar)");
+        stat.execute("insert into test select x, space(100) from system_range(1, 20000)");
+        stat.execute("backup to '" + full + "'");
+        stat.execute("insert into test values(20001, 'first')");
+        stat.execute("backup to '" + inc1 + "' incremental");
+        assertTrue(FileUtils.size(inc1) < FileUtils.size(full) / 2);
+        stat.execute("delete from test where id <= 10000");
+        stat.execute("update test set name = 'second' where id = 20000");
+        stat.execute("create table test2 as select * from test where id > 19000");
+        stat.execute("backup to '" + inc2 + "' incremental");
+
+        Restore.execute(full, getBaseDir(), "restored");
+        Restore.execute(inc1, getBaseDir(), "restored");
+        Connection conn2 = getConnection("restored");
+        Statement stat2 = conn2.createStatement();
+        assertSingleValue(stat2, "select count(*) from test", 20001);
+        assertSingleValue(stat2, "select count(*) from test where name = 'first'", 1);
+        conn2.close();
+        deleteDb("restored");
+
+        Restore.execute(full, getBaseDir(), "restored");
+        Restore.execute(inc1, getBaseDir(), "restored");
+        Restore.execute(inc2, getBaseDir(), "restored");
+        conn2 = getConnection("restored");
+        stat2 = conn2.createStatement();
+        assertEqualDatabases(stat, stat2);
+        conn2.close();
+        conn.close();
+        deleteDb("restored");
+        FileUtils.delete(inc1);
+        FileUtils.delete(inc2);
+    }
+
 }
@@ -53,6 +53,8 @@ public void test() throws SQLException {
         testLargeUpdateDelete();
         testCloseConnectionDelete();
         testOrderGroup();
+        testHashGroup();
+        testHashJoin();
         testLimitBufferedResult();
         deleteDb("bigResult");
     }
@@ -424,6 +426,113 @@ private void testLimitBufferedResult() throws SQLException {
         conn.close();
     }
 
+    private void testHashGroup() throws SQLException {
+        deleteDb("bigResult");
+        Connection conn = getConnection("bigResult");
+        Statement stat = conn.createStatement();
+        int len = getSize(1000, 10000);
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, G INT, NAME VARCHAR)");
+        stat.execute("CREATE TABLE TEST2(G INT PRIMARY KEY, V INT)");
+        stat.execute("INSERT INTO TEST SELECT X, MOD(X * 7, " + (len / 2) + "), 'Name ' || MOD(X, " + (len / 3)
+                + ") FROM SYSTEM_RANGE(1, " + len + ")");
+        stat.execute("INSERT INTO TEST2 SELECT X, X * 3 FROM SYSTEM_RANGE(0, " + len + ")");
+        // groups are hashed and partitioned with and without ORDER BY
+        testHashGroup(stat, "SELECT G, COUNT(*), SUM(ID), MIN(NAME), COUNT(DISTINCT NAME) FROM TEST GROUP BY G",
+                "ORDER BY G");
+        testHashGroup(stat, "SELECT NAME, G, LISTAGG(ID) WITHIN GROUP (ORDER BY ID) FROM TEST GROUP BY NAME, G",
+                "ORDER BY NAME, G");
+        testHashGroup(stat, "SELECT T.G, SUM(T2.V), COUNT(T2.G), MAX(ROWNUM()) > 0 FROM TEST T "
+                + "LEFT JOIN TEST2 T2 ON T.G = T2.G * 2 GROUP BY T.G HAVING COUNT(*) > 1", "ORDER BY T.G");
+        testHashGroup(stat, "SELECT NAME, SUM(ID) FROM TEST WHERE ID > 10 GROUP BY NAME", "ORDER BY 2 DESC, 1");
+        conn.close();
+    }
+
+    private void testHashGroup(Statement stat, String sql, String orderBy) throws SQLException {
+        stat.execute("SET MAX_MEMORY_ROWS 1000000");
+        ArrayList<String> expected = getRows(stat, sql);
+        stat.execute("SET MAX_MEMORY_ROWS 20");
+        ArrayList<String> unordered = getRows(stat, sql);
+        ArrayList<String> ordered = getRows(stat, sql + ' ' + orderBy);
+        assertTrue(expected.size() > 20);
+        expected.sort(null);
+        unordered.sort(null);
+        ordered.sort(null);
+        assertEquals(expected.toString(), unordered.toString());
+        assertEquals(expected.toString(), ordered.toString());
+    }
+
+    private static ArrayList<String> getRows(Statement stat, String sql) throws SQLException {
+        ArrayList<String> rows = new ArrayList<>();
+        ResultSet rs = stat.executeQuery(sql);
+        int columnCount = rs.getMetaData().getColumnCount();
+        while (rs.next()) {
+            rows.add(getRow(rs, columnCount));
+        }
+        return rows;
+    }
+
+    private void testHashJoin() throws SQLException {
+        deleteDb("bigResult");
+        Connection conn = getConnection("bigResult");
+        Statement stat = conn.createStatement();
+        int len = getSize(1000, 10000);
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, G INT, NAME VARCHAR)");
+        stat.execute("CREATE TABLE TEST2(ID INT PRIMARY KEY, G BIGINT, V INT)");
+        stat.execute("INSERT INTO TEST SELECT X, MOD(X * 7, " + (len / 2) + "), 'Name ' || X FROM SYSTEM_RANGE(1, "
+                + len + ")");
+        stat.execute("INSERT INTO TEST2 SELECT X, CASEWHEN(MOD(X, 10) = 0, NULL, MOD(X, " + (len / 4)
+                + ")), X * 3 FROM SYSTEM_RANGE(1, " + len + ")");
+        stat.execute("SET MAX_MEMORY_ROWS 20");
+        String sql = "SELECT T.ID, T2.ID, T2.V FROM TEST T JOIN TEST2 T2 ON T.G = T2.G";
+        ResultSet rs = stat.executeQuery("EXPLAIN " + sql);
+        rs.next();
+        assertContains(rs.getString(1), ".hashJoin");
+        ArrayList<String> actual = new ArrayList<>();
+        rs = stat.executeQuery(sql);
+        while (rs.next()) {
+            actual.add(getRow(rs, 3));
+        }
+        // the same join with a regular index
+        stat.execute("CREATE INDEX TEST2_G ON TEST2(G)");
+        stat.execute("CREATE INDEX TEST_G ON TEST(G)");
+        rs = stat.executeQuery("EXPLAIN " + sql);
+        rs.next();
+        assertFalse(rs.getString(1).contains(".hashJoin"));
+        ArrayList<String> expected = new ArrayList<>();
+        rs = stat.executeQuery(sql);
+        while (rs.next()) {
+            expected.add(getRow(rs, 3));
+        }
+        assertTrue(expected.size() > 20);
+        assertEquals(expected.size(), actual.size());
+        expected.sort(null);
+        actual.sort(null);
+        assertEquals(expected.toString(), actual.toString());
+        // lazy execution, the hash table is released when the result is closed
+        stat.execute("DROP INDEX TEST2_G");
+        stat.execute("DROP INDEX TEST_G");
+        stat.execute("SET LAZY_QUERY_EXECUTION TRUE");
+        rs = stat.executeQuery(sql);
+        assertTrue(rs.next());
+        rs.close();
+        actual.clear();
+        rs = stat.executeQuery(sql);
+        while (rs.next()) {
+            actual.add(getRow(rs, 3));
+        }
+        actual.sort(null);
+        assertEquals(expected.toString(), actual.toString());
+        conn.close();
+    }
+
+    private static String getRow(ResultSet rs, int columnCount) throws SQLException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 1; i <= columnCount; i++) {
+            builder.append(rs.getString(i)).append(';');
+        }
+        return builder.toString();
+    }
+
     private void testOrderGroup() throws SQLException {
         deleteDb("bigResult");
         Connection conn = getConnection("bigResult");
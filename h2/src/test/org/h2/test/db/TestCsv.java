@@ -27,6 +27,7 @@
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
+import org.h2.api.DatabaseEventListener;
 import org.h2.api.ErrorCode;
 import org.h2.store.fs.FileUtils;
 import org.h2.test.TestBase;
@@ -68,6 +69,7 @@ public void test() throws Exception {
         testSpaceSeparated();
         testNull();
         testRandomData();
+        testParallelRead();
         testEmptyFieldDelimiter();
         testFieldDelimiter();
         testAsTable();
@@ -385,6 +387,79 @@ private void testRandomData() throws SQLException {
         FileUtils.delete(getBaseDir() + "/test.csv");
     }
 
+    private void testParallelRead() throws SQLException {
+        deleteDb("csv");
+        Connection conn = getConnection("csv;PARALLEL_SCAN_THREADS=4;DATABASE_EVENT_LISTENER='"
+                + ProgressListener.class.getName() + "'");
+        Statement stat = conn.createStatement();
+        stat.execute("create table test(id identity, a varchar, b varchar)");
+        stat.execute("create table copy(id identity, a varchar, b varchar)");
+        int len = getSize(20000, 200000);
+        PreparedStatement prep = conn.prepareStatement("insert into test(a, b) values(?, ?)");
+        Random random = new Random(1);
+        for (int i = 0; i < len; i++) {
+            prep.setString(1, randomData(random));
+            prep.setString(2, i % 1000 == 0 ? new String(new char[300_000]).replace('\0', 'x') : randomData(random));
+            prep.addBatch();
+        }
+        prep.executeBatch();
+        String fileName = getBaseDir() + "/test.csv";
+        stat.execute("call csvwrite('" + fileName + "', 'select a, b from test order by id', 'UTF-8', '|', '#')");
+        ProgressListener.position = ProgressListener.max = 0L;
+        assertEquals(len, stat.executeUpdate(
+                "insert into copy(a, b) select * from csvread('" + fileName + "', null, 'UTF-8', '|', '#')"));
+        assertTrue(ProgressListener.position > 0L);
+        assertEquals(FileUtils.size(fileName), ProgressListener.max);
+        ResultSet rs = stat.executeQuery("select count(*) from test t join copy c on t.id = c.id"
+                + " where t.a is not distinct from c.a and t.b is not distinct from c.b");
+        rs.next();
+        assertEquals(len, rs.getInt(1));
+        rs = stat.executeQuery("select a, b from csvread('" + fileName + "', null, 'UTF-8', '|', '#') limit 2");
+        assertTrue(rs.next());
+        assertTrue(rs.next());
+        assertFalse(rs.next());
+        // queries that stop early must close the file
+        File openFiles = new File("/proc/self/fd");
+        if (openFiles.isDirectory()) {
+            int count = openFiles.list().length;
+            for (int i = 0; i < 100; i++) {
+                rs = stat.executeQuery("select exists(select * from csvread('" + fileName
+                        + "', null, 'UTF-8', '|', '#')), (select a from csvread('" + fileName
+                        + "', null, 'UTF-8', '|', '#') limit 1)");
+                assertTrue(rs.next());
+                assertTrue(rs.getBoolean(1));
+            }
+            assertTrue(openFiles.list().length <= count + 2);
+        }
+        conn.close();
+        FileUtils.delete(fileName);
+    }
+
+    /**
+     * A database event listener that remembers the progress of CSVREAD.
+     */
+    public static final class ProgressListener implements DatabaseEventListener {
+
+        /**
+         * The last reported position.
+         */
+        static volatile long position;
+
+        /**
+         * The last reported size of the file.
+         */
+        static volatile long max;
+
+        @Override
+        public void setProgress(int state, String name, long x, long max) {
+            if (state == STATE_READ_CSV) {
+                position = x;
+                ProgressListener.max = max;
+            }
+        }
+
+    }
+
     private static String randomData(Random random) {
         if (random.nextInt(10) == 1) {
             return null;
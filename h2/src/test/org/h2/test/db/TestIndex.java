@@ -64,6 +64,7 @@ public void test() throws SQLException {
         testDescIndex();
         testHashIndex();
         testCompoundIndex_4161();
+        testParallelCreateIndex();
 
         if (config.networked && config.big) {
             return;
@@ -807,4 +808,48 @@ private void testCompoundIndex_4161() throws SQLException {
         deleteDb("index");
     }
 
+    private void testParallelCreateIndex() throws SQLException {
+        if (config.memory) {
+            return;
+        }
+        deleteDb("index");
+        Connection conn = getConnection("index;PARALLEL_SCAN_THREADS=4;MAX_MEMORY_ROWS=2000");
+        stat = conn.createStatement();
+        stat.execute("CREATE TABLE TEST(ID BIGINT PRIMARY KEY, A INT, B VARCHAR, C INT)");
+        stat.execute("INSERT INTO TEST SELECT X, MOD(X * 7919, 50000), "
+                + "CASEWHEN(MOD(X, 13) = 0, NULL, 'B' || MOD(X, 101)), MOD(X, 25000) FROM SYSTEM_RANGE(1, 50000)");
+        stat.execute("CREATE INDEX IDX_B_A ON TEST(B DESC, A)");
+        stat.execute("CREATE UNIQUE INDEX IDX_A ON TEST(A)");
+        stat.execute("CREATE UNIQUE INDEX IDX_B_ID ON TEST(B, ID)");
+        assertThrows(ErrorCode.DUPLICATE_KEY_1, stat).execute("CREATE UNIQUE INDEX IDX_C ON TEST(C)");
+        stat.execute("UPDATE TEST SET C = ID");
+        stat.execute("CREATE UNIQUE INDEX IDX_C ON TEST(C)");
+        assertParallelIndex("SELECT ID, B, A FROM TEST USE INDEX (IDX_B_A) WHERE B IS NOT NULL OR B IS NULL"
+                + " ORDER BY B DESC, A");
+        assertParallelIndex("SELECT ID, A FROM TEST USE INDEX (IDX_A) WHERE A >= 0 ORDER BY A");
+        assertSingleValue(stat, "SELECT COUNT(*) FROM TEST USE INDEX (IDX_A) WHERE A BETWEEN 100 AND 199", 100);
+        assertSingleValue(stat, "SELECT COUNT(*) FROM TEST USE INDEX (IDX_B_ID) WHERE B IS NULL", 3846);
+        conn.close();
+        deleteDb("index");
+    }
+
+    private void assertParallelIndex(String sql) throws SQLException {
+        ResultSet rs = stat.executeQuery("EXPLAIN " + sql);
+        rs.next();
+        assertFalse(rs.getString(1).contains("/* PUBLIC.TEST.tableScan"));
+        ResultSet expected = stat.executeQuery(sql.replaceAll("USE INDEX \\(\\w+\\)", "")
+                .replace("FROM TEST", "FROM (TABLE TEST)"));
+        ResultSet actual = stat.getConnection().createStatement().executeQuery(sql);
+        int count = 0;
+        while (expected.next()) {
+            assertTrue(actual.next());
+            for (int i = 1, l = expected.getMetaData().getColumnCount(); i <= l; i++) {
+                assertEquals(expected.getString(i), actual.getString(i));
+            }
+            count++;
+        }
+        assertFalse(actual.next());
+        assertEquals(50000, count);
+    }
+
 }
@@ -55,6 +55,7 @@ public void test() throws SQLException {
         testFetchSize();
         testFetchSizeWithAutoCommit();
         testQuotedIdentifiers();
+        testPushdown();
         deleteDb("linkedTable");
     }
 
@@ -799,4 +800,130 @@ private void testQuotedIdentifiers() throws SQLException {
         cb.close();
     }
 
+    private void testPushdown() throws SQLException {
+        if (config.memory) {
+            return;
+        }
+        org.h2.Driver.load();
+        Connection ca = DriverManager.getConnection("jdbc:h2:mem:one", "sa", "sa");
+        Connection cb = DriverManager.getConnection("jdbc:h2:mem:two", "sa", "sa");
+        Statement sa = ca.createStatement();
+        Statement sb = cb.createStatement();
+        sa.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, NAME VARCHAR(20), V INT, D DATE)");
+        sa.execute("INSERT INTO TEST SELECT X, 'Name' || X, NULLIF(MOD(X, 10), 0), "
+                + "DATEADD(DAY, X, DATE '2000-01-01') FROM SYSTEM_RANGE(1, 100)");
+        sb.execute("CREATE LINKED TABLE T(NULL, 'jdbc:h2:mem:one', 'sa', 'sa', 'TEST')");
+        sa.execute("SET QUERY_STATISTICS TRUE");
+
+        // conditions and referenced columns
+        ResultSet rs = sb.executeQuery("SELECT NAME FROM T WHERE (V > 8 OR V IS NULL) AND ID < 25 ORDER BY ID");
+        assertResult("Name9,Name10,Name19,Name20", rs);
+        assertRemoteQuery(sa, "SELECT \"ID\", \"NAME\", \"V\" FROM PUBLIC.TEST T WHERE \"ID\"<=? "
+                + "AND (\"ID\" < ?) AND ((\"V\" > ?) OR \"V\" IS NULL)");
+        rs = sb.executeQuery("SELECT ID FROM T WHERE V IN (1, 2, 3) AND ID < 15 AND MOD(ID, 10) <> 2 ORDER BY ID");
+        assertResult("1,3,11,13", rs);
+        assertRemoteQuery(sa, "SELECT \"ID\", \"V\" FROM PUBLIC.TEST T WHERE \"ID\"<=? "
+                + "AND (\"V\" IN(?, ?, ?)) AND (\"ID\" < ?)");
+        // character strings are not compared by the remote database
+        rs = sb.executeQuery("SELECT ID FROM T WHERE NAME IN ('Name1', 'Name2', 'Name3') "
+                + "AND LOWER(NAME) <> 'name2' ORDER BY ID");
+        assertResult("1,3", rs);
+        assertRemoteQuery(sa, "SELECT \"ID\", \"NAME\" FROM PUBLIC.TEST T");
+
+        // row limit
+        rs = sb.executeQuery("SELECT ID FROM T WHERE V = 3 FETCH FIRST 2 ROWS ONLY");
+        assertResult("3,13", rs);
+        assertRemoteQuery(sa, "SELECT \"ID\", \"V\" FROM PUBLIC.TEST T WHERE \"V\">=? AND \"V\"<=? "
+                + "AND (\"V\" = ?) FETCH FIRST 2 ROWS ONLY");
+        rs = sb.executeQuery("SELECT ID FROM T WHERE LOWER(NAME) LIKE 'name_' FETCH FIRST 2 ROWS ONLY");
+        assertResult("1,2", rs);
+        assertRemoteQuery(sa, "SELECT \"ID\", \"NAME\" FROM PUBLIC.TEST T");
+
+        // aggregates
+        PreparedStatement prep = cb.prepareStatement(
+                "SELECT COUNT(*), COUNT(V), MIN(V), MAX(D), SUM(V) FROM T WHERE ID <= ?");
+        prep.setInt(1, 20);
+        rs = prep.executeQuery();
+        assertTrue(rs.next());
+        assertEquals(20, rs.getLong(1));
+        assertEquals(18, rs.getLong(2));
+        assertEquals(1, rs.getInt(3));
+        assertEquals("2000-01-21", rs.getString(4));
+        assertEquals(90, rs.getLong(5));
+        assertRemoteQuery(sa, "SELECT COUNT(*), COUNT(\"V\"), MIN(\"V\"), MAX(\"D\"), SUM(\"V\") "
+                + "FROM PUBLIC.TEST T WHERE (\"ID\" <= ?)");
+        // parameter of other data type is not passed to the remote database
+        prep.setString(1, "10");
+        rs = prep.executeQuery();
+        assertTrue(rs.next());
+        assertEquals(10, rs.getLong(1));
+        rs = sb.executeQuery("EXPLAIN SELECT COUNT(*) FROM T WHERE ID <= 20");
+        assertTrue(rs.next());
+        assertContains(rs.getString(1), "/* remote lookup */");
+
+        // outer joins
+        rs = sb.executeQuery("SELECT A.ID, B.ID FROM T A LEFT JOIN T B ON B.ID = A.ID + 100 "
+                + "WHERE A.ID < 3 AND B.ID IS NULL ORDER BY A.ID");
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt(1));
+        assertEquals(null, rs.getObject(2));
+        assertTrue(rs.next());
+        assertEquals(2, rs.getInt(1));
+        assertFalse(rs.next());
+
+        // character strings are compared with the collation of the remote
+        // database
+        Connection cc = DriverManager.getConnection("jdbc:h2:mem:three", "sa", "sa");
+        Statement sc = cc.createStatement();
+        sc.execute("SET COLLATION ENGLISH STRENGTH PRIMARY");
+        sc.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, S VARCHAR)");
+        sc.execute("INSERT INTO TEST VALUES (1, 'A'), (2, 'a')");
+        sb.execute("CREATE LINKED TABLE L(NULL, 'jdbc:h2:mem:three', 'sa', 'sa', 'TEST')");
+        rs = sb.executeQuery("SELECT COUNT(*) FROM L WHERE S = 'a'");
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt(1));
+        rs = sb.executeQuery("SELECT ID FROM L WHERE S = 'a' FETCH FIRST 1 ROW ONLY");
+        assertResult("2", rs);
+        sb.execute("DROP TABLE L");
+        cc.close();
+        // and with the collation of the local database
+        sa.execute("CREATE TABLE TEST2(ID INT PRIMARY KEY, S VARCHAR)");
+        sa.execute("INSERT INTO TEST2 VALUES (1, 'A'), (2, 'a'), (3, 'b')");
+        cc = DriverManager.getConnection("jdbc:h2:mem:four", "sa", "sa");
+        sc = cc.createStatement();
+        sc.execute("SET COLLATION ENGLISH STRENGTH PRIMARY");
+        sc.execute("CREATE LINKED TABLE L(NULL, 'jdbc:h2:mem:one', 'sa', 'sa', 'TEST2')");
+        rs = sc.executeQuery("SELECT ID FROM L WHERE S = 'a' ORDER BY ID");
+        assertResult("1,2", rs);
+        rs = sc.executeQuery("SELECT COUNT(*) FROM L WHERE S IN ('a', 'c')");
+        assertTrue(rs.next());
+        assertEquals(2, rs.getInt(1));
+        rs = sc.executeQuery("SELECT ID FROM L WHERE S > 'A' ORDER BY ID");
+        assertResult("3", rs);
+        cc.close();
+        sa.execute("DROP TABLE TEST2");
+
+        sb.execute("DROP TABLE T");
+        ca.close();
+        cb.close();
+    }
+
+    private void assertResult(String expected, ResultSet rs) throws SQLException {
+        StringBuilder builder = new StringBuilder();
+        while (rs.next()) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(rs.getString(1));
+        }
+        assertEquals(expected, builder.toString());
+    }
+
+    private void assertRemoteQuery(Statement stat, String sql) throws SQLException {
+        ResultSet rs = stat.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.QUERY_STATISTICS "
+                + "WHERE SQL_STATEMENT = '" + sql.replace("'", "''") + '\'');
+        rs.next();
+        assertEquals(sql, 1, rs.getInt(1));
+    }
+
 }
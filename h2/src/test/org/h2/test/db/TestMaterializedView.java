@@ -32,6 +32,9 @@ public static void main(String... a) throws Exception {
     public void test() throws SQLException {
         deleteDb("materializedview");
         test1();
+        testIncrementalRefresh();
+        testIncrementalRefreshWithJoin();
+        testRefreshConcurrently();
         deleteDb("materializedview");
     }
 
@@ -65,4 +68,135 @@ private void test1() throws SQLException {
         conn.close();
     }
 
+    private void testIncrementalRefresh() throws SQLException {
+        deleteDb("materializedview");
+        Connection conn = getConnection("materializedview");
+        Statement stat = conn.createStatement();
+        stat.execute("CREATE TABLE SALES(ID INT PRIMARY KEY, REGION VARCHAR, AMOUNT INT)");
+        stat.execute("CREATE INDEX SALES_REGION ON SALES(REGION)");
+        stat.execute("INSERT INTO SALES SELECT X, 'R' || MOD(X, 50), MOD(X * 7, 101) FROM SYSTEM_RANGE(1, 5000)");
+        String query = "SELECT REGION, SUM(AMOUNT) S, COUNT(*) C, MIN(AMOUNT) MI, MAX(AMOUNT) MA FROM SALES "
+                + "GROUP BY REGION HAVING COUNT(*) > 1";
+        stat.execute("CREATE MATERIALIZED VIEW V AS " + query);
+        // the first refresh recomputes the whole view
+        stat.execute("REFRESH MATERIALIZED VIEW V");
+        assertViewContent(stat, "V", query);
+        long unchangedRowId = getRowId(stat, "R7");
+        long changedRowId = getRowId(stat, "R3");
+        stat.execute("INSERT INTO SALES VALUES (5001, 'R3', 1000), (5002, 'NEW', 1), (5003, 'NEW', 2)");
+        stat.execute("UPDATE SALES SET REGION = 'R4' WHERE ID = 5");
+        stat.execute("UPDATE SALES SET AMOUNT = -1 WHERE ID = 10");
+        stat.execute("DELETE FROM SALES WHERE REGION = 'R1'");
+        stat.execute("INSERT INTO SALES VALUES (5004, NULL, 3), (5005, NULL, 4)");
+        stat.execute("REFRESH MATERIALIZED VIEW V");
+        assertViewContent(stat, "V", query);
+        assertEquals(unchangedRowId, getRowId(stat, "R7"));
+        assertFalse(changedRowId == getRowId(stat, "R3"));
+        // changes of an uncommitted transaction are applied after commit
+        Connection conn2 = getConnection("materializedview");
+        conn2.setAutoCommit(false);
+        Statement stat2 = conn2.createStatement();
+        stat2.execute("INSERT INTO SALES VALUES (5006, 'R8', 500)");
+        stat.execute("REFRESH MATERIALIZED VIEW V");
+        assertViewContent(stat, "V", query);
+        conn2.commit();
+        conn2.close();
+        stat.execute("REFRESH MATERIALIZED VIEW V");
+        assertViewContent(stat, "V", query);
+        // rolled back changes
+        conn.setAutoCommit(false);
+        stat.execute("DELETE FROM SALES WHERE REGION = 'R9'");
+        conn.rollback();
+        conn.setAutoCommit(true);
+        stat.execute("REFRESH MATERIALIZED VIEW V");
+        assertViewContent(stat, "V", query);
+        stat.execute("TRUNCATE TABLE SALES");
+        stat.execute("INSERT INTO SALES VALUES (1, 'A', 1), (2, 'A', 2), (3, 'B', 3)");
+        stat.execute("REFRESH MATERIALIZED VIEW V");
+        assertViewContent(stat, "V", query);
+        // aggregate without GROUP BY
+        stat.execute("CREATE MATERIALIZED VIEW V2 AS SELECT COUNT(*), SUM(AMOUNT) FROM SALES WHERE AMOUNT > 1");
+        stat.execute("REFRESH MATERIALIZED VIEW V2");
+        stat.execute("INSERT INTO SALES VALUES (4, 'C', 10)");
+        stat.execute("REFRESH MATERIALIZED VIEW V2");
+        assertViewContent(stat, "V2", "SELECT COUNT(*), SUM(AMOUNT) FROM SALES WHERE AMOUNT > 1");
+        conn.close();
+    }
+
+    private void testIncrementalRefreshWithJoin() throws SQLException {
+        deleteDb("materializedview");
+        Connection conn = getConnection("materializedview");
+        Statement stat = conn.createStatement();
+        stat.execute("CREATE TABLE PRODUCT(ID INT PRIMARY KEY, PRICE INT)");
+        stat.execute("CREATE TABLE ORDERS(ID INT PRIMARY KEY, CUSTOMER INT, PRODUCT INT, QUANTITY INT)");
+        stat.execute("CREATE INDEX ORDERS_CUSTOMER ON ORDERS(CUSTOMER)");
+        stat.execute("INSERT INTO PRODUCT SELECT X, X * 10 FROM SYSTEM_RANGE(1, 20)");
+        stat.execute("INSERT INTO ORDERS SELECT X, MOD(X, 30), MOD(X, 20) + 1, MOD(X, 7) FROM SYSTEM_RANGE(1, 1000)");
+        String query = "SELECT O.CUSTOMER, SUM(O.QUANTITY * P.PRICE) TOTAL, COUNT(*) C "
+                + "FROM ORDERS O JOIN PRODUCT P ON O.PRODUCT = P.ID GROUP BY O.CUSTOMER";
+        stat.execute("CREATE MATERIALIZED VIEW V AS " + query);
+        stat.execute("REFRESH MATERIALIZED VIEW V");
+        stat.execute("INSERT INTO ORDERS VALUES (1001, 3, 5, 100), (1002, 31, 1, 1)");
+        stat.execute("DELETE FROM ORDERS WHERE CUSTOMER = 4");
+        stat.execute("REFRESH MATERIALIZED VIEW V");
+        assertViewContent(stat, "V", query);
+        // changes of other tables recompute the whole view
+        stat.execute("UPDATE PRODUCT SET PRICE = 0 WHERE ID = 7");
+        stat.execute("REFRESH MATERIALIZED VIEW V");
+        assertViewContent(stat, "V", query);
+        conn.close();
+    }
+
+    private void testRefreshConcurrently() throws SQLException {
+        deleteDb("materializedview");
+        Connection conn = getConnection("materializedview");
+        Statement stat = conn.createStatement();
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, V INT)");
+        stat.execute("INSERT INTO TEST SELECT X, MOD(X, 10) FROM SYSTEM_RANGE(1, 100)");
+        String query = "SELECT V, ID FROM TEST WHERE ID > 10";
+        stat.execute("CREATE MATERIALIZED VIEW MV AS " + query);
+        long rowId = getRowId(stat, "MV", "ID = 50");
+        stat.execute("INSERT INTO TEST VALUES (101, 1), (102, 1)");
+        stat.execute("DELETE FROM TEST WHERE ID = 60");
+        stat.execute("UPDATE TEST SET V = 100 WHERE ID = 70");
+        stat.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY MV");
+        assertViewContent(stat, "MV", query);
+        // unchanged rows are not replaced
+        assertEquals(rowId, getRowId(stat, "MV", "ID = 50"));
+        stat.execute("CREATE MATERIALIZED VIEW GV AS SELECT V, COUNT(*) FROM TEST GROUP BY V");
+        stat.execute("DELETE FROM TEST WHERE V = 3");
+        stat.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY GV");
+        assertViewContent(stat, "GV", "SELECT V, COUNT(*) FROM TEST GROUP BY V");
+        stat.execute("INSERT INTO TEST VALUES (103, 3)");
+        stat.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY GV");
+        assertViewContent(stat, "GV", "SELECT V, COUNT(*) FROM TEST GROUP BY V");
+        conn.close();
+    }
+
+    private void assertViewContent(Statement stat, String view, String query) throws SQLException {
+        assertEquals(getContent(stat.executeQuery(query + " ORDER BY 1, 2")),
+                getContent(stat.executeQuery("SELECT * FROM " + view + " ORDER BY 1, 2")));
+    }
+
+    private static String getContent(ResultSet rs) throws SQLException {
+        StringBuilder builder = new StringBuilder();
+        for (int l = rs.getMetaData().getColumnCount(); rs.next();) {
+            for (int i = 1; i <= l; i++) {
+                builder.append(rs.getString(i)).append(';');
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private long getRowId(Statement stat, String region) throws SQLException {
+        return getRowId(stat, "V", "REGION = '" + region + '\'');
+    }
+
+    private long getRowId(Statement stat, String view, String condition) throws SQLException {
+        ResultSet rs = stat.executeQuery("SELECT _ROWID_ FROM " + view + " WHERE " + condition);
+        assertTrue(rs.next());
+        return rs.getLong(1);
+    }
+
 }
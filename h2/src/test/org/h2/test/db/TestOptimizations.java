@@ -12,6 +12,7 @@
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Random;
@@ -87,6 +88,9 @@ public void test() throws Exception {
         testIndexUseDespiteNullsFirst();
         testConvertOrToIn();
         testConditionAndOrDistributiveLaw();
+        testParallelScan();
+        testCompiledExpressions();
+        testTopRows();
         deleteDb("optimizations");
     }
 
@@ -1339,4 +1343,187 @@ private void testConditionsStackOverflow() throws SQLException {
         assertTrue(rs.getBoolean(1));
         conn.close();
     }
+
+    private void testParallelScan() throws SQLException {
+        deleteDb("optimizations");
+        Connection conn = getConnection("optimizations;PARALLEL_SCAN_THREADS=4");
+        Statement stat = conn.createStatement();
+        stat.execute("CREATE TABLE TEST(ID BIGINT PRIMARY KEY, A INT, B DOUBLE, C NUMERIC(20, 2), S VARCHAR)");
+        stat.execute("INSERT INTO TEST SELECT X, MOD(X, 1000), X / 7.0, X / 3, 'S' || MOD(X, 77) "
+                + "FROM SYSTEM_RANGE(1, 50000)");
+        stat.execute("INSERT INTO TEST VALUES (50001, NULL, NULL, NULL, NULL)");
+        String[] queries = {
+                "SELECT COUNT(*), COUNT(A), SUM(A), MIN(S), MAX(B), AVG(C), AVG(A), SUM(C) + 1 FROM TEST",
+                "SELECT COUNT(*), SUM(A), MAX(S) FROM TEST WHERE A > 10 AND S <> 'S5' OR A IN (1, 2, 3)",
+                "SELECT COUNT(*), SUM(A), MIN(B) FROM TEST WHERE A BETWEEN 100 AND 200 AND S IS NOT NULL",
+                "SELECT COUNT(*), MAX(A) FROM TEST WHERE A > 2000",
+                "SELECT MAX(B), MIN(A) FROM TEST HAVING COUNT(*) > 5",
+        };
+        for (String sql : queries) {
+            // a derived table is scanned by a single thread
+            String expected = getSingleRow(stat.executeQuery(sql.replace("FROM TEST", "FROM (TABLE TEST)")));
+            assertEquals(expected, getSingleRow(stat.executeQuery(sql)));
+        }
+        PreparedStatement prep = conn.prepareStatement("SELECT COUNT(*), SUM(B) FROM TEST WHERE A = ?");
+        // copies of the query are reused by next executions
+        for (int i = 0; i < 30; i++) {
+            prep.setInt(1, i % 3 * 10);
+            ResultSet rs = prep.executeQuery();
+            rs.next();
+            assertEquals(50, rs.getLong(1));
+        }
+        // workers see uncommitted rows of the session
+        conn.setAutoCommit(false);
+        stat.execute("INSERT INTO TEST SELECT X, 0, 0, 0, '' FROM SYSTEM_RANGE(50002, 50101)");
+        prep.setInt(1, 0);
+        ResultSet rs = prep.executeQuery();
+        rs.next();
+        assertEquals(150, rs.getLong(1));
+        conn.rollback();
+        conn.setAutoCommit(true);
+        rs = prep.executeQuery();
+        rs.next();
+        assertEquals(50, rs.getLong(1));
+        assertThrows(ErrorCode.DIVISION_BY_ZERO_1, stat)
+                .executeQuery("SELECT COUNT(*) FROM TEST WHERE 1 / (A - 500) > 0");
+        conn.close();
+    }
+
+    private void testCompiledExpressions() throws SQLException {
+        deleteDb("optimizations");
+        deleteDb("optimizations2");
+        Connection conn = getConnection("optimizations;EXPRESSION_COMPILE_THRESHOLD=1");
+        Connection interpreted = getConnection("optimizations2");
+        for (Connection c : new Connection[] { conn, interpreted }) {
+            Statement stat = c.createStatement();
+            stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, A INT, B BIGINT, D DOUBLE, R REAL, S VARCHAR)");
+            stat.execute("INSERT INTO TEST SELECT X, MOD(X, 100) - 50, X * 1000000000, X / 7e0, X / 3e0, "
+                    + "'S' || MOD(X, 17) FROM SYSTEM_RANGE(1, 1000)");
+            stat.execute("INSERT INTO TEST VALUES (1001, NULL, NULL, NULL, NULL, NULL), "
+                    + "(1002, 2147483647, 9223372036854775807, -0e0, 0e0, '')");
+        }
+        String[] queries = {
+                "SELECT ID, A + 1, A * 2 - ID, B / 1000000000 + A, D * 2 / 3, D - R FROM TEST "
+                        + "WHERE A > 10 AND (D < 50 OR S = 'S5') ORDER BY ID",
+                "SELECT ID, A = ID, NOT (A > 5) FROM TEST WHERE NOT (A = ID) AND D >= 0.5e0 ORDER BY ID",
+                "SELECT ID FROM TEST WHERE S < 'S3' OR S <> 'S1' AND A <= B OR R > D ORDER BY ID",
+                "SELECT ID FROM TEST WHERE NOT (A < 0 OR S >= 'S2') ORDER BY ID",
+                "SELECT ID, A FROM TEST WHERE A / 3 = ID / 3 - 17 OR D * 7 = ID ORDER BY ID",
+                "SELECT ID FROM TEST WHERE A = ? OR B >= ? OR S = ? ORDER BY ID",
+                "SELECT A * 2 FROM TEST WHERE ID = ?",
+                "SELECT B + 1 FROM TEST WHERE ID = ?",
+                "SELECT 1 / A FROM TEST WHERE ID = ?",
+                "SELECT D / A FROM TEST WHERE ID = ?",
+                // -0.0 is equal to 0.0
+                "SELECT ID FROM TEST WHERE D * CAST(-1 AS DOUBLE) < D ORDER BY ID",
+        };
+        Object[][] parameters = { {}, { 5, 500_000_000_000L, "S9" }, { 7L, 1, "S1" }, { "-1", null, null },
+                { 1002 }, { 1001 }, { 50 }, { 1 } };
+        for (String sql : queries) {
+            PreparedStatement prep = conn.prepareStatement(sql), prep2 = interpreted.prepareStatement(sql);
+            int parameterCount = prep.getParameterMetaData().getParameterCount();
+            for (int i = 0; i < 4; i++) {
+                for (Object[] p : parameters) {
+                    if (p.length != parameterCount) {
+                        continue;
+                    }
+                    for (int j = 0; j < parameterCount; j++) {
+                        prep.setObject(j + 1, p[j]);
+                        prep2.setObject(j + 1, p[j]);
+                    }
+                    String expected;
+                    try {
+                        expected = getResult(prep2.executeQuery());
+                    } catch (SQLException e) {
+                        expected = "error " + e.getErrorCode();
+                    }
+                    String actual;
+                    try {
+                        actual = getResult(prep.executeQuery());
+                    } catch (SQLException e) {
+                        actual = "error " + e.getErrorCode();
+                    }
+                    assertEquals(sql, expected, actual);
+                }
+            }
+        }
+        conn.close();
+        interpreted.close();
+        deleteDb("optimizations2");
+    }
+
+    private void testTopRows() throws SQLException {
+        deleteDb("optimizations");
+        Connection conn = getConnection("optimizations");
+        Statement stat = conn.createStatement();
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, A INT, B INT)");
+        stat.execute("INSERT INTO TEST SELECT X, MOD(X * 7919, 13), MOD(X * 104729, 101) FROM SYSTEM_RANGE(1, 3000)");
+        String[] queries = {
+                // the number of columns in the sort key, the query
+                "1", "SELECT A, ID FROM TEST ORDER BY A",
+                "1", "SELECT A, ID FROM TEST ORDER BY A DESC",
+                "2", "SELECT B, A, ID FROM TEST ORDER BY B DESC, A",
+                "1", "SELECT A, COUNT(*) FROM TEST GROUP BY A ORDER BY A DESC",
+                "1", "SELECT A, ID FROM TEST WHERE ID < 100 UNION ALL SELECT B, ID FROM TEST ORDER BY A",
+        };
+        for (int i = 0; i < queries.length; i += 2) {
+            int keyColumns = Integer.parseInt(queries[i]);
+            String sql = queries[i + 1];
+            ArrayList<String[]> all = new ArrayList<>();
+            ResultSet rs = stat.executeQuery(sql);
+            for (int l = rs.getMetaData().getColumnCount(); rs.next();) {
+                String[] row = new String[l];
+                for (int j = 0; j < l; j++) {
+                    row[j] = rs.getString(j + 1);
+                }
+                all.add(row);
+            }
+            for (int offset : new int[] { 0, 1, 7, 50, 5000 }) {
+                for (int fetch : new int[] { 1, 2, 10, 99, 4000 }) {
+                    for (boolean withTies : new boolean[] { false, true }) {
+                        StringBuilder expected = new StringBuilder();
+                        int end = Math.min(offset + fetch, all.size());
+                        if (withTies && end > offset) {
+                            String[] last = all.get(end - 1);
+                            while (end < all.size() && Arrays.equals(last, 0, keyColumns, all.get(end), 0,
+                                    keyColumns)) {
+                                end++;
+                            }
+                        }
+                        for (int j = offset; j < end; j++) {
+                            for (String v : all.get(j)) {
+                                expected.append(v).append(';');
+                            }
+                            expected.append('\n');
+                        }
+                        String query = sql + " OFFSET " + offset + " ROWS FETCH FIRST " + fetch + " ROWS "
+                                + (withTies ? "WITH TIES" : "ONLY");
+                        assertEquals(query, expected.toString(), getResult(stat.executeQuery(query)));
+                    }
+                }
+            }
+        }
+        conn.close();
+    }
+
+    private static String getResult(ResultSet rs) throws SQLException {
+        StringBuilder builder = new StringBuilder();
+        for (int l = rs.getMetaData().getColumnCount(); rs.next();) {
+            for (int i = 1; i <= l; i++) {
+                builder.append(rs.getString(i)).append(';');
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private String getSingleRow(ResultSet rs) throws SQLException {
+        assertTrue(rs.next());
+        StringBuilder builder = new StringBuilder();
+        for (int i = 1, l = rs.getMetaData().getColumnCount(); i <= l; i++) {
+            builder.append(rs.getString(i)).append(';');
+        }
+        assertFalse(rs.next());
+        return builder.toString();
+    }
 }
@@ -11,6 +11,9 @@
 import java.sql.Statement;
 
 import org.h2.api.ErrorCode;
+import org.h2.command.Command;
+import org.h2.engine.SessionLocal;
+import org.h2.jdbc.JdbcConnection;
 import org.h2.test.TestBase;
 import org.h2.test.TestDb;
 
@@ -33,6 +36,8 @@ public void test() throws Exception {
         deleteDb("queryCache");
         test1();
         testClearingCacheWithTableStructureChanges();
+        testSharedCache();
+        testResultCache();
         deleteDb("queryCache");
     }
 
@@ -107,4 +112,159 @@ private void testClearingCacheWithTableStructureChanges() throws Exception {
                     prepareStatement("SELECT * FROM TEST");
         }
     }
+
+    private void testSharedCache() throws Exception {
+        if (config.networked) {
+            return;
+        }
+        String url = "queryCache;QUERY_CACHE_SIZE=1;SHARED_QUERY_CACHE_SIZE=16";
+        Connection conn1 = getConnection(url);
+        Connection conn2 = getConnection(url);
+        SessionLocal session1 = (SessionLocal) ((JdbcConnection) conn1).getSession();
+        SessionLocal session2 = (SessionLocal) ((JdbcConnection) conn2).getSession();
+        Statement stat = conn1.createStatement();
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, G INT, NAME VARCHAR)");
+        stat.execute("INSERT INTO TEST VALUES (1, 1, 'a'), (2, 1, 'b'), (3, 2, 'c'), (4, 2, 'd')");
+        stat.execute("CREATE VIEW V AS SELECT * FROM TEST");
+        String sql = "SELECT G, LISTAGG(NAME) WITHIN GROUP (ORDER BY NAME DESC), "
+                + "RANK() OVER (ORDER BY G DESC) FROM TEST WHERE ID > ? GROUP BY G ORDER BY G";
+        // a command moves to another session after it drops out of the
+        // query cache of the first one
+        Command command = session1.prepareLocal(sql);
+        command.close();
+        session1.prepareLocal("SELECT 1").close();
+        assertTrue(command == session2.prepareLocal(sql));
+        command.close();
+        // and it may be used after the first session is closed
+        conn1.close();
+        PreparedStatement prep = conn2.prepareStatement(sql);
+        prep.setInt(1, 0);
+        ResultSet rs = prep.executeQuery();
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt(1));
+        assertEquals("b,a", rs.getString(2));
+        assertEquals(2, rs.getInt(3));
+        assertTrue(rs.next());
+        assertEquals(2, rs.getInt(1));
+        assertEquals("d,c", rs.getString(2));
+        assertEquals(1, rs.getInt(3));
+        assertFalse(rs.next());
+        prep.close();
+        // a command that was executed by a closed session
+        conn1 = getConnection(url);
+        session1 = (SessionLocal) ((JdbcConnection) conn1).getSession();
+        sql = "SELECT G - 1 K, COUNT(*) FROM TEST WHERE ID > ? GROUP BY K ORDER BY K";
+        prep = conn1.prepareStatement(sql);
+        prep.setInt(1, 1);
+        assertGroupCounts(prep.executeQuery(), 1, 2);
+        prep.close();
+        session1.prepareLocal("SELECT 1").close();
+        conn1.close();
+        prep = conn2.prepareStatement(sql);
+        prep.setInt(1, 0);
+        assertGroupCounts(prep.executeQuery(), 2, 2);
+        prep.close();
+        conn1 = getConnection(url);
+        session1 = (SessionLocal) ((JdbcConnection) conn1).getSession();
+        // commands with views are not shared
+        command = session2.prepareLocal("SELECT * FROM V");
+        command.close();
+        session2.prepareLocal("SELECT 1").close();
+        assertFalse(command == session1.prepareLocal("SELECT * FROM V"));
+        // commands with subqueries are not shared
+        sql = "SELECT COUNT(*) FROM TEST WHERE ID IN (SELECT ID FROM TEST WHERE G = 2)";
+        command = session2.prepareLocal(sql);
+        command.close();
+        session2.prepareLocal("SELECT 1").close();
+        assertFalse(command == session1.prepareLocal(sql));
+        conn2.close();
+        rs = conn1.createStatement().executeQuery(sql);
+        rs.next();
+        assertEquals(2, rs.getInt(1));
+        conn2 = getConnection(url);
+        session2 = (SessionLocal) ((JdbcConnection) conn2).getSession();
+        // changes of metadata clear the cache
+        command = session2.prepareLocal("SELECT * FROM TEST");
+        command.close();
+        session2.prepareLocal("SELECT 1").close();
+        conn1.createStatement().execute("CREATE TABLE TEST2(ID INT)");
+        assertFalse(command == session1.prepareLocal("SELECT * FROM TEST"));
+        conn2.close();
+        conn1.createStatement().execute("DROP ALL OBJECTS");
+        conn1.close();
+    }
+
+    private void testResultCache() throws Exception {
+        String url = "queryCache;RESULT_CACHE_SIZE=1024";
+        Connection conn1 = getConnection(url);
+        Connection conn2 = getConnection(url);
+        Statement stat1 = conn1.createStatement();
+        Statement stat2 = conn2.createStatement();
+        stat1.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, G INT)");
+        stat1.execute("INSERT INTO TEST SELECT X, MOD(X, 3) FROM SYSTEM_RANGE(1, 100)");
+        String sql = "SELECT G, COUNT(*) FROM TEST WHERE ID > ? GROUP BY G ORDER BY G";
+        PreparedStatement prep1 = conn1.prepareStatement(sql);
+        PreparedStatement prep2 = conn2.prepareStatement(sql);
+        prep1.setInt(1, 10);
+        assertResultCacheCounters(stat1, 0, 0);
+        assertGroupCounts(prep1.executeQuery(), 30, 30, 30);
+        assertResultCacheCounters(stat1, 0, 1);
+        // another session with the same parameters takes the cached result
+        prep2.setInt(1, 10);
+        assertGroupCounts(prep2.executeQuery(), 30, 30, 30);
+        assertResultCacheCounters(stat1, 1, 1);
+        // different parameters
+        prep2.setInt(1, 40);
+        assertGroupCounts(prep2.executeQuery(), 20, 20, 20);
+        assertResultCacheCounters(stat1, 1, 2);
+        // modification of the table invalidates the cached result
+        stat2.execute("DELETE FROM TEST WHERE ID = 100");
+        assertGroupCounts(prep1.executeQuery(), 30, 29, 30);
+        assertResultCacheCounters(stat1, 1, 3);
+        prep2.setInt(1, 10);
+        assertGroupCounts(prep2.executeQuery(), 30, 29, 30);
+        assertResultCacheCounters(stat1, 2, 3);
+        // uncommitted changes of other sessions are not visible
+        conn2.setAutoCommit(false);
+        stat2.execute("DELETE FROM TEST WHERE ID = 99");
+        assertGroupCounts(prep1.executeQuery(), 30, 29, 30);
+        assertGroupCounts(prep2.executeQuery(), 29, 29, 30);
+        conn2.commit();
+        conn2.setAutoCommit(true);
+        assertGroupCounts(prep1.executeQuery(), 29, 29, 30);
+        // local temporary tables are not shared
+        stat1.execute("CREATE LOCAL TEMPORARY TABLE T(V INT)");
+        stat2.execute("CREATE LOCAL TEMPORARY TABLE T(V INT)");
+        stat1.execute("INSERT INTO T VALUES 1");
+        ResultSet rs = stat1.executeQuery("SELECT COUNT(*) FROM T");
+        rs.next();
+        assertEquals(1, rs.getInt(1));
+        rs = stat2.executeQuery("SELECT COUNT(*) FROM T");
+        rs.next();
+        assertEquals(0, rs.getInt(1));
+        conn2.close();
+        stat1.execute("DROP ALL OBJECTS");
+        conn1.close();
+    }
+
+    private void assertGroupCounts(ResultSet rs, int... counts) throws Exception {
+        for (int i = 0; i < counts.length; i++) {
+            assertTrue(rs.next());
+            assertEquals(i, rs.getInt(1));
+            assertEquals(counts[i], rs.getInt(2));
+        }
+        assertFalse(rs.next());
+    }
+
+    private void assertResultCacheCounters(Statement stat, long hits, long misses) throws Exception {
+        ResultSet rs = stat.executeQuery("SELECT SETTING_NAME, SETTING_VALUE FROM INFORMATION_SCHEMA.SETTINGS "
+                + "WHERE SETTING_NAME IN ('info.RESULT_CACHE_HITS', 'info.RESULT_CACHE_MISSES') "
+                + "ORDER BY SETTING_NAME");
+        assertTrue(rs.next());
+        assertEquals(hits, rs.getLong(2));
+        assertTrue(rs.next());
+        assertEquals(misses, rs.getLong(2));
+        assertFalse(rs.next());
+    }
+
 }
@@ -110,6 +110,7 @@ private void testSpatial() throws SQLException {
         testIndexUpdateNullGeometry();
         testInsertNull();
         testSpatialIndexWithOrder();
+        testBulkLoadedSpatialIndex();
     }
 
     private void testNaNs() {
@@ -506,6 +507,56 @@ private void testMemorySpatialIndex() throws SQLException {
         deleteDb("spatial");
     }
 
+    /**
+     * Test the spatial index that is created for a table with rows.
+     */
+    private void testBulkLoadedSpatialIndex() throws SQLException {
+        deleteDb("spatial");
+        try (Connection conn = getConnection(URL)) {
+            Statement stat = conn.createStatement();
+            stat.execute("create table test(id int primary key, g geometry)");
+            stat.execute("insert into test select x, case when mod(x, 10) = 0 then null "
+                    + "else 'POINT (' || mod(x * 7, 101) || ' ' || mod(x * 13, 97) || ')' end "
+                    + "from system_range(1, 5000)");
+            stat.execute("create spatial index idx_test_g on test(g)");
+            String query = "select count(*) from test where g && 'POLYGON ((10 10, 10 40, 40 40, 40 10, 10 10))'";
+            ResultSet rs = stat.executeQuery("explain " + query);
+            rs.next();
+            assertContains(rs.getString(1), "/* PUBLIC.IDX_TEST_G: G &&");
+            rs = stat.executeQuery(query);
+            rs.next();
+            long count = rs.getLong(1);
+            rs = stat.executeQuery(query.replace("where g &&", "use index () where g &&"));
+            rs.next();
+            assertEquals(rs.getLong(1), count);
+            assertTrue(count > 0);
+            rs = stat.executeQuery("select spatial_node_overlap from information_schema.indexes "
+                    + "where index_name = 'IDX_TEST_G'");
+            rs.next();
+            assertTrue(rs.getDouble(1) >= 0d);
+            assertFalse(rs.wasNull());
+            rs = stat.executeQuery("select spatial_node_overlap from information_schema.indexes "
+                    + "where table_name = 'TEST' and index_type_name = 'PRIMARY KEY'");
+            rs.next();
+            rs.getDouble(1);
+            assertTrue(rs.wasNull());
+            stat.execute("insert into test values (10000, 'POINT (20 20)')");
+            stat.execute("delete from test where id = 13");
+            rs = stat.executeQuery(query);
+            rs.next();
+            // the row 13 was POINT (91 72)
+            assertEquals(count + 1, rs.getLong(1));
+            // tables with more rows than MAX_MEMORY_ROWS are indexed row by row
+            stat.execute("drop index idx_test_g");
+            stat.execute("set max_memory_rows 1000");
+            stat.execute("create spatial index idx_test_g on test(g)");
+            rs = stat.executeQuery(query);
+            rs.next();
+            assertEquals(count + 1, rs.getLong(1));
+            stat.execute("drop table test");
+        }
+    }
+
     /**
      * Test java alias with Geometry type.
      */
@@ -13,6 +13,7 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 
 import org.h2.api.ErrorCode;
 import org.h2.test.TestBase;
@@ -65,6 +66,7 @@ public void test() throws SQLException {
         testRootCause();
         testExecuteCall();
         testException();
+        testDataChangeBatch();
         testCoffee();
         deleteDb("batchUpdates");
     }
@@ -143,6 +145,130 @@ public static int updatePrices(@SuppressWarnings("unused") String message, doubl
         return (int) f;
     }
 
+    private void testDataChangeBatch() throws SQLException {
+        deleteDb("batchUpdates");
+        conn = getConnection("batchUpdates");
+        stat = conn.createStatement();
+        stat.execute("create table test(id int primary key, v varchar unique)");
+        prep = conn.prepareStatement("insert into test values(?, ?)");
+        int[] ids = { 5, 3, 4, 3, 1, 2, 6 };
+        String[] values = { "e", "c", "d", "x", "a", "b", "a" };
+        for (int i = 0; i < ids.length; i++) {
+            prep.setInt(1, ids[i]);
+            prep.setString(2, values[i]);
+            prep.addBatch();
+        }
+        try {
+            prep.executeBatch();
+            fail();
+        } catch (BatchUpdateException e) {
+            assertTrue(Arrays.equals(new int[] { 1, 1, 1, Statement.EXECUTE_FAILED, 1, 1, Statement.EXECUTE_FAILED },
+                    e.getUpdateCounts()));
+            assertEquals(ErrorCode.DUPLICATE_KEY_1, e.getErrorCode());
+            SQLException next = e.getNextException();
+            assertContains(next.getMessage(), "PUBLIC.TEST(ID)");
+            next = next.getNextException();
+            assertContains(next.getMessage(), "PUBLIC.TEST(V");
+            assertNull(next.getNextException());
+        }
+        ResultSet rs = stat.executeQuery("select group_concat(id || v order by id) from test");
+        rs.next();
+        assertEquals("1a,2b,3c,4d,5e", rs.getString(1));
+
+        prep = conn.prepareStatement("update test set v = v || ? where id = ?");
+        for (int i = 0; i < 3; i++) {
+            prep.setString(1, Integer.toString(i));
+            prep.setInt(2, 2);
+            prep.addBatch();
+        }
+        prep.setString(1, "z");
+        prep.setInt(2, 10);
+        prep.addBatch();
+        assertTrue(Arrays.equals(new int[] { 1, 1, 1, 0 }, prep.executeBatch()));
+        rs = stat.executeQuery("select v from test where id = 2");
+        rs.next();
+        assertEquals("b012", rs.getString(1));
+
+        prep = conn.prepareStatement("delete from test where id = ?");
+        prep.setInt(1, 4);
+        prep.addBatch();
+        prep.setInt(1, 4);
+        prep.addBatch();
+        assertTrue(Arrays.equals(new int[] { 1, 0 }, prep.executeBatch()));
+
+        stat.execute("create table tree(id int primary key, parent int references tree(id))");
+        prep = conn.prepareStatement("insert into tree values(?, ?)");
+        prep.setInt(1, 2);
+        prep.setObject(2, null);
+        prep.addBatch();
+        prep.setInt(1, 1);
+        prep.setInt(2, 2);
+        prep.addBatch();
+        assertTrue(Arrays.equals(new int[] { 1, 1 }, prep.executeBatch()));
+
+        // rows aren't reordered when another unique index decides which of
+        // them fails
+        stat.execute("create table users(id int primary key, email varchar unique)");
+        prep = conn.prepareStatement("insert into users values(?, ?)");
+        for (int id : new int[] { 2, 1 }) {
+            prep.setInt(1, id);
+            prep.setString(2, "a");
+            prep.addBatch();
+        }
+        try {
+            prep.executeBatch();
+            fail();
+        } catch (BatchUpdateException e) {
+            assertTrue(Arrays.equals(new int[] { 1, Statement.EXECUTE_FAILED }, e.getUpdateCounts()));
+            assertEquals(ErrorCode.DUPLICATE_KEY_1, e.getErrorCode());
+        }
+        rs = stat.executeQuery("select id from users");
+        rs.next();
+        assertEquals(2, rs.getInt(1));
+        assertFalse(rs.next());
+
+        // rows inserted before are visible to subqueries of next rows
+        stat.execute("create table counts(id int primary key, n bigint)");
+        prep = conn.prepareStatement("insert into counts values(?, (select count(*) from counts))");
+        for (int id : new int[] { 3, 1, 2 }) {
+            prep.setInt(1, id);
+            prep.addBatch();
+        }
+        assertTrue(Arrays.equals(new int[] { 1, 1, 1 }, prep.executeBatch()));
+        rs = stat.executeQuery("select group_concat(id || '=' || n order by id) from counts");
+        rs.next();
+        assertEquals("1=1,2=2,3=0", rs.getString(1));
+        stat.execute("create table limited(id int primary key)");
+        stat.execute("alter table limited add check ((select count(*) from limited) < 2) nocheck");
+        prep = conn.prepareStatement("insert into limited values(?)");
+        for (int id = 1; id <= 3; id++) {
+            prep.setInt(1, id);
+            prep.addBatch();
+        }
+        try {
+            prep.executeBatch();
+            fail();
+        } catch (BatchUpdateException e) {
+            assertTrue(Arrays.equals(new int[] { 1, 1, Statement.EXECUTE_FAILED }, e.getUpdateCounts()));
+            assertEquals(ErrorCode.CHECK_CONSTRAINT_VIOLATED_1, e.getErrorCode());
+        }
+
+        conn.setAutoCommit(false);
+        prep = conn.prepareStatement("insert into test values(?, ?)");
+        prep.setInt(1, 7);
+        prep.setString(2, "g");
+        prep.addBatch();
+        prep.setInt(1, 1);
+        prep.setString(2, "h");
+        prep.addBatch();
+        assertThrows(BatchUpdateException.class, prep).executeBatch();
+        conn.rollback();
+        rs = stat.executeQuery("select count(*) from test");
+        rs.next();
+        assertEquals(4, rs.getInt(1));
+        conn.close();
+    }
+
     private void testException() throws SQLException {
         deleteDb("batchUpdates");
         conn = getConnection("batchUpdates");
@@ -20,9 +20,12 @@
 
 import org.h2.api.ErrorCode;
 import org.h2.engine.Constants;
+import org.h2.engine.QueryStatisticsData;
+import org.h2.engine.QueryStatisticsData.QueryEntry;
 import org.h2.mode.DefaultNullOrdering;
 import org.h2.test.TestBase;
 import org.h2.test.TestDb;
+import org.h2.util.Task;
 
 /**
  * Test for the DatabaseMetaData implementation.
@@ -63,6 +66,7 @@ public void test() throws SQLException {
         testClientInfo();
         testQueryStatistics();
         testQueryStatisticsLimit();
+        testQueryStatisticsConcurrent();
     }
 
     private void testUnwrap() throws SQLException {
@@ -1360,6 +1364,11 @@ private void testQueryStatistics() throws SQLException {
         assertEquals("select * from test limit 10", rs.getString("SQL_STATEMENT"));
         assertEquals(count, rs.getInt("EXECUTION_COUNT"));
         assertEquals(config.lazy ? 0 : 10 * count, rs.getInt("CUMULATIVE_ROW_COUNT"));
+        double min = rs.getDouble("MIN_EXECUTION_TIME"), p50 = rs.getDouble("P50_EXECUTION_TIME"),
+                p95 = rs.getDouble("P95_EXECUTION_TIME"), p99 = rs.getDouble("P99_EXECUTION_TIME");
+        assertTrue(min > 0d);
+        assertTrue(min <= p50 && p50 <= p95 && p95 <= p99);
+        assertTrue(p99 <= rs.getDouble("MAX_EXECUTION_TIME"));
         rs.close();
         conn.close();
         deleteDb("metaData");
@@ -1406,4 +1415,57 @@ private void testQueryStatisticsLimit() throws SQLException {
         conn.close();
         deleteDb("metaData");
     }
+
+    private void testQueryStatisticsConcurrent() throws SQLException {
+        deleteDb("metaData");
+        Connection conn = getConnection("metaData");
+        Statement stat = conn.createStatement();
+        stat.execute("SET QUERY_STATISTICS TRUE");
+        int threadCount = 4, count = 1000;
+        Task[] tasks = new Task[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            tasks[i] = new Task() {
+                @Override
+                public void call() throws Exception {
+                    try (Connection c = getConnection("metaData")) {
+                        Statement s = c.createStatement();
+                        for (int j = 0; j < count; j++) {
+                            s.executeQuery("select * from system_range(1, 3)").close();
+                        }
+                    }
+                }
+            }.execute();
+        }
+        for (Task task : tasks) {
+            task.get();
+        }
+        ResultSet rs = stat.executeQuery("select * from INFORMATION_SCHEMA.QUERY_STATISTICS "
+                + "where SQL_STATEMENT = 'select * from system_range(1, 3)'");
+        assertTrue(rs.next());
+        assertEquals(threadCount * count, rs.getInt("EXECUTION_COUNT"));
+        assertEquals(config.lazy ? 0 : 3 * threadCount * count, rs.getLong("CUMULATIVE_ROW_COUNT"));
+        assertFalse(rs.next());
+        conn.close();
+        deleteDb("metaData");
+        // histograms of all threads are merged
+        QueryStatisticsData data = new QueryStatisticsData(10);
+        for (int i = 0; i < threadCount; i++) {
+            tasks[i] = new Task() {
+                @Override
+                public void call() {
+                    for (int j = 0; j < count; j++) {
+                        data.update("q", j % 10 == 0 ? 100_000_000L : 1_000_000L, 1L);
+                    }
+                }
+            }.execute();
+        }
+        for (Task task : tasks) {
+            task.get();
+        }
+        QueryEntry entry = data.getQueries().get(0);
+        assertEquals(threadCount * count, entry.count);
+        assertTrue(Math.abs(entry.executionTimeP50Nanos - 1_000_000L) < 250_000L);
+        assertTrue(Math.abs(entry.executionTimeP95Nanos - 100_000_000L) < 25_000_000L);
+        assertTrue(Math.abs(entry.executionTimeP99Nanos - 100_000_000L) < 25_000_000L);
+    }
 }
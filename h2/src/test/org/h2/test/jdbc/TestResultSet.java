@@ -92,6 +92,7 @@ public void test() throws Exception {
         testColumnLabelColumnName();
         testAbsolute();
         testFetchSize();
+        testPrefetch();
         testOwnUpdates();
         testUpdatePrimaryKey();
         testFindColumn();
@@ -433,6 +434,91 @@ private void testFetchSize() throws SQLException {
         assertEquals(a + 1, b);
     }
 
+    private void testPrefetch() throws SQLException {
+        if (!config.networked) {
+            return;
+        }
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, NAME VARCHAR)");
+        stat.execute("INSERT INTO TEST SELECT X, 'Name ' || X FROM SYSTEM_RANGE(1, 1000)");
+        Statement stat2 = conn.createStatement();
+        for (boolean lazy : new boolean[] { false, true }) {
+            stat.execute("SET LAZY_QUERY_EXECUTION " + lazy);
+            // other commands and results are used while the next rows are
+            // requested in advance
+            stat.setFetchSize(7);
+            stat2.setFetchSize(5);
+            ResultSet rs = stat.executeQuery("SELECT * FROM TEST ORDER BY ID");
+            ResultSet rs2 = null;
+            for (int i = 1; i <= 1000; i++) {
+                assertTrue(rs.next());
+                assertEquals(i, rs.getInt(1));
+                assertEquals("Name " + i, rs.getString(2));
+                if (i % 3 == 0) {
+                    ResultSet rs3 = stat2.executeQuery("SELECT COUNT(*) FROM TEST WHERE ID <= " + i);
+                    assertTrue(rs3.next());
+                    assertEquals(i, rs3.getInt(1));
+                    rs3.close();
+                }
+                if (i == 100) {
+                    rs2 = conn.createStatement().executeQuery("SELECT ID FROM TEST ORDER BY ID DESC");
+                }
+                if (rs2 != null) {
+                    assertTrue(rs2.next());
+                    assertEquals(1100 - i, rs2.getInt(1));
+                }
+            }
+            assertFalse(rs.next());
+            rs2.close();
+            // a result with a pending request is closed
+            rs = stat.executeQuery("SELECT * FROM TEST ORDER BY ID");
+            assertTrue(rs.next());
+            rs.close();
+            rs = stat.executeQuery("SELECT COUNT(*) FROM TEST");
+            assertTrue(rs.next());
+            assertEquals(1000, rs.getInt(1));
+            // a larger fetch size
+            stat.setFetchSize(1000);
+            rs = stat.executeQuery("SELECT ID FROM TEST ORDER BY ID");
+            for (int i = 1; i <= 1000; i++) {
+                assertTrue(rs.next());
+                assertEquals(i, rs.getInt(1));
+            }
+            assertFalse(rs.next());
+        }
+        stat.execute("SET LAZY_QUERY_EXECUTION FALSE");
+        stat.setFetchSize(0);
+        stat2.close();
+        stat.execute("DROP TABLE TEST");
+
+        // the response to the request sent in advance and the next request
+        // are both larger than the socket buffers
+        stat.execute("CREATE TABLE TEST(ID INT PRIMARY KEY, NAME VARCHAR)");
+        String large = new String(new char[1 << 20]).replace('\0', 'x');
+        PreparedStatement prep = conn.prepareStatement("INSERT INTO TEST VALUES(?, ?)");
+        for (int i = 1; i <= 32; i++) {
+            prep.setInt(1, i);
+            prep.setString(2, large);
+            prep.addBatch();
+        }
+        prep.executeBatch();
+        stat.setFetchSize(16);
+        ResultSet rs = stat.executeQuery("SELECT NAME FROM TEST ORDER BY ID");
+        assertTrue(rs.next());
+        for (int i = 101; i <= 132; i++) {
+            prep.setInt(1, i);
+            prep.setString(2, large);
+            prep.addBatch();
+        }
+        prep.executeBatch();
+        for (int i = 2; i <= 32; i++) {
+            assertTrue(rs.next());
+            assertEquals(large.length(), rs.getString(1).length());
+        }
+        assertFalse(rs.next());
+        stat.setFetchSize(0);
+        stat.execute("DROP TABLE TEST");
+    }
+
     private void testOwnUpdates() throws SQLException {
         DatabaseMetaData meta = conn.getMetaData();
         for (int i = 0; i < 3; i++) {
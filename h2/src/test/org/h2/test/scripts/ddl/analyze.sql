@@ -65,3 +65,48 @@ SELECT SELECTIVITY FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = 'TEST' AND
 
 DROP TABLE TEST;
 > ok
+
+CREATE TABLE TEST(ID INT PRIMARY KEY, S VARCHAR, V INT);
+> ok
+
+INSERT INTO TEST SELECT X, CASE WHEN X <= 900 THEN 'ACTIVE' WHEN X = 901 THEN 'ERROR' ELSE 'X' || X END, MOD(X, 50)
+    FROM SYSTEM_RANGE(1, 1000);
+> update count: 1000
+
+CREATE INDEX IDX_S ON TEST(S);
+> ok
+
+CREATE INDEX IDX_V ON TEST(V);
+> ok
+
+EXPLAIN SELECT * FROM TEST WHERE S = 'ACTIVE' AND V = 5;
+>> SELECT "PUBLIC"."TEST"."ID", "PUBLIC"."TEST"."S", "PUBLIC"."TEST"."V" FROM "PUBLIC"."TEST" /* PUBLIC.IDX_S: S = 'ACTIVE' */ WHERE ("S" = 'ACTIVE') AND ("V" = 5)
+
+ANALYZE TABLE TEST;
+> ok
+
+EXPLAIN SELECT * FROM TEST WHERE S = 'ACTIVE' AND V = 5;
+>> SELECT "PUBLIC"."TEST"."ID", "PUBLIC"."TEST"."S", "PUBLIC"."TEST"."V" FROM "PUBLIC"."TEST" /* PUBLIC.IDX_V: V = 5 */ WHERE ("S" = 'ACTIVE') AND ("V" = 5)
+
+EXPLAIN SELECT * FROM TEST WHERE S = 'ERROR' AND V = 5;
+>> SELECT "PUBLIC"."TEST"."ID", "PUBLIC"."TEST"."S", "PUBLIC"."TEST"."V" FROM "PUBLIC"."TEST" /* PUBLIC.IDX_S: S = 'ERROR' */ WHERE ("S" = 'ERROR') AND ("V" = 5)
+
+EXPLAIN SELECT * FROM TEST WHERE ID > 10 AND V = 5;
+>> SELECT "PUBLIC"."TEST"."ID", "PUBLIC"."TEST"."S", "PUBLIC"."TEST"."V" FROM "PUBLIC"."TEST" /* PUBLIC.IDX_V: V = 5 */ WHERE ("ID" > 10) AND ("V" = 5)
+
+EXPLAIN SELECT * FROM TEST WHERE ID > 990 AND V = 5;
+>> SELECT "PUBLIC"."TEST"."ID", "PUBLIC"."TEST"."S", "PUBLIC"."TEST"."V" FROM "PUBLIC"."TEST" /* PUBLIC.PRIMARY_KEY_2: ID > 990 */ WHERE ("ID" > 990) AND ("V" = 5)
+
+@reconnect
+
+EXPLAIN SELECT * FROM TEST WHERE S = 'ACTIVE' AND V = 5;
+>> SELECT "PUBLIC"."TEST"."ID", "PUBLIC"."TEST"."S", "PUBLIC"."TEST"."V" FROM "PUBLIC"."TEST" /* PUBLIC.IDX_V: V = 5 */ WHERE ("S" = 'ACTIVE') AND ("V" = 5)
+
+ALTER TABLE TEST ALTER COLUMN S SELECTIVITY 10;
+> ok
+
+EXPLAIN SELECT * FROM TEST WHERE S = 'ACTIVE' AND V = 5;
+>> SELECT "PUBLIC"."TEST"."ID", "PUBLIC"."TEST"."S", "PUBLIC"."TEST"."V" FROM "PUBLIC"."TEST" /* PUBLIC.IDX_S: S = 'ACTIVE' */ WHERE ("S" = 'ACTIVE') AND ("V" = 5)
+
+DROP TABLE TEST;
+> ok
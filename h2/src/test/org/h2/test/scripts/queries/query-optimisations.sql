@@ -135,7 +135,7 @@ SELECT T1.A FROM TEST T1 LEFT OUTER JOIN TEST T2 ON T1.B = T2.A WHERE (SELECT T2
 >> 1
 
 EXPLAIN SELECT T1.A FROM TEST T1 LEFT OUTER JOIN TEST T2 ON T1.B = T2.A WHERE (SELECT T2.C) IS NOT NULL ORDER BY T1.A;
->> SELECT "T1"."A" FROM "PUBLIC"."TEST" "T1" /* PUBLIC.TEST.tableScan */ LEFT OUTER JOIN "PUBLIC"."TEST" "T2" /* PUBLIC.TEST.tableScan */ ON "T1"."B" = "T2"."A" WHERE "T2"."C" IS NOT NULL ORDER BY 1
+>> SELECT "T1"."A" FROM "PUBLIC"."TEST" "T1" /* PUBLIC.TEST.tableScan */ LEFT OUTER JOIN "PUBLIC"."TEST" "T2" /* PUBLIC.TEST.hashJoin: A = T1.B */ ON "T1"."B" = "T2"."A" WHERE "T2"."C" IS NOT NULL ORDER BY 1
 
 SELECT X, (SELECT X IN (SELECT B FROM TEST)) FROM SYSTEM_RANGE(1, 2);
 > X X IN( SELECT DISTINCT B FROM PUBLIC.TEST)
@@ -148,7 +148,7 @@ SELECT T1.A FROM TEST T1 LEFT OUTER JOIN TEST T2 ON T1.B = T2.A WHERE (SELECT T2
 >> 1
 
 EXPLAIN SELECT T1.A FROM TEST T1 LEFT OUTER JOIN TEST T2 ON T1.B = T2.A WHERE (SELECT T2.C + ROWNUM) IS NOT NULL ORDER BY T1.A;
->> SELECT "T1"."A" FROM "PUBLIC"."TEST" "T1" /* PUBLIC.TEST.tableScan */ LEFT OUTER JOIN "PUBLIC"."TEST" "T2" /* PUBLIC.TEST.tableScan */ ON "T1"."B" = "T2"."A" WHERE ("T2"."C" + CAST(1 AS BIGINT)) IS NOT NULL ORDER BY 1
+>> SELECT "T1"."A" FROM "PUBLIC"."TEST" "T1" /* PUBLIC.TEST.tableScan */ LEFT OUTER JOIN "PUBLIC"."TEST" "T2" /* PUBLIC.TEST.hashJoin: A = T1.B */ ON "T1"."B" = "T2"."A" WHERE ("T2"."C" + CAST(1 AS BIGINT)) IS NOT NULL ORDER BY 1
 
 DROP TABLE TEST;
 > ok
@@ -329,7 +329,7 @@ SELECT * FROM T1 JOIN T2 USING(ID) WHERE (C1, C2) IN ((1, 1), (1, 3));
 > rows: 1
 
 EXPLAIN SELECT * FROM T1 JOIN T2 USING(ID) WHERE (C1, C2) IN ((1, 1), (1, 3));
->> SELECT "PUBLIC"."T1"."ID", "PUBLIC"."T2"."C1", "PUBLIC"."T2"."C2" FROM "PUBLIC"."T2" /* PUBLIC.T2_C1_C2_IDX: IN(ROW (1, 1), ROW (1, 3)) */ /* WHERE ROW (C1, C2) IN(ROW (1, 1), ROW (1, 3)) */ INNER JOIN "PUBLIC"."T1" /* PUBLIC.T1.tableScan */ ON 1=1 WHERE (ROW ("C1", "C2") IN(ROW (1, 1), ROW (1, 3))) AND ("PUBLIC"."T1"."ID" = "PUBLIC"."T2"."ID")
+>> SELECT "PUBLIC"."T1"."ID", "PUBLIC"."T2"."C1", "PUBLIC"."T2"."C2" FROM "PUBLIC"."T2" /* PUBLIC.T2_C1_C2_IDX: IN(ROW (1, 1), ROW (1, 3)) */ /* WHERE ROW (C1, C2) IN(ROW (1, 1), ROW (1, 3)) */ INNER JOIN "PUBLIC"."T1" /* PUBLIC.T1.hashJoin: ID = PUBLIC.T2.ID */ ON 1=1 WHERE (ROW ("C1", "C2") IN(ROW (1, 1), ROW (1, 3))) AND ("PUBLIC"."T1"."ID" = "PUBLIC"."T2"."ID")
 
 DROP TABLE T1, T2;
 > ok
@@ -28,12 +28,15 @@ public static void main(String... a) throws Exception {
 
     @Override
     public void test() throws Exception {
-        testConcurrent();
+        testConcurrent(0);
+        testConcurrent(16);
+        testConcurrentGetEvict();
     }
 
-    private void testConcurrent() {
+    private void testConcurrent(int readBufferSize) {
         CacheLongKeyLIRS.Config cc = new CacheLongKeyLIRS.Config();
         cc.maxMemory = 100;
+        cc.readBufferSize = readBufferSize;
         final CacheLongKeyLIRS<Integer> test = new CacheLongKeyLIRS<>(cc);
         int threadCount = 8;
         final CountDownLatch wait = new CountDownLatch(1);
@@ -89,6 +92,59 @@ public void call() throws Exception {
             totalCount += x;
         }
         trace("requests: " + totalCount);
+        assertEquals(totalCount, test.getHits() + test.getMisses());
+        assertTrue(test.getUsedMemory() <= cc.maxMemory);
+    }
+
+    private void testConcurrentGetEvict() {
+        CacheLongKeyLIRS.Config cc = new CacheLongKeyLIRS.Config();
+        // room for 16 entries
+        cc.maxMemory = 16 * (1 + CacheLongKeyLIRS.getMemoryOverhead());
+        cc.segmentCount = 1;
+        cc.stackMoveDistance = 0;
+        cc.readBufferSize = 2;
+        final CacheLongKeyLIRS<Integer> test = new CacheLongKeyLIRS<>(cc);
+        // strongly referenced, so that non-resident entries keep their values
+        // and become resident again on access
+        final Integer[] values = new Integer[64];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+            test.put(i, values[i], 1);
+        }
+        int threadCount = 8;
+        final AtomicBoolean stopped = new AtomicBoolean();
+        Task[] tasks = new Task[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            final int x = i;
+            Task t = new Task() {
+                @Override
+                public void call() {
+                    Random random = new Random(x);
+                    while (!stopped.get()) {
+                        int key = random.nextInt(values.length);
+                        if (x == 0) {
+                            test.put(key, values[key], 1);
+                        } else {
+                            Integer v = test.get(key);
+                            if (v != null && v.intValue() != key) {
+                                throw new IllegalStateException(key + " " + v);
+                            }
+                        }
+                    }
+                }
+            };
+            t.execute("t" + i);
+            tasks[i] = t;
+        }
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        stopped.set(true);
+        for (Task t : tasks) {
+            t.get();
+        }
     }
 
 }
@@ -46,6 +46,7 @@ private void testCache() {
         testLimitMemory();
         testScanResistance();
         testRandomOperations();
+        testReadBuffer();
     }
 
     private void testRandomSmallCache() {
@@ -458,6 +459,39 @@ private void testRandomOperations() {
         }
     }
 
+    private void testReadBuffer() {
+        Random r = new Random(1);
+        for (int j = 0; j < 20; j++) {
+            CacheLongKeyLIRS<Integer> test = createCache(50 * 16, 50);
+            CacheLongKeyLIRS.Config cc = new CacheLongKeyLIRS.Config();
+            cc.maxMemory = 50 * 16 + 50 * MEMORY_OVERHEAD;
+            cc.segmentCount = 1;
+            cc.stackMoveDistance = 0;
+            cc.readBufferSize = 4;
+            CacheLongKeyLIRS<Integer> buffered = new CacheLongKeyLIRS<>(cc);
+            for (int i = 0; i < 5000; i++) {
+                int key = r.nextInt(100);
+                int op = r.nextInt(10);
+                if (op == 0) {
+                    test.put(key, i);
+                    buffered.put(key, i);
+                } else if (op == 1) {
+                    test.remove(key);
+                    buffered.remove(key);
+                } else {
+                    assertEquals(test.get(key), buffered.get(key));
+                }
+                if (i % 37 == 0) {
+                    // applies the buffered accesses
+                    buffered.keys(false, false);
+                    assertEquals(toString(test), toString(buffered));
+                }
+            }
+            assertEquals(test.getHits(), buffered.getHits());
+            assertEquals(test.getMisses(), buffered.getMisses());
+        }
+    }
+
     private static <V> String toString(CacheLongKeyLIRS<V> cache) {
         StringBuilder buff = new StringBuilder();
         buff.append("mem: " + cache.getUsedMemory());
@@ -55,6 +55,7 @@ public void test() {
         testSimple();
         testRandom();
         testRandomFind();
+        testBulkLoad();
     }
 
     private void testRemoveAll() {
@@ -367,6 +368,73 @@ private void testRandomFind() {
         }
     }
 
+    private void testBulkLoad() {
+        String fileName = getBaseDir() + "/" + getTestName();
+        FileUtils.delete(fileName);
+        Random r = new Random(1);
+        int size = 20_000;
+        ArrayList<Spatial> keys = new ArrayList<>(size);
+        ArrayList<Integer> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            float x = r.nextFloat() * 1000, y = r.nextFloat() * 1000;
+            keys.add(new SpatialKey(i, x, x + r.nextFloat(), y, y + r.nextFloat()));
+            values.add(i);
+        }
+        double insertedOverlap;
+        try (MVStore s = openStore(null)) {
+            MVRTreeMap<Integer> m = s.openMap("data", new MVRTreeMap.Builder<>());
+            for (int i = 0; i < size; i++) {
+                m.add(keys.get(i), values.get(i));
+            }
+            insertedOverlap = m.getNodeOverlap();
+        }
+        try (MVStore s = openStore(fileName)) {
+            MVRTreeMap<Integer> m = s.openMap("data", new MVRTreeMap.Builder<>());
+            m.bulkLoad(keys, values);
+            assertEquals(size, m.sizeAsLong());
+            double overlap = m.getNodeOverlap();
+            assertTrue(overlap + " " + insertedOverlap, overlap < insertedOverlap);
+            assertEquals(overlap, m.getNodeOverlap());
+            // the cached overlap is dropped on changes
+            m.add(new SpatialKey(size + 1, 0, 1000, 0, 1000), -2);
+            double changedOverlap = m.getNodeOverlap();
+            assertTrue(changedOverlap + " " + overlap, changedOverlap > overlap);
+            assertEquals(m.cloneIt().getNodeOverlap(), changedOverlap);
+            assertEquals(-2, m.remove(new SpatialKey(size + 1, 0, 1000, 0, 1000)).intValue());
+            // adding to a non-empty map inserts the entries one by one
+            m.bulkLoad(Collections.singletonList(new SpatialKey(size, 1, 2, 1, 2)), Collections.singletonList(-1));
+            assertEquals(-1, m.get(new SpatialKey(size, 1, 2, 1, 2)).intValue());
+            assertEquals(0, m.remove(keys.get(0)).intValue());
+            s.commit();
+        }
+        try (MVStore s = openStore(fileName)) {
+            MVRTreeMap<Integer> m = s.openMap("data", new MVRTreeMap.Builder<>());
+            assertEquals(size, m.sizeAsLong());
+            for (int i = 0; i < 100; i++) {
+                float x = r.nextFloat() * 1000, y = r.nextFloat() * 1000;
+                Spatial k = new SpatialKey(0, x, x + 20, y, y + 20);
+                int expected = 0;
+                for (int j = 1; j < size; j++) {
+                    Spatial e = keys.get(j);
+                    if (e.min(0) <= k.max(0) && e.max(0) >= k.min(0) && e.min(1) <= k.max(1)
+                            && e.max(1) >= k.min(1)) {
+                        expected++;
+                    }
+                }
+                int count = 0;
+                for (Iterator<Spatial> it = m.findIntersectingKeys(k); it.hasNext();) {
+                    Spatial e = it.next();
+                    assertEquals(e.getId() == size ? -1 : (int) e.getId(), m.get(e).intValue());
+                    count++;
+                }
+                if (k.min(0) <= 2 && k.min(1) <= 2) {
+                    expected++;
+                }
+                assertEquals(expected, count);
+            }
+        }
+    }
+
     private void testRandom(boolean quadraticSplit) {
         String fileName = getBaseDir() + "/" + getTestName();
         FileUtils.delete(fileName);
@@ -5,9 +5,11 @@
  */
 package org.h2.test.store;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -27,11 +29,14 @@
 import org.h2.mvstore.OffHeapStore;
 import org.h2.mvstore.RandomAccessStore;
 import org.h2.mvstore.type.DataType;
+import org.h2.mvstore.type.LongDataType;
 import org.h2.mvstore.type.ObjectDataType;
 import org.h2.mvstore.type.StringDataType;
 import org.h2.store.fs.FilePath;
 import org.h2.store.fs.FileUtils;
 import org.h2.test.TestBase;
+import org.h2.test.utils.FilePathDebug;
+import org.h2.util.IOUtils;
 import org.h2.util.Utils;
 
 /**
@@ -61,6 +66,9 @@ public void test() throws Exception {
         testEntrySet();
         testCompressEmptyPage();
         testCompressed();
+        testParallelSerialization();
+        testPrimitiveLongKeys();
+        testAppendAll();
         testFileFormatExample();
         testMaxChunkLength();
         testCacheInfo();
@@ -77,6 +85,7 @@ public void test() throws Exception {
         testAtomicOperations();
         testWriteBuffer();
         testWriteDelay();
+        testSyncWithBackgroundWrite();
         testEncryptedFile();
         testFileFormatChange();
         testRecreateMap();
@@ -264,6 +273,136 @@ private void testCompressed() {
         }
     }
 
+    private void testParallelSerialization() {
+        String fileName = getBaseDir() + "/" + getTestName();
+        for (int level = 0; level <= 2; level++) {
+            long lastSize = 0;
+            for (int threads = 1; threads <= 4; threads += 3) {
+                FileUtils.delete(fileName);
+                MVStore.Builder builder = new MVStore.Builder().fileName(fileName).
+                        autoCommitDisabled().serializationThreads(threads);
+                if (level == 1) {
+                    builder.compress();
+                } else if (level == 2) {
+                    builder.compressHigh();
+                }
+                try (MVStore s = builder.open()) {
+                    MVMap<Integer, String> map = s.openMap("data");
+                    for (int i = 0; i < 20_000; i++) {
+                        map.put(i, "Hello " + i);
+                    }
+                    s.commit();
+                    for (int i = 0; i < 20_000; i += 3) {
+                        map.put(i, "World " + i);
+                    }
+                    s.commit();
+                }
+                long size = FileUtils.size(fileName);
+                if (threads > 1) {
+                    assertEquals(lastSize, size);
+                }
+                lastSize = size;
+                try (MVStore s = new MVStore.Builder().fileName(fileName).open()) {
+                    MVMap<Integer, String> map = s.openMap("data");
+                    assertEquals(20_000, map.size());
+                    for (int i = 0; i < 20_000; i++) {
+                        assertEquals((i % 3 == 0 ? "World " : "Hello ") + i, map.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    private void testPrimitiveLongKeys() {
+        String fileName = getBaseDir() + "/" + getTestName();
+        FileUtils.delete(fileName);
+        try (MVStore s = new MVStore.Builder().fileName(fileName).open()) {
+            MVMap<Long, String> map = s.openMap("data", new MVMap.Builder<Long, String>().
+                    keyType(LongDataType.INSTANCE).valueType(StringDataType.INSTANCE).primitiveLongKeys());
+            assertTrue(map.isPrimitiveLongKeys());
+            for (long i = 0; i < 10_000; i++) {
+                map.put(i * 2, "Hello " + i);
+            }
+            for (long i = 0; i < 10_000; i += 3) {
+                map.remove(i * 2);
+            }
+            s.commit();
+            MVMap<Long, String> appendMap = s.openMap("append", new MVMap.Builder<Long, String>().
+                    keyType(LongDataType.INSTANCE).valueType(StringDataType.INSTANCE).
+                    primitiveLongKeys().singleWriter());
+            for (long i = 0; i < 1_000; i++) {
+                appendMap.append(i, "World " + i);
+            }
+        }
+        for (int primitive = 0; primitive < 2; primitive++) {
+            try (MVStore s = new MVStore.Builder().fileName(fileName).open()) {
+                MVMap.Builder<Long, String> builder = new MVMap.Builder<Long, String>().
+                        keyType(LongDataType.INSTANCE).valueType(StringDataType.INSTANCE);
+                if (primitive == 1) {
+                    builder.primitiveLongKeys();
+                }
+                MVMap<Long, String> map = s.openMap("data", builder);
+                assertEquals(10_000 - 3_334, map.size());
+                for (long i = 0; i < 10_000; i++) {
+                    assertEquals(i % 3 == 0 ? null : "Hello " + i, map.get(i * 2));
+                    assertNull(map.get(i * 2 + 1));
+                }
+                assertEquals(2L, map.firstKey().longValue());
+                assertEquals(19_996L, map.lowerKey(19_997L).longValue());
+                MVMap<Long, String> appendMap = s.openMap("append", builder);
+                assertEquals(1_000, appendMap.size());
+                assertEquals("World 999", appendMap.get(999L));
+            }
+        }
+        try (MVStore s = new MVStore.Builder().open()) {
+            s.openMap("data", new MVMap.Builder<String, String>().
+                    keyType(StringDataType.INSTANCE).primitiveLongKeys());
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private void testAppendAll() {
+        String fileName = getBaseDir() + "/" + getTestName();
+        FileUtils.delete(fileName);
+        Random r = new Random(1);
+        try (MVStore s = new MVStore.Builder().fileName(fileName).keysPerPage(8).autoCommitDisabled().open()) {
+            MVMap<Integer, String> map = s.openMap("data");
+            for (int i = 0; i < 20_000;) {
+                int count = Math.min(1 + r.nextInt(50), 20_000 - i);
+                ArrayList<Integer> keys = new ArrayList<>(count);
+                ArrayList<String> values = new ArrayList<>(count);
+                for (int j = 0; j < count; j++, i++) {
+                    keys.add(i * 2);
+                    values.add("Hello " + i);
+                }
+                map.appendAll(keys, values);
+                if (r.nextInt(20) == 0) {
+                    s.commit();
+                }
+            }
+            assertEquals(20_000, map.size());
+            map.put(1, "One");
+            map.remove(2);
+            s.commit();
+        }
+        try (MVStore s = new MVStore.Builder().fileName(fileName).open()) {
+            MVMap<Integer, String> map = s.openMap("data");
+            assertEquals(20_000, map.size());
+            assertEquals("One", map.get(1));
+            assertNull(map.get(2));
+            int expected = 0;
+            for (Integer key : map.keySet()) {
+                assertEquals(expected, key.intValue());
+                expected = expected == 0 ? 1 : expected == 1 ? 4 : expected + 2;
+            }
+            assertEquals(40_000, expected);
+            assertEquals("Hello 9999", map.get(19_998));
+            assertEquals(8_999, map.getKeyIndex(17_998));
+        }
+    }
+
     private void testFileFormatExample() {
         String fileName = getBaseDir() + "/" + getTestName();
         FileUtils.delete(fileName);
@@ -612,6 +751,37 @@ private void testWriteBuffer() {
         FileUtils.delete(fileName);
     }
 
+    private void testSyncWithBackgroundWrite() throws IOException {
+        String fileName = getBaseDir() + "/" + getTestName();
+        String copyName = fileName + ".copy";
+        FileUtils.createDirectories(getBaseDir());
+        FileUtils.delete(fileName);
+        FileUtils.delete(copyName);
+        FilePathDebug fs = FilePathDebug.register();
+        try (MVStore s = new MVStore.Builder().fileName("debug:" + fileName).open()) {
+            MVMap<Integer, String> m = s.openMap("data");
+            m.put(1, "Hello");
+            fs.setWriteDelay(300);
+            try {
+                // the chunk is written by the background threads
+                s.tryCommit();
+                // nothing to store, the chunk of the previous commit must be
+                // written before the file is synced
+                s.commit();
+                s.sync();
+                IOUtils.copyFiles(fileName, copyName);
+            } finally {
+                fs.setWriteDelay(0);
+            }
+        }
+        try (MVStore s = new MVStore.Builder().fileName(copyName).readOnly().open()) {
+            MVMap<Integer, String> m = s.openMap("data");
+            assertEquals("Hello", m.get(1));
+        }
+        FileUtils.delete(fileName);
+        FileUtils.delete(copyName);
+    }
+
     private void testWriteDelay() {
         String fileName = getBaseDir() + "/" + getTestName();
         FileUtils.delete(fileName);
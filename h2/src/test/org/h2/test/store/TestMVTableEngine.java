@@ -25,12 +25,15 @@
 import org.h2.api.ErrorCode;
 import org.h2.engine.Constants;
 import org.h2.engine.Database;
+import org.h2.engine.SessionLocal;
 import org.h2.jdbc.JdbcConnection;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
 import org.h2.mvstore.db.LobStorageMap;
+import org.h2.mvstore.db.MVPrimaryIndex;
 import org.h2.mvstore.tx.TransactionStore;
 import org.h2.store.fs.FileUtils;
+import org.h2.table.Table;
 import org.h2.test.TestBase;
 import org.h2.test.TestDb;
 import org.h2.tools.Recover;
@@ -98,6 +101,9 @@ public void test() throws Exception {
         testReuseDiskSpace();
 */
         testDataTypes();
+        testWideTableReopen();
+        testDurableCommit();
+        testPrimitiveLongKeys();
 //        testSimple();
 //        if (!config.travis) {
 //            testReverseDeletePerformance();
@@ -569,6 +575,53 @@ private void testMinMaxWithNull() throws Exception {
         }
     }
 
+    private void testWideTableReopen() throws Exception {
+        deleteDb(getTestName());
+        String url = getURL(getTestName(), true);
+        try (Connection conn = getConnection(url)) {
+            Statement stat = conn.createStatement();
+            stat.execute("create table test(id int primary key, a varchar, b bigint, c double, d date, "
+                    + "e timestamp with time zone, f numeric(20, 5), g int array, h row(x int, y varchar), "
+                    + "i uuid, j interval day to second, k boolean, l varbinary, m json, n clob)");
+            stat.execute("insert into test select x, 'name \u00e4\u20ac' || x, x * 1000000000, x / 3.0, "
+                    + "dateadd(day, x, date '2020-01-01'), timestamp with time zone '2020-01-01 10:00:00+03:30', x / 7, "
+                    + "array[x, null], row(cast(x as int), 'y' || x), random_uuid(), interval '1 02:03:04.5' day to second, "
+                    + "x % 2 = 0, cast(x as varbinary), json '[1, {\"a\": null}]', repeat('c', x) "
+                    + "from system_range(1, 500)");
+            stat.execute("insert into test(id) values 1000");
+        }
+        try (Connection conn = getConnection(url)) {
+            Statement stat = conn.createStatement();
+            ResultSet rs = stat.executeQuery("select id, h, n, a from test where id in (7, 1000) order by id");
+            assertTrue(rs.next());
+            assertEquals(7, rs.getInt(1));
+            assertEquals("ROW (7, y7)", rs.getString(2));
+            assertEquals("ccccccc", rs.getString(3));
+            assertEquals("name \u00e4\u20ac7", rs.getString(4));
+            assertTrue(rs.next());
+            assertEquals(1000, rs.getInt(1));
+            assertNull(rs.getString(2));
+            assertNull(rs.getString(4));
+            assertFalse(rs.next());
+            rs = stat.executeQuery("select sum(b), count(i), sum(array_length(g)), count(m), sum(length(l)), "
+                    + "count(distinct e), max(j), sum(f) from test");
+            assertTrue(rs.next());
+            assertEquals(125_250_000_000_000L, rs.getLong(1));
+            assertEquals(500, rs.getInt(2));
+            assertEquals(1000, rs.getInt(3));
+            assertEquals(500, rs.getInt(4));
+            assertEquals(500 * 8, rs.getInt(5));
+            assertEquals(1, rs.getInt(6));
+            assertEquals("INTERVAL '1 02:03:04.5' DAY TO SECOND", rs.getString(7));
+            stat.execute("update test set a = 'changed' where id = 7");
+            rs = stat.executeQuery("select a, d from test where id = 7");
+            assertTrue(rs.next());
+            assertEquals("changed", rs.getString(1));
+            assertEquals("2020-01-08", rs.getString(2));
+        }
+        deleteDb(getTestName());
+    }
+
     private void testTimeout() throws Exception {
         Statement stat;
         Statement stat2;
@@ -967,6 +1020,81 @@ private void testWriteDelay() throws Exception {
         conn.close();
     }
 
+    private void testPrimitiveLongKeys() throws Exception {
+        if (config.memory || config.networked) {
+            return;
+        }
+        deleteDb(getTestName());
+        String dbName = getTestName();
+        try (Connection conn = getConnection(dbName)) {
+            Statement stat = conn.createStatement();
+            stat.execute("create table test(id bigint primary key, name varchar)");
+            stat.execute("insert into test select x, 'Hello ' || x from system_range(1, 10000)");
+            assertTrue(getPrimaryMap(conn, "TEST").isPrimitiveLongKeys());
+        }
+        try (Connection conn = getConnection(dbName)) {
+            assertTrue(getPrimaryMap(conn, "TEST").isPrimitiveLongKeys());
+            Statement stat = conn.createStatement();
+            stat.execute("delete from test where mod(id, 3) = 0");
+            ResultSet rs = stat.executeQuery("select count(*), sum(id) from test where id > 5000");
+            assertTrue(rs.next());
+            assertEquals(3333, rs.getInt(1));
+            assertEquals(25_000_000L, rs.getLong(2));
+            rs = stat.executeQuery("select name from test where id = 9998");
+            assertTrue(rs.next());
+            assertEquals("Hello 9998", rs.getString(1));
+        }
+    }
+
+    private static MVMap<Long, ?> getPrimaryMap(Connection conn, String tableName) {
+        SessionLocal session = (SessionLocal) ((JdbcConnection) conn).getSession();
+        Table table = session.getDatabase().getMainSchema().getTableOrView(session, tableName);
+        return ((MVPrimaryIndex) table.getScanIndex(session)).getMVMap();
+    }
+
+    private void testDurableCommit() throws Exception {
+        if (config.memory) {
+            return;
+        }
+        deleteDb(getTestName());
+        String url = getTestName() + ";DURABLE_COMMIT=TRUE";
+        Connection conn = getConnection(url);
+        Statement stat = conn.createStatement();
+        stat.execute("create table test(id int primary key, name varchar)");
+        stat.execute("set write_delay 1000000");
+        int threadCount = 4, rowCount = 50;
+        Connection[] connections = new Connection[threadCount];
+        Task[] tasks = new Task[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            int start = i * rowCount;
+            PreparedStatement prep = (connections[i] = getConnection(url))
+                    .prepareStatement("insert into test values(?, 'Hello')");
+            tasks[i] = new Task() {
+                @Override
+                public void call() throws Exception {
+                    for (int j = start; j < start + rowCount; j++) {
+                        prep.setInt(1, j);
+                        prep.execute();
+                    }
+                }
+            }.execute();
+        }
+        for (Task t : tasks) {
+            t.get();
+        }
+        stat.execute("shutdown immediately");
+        IOUtils.closeSilently(conn);
+        for (Connection c : connections) {
+            IOUtils.closeSilently(c);
+        }
+        conn = getConnection(url);
+        stat = conn.createStatement();
+        ResultSet rs = stat.executeQuery("select count(*) from test");
+        rs.next();
+        assertEquals(threadCount * rowCount, rs.getInt(1));
+        conn.close();
+    }
+
     private void testAutoCommit() throws SQLException {
         Connection conn;
         Statement stat;
@@ -93,6 +93,9 @@ public void test() throws Exception {
         try {
             testFileSystem("cache:" + getBaseDir() + "/fs");
             testFileSystem("nioMapped:" + getBaseDir() + "/fs");
+            // segments of 1 KB
+            testFileSystem("nioMapped:10:" + getBaseDir() + "/fs");
+            testConcurrentTruncate("nioMapped:10:" + getBaseDir() + "/fs");
             testFileSystem("encrypt:0007:" + getBaseDir() + "/fs");
             testFileSystem("cache:encrypt:0007:" + getBaseDir() + "/fs");
             if (!config.splitFileSystem) {
@@ -710,6 +713,43 @@ private void testTempFile(String fsBase) throws Exception {
         FileUtils.delete(s);
     }
 
+    private void testConcurrentTruncate(String fsBase) throws Exception {
+        String s = FileUtils.createTempFile(fsBase + "/tmp", ".tmp", false);
+        FileChannel f = FileUtils.open(s, "rw");
+        int size = 64 * 1024;
+        f.write(ByteBuffer.allocate(size));
+        Task task = new Task() {
+            @Override
+            public void call() throws Exception {
+                ByteBuffer byteBuff = ByteBuffer.allocate(3000);
+                Random random = new Random(1);
+                try {
+                    while (!stop) {
+                        byteBuff.clear();
+                        // positions after the end of file are allowed
+                        f.read(byteBuff, random.nextInt(size));
+                    }
+                } catch (InternalError e) {
+                    // access to an unmapped segment
+                    throw new Exception(e);
+                }
+            }
+        };
+        task.execute();
+        try {
+            Random random = new Random(2);
+            for (int i = 0; i < 1000; i++) {
+                f.truncate(random.nextInt(size));
+                f.write(ByteBuffer.allocate(10), size - 10);
+                assertEquals(size, f.size());
+            }
+        } finally {
+            task.get();
+            f.close();
+            FileUtils.delete(s);
+        }
+    }
+
     private void testConcurrent(String fsBase) throws Exception {
         String s = FileUtils.createTempFile(fsBase + "/tmp", ".tmp", false);
         File file = new File(TestBase.BASE_TEST_DIR + "/tmp");
@@ -5,8 +5,14 @@
  */
 package org.h2.test.unit;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.Date;
@@ -71,6 +77,7 @@ public void test() throws Exception {
         testPrepareWithUnspecifiedType();
         testOtherPgClients();
         testArray();
+        testCopy();
     }
 
     private boolean getPgJdbcDriver() {
@@ -910,4 +917,145 @@ private void testArray() throws Exception {
         }
     }
 
+    private void testCopy() throws Exception {
+        if (!getPgJdbcDriver()) {
+            return;
+        }
+        Server server = createPgServer(
+                "-ifNotExists", "-pgPort", "5535", "-pgDaemon", "-key", "pgserver", "mem:pgserver");
+        try (
+                Connection conn = DriverManager.getConnection(
+                        "jdbc:postgresql://localhost:5535/pgserver", "sa", "sa");
+                Statement stat = conn.createStatement();
+        ) {
+            stat.execute("CREATE TABLE test(id INT PRIMARY KEY, name VARCHAR, d DATE, v NUMERIC(10, 2))");
+            String text = "1\tHello\t2020-01-02\t1.50\n"
+                    + "2\tTab\\there\t\\N\t\\N\n"
+                    + "3\t\\\\N\t\\N\t-2.25\n";
+            assertEquals(3L, copyIn(conn, "COPY test FROM STDIN", text + "\\.\n"));
+            try (ResultSet rs = stat.executeQuery("SELECT * FROM test ORDER BY id")) {
+                assertTrue(rs.next());
+                assertEquals("Hello", rs.getString(2));
+                assertEquals("2020-01-02", rs.getString(3));
+                assertEquals(new BigDecimal("1.50"), rs.getBigDecimal(4));
+                assertTrue(rs.next());
+                assertEquals("Tab\there", rs.getString(2));
+                assertNull(rs.getString(3));
+                assertTrue(rs.next());
+                assertEquals("\\N", rs.getString(2));
+                assertFalse(rs.next());
+            }
+            assertEquals(text, copyOut(conn, "COPY test TO STDOUT"));
+
+            String csv = "4,\"a,b\"\n"
+                    + "5,\n"
+                    + "6,\"\"\n"
+                    + "7,\"multi\nline \"\"q\"\"\"\n";
+            assertEquals(4L, copyIn(conn, "COPY test (id, name) FROM STDIN WITH (FORMAT CSV, HEADER)",
+                    "id,name\r\n" + csv));
+            try (ResultSet rs = stat.executeQuery("SELECT name FROM test WHERE id >= 4 ORDER BY id")) {
+                assertTrue(rs.next());
+                assertEquals("a,b", rs.getString(1));
+                assertTrue(rs.next());
+                assertNull(rs.getString(1));
+                assertTrue(rs.next());
+                assertEquals("", rs.getString(1));
+                assertTrue(rs.next());
+                assertEquals("multi\nline \"q\"", rs.getString(1));
+            }
+            assertEquals("id,name\n" + csv,
+                    copyOut(conn, "COPY (SELECT id, name FROM test WHERE id >= 4 ORDER BY id) TO STDOUT CSV HEADER"));
+            assertEquals("4;a,b;-\n", copyOut(conn,
+                    "COPY (SELECT id, name, d FROM test WHERE id = 4) TO STDOUT WITH DELIMITER ';' NULL '-'"));
+
+            stat.execute("CREATE TABLE test2 AS SELECT * FROM test WITH NO DATA");
+            byte[] binary = copyOutBytes(conn, "COPY test TO STDOUT (FORMAT BINARY)");
+            assertEquals(7L, copyIn(conn, "COPY test2 FROM STDIN (FORMAT BINARY)", binary));
+            try (ResultSet rs = stat.executeQuery("SELECT COUNT(*) FROM test2 "
+                    + "WHERE (id, name, d, v) IN (SELECT * FROM test)")) {
+                assertTrue(rs.next());
+                // rows with NULL values are not equal
+                assertEquals(1, rs.getInt(1));
+            }
+            assertEquals(copyOut(conn, "COPY test TO STDOUT"), copyOut(conn, "COPY test2 TO STDOUT"));
+
+            // all rows are rolled back on error
+            try {
+                copyIn(conn, "COPY test FROM STDIN", "8\tx\t\\N\t\\N\n1\ty\t\\N\t\\N\n");
+                fail();
+            } catch (SQLException e) {
+                assertEquals("23505", e.getSQLState());
+            }
+            try {
+                copyIn(conn, "COPY test FROM STDIN", "9\tx\n");
+                fail();
+            } catch (SQLException e) {
+                assertEquals("21S02", e.getSQLState());
+            }
+            try (ResultSet rs = stat.executeQuery("SELECT COUNT(*) FROM test")) {
+                assertTrue(rs.next());
+                assertEquals(7, rs.getInt(1));
+            }
+            try {
+                stat.execute("COPY test FROM '/tmp/test.txt'");
+                fail();
+            } catch (SQLException e) {
+                assertEquals("42001", e.getSQLState());
+            }
+
+            stat.execute("CREATE TABLE test3(id INT PRIMARY KEY, b BYTEA, i INT ARRAY, s VARCHAR ARRAY)");
+            assertEquals(2L, copyIn(conn, "COPY test3 FROM STDIN",
+                    "1\t\\\\x0102ff\t{1,2,NULL}\t{\"a b\",c,\"\\\\\"q\\\\\"\"}\n"
+                    + "2\tab\\\\\\\\\\\\001\t{}\t\\N\n"));
+            try (ResultSet rs = stat.executeQuery("SELECT * FROM test3 ORDER BY id")) {
+                assertTrue(rs.next());
+                assertEquals(new byte[] { 1, 2, (byte) 0xff }, rs.getBytes(2));
+                assertEquals(new Object[] { 1, 2, null }, (Object[]) rs.getArray(3).getArray());
+                assertEquals(new Object[] { "a b", "c", "\"q\"" }, (Object[]) rs.getArray(4).getArray());
+                assertTrue(rs.next());
+                assertEquals(new byte[] { 'a', 'b', '\\', 1 }, rs.getBytes(2));
+                assertEquals(0, ((Object[]) rs.getArray(3).getArray()).length);
+                assertNull(rs.getArray(4));
+                assertFalse(rs.next());
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static long copyIn(Connection conn, String sql, String data) throws Exception {
+        return copyIn(conn, sql, data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long copyIn(Connection conn, String sql, byte[] data) throws Exception {
+        Object copyManager = getCopyManager(conn);
+        try {
+            return (Long) copyManager.getClass().getMethod("copyIn", String.class, InputStream.class)
+                    .invoke(copyManager, sql, new ByteArrayInputStream(data));
+        } catch (InvocationTargetException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    private static String copyOut(Connection conn, String sql) throws Exception {
+        return new String(copyOutBytes(conn, sql), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] copyOutBytes(Connection conn, String sql) throws Exception {
+        Object copyManager = getCopyManager(conn);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            copyManager.getClass().getMethod("copyOut", String.class, OutputStream.class)
+                    .invoke(copyManager, sql, out);
+        } catch (InvocationTargetException e) {
+            throw (Exception) e.getCause();
+        }
+        return out.toByteArray();
+    }
+
+    private static Object getCopyManager(Connection conn) throws Exception {
+        Class<?> pgConnection = Class.forName("org.postgresql.PGConnection");
+        return pgConnection.getMethod("getCopyAPI").invoke(conn.unwrap(pgConnection));
+    }
+
 }
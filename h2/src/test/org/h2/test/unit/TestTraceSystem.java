@@ -14,6 +14,8 @@
 import org.h2.message.TraceSystem;
 import org.h2.store.fs.FileUtils;
 import org.h2.test.TestBase;
+import org.h2.util.IOUtils;
+import org.h2.util.Task;
 
 /**
  * Tests the trace system
@@ -35,6 +37,8 @@ public void test() throws Exception {
         testReadOnly();
         testAdapter();
         testInvalidLevel();
+        testAsyncWriter();
+        testRotation();
     }
 
     private void testAdapter() {
@@ -78,6 +82,63 @@ private void testReadOnly() throws Exception {
         ts.close();
     }
 
+    private void testAsyncWriter() throws Exception {
+        String fileName = getBaseDir() + "/async.trace.db";
+        FileUtils.delete(fileName);
+        TraceSystem ts = new TraceSystem(fileName);
+        ts.setLevelFile(TraceSystem.DEBUG);
+        int threadCount = 4, count = 10_000;
+        Task[] tasks = new Task[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            int id = i;
+            tasks[i] = new Task() {
+                @Override
+                public void call() {
+                    for (int j = 0; j < count; j++) {
+                        ts.getTrace("test").info("info " + id + ' ' + j);
+                    }
+                }
+            }.execute();
+        }
+        for (Task task : tasks) {
+            task.get();
+        }
+        // errors are written immediately
+        ts.getTrace("test").error(null, "error");
+        String content = new String(IOUtils.readBytesAndClose(FileUtils.newInputStream(fileName), -1),
+                StandardCharsets.UTF_8);
+        assertTrue(content.endsWith("test: error" + System.lineSeparator()));
+        ts.close();
+        content = new String(IOUtils.readBytesAndClose(FileUtils.newInputStream(fileName), -1),
+                StandardCharsets.UTF_8);
+        int written = 0;
+        for (int from = 0; (from = content.indexOf("test: info ", from) + 1) > 0;) {
+            written++;
+        }
+        assertEquals(threadCount * count, written + ts.getDroppedRecords());
+        if (ts.getDroppedRecords() > 0) {
+            assertContains(content, ts.getDroppedRecords() + " trace records were dropped");
+        }
+        FileUtils.delete(fileName);
+    }
+
+    private void testRotation() {
+        String fileName = getBaseDir() + "/rotation.trace.db";
+        FileUtils.delete(fileName);
+        FileUtils.delete(fileName + ".old");
+        TraceSystem ts = new TraceSystem(fileName);
+        ts.setLevelFile(TraceSystem.INFO);
+        ts.setMaxFileSize(10_000);
+        for (int i = 0; i < 1_000; i++) {
+            ts.getTrace("test").info("info " + i);
+        }
+        ts.close();
+        assertTrue(FileUtils.exists(fileName + ".old"));
+        assertTrue(FileUtils.size(fileName) <= 10_000);
+        FileUtils.delete(fileName);
+        FileUtils.delete(fileName + ".old");
+    }
+
     private void testInvalidLevel() {
         TraceSystem ts = new TraceSystem(null);
         testInvalidLevel(ts, false, TraceSystem.PARENT - 1);
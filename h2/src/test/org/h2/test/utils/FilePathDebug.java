@@ -29,6 +29,7 @@ public class FilePathDebug extends FilePathWrapper {
 
     private int powerOffCount;
     private boolean trace;
+    private volatile int writeDelay;
 
     /**
      * Register the file system.
@@ -59,6 +60,20 @@ void checkPowerOff() throws IOException {
         throw POWER_OFF;
     }
 
+    /**
+     * Delay a write operation if a write delay is set.
+     */
+    void delayWrite() {
+        int delay = INSTANCE.writeDelay;
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+        }
+    }
+
     @Override
     public void createDirectory() {
         trace(name, "createDirectory");
@@ -228,6 +243,10 @@ public int getPowerOffCount() {
         return powerOffCount;
     }
 
+    public void setWriteDelay(int millis) {
+        INSTANCE.writeDelay = millis;
+    }
+
     public boolean isTrace() {
         return INSTANCE.trace;
     }
@@ -306,6 +325,7 @@ public void force(boolean metaData) throws IOException {
     @Override
     public int write(ByteBuffer src) throws IOException {
         checkPowerOff();
+        debug.delayWrite();
         debug("write", channel.position(), src.position(), src.remaining());
         return channel.write(src);
     }